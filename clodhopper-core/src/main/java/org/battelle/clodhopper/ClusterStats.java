@@ -1,8 +1,10 @@
 package org.battelle.clodhopper;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.battelle.clodhopper.tuple.ColumnarTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
 
@@ -78,7 +80,25 @@ public final class ClusterStats {
             Arrays.fill(result[i], Double.NaN);
         }
         int sz = cluster.getMemberCount();
-        if (sz > 0) {
+        if (sz > 0 && tuples instanceof ColumnarTupleList) {
+            // Scan each column separately, since the values are contiguous.
+            ColumnarTupleList columnar = (ColumnarTupleList) tuples;
+            for (int j = 0; j < tupleLen; j++) {
+                double[] column = columnar.columnValues(j);
+                double sum = 0.0, sumSq = 0.0;
+                for (int i = 0; i < sz; i++) {
+                    double v = column[cluster.getMember(i)];
+                    sum += v;
+                    sumSq += v * v;
+                }
+                double mean = sum / sz;
+                result[j][0] = mean;
+                result[j][1] = (sumSq - mean * sum) / sz;
+            }
+        } else if (sz >= TupleMath.PARALLEL_THRESHOLD) {
+            // Large clusters are split among subtasks on the shared worker pool.
+            result = TupleMath.meanAndVariance(tuples, cluster.getMembers());
+        } else if (sz > 0) {
             double[] buffer = new double[tupleLen];
             double[] sums = new double[tupleLen];
             double[] sumSqs = new double[tupleLen];
@@ -109,24 +129,44 @@ public final class ClusterStats {
      * @return the Bayes Information Criterion.
      */
     public static double computeBIC(final TupleList tuples, final List<Cluster> clusters) {
+        List<ClusterSummary> summaries = new ArrayList<>(clusters.size());
+        for (Cluster c : clusters) {
+            summaries.add(ClusterSummary.of(tuples, c));
+        }
+        return computeBIC(summaries);
+    }
+
+    /**
+     * Computes the Bayes Information Criterion (BIC) for a list of clusters from
+     * their summaries, without reading any tuples. The variance of each cluster is
+     * taken about its mean.
+     *
+     * @param summaries a list containing a <code>ClusterSummary</code> for each cluster.
+     *
+     * @return the Bayes Information Criterion.
+     * 
+     * @since 2.0.1
+     */
+    public static double computeBIC(final List<ClusterSummary> summaries) {
 
         double bic = 0.0;
 
         // Get the number of clusters and the dimensionality.
-        final int K = clusters.size();
-        // Get the dimensionality
-        final int M = tuples.getTupleLength();
+        final int K = summaries.size();
 
         if (K > 0) {
             
+            // Get the dimensionality
+            final int M = summaries.get(0).getDimension();
+
             // Sum of the member counts.
-            final int R = clusters.stream().mapToInt(c -> c.getMemberCount()).sum();
+            final int R = summaries.stream().mapToInt(c -> c.getCount()).sum();
 
             final double logR = Math.log(R);
                    
-            final double LSum = clusters.stream().mapToDouble(c -> {
+            final double LSum = summaries.stream().mapToDouble(c -> {
                 
-                int R_n = c.getMemberCount();
+                int R_n = c.getCount();
 
                 double L = 0.0;
                 
@@ -136,7 +176,7 @@ public final class ClusterStats {
                 if (R_n > K) {
 
                     // Estimate variance
-                    double sigma2 = computeDistortion(tuples, c);
+                    double sigma2 = c.getDistortion();
                     if (sigma2 > 0) {
                         sigma2 /= (R_n - K);
                     }
@@ -166,6 +206,20 @@ public final class ClusterStats {
         return bic;
     }
 
+    /**
+     * Computes the Bayes Information Criterion (BIC) for a single cluster from its
+     * summary.
+     *
+     * @param summary the <code>ClusterSummary</code> of the cluster.
+     *
+     * @return the Bayes Information Criterion.
+     * 
+     * @since 2.0.1
+     */
+    public static double computeBIC(final ClusterSummary summary) {
+        return computeBIC(Arrays.asList(summary));
+    }
+
     /**
      * Computes the Bayes Information Criterion (BIC) for a single
      * <tt>Cluster</tt> object.
@@ -192,44 +246,4 @@ public final class ClusterStats {
         return computeBIC(tuples, Arrays.asList(clusters));
     }
 
-    private static double computeDistortion(final TupleList tuples, final Cluster cluster) {
-        return cluster.getMemberCount() * TupleMath.norm1(computeVariance(tuples, cluster));
-    }
-
-    private static double[] computeVariance(final TupleList tuples, final Cluster cluster) {
-
-        int n = cluster.getMemberCount();
-        double[] center = cluster.getCenter();
-
-        int dim = center.length;
-        double[] variance = new double[dim];
-
-        if (n > 0) {
-
-            double[] sum = new double[dim];
-            double[] buffer = new double[dim];
-            int[] nonNaNCount = new int[dim];
-
-            for (int i = 0; i < n; i++) {
-                tuples.getTuple(cluster.getMember(i), buffer);
-                for (int j = 0; j < dim; j++) {
-                    double d = buffer[j];
-                    if (!Double.isNaN(d)) {
-                        sum[j] += d;
-                        variance[j] += d * d;
-                        nonNaNCount[j]++;
-                    }
-                }
-            }
-
-            for (int i = 0; i < dim; i++) {
-                if (nonNaNCount[i] > 0) {
-                    variance[i] = Math.max(0.0, (variance[i] - center[i] * sum[i]) / nonNaNCount[i]);
-                }
-            }
-        }
-
-        return variance;
-    }
-
 }
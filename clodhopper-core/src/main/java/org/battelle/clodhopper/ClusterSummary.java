@@ -0,0 +1,336 @@
+package org.battelle.clodhopper;
+
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.battelle.clodhopper.util.IntIterator;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * ClusterSummary.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * Sufficient statistics for a set of tuples, such as the members of a cluster:
+ * the number of tuples and, for each dimension, the mean of the values and the sum
+ * of their squared deviations from it. These are updated with Welford's method, and 
+ * summaries are combined with Chan's pairwise formulas, which unlike sums of squares
+ * do not lose precision to cancellation when the values are large relative to their 
+ * spread. The mean, variance and distortion of the set then take O(dimensions)
+ * time to compute instead of a pass over the member tuples. Summaries of disjoint
+ * sets can be merged to summarize their union, and the summary of a subset can be
+ * subtracted to summarize the rest.</p>
+ * <p>
+ * As in the BIC computations of <tt>ClusterStats</tt>, NaNs are excluded from the 
+ * statistics of the dimension in which they occur. Instances are not thread-safe.</p>
+ *
+ * @since 2.0.1
+ */
+public class ClusterSummary {
+
+    private int count;
+    private final double[] means;
+    // The sum of the squared deviations from the mean in each dimension.
+    private final double[] m2s;
+    // The number of non-NaN values in each dimension.
+    private final int[] valueCounts;
+
+    /**
+     * Constructs an empty summary.
+     * 
+     * @param dimension the length of the tuples to be summarized.
+     */
+    public ClusterSummary(final int dimension) {
+        means = new double[dimension];
+        m2s = new double[dimension];
+        valueCounts = new int[dimension];
+    }
+
+    /**
+     * Summarizes the members of a cluster.
+     * 
+     * @param tuples the tuples from which the cluster was generated.
+     * @param cluster the cluster.
+     * 
+     * @return a new summary.
+     */
+    public static ClusterSummary of(final TupleList tuples, final Cluster cluster) {
+        return of(tuples, cluster.getMembers());
+    }
+
+    /**
+     * Summarizes a set of tuples.
+     * 
+     * @param tuples contains the tuples.
+     * @param ids the indexes of the tuples to summarize.
+     * 
+     * @return a new summary.
+     */
+    public static ClusterSummary of(final TupleList tuples, final IntIterator ids) {
+        final int dim = tuples.getTupleLength();
+        ClusterSummary summary = new ClusterSummary(dim);
+        ids.gotoFirst();
+        final int[] idArray = ids.toArray();
+        final int blockTuples = TupleMath.tuplesPerBlock(dim);
+        double[] block = null;
+        for (int k = 0; k < idArray.length; k += blockTuples) {
+            final int n = Math.min(blockTuples, idArray.length - k);
+            block = tuples.getTuples(idArray, k, n, block);
+            for (int i = 0; i < n; i++) {
+                summary.add(block, i * dim);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Summarizes every cluster of a clustering in one sequential pass over the tuples.
+     * 
+     * @param tuples the tuples that were clustered.
+     * @param assignments the index of the cluster to which each tuple is assigned. Tuples
+     *   with negative assignments are ignored.
+     * @param clusterCount the number of clusters.
+     * 
+     * @return an array of length clusterCount containing the summaries.
+     */
+    public static ClusterSummary[] of(final TupleList tuples, final int[] assignments, final int clusterCount) {
+        final int dim = tuples.getTupleLength();
+        final int tupleCount = tuples.getTupleCount();
+        ClusterSummary[] summaries = new ClusterSummary[clusterCount];
+        for (int c = 0; c < clusterCount; c++) {
+            summaries[c] = new ClusterSummary(dim);
+        }
+        final int blockTuples = TupleMath.tuplesPerBlock(dim);
+        double[] block = null;
+        for (int start = 0; start < tupleCount; start += blockTuples) {
+            final int n = Math.min(blockTuples, tupleCount - start);
+            block = tuples.getTuples(start, n, block);
+            for (int i = 0; i < n; i++) {
+                int c = assignments[start + i];
+                if (c >= 0) {
+                    summaries[c].add(block, i * dim);
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Adds a tuple to the summarized set.
+     * 
+     * @param tuple the values of the tuple.
+     */
+    public void add(final double[] tuple) {
+        add(tuple, 0);
+    }
+
+    /**
+     * Adds a tuple to the summarized set.
+     * 
+     * @param values an array containing the values of the tuple.
+     * @param offset the offset of the tuple's first value in the array.
+     */
+    public void add(final double[] values, final int offset) {
+        for (int j = 0; j < means.length; j++) {
+            final double v = values[offset + j];
+            if (!Double.isNaN(v)) {
+                final int n = ++valueCounts[j];
+                final double delta = v - means[j];
+                means[j] += delta / n;
+                m2s[j] += delta * (v - means[j]);
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Removes a tuple previously added to the summarized set.
+     * 
+     * @param tuple the values of the tuple.
+     */
+    public void remove(final double[] tuple) {
+        for (int j = 0; j < means.length; j++) {
+            final double v = tuple[j];
+            if (!Double.isNaN(v)) {
+                final int n = --valueCounts[j];
+                if (n == 0) {
+                    means[j] = 0.0;
+                    m2s[j] = 0.0;
+                } else {
+                    final double delta = v - means[j];
+                    means[j] -= delta / n;
+                    m2s[j] = Math.max(0.0, m2s[j] - delta * (v - means[j]));
+                }
+            }
+        }
+        count--;
+    }
+
+    /**
+     * Adds the statistics of a disjoint set of tuples to this summary, which then
+     * summarizes the union of the two sets.
+     * 
+     * @param other the summary of the other set.
+     * 
+     * @return this summary.
+     */
+    public ClusterSummary merge(final ClusterSummary other) {
+        checkDimension(other);
+        for (int j = 0; j < means.length; j++) {
+            final int n2 = other.valueCounts[j];
+            if (n2 == 0) {
+                continue;
+            }
+            final int n1 = valueCounts[j];
+            final int n = n1 + n2;
+            final double delta = other.means[j] - means[j];
+            means[j] += delta * n2 / n;
+            m2s[j] += other.m2s[j] + delta * delta * ((double) n1 * n2 / n);
+            valueCounts[j] = n;
+        }
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * Removes the statistics of a subset of the summarized tuples from this summary,
+     * which then summarizes the remaining tuples.
+     * 
+     * @param other the summary of the subset.
+     * 
+     * @return this summary.
+     */
+    public ClusterSummary subtract(final ClusterSummary other) {
+        checkDimension(other);
+        for (int j = 0; j < means.length; j++) {
+            final int n2 = other.valueCounts[j];
+            if (n2 == 0) {
+                continue;
+            }
+            final int n = valueCounts[j];
+            final int n1 = n - n2;
+            if (n1 <= 0) {
+                means[j] = 0.0;
+                m2s[j] = 0.0;
+            } else {
+                // The inverse of merge(), solved for the mean and M2 of the remainder.
+                final double mean1 = means[j] + (means[j] - other.means[j]) * n2 / n1;
+                final double delta = other.means[j] - mean1;
+                m2s[j] = Math.max(0.0, m2s[j] - other.m2s[j] - delta * delta * ((double) n1 * n2 / n));
+                means[j] = mean1;
+            }
+            valueCounts[j] = Math.max(n1, 0);
+        }
+        count -= other.count;
+        return this;
+    }
+
+    /**
+     * Returns a copy of this summary.
+     * 
+     * @return a new summary with the same statistics.
+     */
+    public ClusterSummary copy() {
+        return new ClusterSummary(means.length).merge(this);
+    }
+
+    private void checkDimension(final ClusterSummary other) {
+        if (other.means.length != means.length) {
+            throw new IllegalArgumentException(String.format(
+                    "dimension mismatch: %d != %d", other.means.length, means.length));
+        }
+    }
+
+    /**
+     * Get the dimension of the summarized tuples.
+     * 
+     * @return the dimension.
+     */
+    public int getDimension() {
+        return means.length;
+    }
+
+    /**
+     * Get the number of summarized tuples.
+     * 
+     * @return the count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the sum of the squared deviations of the values in a dimension from their mean.
+     * 
+     * @param dim the 0-indexed dimension.
+     * 
+     * @return the sum of squared deviations, which is 0 for a dimension without any values.
+     */
+    public double getSumOfSquaredDeviations(final int dim) {
+        return m2s[dim];
+    }
+
+    /**
+     * Computes the mean of the summarized tuples.
+     * 
+     * @return a new array containing the mean of each dimension, which is NaN for 
+     *   dimensions without any values.
+     */
+    public double[] getMean() {
+        double[] mean = new double[means.length];
+        for (int j = 0; j < means.length; j++) {
+            mean[j] = valueCounts[j] > 0 ? means[j] : Double.NaN;
+        }
+        return mean;
+    }
+
+    /**
+     * Computes the variance of the summarized tuples.
+     * 
+     * @return a new array containing the population variance of each dimension, which
+     *   is 0 for dimensions without any values.
+     */
+    public double[] getVariance() {
+        double[] variance = new double[means.length];
+        for (int j = 0; j < means.length; j++) {
+            final int n = valueCounts[j];
+            if (n > 0) {
+                variance[j] = m2s[j] / n;
+            }
+        }
+        return variance;
+    }
+
+    /**
+     * Computes the distortion of the summarized tuples, the sum of their squared 
+     * Euclidean distances from their mean.
+     * 
+     * @return the distortion.
+     */
+    public double getDistortion() {
+        return count * TupleMath.norm1(getVariance());
+    }
+}
@@ -62,6 +62,32 @@ public class CanberraDistanceMetric implements DistanceMetric {
         return dist;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final double[] block, final int offset, final double[] tuple2) {
+        double dist = 0.0;
+        final int len = tuple2.length;
+        for (int i = 0; i < len; i++) {
+            double c1 = block[offset + i];
+            double c2 = tuple2[i];
+            double denom = Math.abs(c1) + Math.abs(c2);
+            if (denom != 0.0) {
+                dist += Math.abs(c1 - c2) / denom;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean satisfiesTriangleInequality() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -57,6 +57,30 @@ public class ChebyshevDistanceMetric implements DistanceMetric {
         return dist;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final double[] block, final int offset, final double[] tuple2) {
+        double dist = 0.0;
+        final int len = tuple2.length;
+        for (int i = 0; i < len; i++) {
+            double diff = Math.abs(block[offset + i] - tuple2[i]);
+            if (diff > dist) {
+                dist = diff;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean satisfiesTriangleInequality() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
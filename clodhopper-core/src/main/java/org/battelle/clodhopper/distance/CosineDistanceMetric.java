@@ -37,7 +37,7 @@ package org.battelle.clodhopper.distance;
  * @author R. Scarberry
  * @since 1.0
  */
-public class CosineDistanceMetric implements DistanceMetric {
+public class CosineDistanceMetric implements SparseDistanceMetric {
 
     /**
      * {@inheritDoc}
@@ -56,6 +56,55 @@ public class CosineDistanceMetric implements DistanceMetric {
             sumB2 += tuple2[i]*tuple2[i];
         } 
         
+        return cosineDistance(sumAB, sumA2, sumB2);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final double[] block, final int offset, final double[] tuple2) {
+        
+        final int len = tuple2.length;
+        
+        double sumAB = 0;
+        double sumA2 = 0, sumB2 = 0;
+        
+        for (int i = 0; i < len; i++) {
+            final double a = block[offset + i];
+            sumAB += a * tuple2[i];
+            sumA2 += a*a;
+            sumB2 += tuple2[i]*tuple2[i];
+        } 
+        
+        return cosineDistance(sumAB, sumA2, sumB2);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final int[] indexes1, final double[] values1, final int from1, final int to1,
+            final int[] indexes2, final double[] values2, final int from2, final int to2) {
+        return cosineDistance(
+                SparseVectors.dot(indexes1, values1, from1, to1, indexes2, values2, from2, to2),
+                SparseVectors.squaredNorm(values1, from1, to1),
+                SparseVectors.squaredNorm(values2, from2, to2));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final int[] indexes, final double[] values, final int from, final int to,
+            final double[] dense, final double denseSquaredNorm) {
+        return cosineDistance(SparseVectors.dot(indexes, values, from, to, dense),
+                SparseVectors.squaredNorm(values, from, to), denseSquaredNorm);
+    }
+    
+    // Computes the distance from the dot product and squared norms of the tuples.
+    private static double cosineDistance(final double sumAB, double sumA2, double sumB2) {
+        
         sumA2 = Math.sqrt(sumA2);
         sumB2 = Math.sqrt(sumB2);
         
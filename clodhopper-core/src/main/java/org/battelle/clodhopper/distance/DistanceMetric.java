@@ -1,5 +1,7 @@
 package org.battelle.clodhopper.distance;
 
+import java.util.Arrays;
+
 /*=====================================================================
  * 
  *                       CLODHOPPER CLUSTERING API
@@ -49,6 +51,42 @@ public interface DistanceMetric extends Cloneable {
      */
     double distance(double[] tuple1, double[] tuple2);
 
+    /**
+     * Computes the distance between a tuple held in a larger array, such as a block
+     * of tuples returned by <code>TupleList.getTuples()</code>, and a tuple in an
+     * array of its own. The first tuple occupies <code>tuple2.length</code> elements
+     * of <code>block</code>, starting at <code>offset</code>. 
+     * <p>
+     * The default copies the first tuple out of the block and calls 
+     * <code>distance(double[], double[])</code>. The metrics of this package 
+     * override it to read the block in place.</p>
+     *
+     * @param block array containing data for the first tuple.
+     * @param offset the index of the first element of the first tuple in block.
+     * @param tuple2 array containing data for the second tuple.
+     *
+     * @return the distance between the tuples.
+     * 
+     * @since 2.0.1
+     */
+    default double distance(double[] block, int offset, double[] tuple2) {
+        return distance(Arrays.copyOfRange(block, offset, offset + tuple2.length), tuple2);
+    }
+
+    /**
+     * Indicates whether the distances obey the triangle inequality, 
+     * <code>d(a, c) &lt;= d(a, b) + d(b, c)</code>. Clusterers may use bounds
+     * derived from the inequality to skip distance computations, so it should only
+     * return true when the inequality always holds. The default is false.
+     *
+     * @return true if the distances satisfy the triangle inequality.
+     * 
+     * @since 2.0.1
+     */
+    default boolean satisfiesTriangleInequality() {
+        return false;
+    }
+
     /**
      * @return a deep copy of the instance.
      */
@@ -36,7 +36,7 @@ package org.battelle.clodhopper.distance;
  * @since 1.0
  *
  */
-public class EuclideanDistanceMetric implements DistanceMetric {
+public class EuclideanDistanceMetric implements SparseDistanceMetric {
 
     /**
      * {@inheritDoc}
@@ -54,6 +54,64 @@ public class EuclideanDistanceMetric implements DistanceMetric {
         return Math.sqrt(d2);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final double[] block, final int offset, final double[] tuple2) {
+        double d2 = 0;
+        final int len = tuple2.length;
+        for (int i = 0; i < len; i++) {
+            double d = block[offset + i] - tuple2[i];
+            d2 += d * d;
+        }
+        return Math.sqrt(d2);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final int[] indexes1, final double[] values1, final int from1, final int to1,
+            final int[] indexes2, final double[] values2, final int from2, final int to2) {
+        double d2 = 0;
+        int i = from1, j = from2;
+        while (i < to1 || j < to2) {
+            final int c1 = i < to1 ? indexes1[i] : Integer.MAX_VALUE;
+            final int c2 = j < to2 ? indexes2[j] : Integer.MAX_VALUE;
+            double d;
+            if (c1 == c2) {
+                d = values1[i++] - values2[j++];
+            } else if (c1 < c2) {
+                d = values1[i++];
+            } else {
+                d = values2[j++];
+            }
+            d2 += d * d;
+        }
+        return Math.sqrt(d2);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double distance(final int[] indexes, final double[] values, final int from, final int to,
+            final double[] dense, final double denseSquaredNorm) {
+        // |x - y|^2 = |x|^2 - 2x.y + |y|^2, which can come out slightly negative from rounding.
+        final double d2 = SparseVectors.squaredNorm(values, from, to) 
+                - 2.0 * SparseVectors.dot(indexes, values, from, to, dense) + denseSquaredNorm;
+        return d2 > 0.0 ? Math.sqrt(d2) : 0.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean satisfiesTriangleInequality() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -51,6 +51,27 @@ public class ManhattanDistanceMetric implements DistanceMetric {
         return d;
     }
 
+    @Override
+    /**
+     * {@inheritDoc}
+     */
+    public double distance(final double[] block, final int offset, final double[] tuple2) {
+        double d = 0;
+        final int len = tuple2.length;
+        for (int i = 0; i < len; i++) {
+            d += Math.abs(block[offset + i] - tuple2[i]);
+        }
+        return d;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean satisfiesTriangleInequality() {
+        return true;
+    }
+
     @Override
     /**
      * {@inheritDoc}
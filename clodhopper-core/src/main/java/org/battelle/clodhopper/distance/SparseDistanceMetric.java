@@ -0,0 +1,78 @@
+package org.battelle.clodhopper.distance;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * SparseDistanceMetric.java
+ *
+ *===================================================================*/
+/**
+ * A <code>DistanceMetric</code> which can also compute distances from the
+ * non-zero entries of sparse tuples, without expanding them to dense arrays.
+ * A sparse tuple is given as a range <code>[from, to)</code> of a pair of
+ * parallel arrays holding ascending column indexes and the corresponding 
+ * non-zero values, which is how <code>SparseTupleList</code> stores them.
+ *
+ * @since 2.0.1
+ *
+ */
+public interface SparseDistanceMetric extends DistanceMetric {
+
+    /**
+     * Computes the distance between two sparse tuples.
+     * 
+     * @param indexes1 column indexes of the non-zeros of the first tuple.
+     * @param values1 non-zero values of the first tuple.
+     * @param from1 start of the first tuple's entries in indexes1 and values1.
+     * @param to1 end (exclusive) of the first tuple's entries.
+     * @param indexes2 column indexes of the non-zeros of the second tuple.
+     * @param values2 non-zero values of the second tuple.
+     * @param from2 start of the second tuple's entries in indexes2 and values2.
+     * @param to2 end (exclusive) of the second tuple's entries.
+     * 
+     * @return the distance between the tuples.
+     */
+    double distance(int[] indexes1, double[] values1, int from1, int to1,
+            int[] indexes2, double[] values2, int from2, int to2);
+
+    /**
+     * Computes the distance between a sparse tuple and a dense tuple, such as
+     * a cluster center. So that the cost depends only upon the number of 
+     * non-zeros, the caller supplies the squared norm of the dense tuple, which
+     * it can compute once and reuse.
+     * 
+     * @param indexes column indexes of the non-zeros of the sparse tuple.
+     * @param values non-zero values of the sparse tuple.
+     * @param from start of the sparse tuple's entries in indexes and values.
+     * @param to end (exclusive) of the sparse tuple's entries.
+     * @param dense the dense tuple.
+     * @param denseSquaredNorm the sum of the squares of the elements of dense.
+     * 
+     * @return the distance between the tuples.
+     */
+    double distance(int[] indexes, double[] values, int from, int to,
+            double[] dense, double denseSquaredNorm);
+
+}
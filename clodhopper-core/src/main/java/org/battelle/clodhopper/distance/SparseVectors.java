@@ -0,0 +1,76 @@
+package org.battelle.clodhopper.distance;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * SparseVectors.java
+ *
+ *===================================================================*/
+/**
+ * Dot products and norms over sparse tuples, shared by the 
+ * <code>SparseDistanceMetric</code> implementations.
+ *
+ * @since 2.0.1
+ *
+ */
+final class SparseVectors {
+
+    private SparseVectors() {
+    }
+
+    static double dot(final int[] indexes1, final double[] values1, final int from1, final int to1,
+            final int[] indexes2, final double[] values2, final int from2, final int to2) {
+        double sum = 0.0;
+        int i = from1, j = from2;
+        while (i < to1 && j < to2) {
+            final int c1 = indexes1[i], c2 = indexes2[j];
+            if (c1 == c2) {
+                sum += values1[i++] * values2[j++];
+            } else if (c1 < c2) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return sum;
+    }
+
+    static double dot(final int[] indexes, final double[] values, final int from, final int to,
+            final double[] dense) {
+        double sum = 0.0;
+        for (int k = from; k < to; k++) {
+            sum += values[k] * dense[indexes[k]];
+        }
+        return sum;
+    }
+
+    static double squaredNorm(final double[] values, final int from, final int to) {
+        double sum = 0.0;
+        for (int k = from; k < to; k++) {
+            sum += values[k] * values[k];
+        }
+        return sum;
+    }
+}
@@ -35,7 +35,7 @@ package org.battelle.clodhopper.distance;
  * @since 1.0
  *
  */
-public class TanimotoDistanceMetric implements DistanceMetric {
+public class TanimotoDistanceMetric implements SparseDistanceMetric {
 
     @Override
     /**
@@ -55,6 +55,53 @@ public class TanimotoDistanceMetric implements DistanceMetric {
         return sdenom != 0.0 ? 1.0 - snum / sdenom : 0.0;
     }
 
+    @Override
+    /**
+     * {@inheritDoc}
+     */
+    public double distance(final double[] block, final int offset, final double[] tuple2) {
+        final int len = tuple2.length;
+        double snum = 0.0;
+        double sdenom = 0.0;
+        for (int i = 0; i < len; i++) {
+            double x = block[offset + i];
+            double y = tuple2[i];
+            double xy = x * y;
+            snum += xy;
+            sdenom += (x * x + y * y - xy);
+        }
+        return sdenom != 0.0 ? 1.0 - snum / sdenom : 0.0;
+    }
+
+    @Override
+    /**
+     * {@inheritDoc}
+     */
+    public double distance(final int[] indexes1, final double[] values1, final int from1, final int to1,
+            final int[] indexes2, final double[] values2, final int from2, final int to2) {
+        return tanimotoDistance(
+                SparseVectors.dot(indexes1, values1, from1, to1, indexes2, values2, from2, to2),
+                SparseVectors.squaredNorm(values1, from1, to1),
+                SparseVectors.squaredNorm(values2, from2, to2));
+    }
+
+    @Override
+    /**
+     * {@inheritDoc}
+     */
+    public double distance(final int[] indexes, final double[] values, final int from, final int to,
+            final double[] dense, final double denseSquaredNorm) {
+        return tanimotoDistance(SparseVectors.dot(indexes, values, from, to, dense),
+                SparseVectors.squaredNorm(values, from, to), denseSquaredNorm);
+    }
+
+    // The sums over i of x*y, x*x - x*y + y*y are a dot product and squared norms,
+    // so the sparse forms only need those.
+    private static double tanimotoDistance(final double xy, final double x2, final double y2) {
+        final double sdenom = x2 + y2 - xy;
+        return sdenom != 0.0 ? 1.0 - xy / sdenom : 0.0;
+    }
+
     @Override
     /**
      * {@inheritDoc}
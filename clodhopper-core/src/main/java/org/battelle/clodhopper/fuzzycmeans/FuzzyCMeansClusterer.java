@@ -7,13 +7,13 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.battelle.clodhopper.AbstractClusterer;
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
 import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
 import org.battelle.clodhopper.util.ArrayIntIterator;
@@ -216,7 +216,7 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
             }
 
             if (workerThreadCount > 1) {
-                threadPool = Executors.newFixedThreadPool(workerThreadCount);
+                threadPool = params.getExecutor();
             }
 
             this.degreesOfMembership = new double[tupleCount][this.clusterCount];
@@ -272,10 +272,8 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
 
         } finally {
 
-            if (this.threadPool != null) {
-                this.threadPool.shutdownNow();
-                this.threadPool = null;
-            }
+            // The executor is shared, so it's not shut down.
+            this.threadPool = null;
 
             this.domUpdaters = null;
             this.centerUpdaters = null;
@@ -308,7 +306,7 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
             
             ClusterSeeder seeder = params.getClusterSeeder();
 
-            TupleList seeds = seeder.generateSeeds(tuples, clustCount);
+            TupleList seeds = seeder.generateSeeds(tuples, clustCount, params.getExecutor());
 
             this.checkForCancel();
 
@@ -355,7 +353,7 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
 
     private void updateDegreesOfMembership() throws Exception {
         if (this.threadPool != null) {
-            this.threadPool.invokeAll(domUpdaters);
+            SharedWorkerPool.invokeAll(this.threadPool, domUpdaters);
         } else {
             domUpdaters.get(0).call();
         }
@@ -364,7 +362,7 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
     private double calculateError() throws Exception {
 
         if (this.threadPool != null) {
-            this.threadPool.invokeAll(errorCalculators);
+            SharedWorkerPool.invokeAll(this.threadPool, errorCalculators);
         } else {
             errorCalculators.get(0).call();
         }
@@ -380,7 +378,7 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
 
     private void updateClusterCenters() throws Exception {
         if (this.threadPool != null) {
-            this.threadPool.invokeAll(centerUpdaters);
+            SharedWorkerPool.invokeAll(this.threadPool, centerUpdaters);
         } else {
             this.centerUpdaters.get(0).call();
         }
@@ -417,7 +415,7 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
                 int[] members = memList.toArray();
                 if (members.length > 0) {
                     double[] center = TupleMath.average(tuples,
-                            new ArrayIntIterator(members));
+                            new ArrayIntIterator(members), params.getExecutor());
                     clist.add(new Cluster(members, center));
                 }
             }
@@ -443,32 +441,40 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
             final int lim = startTuple + numTuples;
             final int tupleLength = tuples.getTupleLength();
 
-            final double[] buffer = new double[tupleLength];
             final double[] dists = new double[clusterCount];
+            final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+            double[] block = null;
 
-            for (int i = startTuple; i < lim; i++) {
+            for (int blockStart = startTuple; blockStart < lim; blockStart += blockTuples) {
 
-                tuples.getTuple(i, buffer);
+                final int count = Math.min(blockTuples, lim - blockStart);
+                block = tuples.getTuples(blockStart, count, block);
 
-                for (int j = 0; j < clusterCount; j++) {
-                    dists[j] = dm.distance(buffer, clusterCenters[j]);
-                }
+                for (int b = 0; b < count; b++) {
+
+                    final int i = blockStart + b;
+                    final int offset = b * tupleLength;
 
-                for (int j = 0; j < clusterCount; j++) {
+                    for (int j = 0; j < clusterCount; j++) {
+                        dists[j] = dm.distance(block, offset, clusterCenters[j]);
+                    }
+
+                    for (int j = 0; j < clusterCount; j++) {
 
-                    double dist = dists[j];
-                    double denom = 0.0;
+                        double dist = dists[j];
+                        double denom = 0.0;
 
-                    for (int k = 0; k < clusterCount; k++) {
-                        double ratio = 1.0;
-                        if (k != j) {
-                            double dist2 = dists[k];
-                            ratio = dist / dist2;
+                        for (int k = 0; k < clusterCount; k++) {
+                            double ratio = 1.0;
+                            if (k != j) {
+                                double dist2 = dists[k];
+                                ratio = dist / dist2;
+                            }
+                            denom += Math.pow(ratio, fuzzyPower);
                         }
-                        denom += Math.pow(ratio, fuzzyPower);
-                    }
 
-                    degreesOfMembership[i][j] = 1.0 / denom;
+                        degreesOfMembership[i][j] = 1.0 / denom;
+                    }
                 }
             }
 
@@ -498,20 +504,26 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
             final int tupleCount = tuples.getTupleCount();
             final int tupleLength = tuples.getTupleLength();
 
-            double[] buffer = new double[tupleLength];
             double[][] denoms = new double[numClusters][tupleLength];
-
-            for (int i = 0; i < tupleCount; i++) {
-                tuples.getTuple(i, buffer);
-
-                for (int j = startCluster; j < lim; j++) {
-                    double m = degreesOfMembership[i][j];
-                    double f = Math.pow(m, fuzziness);
-                    double[] center = clusterCenters[j];
-                    double[] denom = denoms[j - startCluster];
-                    for (int k = 0; k < tupleLength; k++) {
-                        center[k] += f * buffer[k];
-                        denom[k] += f;
+            final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+            double[] block = null;
+
+            for (int blockStart = 0; blockStart < tupleCount; blockStart += blockTuples) {
+
+                final int count = Math.min(blockTuples, tupleCount - blockStart);
+                block = tuples.getTuples(blockStart, count, block);
+
+                for (int b = 0, pos = 0; b < count; b++, pos += tupleLength) {
+                    final int i = blockStart + b;
+                    for (int j = startCluster; j < lim; j++) {
+                        double m = degreesOfMembership[i][j];
+                        double f = Math.pow(m, fuzziness);
+                        double[] center = clusterCenters[j];
+                        double[] denom = denoms[j - startCluster];
+                        for (int k = 0; k < tupleLength; k++) {
+                            center[k] += f * block[pos + k];
+                            denom[k] += f;
+                        }
                     }
                 }
             }
@@ -551,17 +563,25 @@ public class FuzzyCMeansClusterer extends AbstractClusterer {
             double err = 0.0;
 
             final int tupleLength = tuples.getTupleLength();
-            final double[] buffer = new double[tupleLength];
             final int lim = startTuple + numTuples;
+            final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+            double[] block = null;
 
-            for (int i = startTuple; i < lim; i++) {
-                tuples.getTuple(i, buffer);
+            for (int blockStart = startTuple; blockStart < lim; blockStart += blockTuples) {
 
-                for (int j = 0; j < clusterCount; j++) {
-                    double dist = dm.distance(buffer, clusterCenters[j]);
-                    double m = degreesOfMembership[i][j];
-                    double mult = Math.pow(m, fuzziness);
-                    err += dist * mult;
+                final int count = Math.min(blockTuples, lim - blockStart);
+                block = tuples.getTuples(blockStart, count, block);
+
+                for (int b = 0; b < count; b++) {
+                    final int i = blockStart + b;
+                    final int offset = b * tupleLength;
+
+                    for (int j = 0; j < clusterCount; j++) {
+                        double dist = dm.distance(block, offset, clusterCenters[j]);
+                        double m = degreesOfMembership[i][j];
+                        double mult = Math.pow(m, fuzziness);
+                        err += dist * mult;
+                    }
                 }
             }
 
@@ -1,9 +1,12 @@
 package org.battelle.clodhopper.fuzzycmeans;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
 import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 
 /*=====================================================================
  * 
@@ -54,6 +57,7 @@ public class FuzzyCMeansParams {
     private DistanceMetric distanceMetric;
     private ClusterSeeder clusterSeeder;
     private int workerThreadCount = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor = SharedWorkerPool.get();
 
     /**
      * Constructor
@@ -180,6 +184,31 @@ public class FuzzyCMeansParams {
         this.workerThreadCount = n;
     }
 
+    /**
+     * Get the executor to which concurrent subtasks are submitted.
+     *
+     * @return the executor, which by default is the pool returned by
+     *   <code>SharedWorkerPool.get()</code>.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the executor to which concurrent subtasks are submitted. The executor is
+     * not shut down by the clusterer. If nested clusterings may run on the same executor,
+     * it should be a <code>ForkJoinPool</code> so that waiting subtasks cannot exhaust its
+     * workers.
+     *
+     * @param executor the executor to use.
+     */
+    public void setExecutor(final ExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        this.executor = executor;
+    }
+
     /**
      * Get the distance metric to be used during clustering.
      *
@@ -278,6 +307,11 @@ public class FuzzyCMeansParams {
             return this;
         }
 
+        public Builder executor(ExecutorService executor) {
+            params.setExecutor(executor);
+            return this;
+        }
+
         public FuzzyCMeansParams build() {
             return params;
         }
@@ -8,13 +8,12 @@ import java.util.List;
 import org.battelle.clodhopper.AbstractClusterSplitter;
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.ClusterStats;
-import org.battelle.clodhopper.kmeans.KMeansClusterer;
-import org.battelle.clodhopper.kmeans.KMeansParams;
-import org.battelle.clodhopper.seeding.PreassignedSeeder;
+import org.battelle.clodhopper.ClusterSummary;
+import org.battelle.clodhopper.kmeans.KMeansKernel;
 import org.battelle.clodhopper.tuple.ArrayTupleList;
-import org.battelle.clodhopper.tuple.FilteredTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
+import org.battelle.clodhopper.util.IntervalIntIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +58,12 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
 
     private TupleList tuples;
     private GMeansParams params;
+    // Supplies the working storage for splits.
+    private KMeansKernel.WorkspacePool workspacePool;
+    // The children of the last split of a copied cluster, and the projection of the 
+    // cluster's members onto the line between them, made while the copy was at hand.
+    private List<Cluster> projectedChildren;
+    private double[] projectedData;
 
     /**
      * Constructor
@@ -69,11 +74,30 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
      * @throws NullPointerException if either of the parameters is null.
      */
     public GMeansClusterSplitter(TupleList tuples, GMeansParams params) {
-        if (tuples == null || params == null) {
+        this(tuples, params, new KMeansKernel.WorkspacePool());
+    }
+
+    /**
+     * Constructor which takes the pool of workspaces used for splitting, so 
+     * splitters may share working storage, including the contiguous copies of 
+     * the clusters being split.
+     *
+     * @param tuples container for the data being clustered.
+     * @param params the g-means clustering parameters.
+     * @param workspacePool the pool of workspaces.
+     *
+     * @throws NullPointerException if any of the parameters is null.
+     * 
+     * @since 2.0.1
+     */
+    public GMeansClusterSplitter(TupleList tuples, GMeansParams params, 
+            KMeansKernel.WorkspacePool workspacePool) {
+        if (tuples == null || params == null || workspacePool == null) {
             throw new NullPointerException();
         }
         this.tuples = tuples;
         this.params = params;
+        this.workspacePool = workspacePool;
     }
 
     @Override
@@ -85,8 +109,11 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
      * @param splitClusters the clusters resulting from the split.
      */
     public boolean prefersSplit(Cluster origCluster, List<Cluster> splitClusters) {
-        return !TupleMath.andersonDarlingGaussianTest(projectToLineBetweenChildren(
-                origCluster, splitClusters));
+        double[] data = splitClusters == projectedChildren ? projectedData 
+                : projectToLineBetweenChildren(tuples, origCluster.getMembers().toArray(), splitClusters);
+        projectedChildren = null;
+        projectedData = null;
+        return !TupleMath.andersonDarlingGaussianTest(data);
     }
 
     @Override
@@ -94,20 +121,62 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
      * {@inheritDoc}
      */
     public List<Cluster> performSplit(Cluster cluster) {
-        TupleList seeds = createTwoSeeds(cluster);
-        return runLocalKMeans(cluster, seeds);
+        
+        int[] members = cluster.getMembers().toArray();
+        
+        if (!params.shouldMaterialize(members.length, tuples.getTupleLength())) {
+            TupleList seeds = createTwoSeeds(cluster);
+            return runLocalKMeans(cluster, seeds);
+        }
+        
+        // Copy the members once. The seeds, the local k-means, and the projection for the 
+        // Anderson-Darling test then read the copy, in which tuple i is members[i].
+        KMeansKernel.Workspace workspace = workspacePool.acquire();
+        try {
+            
+            TupleList local = workspace.materialize(tuples, members);
+            
+            ClusterSummary summary = ClusterSummary.of(local, IntervalIntIterator.range(0, members.length));
+            TupleList seeds = createTwoSeeds(summary.getMean(), summary.getVariance());
+            
+            List<Cluster> localChildren = KMeansKernel.cluster(local, null, seeds, params.getDistanceMetric(),
+                    KMeansKernel.DEFAULT_MAX_ITERATIONS, workspace);
+            
+            List<Cluster> children = new ArrayList<Cluster>(localChildren.size());
+            for (Cluster c : localChildren) {
+                int memCount = c.getMemberCount();
+                int[] indexes = new int[memCount];
+                for (int j = 0; j < memCount; j++) {
+                    indexes[j] = members[c.getMember(j)];
+                }
+                children.add(new Cluster(indexes, c.getCenter()));
+            }
+            
+            projectedChildren = children;
+            projectedData = projectToLineBetweenChildren(local, null, children);
+            
+            return children;
+            
+        } catch (RuntimeException e) {
+            LOGGER.error("error splitting cluster", e);
+            return null;
+        } finally {
+            workspacePool.release(workspace);
+        }
     }
 
     /**
      * Projects the data in a cluster to the line connecting its two children's
      * centers.
      * 
-     * @param cluster the parent cluster.
+     * @param source contains the members of the parent cluster.
+     * @param members the indexes of the members in source, or null if source
+     *   contains only the members.
      * @param children the children of the cluster
      * 
      * @return an array containing 2 points defining a line.
      */
-    private double[] projectToLineBetweenChildren(final Cluster cluster,
+    private double[] projectToLineBetweenChildren(final TupleList source, final int[] members,
         final Collection<Cluster> children) {
         
         double[] projectedData = null;
@@ -120,7 +189,7 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
             for (int i = 0; i < dim; i++) {
                 projection[i] = center1[i] - center2[i];
             }
-            projectedData = projectToVector(cluster, projection);
+            projectedData = projectToVector(source, members, projection);
         }
         return projectedData;
     }
@@ -129,18 +198,20 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
      * Projects all data in a cluster to one dimension, via the dot product with
      * a projection vector.
      * 
-     * @param cluster the cluster of concern.
+     * @param source contains the members of the cluster.
+     * @param members the indexes of the members in source, or null if source
+     *   contains only the members.
      * @param projection the projection vector.
      * 
      * @return the one-dimensional projection.
      */
-    private double[] projectToVector(final Cluster cluster, final double[] projection) {
-        int n = cluster.getMemberCount();
-        int dim = tuples.getTupleLength();
+    private double[] projectToVector(final TupleList source, final int[] members, final double[] projection) {
+        int n = members != null ? members.length : source.getTupleCount();
+        int dim = source.getTupleLength();
         double[] projectedData = new double[n];
         double[] coords = new double[dim];
         for (int i = 0; i < n; i++) {
-            tuples.getTuple(cluster.getMember(i), coords);
+            source.getTuple(members != null ? members[i] : i, coords);
             projectedData[i] = TupleMath.dotProduct(coords, projection);
         }
         return projectedData;
@@ -160,14 +231,36 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
 
         double[][] stats = ClusterStats.computeMeanAndVariance(tuples, cluster);
 
+        double[] mean = new double[dim];
+        double[] variance = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            mean[i] = stats[i][0];
+            variance[i] = stats[i][1];
+        }
+
+        return createTwoSeeds(mean, variance);
+    }
+
+    /**
+     * Create two cluster seeds by going +/- one standard deviation from a mean.
+     * 
+     * @param mean the mean of each dimension.
+     * @param variance the variance of each dimension.
+     *
+     * @return TupleList containing two seeds
+     */
+    private static TupleList createTwoSeeds(final double[] mean, final double[] variance) {
+
+        int dim = mean.length;
+
         TupleList seeds = new ArrayTupleList(dim, 2);
 
         double[] seed1 = new double[dim];
         double[] seed2 = new double[dim];
 
         for (int i = 0; i < dim; i++) {
-            double center = stats[i][0];
-            double sdev = Math.sqrt(stats[i][1]);
+            double center = mean[i];
+            double sdev = Math.sqrt(variance[i]);
             seed1[i] = center - sdev;
             seed2[i] = center + sdev;
         }
@@ -187,43 +280,16 @@ public class GMeansClusterSplitter extends AbstractClusterSplitter {
      * @return a list of the resulting clusters.
      */
     protected List<Cluster> runLocalKMeans(final Cluster cluster, final TupleList seeds) {
-
-        FilteredTupleList fcs = new FilteredTupleList(cluster.getMembers().toArray(), tuples);
-
-        KMeansParams kparams = new KMeansParams.Builder()
-                .clusterCount(seeds.getTupleCount())
-                .maxIterations(Integer.MAX_VALUE)
-                .movesGoal(0)
-                .workerThreadCount(1)
-                .replaceEmptyClusters(false)
-                .distanceMetric(params.getDistanceMetric())
-                .clusterSeeder(new PreassignedSeeder(seeds)).
-                build();
-
-        KMeansClusterer kmeans = new KMeansClusterer(fcs, kparams);
-        kmeans.run();
-
-        List<Cluster> clusters;
+        KMeansKernel.Workspace workspace = workspacePool.acquire();
         try {
-            clusters = kmeans.get();
-        } catch (Exception e) {
+            return KMeansKernel.cluster(tuples, cluster.getMembers().toArray(), seeds, params.getDistanceMetric(),
+                    KMeansKernel.DEFAULT_MAX_ITERATIONS, workspace);
+        } catch (RuntimeException e) {
             LOGGER.error("error splitting cluster", e);
             return null;
+        } finally {
+            workspacePool.release(workspace);
         }
-
-        int n = clusters.size();
-        List<Cluster> clusterList = new ArrayList<Cluster>(n);
-        for (int i = 0; i < n; i++) {
-            Cluster c = clusters.get(i);
-            int memCount = c.getMemberCount();
-            int[] indexes = new int[memCount];
-            for (int j = 0; j < memCount; j++) {
-                indexes[j] = fcs.getFilteredIndex(c.getMember(j));
-            }
-            clusterList.add(new Cluster(indexes, c.getCenter()));
-        }
-
-        return clusterList;
     }
 
 }
@@ -85,7 +85,7 @@ public class GMeansClusterer extends KMeansSplittingClusterer {
      */
     protected ClusterSplitter createSplitter(final List<Cluster> clusters,
             Cluster cluster) {
-        return new GMeansClusterSplitter(tuples, (GMeansParams) params);
+        return new GMeansClusterSplitter(tuples, (GMeansParams) params, workspacePool);
     }
 
 }
@@ -1,5 +1,7 @@
 package org.battelle.clodhopper.gmeans;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.kmeans.KMeansSplittingParams;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
@@ -87,6 +89,16 @@ public class GMeansParams extends KMeansSplittingParams {
 			params.setWorkerThreadCount(workerThreadCount);
 			return this;
 		}
+
+		public Builder executor(ExecutorService executor) {
+			params.setExecutor(executor);
+			return this;
+		}
+
+		public Builder materializationLimit(int limit) {
+			params.setMaterializationLimit(limit);
+			return this;
+		}
 		
 		public GMeansParams build() {
 			return params;
@@ -10,6 +10,7 @@ import java.util.List;
 
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.ClusterStats;
+import org.battelle.clodhopper.ClusterSummary;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
 import org.battelle.clodhopper.util.ArrayIntIterator;
@@ -865,20 +866,47 @@ public class Dendrogram implements Externalizable {
         final int tupleCount = tuples.getTupleCount();
 
         double maxBIC = -Double.MAX_VALUE;
-        List<Cluster> bestClusters = null;
+        int bestClusterCount = 0;
+
+        // The clusters for numClusters are the nodes at indexes >= numClusters - 1 whose parents
+        // are at lower indexes, so each added cluster splits the node at index numClusters - 2 into
+        // its children. The clusters are therefore tracked by their summaries, with only the smaller 
+        // child of each split being read and the larger obtained by subtraction.
+        ClusterSummary[] nodeSummaries = new ClusterSummary[nodeIDs.length];
+        List<ClusterSummary> summaries = new ArrayList<ClusterSummary>();
+        nodeSummaries[0] = ClusterSummary.of(tuples, new ArrayIntIterator(getNodeIDs(0)));
+        summaries.add(nodeSummaries[0]);
 
         for (int numClusters = 1; numClusters <= tupleCount; numClusters++) {
-            List<Cluster> clusters = generateClusters(numClusters, tuples);
-            double bic = ClusterStats.computeBIC(tuples, clusters);
+            if (numClusters > 1) {
+                final int parent = numClusters - 2;
+                final int left = leftIndices[parent];
+                final int right = rightIndices[parent];
+                final int smaller = indexSize(left) <= indexSize(right) ? left : right;
+                final int larger = smaller == left ? right : left;
+                ClusterSummary parentSummary = nodeSummaries[parent];
+                nodeSummaries[parent] = null;
+                summaries.remove(parentSummary);
+                nodeSummaries[smaller] = ClusterSummary.of(tuples, new ArrayIntIterator(getNodeIDs(smaller)));
+                nodeSummaries[larger] = parentSummary.subtract(nodeSummaries[smaller]);
+                summaries.add(nodeSummaries[smaller]);
+                summaries.add(nodeSummaries[larger]);
+            }
+            double bic = ClusterStats.computeBIC(summaries);
             if (bic > maxBIC) {
                 maxBIC = bic;
-                bestClusters = clusters;
+                bestClusterCount = numClusters;
             } else if (bic < 0.0 || maxBIC / bic >= 2.0) {
                 break;
             }
         }
 
-        return bestClusters;
+        return bestClusterCount > 0 ? generateClusters(bestClusterCount, tuples) : null;
+    }
+
+    // The number of leaves under the node at an index.
+    private int indexSize(final int index) {
+        return index < sizes.length ? sizes[index] : 1;
     }
 
     public int clustersWithCoherenceExceeding(double coherence) {
@@ -1,7 +1,10 @@
 package org.battelle.clodhopper.hierarchical;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 
 /*=====================================================================
  * 
@@ -97,6 +100,7 @@ public class HierarchicalParams {
     // The number of worker threads to use for performing time-consuming concurrent tasks.
     // If -1, then select based on the number of processors.
     private int workerThreadCount = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor = SharedWorkerPool.get();
 
     // Random generator seed for variants of hierarchical that use it.
     private long randomSeed = System.currentTimeMillis();
@@ -328,6 +332,31 @@ public class HierarchicalParams {
         this.workerThreadCount = n;
     }
 
+    /**
+     * Get the executor to which concurrent subtasks are submitted.
+     *
+     * @return the executor, which by default is the pool returned by
+     *   <code>SharedWorkerPool.get()</code>.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the executor to which concurrent subtasks are submitted. The executor is
+     * not shut down by the clusterer. If nested clusterings may run on the same executor,
+     * it should be a <code>ForkJoinPool</code> so that waiting subtasks cannot exhaust its
+     * workers.
+     *
+     * @param executor the executor to use.
+     */
+    public void setExecutor(final ExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        this.executor = executor;
+    }
+
     /**
      * Get the seed for random number generation.
      *
@@ -361,6 +390,7 @@ public class HierarchicalParams {
         bits = Double.doubleToLongBits(maxCoherenceThreshold);
         hc = 37 * hc + (int) (bits ^ (bits >>> 32));
         hc = 37 * hc + workerThreadCount;
+        hc = 37 * hc + executor.hashCode();
         hc = 37 * hc + (int) (randomSeed ^ (randomSeed >>> 32));
         return hc;
     }
@@ -386,6 +416,7 @@ public class HierarchicalParams {
                     && Double.doubleToLongBits(this.maxCoherenceThreshold) == Double
                     .doubleToLongBits(other.maxCoherenceThreshold)
                     && this.workerThreadCount == other.workerThreadCount
+                    && this.executor == other.executor
                     && this.randomSeed == other.randomSeed;
         }
         return false;
@@ -452,6 +483,11 @@ public class HierarchicalParams {
             return this;
         }
 
+        public Builder executor(ExecutorService executor) {
+            params.setExecutor(executor);
+            return this;
+        }
+
         public HierarchicalParams build() {
             return params;
         }
@@ -28,12 +28,12 @@ import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.battelle.clodhopper.distance.CosineDistanceMetric;
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
 import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.tuple.TupleList;
 
 /*=====================================================================
@@ -163,7 +163,7 @@ public class ReverseNNHierarchicalClusterer extends
 			this.currentDistSize = sz;
 
 			if (this.threadPool != null) {
-				this.threadPool.invokeAll(this.calculators);
+				SharedWorkerPool.invokeAll(this.threadPool, this.calculators);
 			} else {
 				this.calculators.get(0).call();
 			}
@@ -266,7 +266,7 @@ public class ReverseNNHierarchicalClusterer extends
 			assert tuplesSoFar == tupleCount;
 
 			if (threadCount > 1) {
-				this.threadPool = Executors.newFixedThreadPool(threadCount);
+				this.threadPool = params.getExecutor();
 			}
 
 			final double[] tupleBuf1 = new double[tupleLength];
@@ -422,10 +422,8 @@ public class ReverseNNHierarchicalClusterer extends
 
 		} finally {
 
-			if (threadPool != null) {
-				threadPool.shutdownNow();
-				threadPool = null;
-			}
+			// The executor is shared, so it's not shut down.
+			threadPool = null;
 
 			calculators.clear();
 			calculators = null;
@@ -29,13 +29,14 @@ import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.battelle.clodhopper.distance.DistanceCache;
 import org.battelle.clodhopper.distance.DistanceCacheFactory;
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
 
 /*=====================================================================
  * 
@@ -390,7 +391,7 @@ public class StandardHierarchicalClusterer extends AbstractHierarchicalClusterer
             }
 
             if (numWorkers > 1) {
-                this.threadPool = Executors.newFixedThreadPool(numWorkers);
+                this.threadPool = params.getExecutor();
             }
         }
 
@@ -400,12 +401,10 @@ public class StandardHierarchicalClusterer extends AbstractHierarchicalClusterer
             this.cache = null;
         }
 
-		// Called to stop the threads of the thread pool, which would otherwise
-        // keep waiting for another request to do something.
+		// Called to release the executor, which is shared and therefore 
+        // not shut down.
         void shutdown() {
-            if (threadPool != null) {
-                threadPool.shutdownNow();
-            }
+            threadPool = null;
         }
 
         /**
@@ -487,7 +486,7 @@ public class StandardHierarchicalClusterer extends AbstractHierarchicalClusterer
         private boolean work() throws Exception {
             boolean ok = false;
             if (threadPool != null) {
-                threadPool.invokeAll(workers);
+                SharedWorkerPool.invokeAll(threadPool, workers);
                 ok = true;
             } else {
                 // Just call the single worker directly
@@ -508,7 +507,7 @@ public class StandardHierarchicalClusterer extends AbstractHierarchicalClusterer
             private int tupleCount;
 
             // Working buffers
-            private double[] buf1, buf2;
+            private double[] buf1;
 
 			// The coordinate set -- ref. to same object used by everything
             // else.
@@ -542,8 +541,7 @@ public class StandardHierarchicalClusterer extends AbstractHierarchicalClusterer
                 this.tupleCount = tupleCount;
 
                 this.theTuples = tuples;
-                buf1 = new double[theTuples.getTupleCount()];
-                buf2 = new double[buf1.length];
+                buf1 = new double[theTuples.getTupleLength()];
 
                 this.distMetric = params.getDistanceMetric().clone();
             }
@@ -580,42 +578,54 @@ public class StandardHierarchicalClusterer extends AbstractHierarchicalClusterer
 
                     try {
 
+                        final int len = buf1.length;
+                        final int blockTuples = TupleMath.tuplesPerBlock(len);
+                        double[] block = null;
+
                         for (int i = index1Min; i <= index1Max; i++) {
 
                             int jmin = i == index1Min ? index2Min : i + 1;
                             int jmax = i == index1Max ? index2Max : numIndices - 1;
 
-                            for (int j = jmin; j <= jmax; j++) {
+                            theTuples.getTuple(i, buf1);
 
-                                indices1[count] = i;
-                                indices2[count] = j;
+                            for (int blockStart = jmin; blockStart <= jmax; blockStart += blockTuples) {
 
-                                theTuples.getTuple(i, buf1);
-                                theTuples.getTuple(j, buf2);
+                                final int blockCount = Math.min(blockTuples, jmax - blockStart + 1);
+                                block = theTuples.getTuples(blockStart, blockCount, block);
 
-                                double distance = distMetric.distance(buf1, buf2);
+                                for (int b = 0; b < blockCount; b++) {
 
-		            			// These 2 if-blocks initialize the mNNDistances and
-                                // mNNIndices.
-                                if (distance < nnDistances[i]) {
-                                    nnDistances[i] = distance;
-                                    nnIndices[i] = j;
-                                }
-                                if (distance < nnDistances[j]) {
-                                    nnDistances[j] = distance;
-                                    nnIndices[j] = i;
-                                }
+                                    final int j = blockStart + b;
 
-                                distances[count++] = distance;
+                                    indices1[count] = i;
+                                    indices2[count] = j;
 
-                                if (count == setAtATime) {
-                                    cache.setDistances(indices1, indices2, distances);
-                                    count = 0;
-                                }
+                                    double distance = distMetric.distance(block, b * len, buf1);
 
-                                checkForCancel();
+                                    // These 2 if-blocks initialize the mNNDistances and
+                                    // mNNIndices.
+                                    if (distance < nnDistances[i]) {
+                                        nnDistances[i] = distance;
+                                        nnIndices[i] = j;
+                                    }
+                                    if (distance < nnDistances[j]) {
+                                        nnDistances[j] = distance;
+                                        nnIndices[j] = i;
+                                    }
+
+                                    distances[count++] = distance;
+
+                                    if (count == setAtATime) {
+                                        cache.setDistances(indices1, indices2, distances);
+                                        count = 0;
+                                    }
+
+                                    checkForCancel();
+
+                                } // for (int b...
 
-                            } // for (int j...
+                            } // for (int blockStart...
 
                         } // for (int i...
 
@@ -7,11 +7,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.battelle.clodhopper.AbstractClusterer;
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.tuple.TupleKDTree;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
@@ -222,7 +222,7 @@ public class JarvisPatrickClusterer extends AbstractClusterer {
         int[] members = memberList.toArray();
         Arrays.sort(members);
         double[] center = TupleMath.average(tuples, new ArrayIntIterator(
-            members));
+            members), params.getExecutor());
         clusters.add(new Cluster(members, center));
       }
     }
@@ -306,18 +306,10 @@ public class JarvisPatrickClusterer extends AbstractClusterer {
     
     // If more than one worker, execute with a thread pool.
     if (workerCount > 1) {
-        ExecutorService threadPool = null;
-        try {
-          threadPool = Executors.newFixedThreadPool(workerCount);
-          // This will block. However, canceling will cause execution
-          // to stop when the workers post progress.
-          threadPool.invokeAll(workers);
-        } finally {
-          // Be sure to gracefully shutdown the thread pool.
-          if (threadPool != null) {
-            threadPool.shutdown();
-          }
-        }
+        ExecutorService threadPool = params.getExecutor();
+        // This will block. However, canceling will cause execution
+        // to stop when the workers post progress.
+        SharedWorkerPool.invokeAll(threadPool, workers);
     } else {      
       // Only 1 worker, just call directly.
         workers.get(0).call();
@@ -1,7 +1,10 @@
 package org.battelle.clodhopper.jarvispatrick;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 
 /*=====================================================================
  * 
@@ -55,6 +58,7 @@ public class JarvisPatrickParams {
     private DistanceMetric distanceMetric;
     // The number of threads to use for the concurrent parts.
     private int workerThreadCount;
+    private ExecutorService executor = SharedWorkerPool.get();
 
     /**
      * Constructor
@@ -175,6 +179,31 @@ public class JarvisPatrickParams {
         this.workerThreadCount = n;
     }
 
+    /**
+     * Get the executor to which concurrent subtasks are submitted.
+     *
+     * @return the executor, which by default is the pool returned by
+     *   <code>SharedWorkerPool.get()</code>.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the executor to which concurrent subtasks are submitted. The executor is
+     * not shut down by the clusterer. If nested clusterings may run on the same executor,
+     * it should be a <code>ForkJoinPool</code> so that waiting subtasks cannot exhaust its
+     * workers.
+     *
+     * @param executor the executor to use.
+     */
+    public void setExecutor(final ExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        this.executor = executor;
+    }
+
     /**
      * Builder class for JarvisPatrickParams.
      *
@@ -209,6 +238,11 @@ public class JarvisPatrickParams {
             return this;
         }
 
+        public Builder executor(ExecutorService executor) {
+            params.setExecutor(executor);
+            return this;
+        }
+
         public Builder distanceMetric(DistanceMetric distanceMetric) {
             params.setDistanceMetric(distanceMetric);
             return this;
@@ -1,29 +1,42 @@
 package org.battelle.clodhopper.kmeans;
 
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.battelle.clodhopper.AbstractClusterer;
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.ClusterStats;
+import org.battelle.clodhopper.ClusterSummary;
 import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.distance.SparseDistanceMetric;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
+import org.battelle.clodhopper.seeding.PreassignedSeeder;
+import org.battelle.clodhopper.seeding.RandomClusterSeeder;
 import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.task.TaskOutcome;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
 import org.battelle.clodhopper.tuple.FilteredTupleList;
+import org.battelle.clodhopper.tuple.SparseTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
 import org.battelle.clodhopper.util.ArrayIntIterator;
@@ -62,23 +75,96 @@ public class KMeansClusterer extends AbstractClusterer {
 
     private static final int MOVES_TRACKING_WINDOW_LEN = 6;
 
+    // The number of times in a row a center may be updated from the contributions of moved tuples 
+    // before it is recomputed from all its members, which bounds the accumulated rounding error.
+    private static final int MAX_INCREMENTAL_UPDATES = 10;
+    
+    // Center contributions of moved tuples are only accumulated while a worker's moves are no more
+    // than this fraction of its tuples. With more moves, the centers are recomputed from their members.
+    private static final double MAX_INCREMENTAL_MOVES_FRACTION = 0.125;
+
+    // When the clusters whose centers must be recomputed hold at least this fraction of the tuples, 
+    // the centers are recomputed by workers scanning ranges of tuples rather than ranges of clusters.
+    private static final double TUPLE_SCAN_FRACTION = 0.25;
+
+    // Limits the memory used by the per-worker partial sums of the tuple scan.
+    private static final int MAX_PARTIAL_SUM_VALUES = 1 << 24;
+
+    // The number of tuples sampled to estimate the distortion of restarts as they progress.
+    private static final int RESTART_SAMPLE_SIZE = 4096;
+
+    // A restart is abandoned after at least this many iterations, once its estimated distortion 
+    // exceeds that of the best finished restart by this fraction while improving by less than 
+    // the stall fraction per iteration.
+    private static final int RESTART_MIN_ITERATIONS = 5;
+    private static final double RESTART_ABANDON_MARGIN = 0.1;
+    private static final double RESTART_STALL_FRACTION = 0.01;
+
     private TupleList tuples;
     private KMeansParams params;
+    // Non-null when the tuples are sparse and the distance metric can work on the non-zeros,
+    // in which case assignment never expands tuples to dense arrays.
+    private SparseTupleList sparseTuples;
 
     // Temporary cluster objects
     private ProtoCluster[] protoClusters;
     // To keep track of existing cluster assignments
     private int[] clusterAssignments;
+    // The members of all the clusters, grouped by cluster and ascending within each cluster.
+    // Rebuilt from clusterAssignments after each round of assignments.
+    private int[] memberIndexes;
+    // Set during assignments for the clusters that gained or lost members.
+    private boolean[] membershipChanged;
     // Manages the subtasks performed by workers running in parallel
     private SubtaskManager subtaskManager;
 	// To keep track of past states of the protoClusters to prevent getting caught in
     // an infinite loop near the end of clustering when replacing clusters that become empty.
     private Set<ProtoClusterState> pastStates;
+    // Reused by the splits performed when replacing empty clusters.
+    private KMeansKernel.Workspace splitWorkspace;
+
+    // The statistics of the restarts when more than 1 was requested.
+    private List<KMeansRestart> restartStats = Collections.emptyList();
+    // Set on the clusterers performing the restarts. The number of unique tuples, which the
+    // coordinating clusterer has already determined, and the restart being performed.
+    private int knownUniqueTupleCount = -1;
+    private RestartRun restartRun;
 
     // Set to true if clustering does not appear to be converging to detect the case of
     // clustering oscillating between states.
     private boolean oscillationDetectionOn;
 
+    // The assignment strategy in effect, which is STANDARD if the bound-based strategy
+    // requested in the parameters cannot be used with the distance metric.
+    private KMeansParams.AssignmentStrategy assignmentStrategy;
+    // Only allocated for the bound-based strategies. upperBounds[i] is an upper bound on the
+    // distance from tuple i to the center of its cluster. For HAMERLY, lowerBounds[i] is a lower
+    // bound on the distance to every other center. For ELKAN, lowerBounds[i*clusterCount + c] is 
+    // a lower bound on the distance to the center of cluster c. For YINYANG, lowerBounds[i*groupCount + g]
+    // is a lower bound on the distance to every center in group g other than that of the tuple's cluster.
+    private double[] upperBounds;
+    private double[] lowerBounds;
+    // False until the bounds have been set by a pass computing all the distances. Reset when
+    // empty clusters are replaced, since the replacements have no bounds.
+    private boolean boundsValid;
+    // The distance each center moved when the centers were last computed.
+    private double[] centerDrifts;
+    // Half the distance from each center to the nearest center of another cluster.
+    private double[] halfSeparations;
+    // ELKAN only: half the distances between all pairs of centers, clusterCount x clusterCount.
+    private double[] halfCenterDistances;
+    // HAMERLY only: the largest center drift, the cluster having it, and the second largest.
+    private double maxDrift;
+    private int maxDriftCluster;
+    private double secondMaxDrift;
+    // YINYANG only: the clusters of group g are groupedClusters[groupStarts[g]] through 
+    // groupedClusters[groupStarts[g+1] - 1], clusterGroups[c] is the group of cluster c, and 
+    // groupDrifts[g] is the largest drift of the centers in group g.
+    private int[] groupStarts;
+    private int[] groupedClusters;
+    private int[] clusterGroups;
+    private double[] groupDrifts;
+
     public KMeansClusterer(TupleList tuples, KMeansParams params) {
         if (tuples == null || params == null) {
             throw new NullPointerException();
@@ -92,11 +178,26 @@ public class KMeansClusterer extends AbstractClusterer {
         return "k-means";
     }
 
+    /**
+     * Get the statistics of the restarts performed by the last clustering when
+     * <code>KMeansParams.getRestarts()</code> is greater than 1. Restarts are listed
+     * in the order they were started, and the clusters returned are those of the 
+     * restart for which <code>isBest()</code> is true.
+     * 
+     * @return an unmodifiable list, which is empty if clustering has not finished or
+     *   was not a multi-start clustering.
+     */
+    public List<KMeansRestart> getRestarts() {
+        return restartStats;
+    }
+
     @Override
     public List<Cluster> doTask() throws Exception {
 
         List<Cluster> clusters = null;
 
+        restartStats = Collections.emptyList();
+
         try {
 
             final int tupleCount = tuples.getTupleCount();
@@ -113,6 +214,14 @@ public class KMeansClusterer extends AbstractClusterer {
 
             final int maxIterations = params.getMaxIterations();
 
+            if (tuples instanceof SparseTupleList && params.getDistanceMetric() instanceof SparseDistanceMetric) {
+                sparseTuples = (SparseTupleList) tuples;
+            }
+
+            if (params.getRestarts() > 1) {
+                return performRestarts();
+            }
+
             final int progressSteps = 2 * maxIterations;
 
             final ProgressHandler ph = new ProgressHandler(this, progressSteps);
@@ -136,12 +245,13 @@ public class KMeansClusterer extends AbstractClusterer {
                 ProtoCluster cluster = protoClusters[0];
               
                 // Add them all to the protocluster.
-                cluster.ensureCurrentCapacity(tupleCount);
+                memberIndexes = new int[tupleCount];
                 for (int i = 0; i < tupleCount; i++) {
-                    cluster.add(i);
+                    memberIndexes[i] = i;
                 }
+                cluster.setMemberRange(0, tupleCount);
                 
-                cluster.updateCenter(tuples);
+                cluster.updateCenter(tuples, memberIndexes, params.getExecutor());
 
             } else {
 
@@ -149,6 +259,8 @@ public class KMeansClusterer extends AbstractClusterer {
                 final int workerCount = params.getWorkerThreadCount() > 0 ? 
                     params.getWorkerThreadCount() : Runtime.getRuntime().availableProcessors();
 
+                initializeBounds(ph);
+
                 subtaskManager = new SubtaskManager(workerCount);
 
                 // Keeps a running count of the cluster assignments.
@@ -157,6 +269,9 @@ public class KMeansClusterer extends AbstractClusterer {
                 // -1 is a flag indicator meaning unassigned.
                 Arrays.fill(clusterAssignments, -1);
 
+                memberIndexes = new int[tupleCount];
+                membershipChanged = new boolean[actualClusterCount];
+
                 // Make the 1st round of cluster assignments (concurrent operation)
                 makeAssignments();
 
@@ -198,6 +313,11 @@ public class KMeansClusterer extends AbstractClusterer {
                     iteration++;
                     ph.postMessage(String.format("iteration %d: %d moves", iteration, moves));
 
+                    if (restartRun != null && restartRun.isClearlyWorse(protoClusters, iteration)) {
+                        ph.postMessage("abandoned, since clearly worse than a finished restart");
+                        break;
+                    }
+
                     if (oscillationDetectionOn) {
 
                         // Don't let it grow larger than MOVES_TRACKING_WINDOW_LEN.
@@ -245,6 +365,7 @@ public class KMeansClusterer extends AbstractClusterer {
                         
                         if (emptyClustersReplaced) {
 
+                            boundsValid = false;
                             oscillationDetectionOn = false;
                             moveDiffList.clear();
                             moveDiffListIndex = 0;
@@ -265,9 +386,7 @@ public class KMeansClusterer extends AbstractClusterer {
             for (int c = 0; c < actualClusterCount; c++) {
                 ProtoCluster cluster = protoClusters[c];
                 if (!cluster.isEmpty()) {
-                    int[] members = new int[cluster.currentSize];
-                    System.arraycopy(cluster.currentMembers, 0, members, 0, cluster.currentSize);
-                    clusters.add(new Cluster(members, cluster.center));
+                    clusters.add(new Cluster(cluster.getMembers(memberIndexes), cluster.center));
                 } else {
                     emptyClustersDeleted++;
                 }
@@ -286,6 +405,11 @@ public class KMeansClusterer extends AbstractClusterer {
             protoClusters = null;
             pastStates = null;
             clusterAssignments = null;
+            memberIndexes = null;
+            membershipChanged = null;
+            upperBounds = lowerBounds = null;
+            centerDrifts = halfSeparations = halfCenterDistances = groupDrifts = null;
+            groupStarts = groupedClusters = clusterGroups = null;
 
             if (subtaskManager != null) {
                 subtaskManager.shutdown();
@@ -297,6 +421,168 @@ public class KMeansClusterer extends AbstractClusterer {
         return clusters;
     }
 
+    /**
+     * Performs the restarts of a multi-start clustering and returns the clusters of the one with 
+     * the lowest distortion. Each restart is a <tt>KMeansClusterer</tt> given initial centers chosen 
+     * by the cluster seeder, which is run here, one restart at a time, with a seed from its own 
+     * stream. The restarts share the tuples and the unique tuple count, which is determined once.
+     * Up to the worker thread count of restarts run concurrently on the executor, splitting the 
+     * worker threads among them. Because a restart blocks its executor thread while waiting for 
+     * its subtasks, they only run concurrently on a <tt>ForkJoinPool</tt>, whose blocked workers 
+     * execute other tasks; restarts are performed one at a time on other executors.
+     * <p>
+     * Restarts estimate their distortion on a sample of the tuples as they go. A restart still far 
+     * from as good as the best finished one after several iterations, and no longer improving much,
+     * is abandoned, so restarts that run after good ones tend to end early.</p>
+     * 
+     * @return the clusters of the best restart.
+     * 
+     * @throws Exception
+     */
+    private List<Cluster> performRestarts() throws Exception {
+
+        final ProgressHandler ph = new ProgressHandler(this, params.getRestarts());
+        ph.postBegin();
+
+        int clusterCount = params.getClusterCount();
+
+        final int uniqueTupleCount = TupleMath.uniqueTupleCount(tuples, params.getExecutor());
+
+        if (clusterCount > uniqueTupleCount) {
+            ph.postMessage(String.format("reducing requested number of clusters from %d to %d, the number of unique tuples",
+                clusterCount, uniqueTupleCount));
+            clusterCount = uniqueTupleCount;
+        }
+
+        final ClusterSeeder seeder = params.getClusterSeeder();
+        final RandomClusterSeeder randomSeeder = seeder instanceof RandomClusterSeeder ? (RandomClusterSeeder) seeder : null;
+
+        int restartCount = params.getRestarts();
+        if (randomSeeder == null) {
+            ph.postMessage("the cluster seeder is not random, so only 1 restart will be performed");
+            restartCount = 1;
+        }
+
+        final int workerCount = params.getWorkerThreadCount() > 0 ? 
+            params.getWorkerThreadCount() : Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = params.getExecutor();
+        final int concurrentRestarts = executor instanceof ForkJoinPool ? Math.min(restartCount, workerCount) : 1;
+        final int restartWorkerCount = Math.max(1, workerCount / concurrentRestarts);
+
+        // The 1st restart uses the seeder's own seed. The others, and the sample, come from independent streams.
+        // The seeder is shared, so each restart passes its seed rather than setting it on the seeder.
+        final long baseSeed = randomSeeder != null ? randomSeeder.getRandomGeneratorSeed() : 0L;
+        final SplittableRandom seedStream = new SplittableRandom(baseSeed);
+
+        final RestartMonitor monitor = new RestartMonitor(sampleTuples(seedStream.split()));
+
+        final CompletionService<RestartRun> completionService = new ExecutorCompletionService<>(executor);
+        final List<RestartRun> runs = new ArrayList<>(restartCount);
+
+        int completed = 0;
+
+        try {
+
+            while (completed < restartCount) {
+
+                while (runs.size() < restartCount && runs.size() - completed < concurrentRestarts) {
+
+                    final int index = runs.size();
+                    final long seed = index == 0 ? baseSeed : seedStream.nextLong();
+
+                    TupleList seeds = randomSeeder != null ? randomSeeder.generateSeeds(tuples, clusterCount, seed, executor)
+                        : seeder.generateSeeds(tuples, clusterCount, executor);
+
+                    KMeansParams restartParams = new KMeansParams.Builder()
+                        .clusterCount(seeds.getTupleCount())
+                        .maxIterations(params.getMaxIterations())
+                        .movesGoal(params.getMovesGoal())
+                        .workerThreadCount(restartWorkerCount)
+                        .executor(executor)
+                        .replaceEmptyClusters(params.getReplaceEmptyClusters())
+                        .distanceMetric(params.getDistanceMetric().clone())
+                        .clusterSeeder(new PreassignedSeeder(seeds))
+                        .assignmentStrategy(params.getAssignmentStrategy())
+                        .build();
+
+                    KMeansClusterer restart = new KMeansClusterer(tuples, restartParams);
+                    restart.knownUniqueTupleCount = uniqueTupleCount;
+                    restart.restartRun = new RestartRun(index, randomSeeder != null ? seed : 0L, restart, monitor);
+
+                    runs.add(restart.restartRun);
+                    completionService.submit(restart.restartRun);
+                }
+
+                Future<RestartRun> future = completionService.poll(100L, TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    checkForCancel();
+                    continue;
+                }
+
+                RestartRun run = future.get();
+                completed++;
+
+                if (run.clusterer.getTaskOutcome() == TaskOutcome.ERROR) {
+                    finishWithError(String.format("restart %d: %s", run.index, run.clusterer.getErrorMessage()));
+                }
+
+                ph.postMessage(run.toStats(false).toString());
+                ph.postStep();
+            }
+
+        } finally {
+            if (completed < runs.size()) {
+                for (RestartRun run : runs) {
+                    run.clusterer.cancel(true);
+                }
+            }
+        }
+
+        RestartRun best = null;
+        for (RestartRun run : runs) {
+            if (run.clusters != null && (best == null || run.distortion < best.distortion)) {
+                best = run;
+            }
+        }
+
+        if (best == null) {
+            finishWithError("no restart finished");
+        }
+
+        List<KMeansRestart> stats = new ArrayList<>(runs.size());
+        for (RestartRun run : runs) {
+            stats.add(run.toStats(run == best));
+        }
+        restartStats = Collections.unmodifiableList(stats);
+
+        ph.postMessage(String.format("restart %d of %d has the lowest distortion: %f", 
+                best.index, runs.size(), best.distortion));
+        ph.postEnd();
+
+        return best.clusters;
+    }
+
+    /**
+     * Selects the tuples on which restarts estimate their distortion, one from each of
+     * <code>RESTART_SAMPLE_SIZE</code> equal ranges of tuples, or all of them if there are fewer.
+     */
+    private TupleList sampleTuples(SplittableRandom random) {
+        final int tupleCount = tuples.getTupleCount();
+        if (tupleCount <= RESTART_SAMPLE_SIZE) {
+            return tuples;
+        }
+        final int tupleLength = tuples.getTupleLength();
+        final double[] values = new double[RESTART_SAMPLE_SIZE * tupleLength];
+        double[] buffer = new double[tupleLength];
+        for (int i = 0; i < RESTART_SAMPLE_SIZE; i++) {
+            int start = (int) ((long) i * tupleCount / RESTART_SAMPLE_SIZE);
+            int end = (int) ((long) (i + 1) * tupleCount / RESTART_SAMPLE_SIZE);
+            tuples.getTuple(start + random.nextInt(end - start), buffer);
+            System.arraycopy(buffer, 0, values, i * tupleLength, tupleLength);
+        }
+        return new ArrayTupleList(tupleLength, RESTART_SAMPLE_SIZE, values);
+    }
+
     /**
      * Called at the beginning of clustering to choose the initial cluster centers using the cluster seeder.
      * The method may reduce the number of initial clusters below the requested cluster count if too few
@@ -310,7 +596,7 @@ public class KMeansClusterer extends AbstractClusterer {
 
         int clusterCount = params.getClusterCount();
 
-        int uniqueTupleCount = TupleMath.uniqueTupleCount(tuples);
+        int uniqueTupleCount = knownUniqueTupleCount >= 0 ? knownUniqueTupleCount : TupleMath.uniqueTupleCount(tuples, params.getExecutor());
 
         // There is no point in requesting more clusters than there are unique tuples.
         if (clusterCount > uniqueTupleCount) {
@@ -319,7 +605,7 @@ public class KMeansClusterer extends AbstractClusterer {
             clusterCount = uniqueTupleCount;
         }
 
-        TupleList seeds = seeder.generateSeeds(tuples, clusterCount);
+        TupleList seeds = seeder.generateSeeds(tuples, clusterCount, params.getExecutor());
 
         final int tupleLength = seeds.getTupleLength();
         final int seedCount = seeds.getTupleCount();
@@ -335,17 +621,160 @@ public class KMeansClusterer extends AbstractClusterer {
     }
 
     /**
-     * Called every iteration to make cluster assignments. 
-     * @return the number of moves.
+     * Called after the initial centers are chosen to set up the distance bounds if
+     * a bound-based assignment strategy has been requested. The bounds rely on the
+     * triangle inequality, so the standard strategy is used for metrics not satisfying it.
+     * 
+     * @param ph
      */
-    private int makeAssignments() {
-        // First, checkpoint the protoclusters.
-        int clusterCount = protoClusters.length;
+    private void initializeBounds(ProgressHandler ph) {
+
+        assignmentStrategy = params.getAssignmentStrategy();
+
+        if (assignmentStrategy == KMeansParams.AssignmentStrategy.STANDARD) {
+            return;
+        }
+
+        if (!params.getDistanceMetric().satisfiesTriangleInequality()) {
+            ph.postMessage(String.format("%s assignment requires a distance metric satisfying the triangle inequality, "
+                    + "so standard assignment will be used", assignmentStrategy));
+            assignmentStrategy = KMeansParams.AssignmentStrategy.STANDARD;
+            return;
+        }
+
+        final int tupleCount = tuples.getTupleCount();
+        final int clusterCount = protoClusters.length;
+
+        if (assignmentStrategy == KMeansParams.AssignmentStrategy.ELKAN
+                && (long) tupleCount * clusterCount > Integer.MAX_VALUE - 8) {
+            ph.postMessage("too many lower bounds for ELKAN assignment, so HAMERLY assignment will be used");
+            assignmentStrategy = KMeansParams.AssignmentStrategy.HAMERLY;
+        }
+
+        upperBounds = new double[tupleCount];
+        centerDrifts = new double[clusterCount];
+
+        if (assignmentStrategy == KMeansParams.AssignmentStrategy.YINYANG) {
+            // About 10 centers per group, but never so many groups that the bounds overflow an array.
+            int groupCount = Math.min((clusterCount + 9) / 10, Math.max(1, (Integer.MAX_VALUE - 8) / tupleCount));
+            groupCenters(groupCount);
+            lowerBounds = new double[tupleCount * groupDrifts.length];
+            ph.postMessage(String.format("%d centers partitioned into %d groups for YINYANG assignment", 
+                    clusterCount, groupDrifts.length));
+        } else {
+            halfSeparations = new double[clusterCount];
+            if (assignmentStrategy == KMeansParams.AssignmentStrategy.ELKAN) {
+                lowerBounds = new double[tupleCount * clusterCount];
+                halfCenterDistances = new double[clusterCount * clusterCount];
+            } else {
+                lowerBounds = new double[tupleCount];
+            }
+        }
+
+        boundsValid = false;
+    }
+
+    /**
+     * For YINYANG assignment, partitions the initial centers into groups by running a few 
+     * iterations of k-means on the centers themselves. Any partition gives correct assignments,
+     * but grouping nearby centers lets the group bounds skip more of them. Empty groups are dropped.
+     * 
+     * @param groupCount the number of groups to request.
+     */
+    private void groupCenters(int groupCount) {
+
+        final int clusterCount = protoClusters.length;
+        final int len = tuples.getTupleLength();
+
+        // Start from evenly spaced centers, which the seeding has usually spread out.
+        final double[][] groupMeans = new double[groupCount][];
+        for (int g = 0; g < groupCount; g++) {
+            groupMeans[g] = protoClusters[(int) ((long) g * clusterCount / groupCount)].center.clone();
+        }
+
+        final int[] groups = new int[clusterCount];
+        final ExecutorService executor = params.getExecutor();
+        final int taskCount = Math.max(1, Math.min(clusterCount, 4 * SharedWorkerPool.parallelism(executor)));
+
+        for (int iteration = 0; iteration < 5; iteration++) {
+            // The squared euclidean distance serves for grouping, whatever the metric.
+            SharedWorkerPool.forEach(executor, taskCount, t -> {
+                final int end = (int) ((long) clusterCount * (t + 1) / taskCount);
+                for (int c = (int) ((long) clusterCount * t / taskCount); c < end; c++) {
+                    double[] center = protoClusters[c].center;
+                    double min = Double.MAX_VALUE;
+                    int nearest = 0;
+                    for (int g = 0; g < groupCount; g++) {
+                        double[] mean = groupMeans[g];
+                        double d2 = 0.0;
+                        for (int j = 0; j < len; j++) {
+                            double d = center[j] - mean[j];
+                            d2 += d * d;
+                        }
+                        if (d2 < min) {
+                            min = d2;
+                            nearest = g;
+                        }
+                    }
+                    groups[c] = nearest;
+                }
+            });
+            checkForCancel();
+            int[] counts = new int[groupCount];
+            double[][] sums = new double[groupCount][len];
+            for (int c = 0; c < clusterCount; c++) {
+                counts[groups[c]]++;
+                TupleMath.addTo(sums[groups[c]], protoClusters[c].center);
+            }
+            for (int g = 0; g < groupCount; g++) {
+                if (counts[g] > 0) {
+                    TupleMath.divideBy(sums[g], counts[g]);
+                    groupMeans[g] = sums[g];
+                }
+            }
+        }
+
+        // Renumber the non-empty groups and lay out their clusters contiguously by a counting sort.
+        int[] counts = new int[groupCount];
+        for (int c = 0; c < clusterCount; c++) {
+            counts[groups[c]]++;
+        }
+        int[] renumbered = new int[groupCount];
+        int nonEmptyGroups = 0;
+        for (int g = 0; g < groupCount; g++) {
+            renumbered[g] = counts[g] > 0 ? nonEmptyGroups++ : -1;
+        }
+
+        groupStarts = new int[nonEmptyGroups + 1];
+        for (int c = 0; c < clusterCount; c++) {
+            groups[c] = renumbered[groups[c]];
+            groupStarts[groups[c] + 1]++;
+        }
+        for (int g = 0; g < nonEmptyGroups; g++) {
+            groupStarts[g + 1] += groupStarts[g];
+        }
+        groupedClusters = new int[clusterCount];
+        int[] positions = Arrays.copyOf(groupStarts, nonEmptyGroups);
         for (int c = 0; c < clusterCount; c++) {
-            protoClusters[c].checkPoint();
+            groupedClusters[positions[groups[c]]++] = c;
         }
+
+        clusterGroups = groups;
+        groupDrifts = new double[nonEmptyGroups];
+    }
+
+    /**
+     * Called every iteration to make cluster assignments. The workers only record the
+     * assignments, after which the memberships are gathered from them by a counting sort.
+     * @return the number of moves.
+     */
+    private int makeAssignments() {
+        Arrays.fill(membershipChanged, false);
         // Delegate to the subtaskManager to make the assignments in a concurrent fashion.
         subtaskManager.makeAssignments();
+        // Every tuple has been through a pass, so the bounds are now set.
+        boundsValid = upperBounds != null;
+        subtaskManager.gatherMembers();
         return subtaskManager.getMoves();
     }
 
@@ -353,18 +782,111 @@ public class KMeansClusterer extends AbstractClusterer {
      * Computes the cluster centers.
      */
     private void computeCenters() {
-        // First, set the update flags for the protoclusters. This compares the current membership with the previous
-        // membership to determine whether the center needs to be recomputed.
+        // If every assignment worker accumulated the contributions of its moved tuples, the member sums of the 
+        // clusters can be brought up to date by applying them, at a cost proportional to the moves.
+        final boolean incremental = subtaskManager.applyCenterDeltas();
+        // First, set the update flags for the protoclusters. A center only needs to be updated if 
+        // the cluster gained or lost members. Empty clusters keep their centers. Centers not updated
+        // incrementally are recomputed from all their members.
         int clusterCount = protoClusters.length;
         for (int c = 0; c < clusterCount; c++) {
             ProtoCluster cluster = protoClusters[c];
-            if (!cluster.isEmpty()) {
-                cluster.setUpdateFlag();
+            cluster.setUpdateFlag(membershipChanged[c] && !cluster.isEmpty());
+            if (cluster.getUpdateFlag() && incremental && cluster.memberSum != null 
+                    && cluster.incrementalUpdates < MAX_INCREMENTAL_UPDATES) {
+                double[] previousCenter = cluster.center;
+                cluster.updateCenterFromSum();
+                if (centerDrifts != null) {
+                    centerDrifts[c] = drift(previousCenter, cluster.center);
+                }
+                cluster.recompute = false;
+            } else {
+                cluster.recompute = cluster.getUpdateFlag();
             }
-            checkForCancel();
         }
-        // Delegate to the subtaskManager to compute the centers in a concurrent fashion.
+        checkForCancel();
+        // Delegate to the subtaskManager to recompute the other centers in a concurrent fashion.
         subtaskManager.computeCenters();
+        if (groupDrifts != null) {
+            computeGroupDrifts();
+        } else if (upperBounds != null) {
+            computeCenterSeparations();
+        }
+    }
+
+    // The distance a center moved, for the bound-based assignment strategies.
+    private double drift(double[] previousCenter, double[] center) {
+        double drift = params.getDistanceMetric().distance(previousCenter, center);
+        // A NaN drift must not leave the bounds looking tight.
+        return drift >= 0.0 ? drift : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * For YINYANG assignment, finds the largest drift of the centers in each group
+     * after the centers have been updated.
+     */
+    private void computeGroupDrifts() {
+        Arrays.fill(groupDrifts, 0.0);
+        final int clusterCount = protoClusters.length;
+        for (int c = 0; c < clusterCount; c++) {
+            int g = clusterGroups[c];
+            if (centerDrifts[c] > groupDrifts[g]) {
+                groupDrifts[g] = centerDrifts[c];
+            }
+        }
+    }
+
+    /**
+     * For the bound-based assignment strategies, computes the distances between the centers
+     * after they have been updated. Only candidates for assignment are considered, since no
+     * tuple can be assigned to the others.
+     */
+    private void computeCenterSeparations() {
+
+        final int clusterCount = protoClusters.length;
+        final DistanceMetric distMetric = params.getDistanceMetric();
+        final boolean elkan = halfCenterDistances != null;
+
+        Arrays.fill(halfSeparations, Double.MAX_VALUE);
+
+        for (int c1 = 0; c1 < clusterCount; c1++) {
+            ProtoCluster cluster1 = protoClusters[c1];
+            if (!cluster1.isAssignmentCandidate()) {
+                continue;
+            }
+            for (int c2 = c1 + 1; c2 < clusterCount; c2++) {
+                ProtoCluster cluster2 = protoClusters[c2];
+                if (cluster2.isAssignmentCandidate()) {
+                    double halfDist = 0.5 * distMetric.distance(cluster1.center, cluster2.center);
+                    if (elkan) {
+                        halfCenterDistances[c1 * clusterCount + c2] = halfDist;
+                        halfCenterDistances[c2 * clusterCount + c1] = halfDist;
+                    }
+                    if (halfDist < halfSeparations[c1]) {
+                        halfSeparations[c1] = halfDist;
+                    }
+                    if (halfDist < halfSeparations[c2]) {
+                        halfSeparations[c2] = halfDist;
+                    }
+                }
+            }
+            checkForCancel();
+        }
+
+        if (!elkan) {
+            maxDrift = secondMaxDrift = 0.0;
+            maxDriftCluster = -1;
+            for (int c = 0; c < clusterCount; c++) {
+                double drift = centerDrifts[c];
+                if (drift > maxDrift) {
+                    secondMaxDrift = maxDrift;
+                    maxDrift = drift;
+                    maxDriftCluster = c;
+                } else if (drift > secondMaxDrift) {
+                    secondMaxDrift = drift;
+                }
+            }
+        }
     }
 
     /**
@@ -388,7 +910,7 @@ public class KMeansClusterer extends AbstractClusterer {
 
         if (emptyClusterCount > 0) {
 
-            ProtoClusterState currentState = new ProtoClusterState(protoClusters);
+            ProtoClusterState currentState = new ProtoClusterState(protoClusters, memberIndexes);
 
             // Another check to prevent being caught up in an infinite loop in clustering. If empty clusters have been
             // replaced previously then clustering continued another iteration only to arrive at the same state, 
@@ -411,14 +933,16 @@ public class KMeansClusterer extends AbstractClusterer {
             int nonEmptyClusterCount = clusterCount - emptyClusterCount;
 
             // Accumulate the Baye's Information Criterion and indexes of the clusters that are not empty.
+            // The clusters are summarized in a single pass through the tuples using the current assignments.
             final double[] bics = new double[clusterCount];
             int[] indexes = new int[nonEmptyClusterCount];
+            ClusterSummary[] summaries = ClusterSummary.of(tuples, clusterAssignments, clusterCount);
 
             int count = 0;
             for (int i = 0; i < clusterCount; i++) {
                 ProtoCluster cluster = protoClusters[i];
                 if (!cluster.isEmpty()) {
-                    bics[i] = computeProtoClusterBIC(cluster);
+                    bics[i] = ClusterStats.computeBIC(summaries[i]);
                     indexes[count++] = i;
                 }
             }
@@ -439,15 +963,24 @@ public class KMeansClusterer extends AbstractClusterer {
                     if (count < indexes.length) {
                         int splitNdx = indexes[count];
                         ProtoCluster clusterToSplit = protoClusters[splitNdx];
-                        if (clusterToSplit.currentSize > 1) {
+                        if (clusterToSplit.size() > 1) {
 
                             checkForCancel();
 
-                            ProtoCluster[] newClusters = split(clusterToSplit, ph);
+                            List<Cluster> newClusters = split(clusterToSplit, ph);
 
-                            if (newClusters != null && newClusters.length == 2) {
-                                protoClusters[splitNdx] = newClusters[0];
-                                protoClusters[i] = newClusters[1];
+                            if (newClusters != null && newClusters.size() == 2) {
+                                // The split cluster keeps the first half and the empty cluster takes the second.
+                                Cluster second = newClusters.get(1);
+                                for (int j = 0; j < second.getMemberCount(); j++) {
+                                    subtaskManager.reassign(second.getMember(j), i);
+                                }
+                                // Neither has a valid member sum until its center is recomputed.
+                                clusterToSplit.setCenter(newClusters.get(0).getCenter());
+                                clusterToSplit.memberSum = null;
+                                cluster.setCenter(second.getCenter());
+                                cluster.memberSum = null;
+                                membershipChanged[splitNdx] = membershipChanged[i] = true;
                                 replaced = true;
                                 emptyClustersReplaced = true;
                             }
@@ -461,6 +994,10 @@ public class KMeansClusterer extends AbstractClusterer {
                     }
                 }
             }
+
+            if (emptyClustersReplaced) {
+                subtaskManager.gatherMembers();
+            }
         }
 
         return emptyClustersReplaced;
@@ -471,83 +1008,45 @@ public class KMeansClusterer extends AbstractClusterer {
      * 
      * @param cluster
      * @param ph
-     * @return 
+     * @return the clusters, with members that are indexes into the tuples, or null if the split failed.
      */
-    private ProtoCluster[] split(ProtoCluster cluster, ProgressHandler ph) {
+    private List<Cluster> split(ProtoCluster cluster, ProgressHandler ph) {
 
-        int[] memberIndexes = new int[cluster.currentSize];
-        System.arraycopy(cluster.currentMembers, 0, memberIndexes, 0, cluster.currentSize);
+        int[] members = cluster.getMembers(memberIndexes);
 
-        FilteredTupleList filteredTuples = new FilteredTupleList(memberIndexes, tuples);
-
-        ClusterSeeder seeder = params.getClusterSeeder();
-
-        KMeansParams splitterParams = new KMeansParams.Builder().
-                clusterCount(2).
-                workerThreadCount(params.getWorkerThreadCount()).
-                distanceMetric(params.getDistanceMetric()).
-                clusterSeeder(seeder).
-                replaceEmptyClusters(false).build();
-
-        KMeansClusterer splitter = new KMeansClusterer(filteredTuples, splitterParams);
-        splitter.run();
-
-        ProtoCluster[] result = null;
-
-        TaskOutcome splitterOutcome = splitter.getTaskOutcome();
+        try {
 
-        if (splitterOutcome == TaskOutcome.SUCCESS) {
+            TupleList seeds = params.getClusterSeeder().generateSeeds(new FilteredTupleList(members, tuples), 2,
+                params.getExecutor());
 
-            List<Cluster> clusters = null;
-            try {
-                clusters = splitter.get();
-                // Since the result has been verified to be success, neither exception should happen.
-            } catch (InterruptedException e) {
-            } catch (ExecutionException e) {
+            if (splitWorkspace == null) {
+                splitWorkspace = new KMeansKernel.Workspace();
             }
-            int sz = clusters != null ? clusters.size() : 0;
-            result = new ProtoCluster[sz];
-            for (int i = 0; i < sz; i++) {
-                Cluster c = clusters.get(i);
-                int clusterSz = c.getMemberCount();
-                int[] members = new int[clusterSz];
-                for (int j = 0; j < clusterSz; j++) {
-                    // The cluster members have to be mapped back to the indexes of tuples.
-                    members[j] = filteredTuples.getFilteredIndex(c.getMember(j));
-                }
-                result[i] = new ProtoCluster(members, c.getCenter());
-            }
-
-        } else if (splitterOutcome == TaskOutcome.ERROR) {
 
-            String errorMessage = null;
+            return KMeansKernel.cluster(tuples, members, seeds, params.getDistanceMetric(),
+                    KMeansKernel.DEFAULT_MAX_ITERATIONS, splitWorkspace);
 
-            Throwable t = splitter.getError();
+        } catch (RuntimeException e) {
 
-            if (t != null) {
-                errorMessage = t.getMessage();
-                if (errorMessage == null || errorMessage.length() == 0) {
-                    errorMessage = t.getClass().getSimpleName() + " was thrown";
-                }
-            } else {
-                errorMessage = "unknown cause";
+            String errorMessage = e.getMessage();
+            if (errorMessage == null || errorMessage.length() == 0) {
+                errorMessage = e.getClass().getSimpleName() + " was thrown";
             }
 
             ph.postMessage("splitting of cluster failed: " + errorMessage);
         }
 
-        return result;
+        return null;
     }
 
-    private int nearestCluster(int tupleNdx, double[] buffer, DistanceMetric distMetric) {
+    // The values of the tuple start at values[valueOffset].
+    private int nearestCluster(int tupleNdx, double[] values, int valueOffset, DistanceMetric distMetric) {
 
         int nearest = -1;
         double min = Double.MAX_VALUE;
         int lastNearest = clusterAssignments[tupleNdx];
         boolean onlyConsiderChanged = false;
 
-        tuples.getTuple(tupleNdx, buffer);
-
 		// If the last cluster to which the tuple was assigned did not change in the previous
         // iteration, performance is enormously enhanced by only considering the distance to it and
         // to the clusters that changed in the previous iteration.  The clusters that did not change
@@ -560,7 +1059,7 @@ public class KMeansClusterer extends AbstractClusterer {
             if (lastCluster.isAssignmentCandidate() && !lastCluster.getUpdateFlag()) {
                 onlyConsiderChanged = true;
                 nearest = lastNearest;
-                min = distMetric.distance(buffer, lastCluster.center);
+                min = distanceToCenter(tupleNdx, values, valueOffset, lastCluster, distMetric);
             }
 
         }
@@ -570,7 +1069,7 @@ public class KMeansClusterer extends AbstractClusterer {
             ProtoCluster cluster = protoClusters[c];
             if (cluster.isAssignmentCandidate()) {
                 if (!onlyConsiderChanged || cluster.getUpdateFlag()) {
-                    double d = distMetric.distance(buffer, cluster.center);
+                    double d = distanceToCenter(tupleNdx, values, valueOffset, cluster, distMetric);
                     if (d < min) {
                         min = d;
                         nearest = c;
@@ -582,6 +1081,257 @@ public class KMeansClusterer extends AbstractClusterer {
         return nearest;
     }
 
+    // The values of the tuple start at values[valueOffset]. Hamerly's algorithm: the tuple
+    // stays in its cluster if the upper bound on the distance to its center does not exceed the lower
+    // bound on the distance to any other center, or half the distance to the nearest other center.
+    // Otherwise, all the distances are computed.
+    private int nearestClusterHamerly(int tupleNdx, double[] values, int valueOffset, DistanceMetric distMetric) {
+
+        int lastNearest = clusterAssignments[tupleNdx];
+
+        if (boundsValid && lastNearest >= 0 && protoClusters[lastNearest].isAssignmentCandidate()) {
+
+            // Loosen the bounds by how far the centers moved.
+            double upper = upperBounds[tupleNdx] + centerDrifts[lastNearest];
+            double lower = lowerBounds[tupleNdx] - (lastNearest == maxDriftCluster ? secondMaxDrift : maxDrift);
+            lowerBounds[tupleNdx] = lower;
+
+            double bound = Math.max(lower, halfSeparations[lastNearest]);
+            if (upper > bound) {
+                // Tighten the upper bound and try again.
+                upper = distanceToCenter(tupleNdx, values, valueOffset, protoClusters[lastNearest], distMetric);
+            }
+            upperBounds[tupleNdx] = upper;
+
+            if (upper <= bound) {
+                return lastNearest;
+            }
+        }
+
+        int nearest = -1;
+        double min = Double.MAX_VALUE;
+        double secondMin = Double.MAX_VALUE;
+
+        final int clusterCount = protoClusters.length;
+        for (int c = 0; c < clusterCount; c++) {
+            ProtoCluster cluster = protoClusters[c];
+            if (cluster.isAssignmentCandidate()) {
+                double d = distanceToCenter(tupleNdx, values, valueOffset, cluster, distMetric);
+                if (d < min) {
+                    secondMin = min;
+                    min = d;
+                    nearest = c;
+                } else if (d < secondMin) {
+                    secondMin = d;
+                }
+            }
+        }
+
+        upperBounds[tupleNdx] = min;
+        lowerBounds[tupleNdx] = secondMin;
+
+        return nearest;
+    }
+
+    // The values of the tuple start at values[valueOffset]. Elkan's algorithm: the distance to another
+    // center is only computed when both its lower bound and half its distance from the current 
+    // center are less than the upper bound on the distance to the current center.
+    private int nearestClusterElkan(int tupleNdx, double[] values, int valueOffset, DistanceMetric distMetric) {
+
+        final int clusterCount = protoClusters.length;
+        final int offset = tupleNdx * clusterCount;
+
+        int nearest = clusterAssignments[tupleNdx];
+
+        if (!boundsValid || nearest < 0 || !protoClusters[nearest].isAssignmentCandidate()) {
+            nearest = -1;
+            double min = Double.MAX_VALUE;
+            for (int c = 0; c < clusterCount; c++) {
+                ProtoCluster cluster = protoClusters[c];
+                if (cluster.isAssignmentCandidate()) {
+                    double d = distanceToCenter(tupleNdx, values, valueOffset, cluster, distMetric);
+                    lowerBounds[offset + c] = d;
+                    if (d < min) {
+                        min = d;
+                        nearest = c;
+                    }
+                }
+            }
+            upperBounds[tupleNdx] = min;
+            return nearest;
+        }
+
+        // Loosen the bounds by how far the centers moved.
+        double upper = upperBounds[tupleNdx] + centerDrifts[nearest];
+        for (int c = 0; c < clusterCount; c++) {
+            double lower = lowerBounds[offset + c] - centerDrifts[c];
+            lowerBounds[offset + c] = lower > 0.0 ? lower : 0.0;
+        }
+
+        if (upper > halfSeparations[nearest]) {
+            boolean upperIsExact = false;
+            for (int c = 0; c < clusterCount; c++) {
+                if (c == nearest || !protoClusters[c].isAssignmentCandidate()) {
+                    continue;
+                }
+                double bound = Math.max(lowerBounds[offset + c], halfCenterDistances[nearest * clusterCount + c]);
+                if (upper > bound) {
+                    if (!upperIsExact) {
+                        upper = distanceToCenter(tupleNdx, values, valueOffset, protoClusters[nearest], distMetric);
+                        lowerBounds[offset + nearest] = upper;
+                        upperIsExact = true;
+                        if (upper <= bound) {
+                            continue;
+                        }
+                    }
+                    double d = distanceToCenter(tupleNdx, values, valueOffset, protoClusters[c], distMetric);
+                    lowerBounds[offset + c] = d;
+                    if (d < upper) {
+                        upper = d;
+                        nearest = c;
+                    }
+                }
+            }
+        }
+
+        upperBounds[tupleNdx] = upper;
+
+        return nearest;
+    }
+
+    // The values of the tuple start at values[valueOffset]. Yinyang k-means: the tuple stays in its cluster if
+    // the upper bound does not exceed the lowest group bound. Otherwise, groups whose bounds are not below 
+    // the distance to the best center so far are skipped, as are centers in the remaining groups which 
+    // could not have moved close enough. groupMins, groupMinClusters, and groupSecondMins are scratch 
+    // arrays of length groupCount owned by the calling worker.
+    private int nearestClusterYinyang(int tupleNdx, double[] values, int valueOffset, DistanceMetric distMetric,
+            double[] groupMins, int[] groupMinClusters, double[] groupSecondMins) {
+
+        final int groupCount = groupDrifts.length;
+        final int offset = tupleNdx * groupCount;
+
+        int nearest = clusterAssignments[tupleNdx];
+        final boolean boundsUsable = boundsValid && nearest >= 0 && protoClusters[nearest].isAssignmentCandidate();
+
+        double upper = Double.MAX_VALUE;
+
+        if (boundsUsable) {
+
+            // The global filter: loosen the bounds by how far the centers moved.
+            upper = upperBounds[tupleNdx] + centerDrifts[nearest];
+            double globalLower = Double.MAX_VALUE;
+            for (int g = 0; g < groupCount; g++) {
+                globalLower = Math.min(globalLower, lowerBounds[offset + g] - groupDrifts[g]);
+            }
+
+            if (upper > globalLower) {
+                // Tighten the upper bound and try again.
+                upper = distanceToCenter(tupleNdx, values, valueOffset, protoClusters[nearest], distMetric);
+            }
+
+            if (upper <= globalLower) {
+                for (int g = 0; g < groupCount; g++) {
+                    lowerBounds[offset + g] -= groupDrifts[g];
+                }
+                upperBounds[tupleNdx] = upper;
+                return nearest;
+            }
+
+        } else {
+            nearest = -1;
+        }
+
+        // The upper bound is now the exact distance to the previous cluster, if any.
+        final int previous = nearest;
+        final double previousDistance = upper;
+        double best = upper;
+
+        for (int g = 0; g < groupCount; g++) {
+
+            final double previousLower = boundsUsable ? lowerBounds[offset + g] : Double.NEGATIVE_INFINITY;
+
+            // The group filter.
+            if (previousLower - groupDrifts[g] >= best) {
+                // Flags the group as skipped.
+                groupMinClusters[g] = -2;
+                continue;
+            }
+
+            // Track the two smallest of the distances or, for skipped centers, lower bounds on them.
+            double min = Double.MAX_VALUE;
+            double secondMin = Double.MAX_VALUE;
+            int minCluster = -1;
+
+            final int end = groupStarts[g + 1];
+            for (int j = groupStarts[g]; j < end; j++) {
+                final int c = groupedClusters[j];
+                ProtoCluster cluster = protoClusters[c];
+                if (!cluster.isAssignmentCandidate()) {
+                    continue;
+                }
+                double d;
+                if (c == previous) {
+                    d = previousDistance;
+                } else {
+                    // The local filter.
+                    d = previousLower - centerDrifts[c];
+                    if (d < best) {
+                        d = distanceToCenter(tupleNdx, values, valueOffset, cluster, distMetric);
+                        if (d < best) {
+                            best = d;
+                            nearest = c;
+                        }
+                    }
+                }
+                if (d < min) {
+                    secondMin = min;
+                    min = d;
+                    minCluster = c;
+                } else if (d < secondMin) {
+                    secondMin = d;
+                }
+            }
+
+            groupMins[g] = min;
+            groupMinClusters[g] = minCluster;
+            groupSecondMins[g] = secondMin;
+        }
+
+        for (int g = 0; g < groupCount; g++) {
+            if (groupMinClusters[g] == -2) {
+                lowerBounds[offset + g] -= groupDrifts[g];
+            } else {
+                // The bound excludes the center of the cluster to which the tuple is now assigned.
+                lowerBounds[offset + g] = groupMinClusters[g] == nearest ? groupSecondMins[g] : groupMins[g];
+            }
+        }
+
+        // If the tuple left a cluster in a skipped group, that group's bound must now cover its center.
+        if (previous >= 0 && nearest != previous) {
+            int g = clusterGroups[previous];
+            if (groupMinClusters[g] == -2 && previousDistance < lowerBounds[offset + g]) {
+                lowerBounds[offset + g] = previousDistance;
+            }
+        }
+
+        upperBounds[tupleNdx] = best;
+
+        return nearest;
+    }
+
+    // Computes the distance from a tuple to a cluster center. Dense tuples are read in place
+    // from values, starting at valueOffset. For sparse tuples, only the non-zeros are visited 
+    // and values is not used.
+    private double distanceToCenter(int tupleNdx, double[] values, int valueOffset, ProtoCluster cluster, DistanceMetric distMetric) {
+        if (sparseTuples != null) {
+            return ((SparseDistanceMetric) distMetric).distance(
+                    sparseTuples.getColumnIndexes(), sparseTuples.getNonZeroValues(),
+                    sparseTuples.getRowStart(tupleNdx), sparseTuples.getRowEnd(tupleNdx),
+                    cluster.center, cluster.centerSquaredNorm);
+        }
+        return distMetric.distance(values, valueOffset, cluster.center);
+    }
+
     /**
      * Iterates in reverse through the moves made in successive iterations to detect if clustering is
      * oscillating between states.
@@ -655,12 +1405,6 @@ public class KMeansClusterer extends AbstractClusterer {
         return false;
     }
 
-    private double computeProtoClusterBIC(ProtoCluster protoCluster) {
-        int[] membershipCopy = new int[protoCluster.currentSize];
-        System.arraycopy(protoCluster.currentMembers, 0, membershipCopy, 0, protoCluster.currentSize);
-        return ClusterStats.computeBIC(tuples, new Cluster(membershipCopy, protoCluster.center));
-    }
-
     /**
      * SubtaskManager manages the concurrent execution of two phases of K-Means clustering: 
      * 1) making the cluster assignments, and 
@@ -670,6 +1414,8 @@ public class KMeansClusterer extends AbstractClusterer {
 
         private final List<CenterComputationWorker> centerCompWorkers;
         private final List<AssignmentWorker> assignmentWorkers;
+        // Scatter the assignments of the same ranges of tuples as the assignment workers into memberIndexes.
+        private final List<Callable<Void>> memberGatheringWorkers;
 
         // Non-null only if the number of worker threads > 1
         private ExecutorService threadPool;
@@ -704,6 +1450,11 @@ public class KMeansClusterer extends AbstractClusterer {
                 startTuple = endTuple;
             }
 
+            memberGatheringWorkers = new ArrayList<>(assignmentWorkerCount);
+            for (AssignmentWorker worker : assignmentWorkers) {
+                memberGatheringWorkers.add(worker::scatterMembers);
+            }
+
             // Similar logic for the center computation workers.
             final int centerCompWorkerCount = Math.min(workerCount, clusterCount);
             int[] clustersPerCenterCompWorker = new int[centerCompWorkerCount];
@@ -724,24 +1475,22 @@ public class KMeansClusterer extends AbstractClusterer {
 
             // Now create a thread pool if either of the worker counts is > 1.
             if (assignmentWorkerCount > 1 || centerCompWorkerCount > 1) {
-                threadPool = Executors.newFixedThreadPool(Math.max(assignmentWorkerCount, centerCompWorkerCount));
+                threadPool = params.getExecutor();
             }
         }
 
         /**
-         * Shuts down the thread pool if using one.
+         * Releases the executor, which is shared and therefore not shut down.
          */
         private void shutdown() {
-            if (threadPool != null) {
-                threadPool.shutdownNow();
-            }
+            threadPool = null;
         }
 
         private boolean makeAssignments() {
             boolean ok = false;
             if (threadPool != null) {
                 try {
-                    threadPool.invokeAll(assignmentWorkers);
+                    SharedWorkerPool.invokeAll(threadPool, assignmentWorkers);
                     ok = true;
                 } catch (InterruptedException e) {
                     // Normal, if canceled during cluster assignment.
@@ -758,10 +1507,20 @@ public class KMeansClusterer extends AbstractClusterer {
         }
 
         private boolean computeCenters() {
+            final int tupleCount = tuples.getTupleCount();
+            long recomputeMembers = 0L;
+            for (ProtoCluster cluster : protoClusters) {
+                if (cluster.recompute) {
+                    recomputeMembers += cluster.size();
+                }
+            }
+            if (recomputeMembers >= TUPLE_SCAN_FRACTION * tupleCount) {
+                return computeCenterSums();
+            }
             boolean ok = false;
             if (threadPool != null) {
                 try {
-                    threadPool.invokeAll(centerCompWorkers);
+                    SharedWorkerPool.invokeAll(threadPool, centerCompWorkers);
                     ok = true;
                 } catch (InterruptedException e) {
                     // Normal, if canceled during cluster assignment.
@@ -777,6 +1536,153 @@ public class KMeansClusterer extends AbstractClusterer {
             return ok;
         }
 
+        /**
+         * Rebuilds the memberships from the cluster assignments with a counting sort. Each worker has
+         * counted the assignments in its range of tuples, so the ranges of memberIndexes into which 
+         * each worker scatters its tuples are known up front, and the scattering is done concurrently.
+         */
+        private boolean gatherMembers() {
+            final int clusterCount = protoClusters.length;
+            int offset = 0;
+            for (int c = 0; c < clusterCount; c++) {
+                final int start = offset;
+                for (AssignmentWorker worker : assignmentWorkers) {
+                    worker.memberOffsets[c] = offset;
+                    offset += worker.clusterCounts[c];
+                }
+                protoClusters[c].setMemberRange(start, offset - start);
+            }
+            boolean ok = false;
+            if (threadPool != null) {
+                try {
+                    SharedWorkerPool.invokeAll(threadPool, memberGatheringWorkers);
+                    ok = true;
+                } catch (InterruptedException e) {
+                    // Normal, if canceled during cluster assignment.
+                }
+            } else {
+                try {
+                    // Single-threaded, so just call directly.
+                    memberGatheringWorkers.get(0).call();
+                    ok = true;
+                } catch (Exception e) {
+                }
+            }
+            return ok;
+        }
+
+        /**
+         * Recomputes the centers flagged for recomputation from member sums accumulated by workers which 
+         * each scan a range of the tuples, so the work is balanced however the cluster sizes are skewed and
+         * the tuples are read sequentially. Each worker keeps partial sums for only the flagged clusters,
+         * and the partial sums are merged at the end.
+         */
+        private boolean computeCenterSums() {
+
+            final int tupleCount = tuples.getTupleCount();
+            final int tupleLength = tuples.getTupleLength();
+            final int clusterCount = protoClusters.length;
+
+            // Give each flagged cluster a slot in the partial sums.
+            final int[] slots = new int[clusterCount];
+            int slotCount = 0;
+            for (int c = 0; c < clusterCount; c++) {
+                slots[c] = protoClusters[c].recompute ? slotCount++ : -1;
+            }
+
+            final int sumLength = slotCount * tupleLength;
+            final int workerCount = Math.max(1, Math.min(assignmentWorkers.size(), MAX_PARTIAL_SUM_VALUES / sumLength));
+
+            List<CenterSumWorker> workers = new ArrayList<>(workerCount);
+            for (int w = 0; w < workerCount; w++) {
+                workers.add(new CenterSumWorker((int) ((long) tupleCount * w / workerCount),
+                        (int) ((long) tupleCount * (w + 1) / workerCount), slots, sumLength));
+            }
+
+            boolean ok = false;
+            if (threadPool != null && workerCount > 1) {
+                try {
+                    SharedWorkerPool.invokeAll(threadPool, workers);
+                    ok = true;
+                } catch (InterruptedException e) {
+                    // Normal, if canceled during center computation.
+                }
+            } else {
+                try {
+                    workers.get(0).call();
+                    ok = true;
+                } catch (Exception e) {
+                }
+            }
+
+            if (ok) {
+                final double[] sums = workers.get(0).sums;
+                for (int w = 1; w < workerCount; w++) {
+                    TupleMath.addTo(sums, workers.get(w).sums);
+                }
+                for (int c = 0; c < clusterCount; c++) {
+                    ProtoCluster cluster = protoClusters[c];
+                    if (slots[c] >= 0) {
+                        double[] previousCenter = cluster.center;
+                        cluster.setMemberSum(Arrays.copyOfRange(sums, slots[c] * tupleLength, (slots[c] + 1) * tupleLength));
+                        if (centerDrifts != null) {
+                            centerDrifts[c] = drift(previousCenter, cluster.center);
+                        }
+                    } else if (centerDrifts != null && !cluster.getUpdateFlag()) {
+                        centerDrifts[c] = 0.0;
+                    }
+                }
+            }
+
+            return ok;
+        }
+
+        /**
+         * Adds the contributions of the moved tuples accumulated by the assignment workers to the
+         * member sums of the clusters.
+         * 
+         * @return false if any worker had too many moves to accumulate their contributions, in which
+         *   case nothing is applied and the member sums of the changed clusters are discarded.
+         */
+        private boolean applyCenterDeltas() {
+            for (AssignmentWorker worker : assignmentWorkers) {
+                if (worker.centerDeltas == null) {
+                    for (int c = 0; c < protoClusters.length; c++) {
+                        if (membershipChanged[c]) {
+                            protoClusters[c].memberSum = null;
+                        }
+                    }
+                    return false;
+                }
+            }
+            for (AssignmentWorker worker : assignmentWorkers) {
+                TIntObjectIterator<double[]> it = worker.centerDeltas.iterator();
+                while (it.hasNext()) {
+                    it.advance();
+                    double[] memberSum = protoClusters[it.key()].memberSum;
+                    if (memberSum != null) {
+                        TupleMath.addTo(memberSum, it.value());
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Changes the cluster assignment of a tuple outside of the assignment phase, 
+         * keeping the counts used for gathering the memberships consistent.
+         */
+        private void reassign(int tupleNdx, int cluster) {
+            for (AssignmentWorker worker : assignmentWorkers) {
+                if (tupleNdx < worker.endTuple) {
+                    worker.clusterCounts[clusterAssignments[tupleNdx]]--;
+                    worker.clusterCounts[cluster]++;
+                    clusterAssignments[tupleNdx] = cluster;
+                    return;
+                }
+            }
+        }
+
         private int getMoves() {
             // Return the sum of the moves from the individual assignment workers.
             return assignmentWorkers.stream().map(AssignmentWorker::getMoves).reduce(0, (a, b) -> a + b);
@@ -799,10 +1705,13 @@ public class KMeansClusterer extends AbstractClusterer {
         private class CenterComputationWorker implements Callable<Void> {
 
             private int startCluster, endCluster;
+            // Only needed for measuring the center drifts for the bound-based strategies.
+            private DistanceMetric distanceMetric;
 
             private CenterComputationWorker(int startCluster, int endCluster) {
                 this.startCluster = startCluster;
                 this.endCluster = endCluster;
+                this.distanceMetric = params.getDistanceMetric().clone();
             }
 
             public Void call() throws Exception {
@@ -810,9 +1719,83 @@ public class KMeansClusterer extends AbstractClusterer {
                     for (int c = startCluster; c < endCluster; c++) {
                         checkForCancel();
                         ProtoCluster cluster = protoClusters[c];
-                        // No need to recompute the center unless the cluster changed.
-                        if (cluster.getUpdateFlag()) {
-                            cluster.updateCenter(tuples);
+                        // No need to recompute the center unless the cluster changed and 
+                        // its center was not updated incrementally.
+                        if (cluster.recompute) {
+                            double[] previousCenter = cluster.center;
+                            // Already running on the executor, so the average is computed here.
+                            cluster.updateCenter(tuples, memberIndexes, null);
+                            if (centerDrifts != null) {
+                                double drift = distanceMetric.distance(previousCenter, cluster.center);
+                                // A NaN drift must not leave the bounds looking tight.
+                                centerDrifts[c] = drift >= 0.0 ? drift : Double.POSITIVE_INFINITY;
+                            }
+                        } else if (centerDrifts != null && !cluster.getUpdateFlag()) {
+                            centerDrifts[c] = 0.0;
+                        }
+                    }
+                } catch (CancellationException e) {
+                    // Will be detected by the main execution thread.
+                }
+                return null;
+            }
+        }
+
+        /**
+         * The worker class that sums a range of tuples into partial member sums for the clusters whose
+         * centers are being recomputed.
+         */
+        private class CenterSumWorker implements Callable<Void> {
+
+            private int startTuple, endTuple;
+            // The slot of each cluster in sums, or -1 if its center is not being recomputed.
+            private int[] slots;
+            private double[] sums;
+
+            private CenterSumWorker(int startTuple, int endTuple, int[] slots, int sumLength) {
+                this.startTuple = startTuple;
+                this.endTuple = endTuple;
+                this.slots = slots;
+                this.sums = new double[sumLength];
+            }
+
+            @Override
+            public Void call() throws Exception {
+                try {
+                    final int len = tuples.getTupleLength();
+                    if (sparseTuples != null) {
+                        // Only the non-zeros contribute to the sums.
+                        final int[] columnIndexes = sparseTuples.getColumnIndexes();
+                        final double[] values = sparseTuples.getNonZeroValues();
+                        for (int i = startTuple; i < endTuple; i++) {
+                            final int c = clusterAssignments[i];
+                            if (c >= 0 && slots[c] >= 0) {
+                                final int slot = slots[c];
+                                final int offset = slot * len;
+                                final int end = sparseTuples.getRowEnd(i);
+                                for (int k = sparseTuples.getRowStart(i); k < end; k++) {
+                                    sums[offset + columnIndexes[k]] += values[k];
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                    final int blockTuples = TupleMath.tuplesPerBlock(len);
+                    double[] block = null;
+                    for (int blockStart = startTuple; blockStart < endTuple; blockStart += blockTuples) {
+                        checkForCancel();
+                        final int count = Math.min(blockTuples, endTuple - blockStart);
+                        block = tuples.getTuples(blockStart, count, block);
+                        for (int j = 0; j < count; j++) {
+                            final int c = clusterAssignments[blockStart + j];
+                            if (c >= 0 && slots[c] >= 0) {
+                                final int slot = slots[c];
+                                final int offset = slot * len;
+                                final int blockOffset = j * len;
+                                for (int k = 0; k < len; k++) {
+                                    sums[offset + k] += block[blockOffset + k];
+                                }
+                            }
                         }
                     }
                 } catch (CancellationException e) {
@@ -828,17 +1811,35 @@ public class KMeansClusterer extends AbstractClusterer {
         private class AssignmentWorker implements Callable<Void> {
 
             private int startTuple, endTuple;
-            private double[] buffer;
+            private int tupleLength;
+            private double[] block;
             private DistanceMetric distanceMetric;
             private int moves;
             // Only set when oscillationDetectionOn == true.
             private List<Move> movesList;
+            // Scratch arrays for YINYANG assignment.
+            private double[] groupMins, groupSecondMins;
+            private int[] groupMinClusters;
+            // The number of tuples in the range assigned to each cluster, and where in memberIndexes 
+            // the first of them goes when the memberships are gathered.
+            private int[] clusterCounts;
+            private int[] memberOffsets;
+            // The changes to the member sums of the clusters from the tuples which moved. Set to
+            // null when there are too many moves to be worth accumulating.
+            private TIntObjectMap<double[]> centerDeltas;
 
             private AssignmentWorker(int startTuple, int endTuple) {
                 this.startTuple = startTuple;
                 this.endTuple = endTuple;
-                this.buffer = new double[tuples.getTupleLength()];
+                this.tupleLength = tuples.getTupleLength();
                 this.distanceMetric = (DistanceMetric) params.getDistanceMetric().clone();
+                this.clusterCounts = new int[protoClusters.length];
+                this.memberOffsets = new int[protoClusters.length];
+                if (groupDrifts != null) {
+                    groupMins = new double[groupDrifts.length];
+                    groupSecondMins = new double[groupDrifts.length];
+                    groupMinClusters = new int[groupDrifts.length];
+                }
             }
 
             private int getMoves() {
@@ -853,19 +1854,55 @@ public class KMeansClusterer extends AbstractClusterer {
             public Void call() throws Exception {
                 try {
                     moves = 0;
+                    Arrays.fill(clusterCounts, 0);
                     if (oscillationDetectionOn) {
                         movesList = new ArrayList<>();
                     }
-                    for (int i = startTuple; i < endTuple; i++) {
-                        int c = nearestCluster(i, buffer, distanceMetric);
-                        if (c >= 0) {
-                            protoClusters[c].add(i);
-                            if (clusterAssignments[i] != c) {
+                    centerDeltas = new TIntObjectHashMap<>();
+                    final int maxDeltaMoves = (int) (MAX_INCREMENTAL_MOVES_FRACTION * (endTuple - startTuple));
+                    final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+                    for (int blockStart = startTuple; blockStart < endTuple; blockStart += blockTuples) {
+                        final int count = Math.min(blockTuples, endTuple - blockStart);
+                        if (sparseTuples == null) {
+                            block = tuples.getTuples(blockStart, count, block);
+                        }
+                        for (int j = 0; j < count; j++) {
+                            final int i = blockStart + j;
+                            final int offset = j * tupleLength;
+                            int c;
+                            if (upperBounds == null) {
+                                c = nearestCluster(i, block, offset, distanceMetric);
+                            } else if (assignmentStrategy == KMeansParams.AssignmentStrategy.YINYANG) {
+                                c = nearestClusterYinyang(i, block, offset, distanceMetric, 
+                                        groupMins, groupMinClusters, groupSecondMins);
+                            } else if (assignmentStrategy == KMeansParams.AssignmentStrategy.ELKAN) {
+                                c = nearestClusterElkan(i, block, offset, distanceMetric);
+                            } else {
+                                c = nearestClusterHamerly(i, block, offset, distanceMetric);
+                            }
+                            final int previous = clusterAssignments[i];
+                            if (c >= 0 && c != previous) {
                                 if (oscillationDetectionOn) {
-                                    movesList.add(new Move(i, clusterAssignments[i], c));
+                                    movesList.add(new Move(i, previous, c));
+                                }
+                                // Other workers may set the same flags, but only ever to true.
+                                if (previous >= 0) {
+                                    membershipChanged[previous] = true;
                                 }
+                                membershipChanged[c] = true;
                                 clusterAssignments[i] = c;
                                 moves++;
+                                if (centerDeltas != null) {
+                                    if (previous < 0 || moves > maxDeltaMoves) {
+                                        centerDeltas = null;
+                                    } else {
+                                        accumulateDelta(i, offset, previous, -1.0);
+                                        accumulateDelta(i, offset, c, 1.0);
+                                    }
+                                }
+                            }
+                            if (clusterAssignments[i] >= 0) {
+                                clusterCounts[clusterAssignments[i]]++;
                             }
                         }
                     }
@@ -874,92 +1911,121 @@ public class KMeansClusterer extends AbstractClusterer {
                 }
                 return null;
             }
+
+            // Adds the values of a tuple, times sign, to the change in a cluster's member sum. For
+            // dense tuples, the values start at block[offset].
+            private void accumulateDelta(int tupleNdx, int offset, int cluster, double sign) {
+                double[] delta = centerDeltas.get(cluster);
+                if (delta == null) {
+                    delta = new double[tupleLength];
+                    centerDeltas.put(cluster, delta);
+                }
+                if (sparseTuples != null) {
+                    final int[] columnIndexes = sparseTuples.getColumnIndexes();
+                    final double[] values = sparseTuples.getNonZeroValues();
+                    final int end = sparseTuples.getRowEnd(tupleNdx);
+                    for (int k = sparseTuples.getRowStart(tupleNdx); k < end; k++) {
+                        delta[columnIndexes[k]] += sign * values[k];
+                    }
+                } else {
+                    for (int k = 0; k < delta.length; k++) {
+                        delta[k] += sign * block[offset + k];
+                    }
+                }
+            }
+
+            // Places the tuples of the range into memberIndexes at the offsets set up by gatherMembers().
+            private Void scatterMembers() {
+                for (int i = startTuple; i < endTuple; i++) {
+                    final int c = clusterAssignments[i];
+                    if (c >= 0) {
+                        memberIndexes[memberOffsets[c]++] = i;
+                    }
+                }
+                return null;
+            }
         }
     }
 
     private static class ProtoCluster {
 
-        private int[] previousMembers;
-
-        private int[] currentMembers;
-        private int currentSize;
+        // The members are memberIndexes[memberStart] through memberIndexes[memberStart + memberCount - 1].
+        private int memberStart;
+        private int memberCount;
 
         private double[] center;
+        // Sum of the squares of the center's elements, used for sparse distances.
+        private double centerSquaredNorm;
         private boolean updateFlag;
+        // Set when the center must be recomputed from all the members.
+        private boolean recompute;
+
+        // The sum of the members, kept up to date with the contributions of moved tuples, or null 
+        // if not known. incrementalUpdates counts the updates of the center since it was last recomputed.
+        private double[] memberSum;
+        private int incrementalUpdates;
 
         private boolean assignmentCandidate = true;
 
         private ProtoCluster(double[] center) {
-            this.center = (double[]) center.clone();
+            setCenter((double[]) center.clone());
         }
 
-        private ProtoCluster(int[] members, double[] center) {
-            this.currentMembers = (int[]) members.clone();
-            this.center = (double[]) center.clone();
+        private void setCenter(double[] center) {
+            this.center = center;
+            this.centerSquaredNorm = TupleMath.dotProduct(center, center);
         }
 
         private int size() {
-            return currentSize;
+            return memberCount;
+        }
+
+        private void setMemberRange(int memberStart, int memberCount) {
+            this.memberStart = memberStart;
+            this.memberCount = memberCount;
+        }
+
+        private int[] getMembers(int[] memberIndexes) {
+            return Arrays.copyOfRange(memberIndexes, memberStart, memberStart + memberCount);
         }
 
-        private int[] getMembers() {
-            int[] result = new int[currentSize];
-            if (currentSize > 0) {
-                System.arraycopy(currentMembers, 0, result, 0, currentSize);
+        private void updateCenter(TupleList tuples, int[] memberIndexes, ExecutorService executor) {
+            setCenter(TupleMath.average(tuples, new ArrayIntIterator(memberIndexes, memberStart, memberStart + memberCount),
+                    executor));
+            memberSum = new double[center.length];
+            for (int i = 0; i < center.length; i++) {
+                memberSum[i] = center[i] * memberCount;
             }
-            return result;
+            incrementalUpdates = 0;
         }
 
-	    // This method must be synchronized, since it will be called from multiple threads by
-        // the AssignmentWorkers.
-        private synchronized void add(int newMember) {
-            ensureCurrentCapacity(currentSize + 1);
-            currentMembers[currentSize++] = newMember;
+        private void setMemberSum(double[] memberSum) {
+            this.memberSum = memberSum;
+            double[] newCenter = memberSum.clone();
+            TupleMath.divideBy(newCenter, memberCount);
+            setCenter(newCenter);
+            incrementalUpdates = 0;
         }
 
-        private void updateCenter(TupleList tuples) {
-            // Other code assumes currentMembers is sorted.  This is a good spot to place the sort.
-            trimToSizeAndSort();
-            this.center = TupleMath.average(tuples, new ArrayIntIterator(currentMembers));
+        private void updateCenterFromSum() {
+            double[] newCenter = memberSum.clone();
+            TupleMath.divideBy(newCenter, memberCount);
+            setCenter(newCenter);
+            incrementalUpdates++;
         }
 
         private boolean isEmpty() {
-            return currentSize == 0;
+            return memberCount == 0;
         }
 
-        private void setUpdateFlag() {
-            boolean sameAsPrevious = true;
-            int previousSize = previousMembers != null ? previousMembers.length : 0;
-            if (currentSize != previousSize) {
-                sameAsPrevious = false;
-            } else {
-                for (int i = 0; i < currentSize; i++) {
-                    if (previousMembers[i] != currentMembers[i]) {
-                        sameAsPrevious = false;
-                        break;
-                    }
-                }
-            }
-            updateFlag = !sameAsPrevious;
+        private void setUpdateFlag(boolean b) {
+            updateFlag = b;
         }
 
         private boolean getUpdateFlag() {
             return updateFlag;
         }
 
-        /**
-         * Called before each round of new cluster assignments, so it can be detected 
-         * whether or not the cluster changed during the iteration.
-         */
-        private void checkPoint() {
-            previousMembers = new int[currentSize];
-            if (currentSize > 0) {
-                System.arraycopy(currentMembers, 0, previousMembers, 0, currentSize);
-                currentMembers = null;
-                currentSize = 0;
-            }
-        }
-
         private boolean isAssignmentCandidate() {
             return assignmentCandidate;
         }
@@ -968,40 +2034,6 @@ public class KMeansClusterer extends AbstractClusterer {
             assignmentCandidate = b;
         }
 
-        /**
-         * Reduce the length of currentMembers to currentSize and sort the 
-         * indexes contained therein.
-         */
-        private void trimToSizeAndSort() {
-            if (currentMembers == null || currentMembers.length != currentSize) {
-                int[] temp = new int[currentSize];
-                if (currentMembers != null) {
-                    System.arraycopy(currentMembers, 0, temp, 0, currentSize);
-                }
-                Arrays.sort(temp);
-                currentMembers = temp;
-            }
-        }
-
-        /**
-         * Ensure the currentMembers array is at least capacity in length.
-         * Called before adding a new tuple index to the protocluster.
-         */
-        private void ensureCurrentCapacity(int capacity) {
-            int currentCapacity = currentMembers != null ? currentMembers.length : 0;
-            if (currentCapacity < capacity) {
-                int newCapacity = Math.max(7, 2 * currentCapacity);
-                if (newCapacity < capacity) {
-                    newCapacity = capacity;
-                }
-                int[] temp = new int[newCapacity];
-                if (currentCapacity > 0) {
-                    System.arraycopy(currentMembers, 0, temp, 0, currentCapacity);
-                }
-                currentMembers = temp;
-            }
-        }
-
     }
 
     private static class ProtoClusterState {
@@ -1009,7 +2041,7 @@ public class KMeansClusterer extends AbstractClusterer {
         private int[] members;
         private int[] sizes;
 
-        private ProtoClusterState(final ProtoCluster[] protoClusters) {
+        private ProtoClusterState(final ProtoCluster[] protoClusters, final int[] memberIndexes) {
 
             final int sz = protoClusters.length;
             int totalMemberCount = 0;
@@ -1017,18 +2049,18 @@ public class KMeansClusterer extends AbstractClusterer {
             int[] clusterIndexes = new int[sz];
             for (int i = 0; i < sz; i++) {
                 clusterIndexes[i] = i;
-                totalMemberCount += protoClusters[i].currentSize;
+                totalMemberCount += protoClusters[i].memberCount;
             }
 
-            // This assumes the membership of the protoclusters is sorted.
+            // This relies on the membership of the protoclusters being sorted.
             //
             Sorting.quickSort(clusterIndexes, (n1, n2) -> {
 
                     ProtoCluster c1 = protoClusters[n1];
                     ProtoCluster c2 = protoClusters[n2];
 
-                    int min1 = c1.isEmpty() ? Integer.MAX_VALUE : c1.currentMembers[0];
-                    int min2 = c2.isEmpty() ? Integer.MAX_VALUE : c2.currentMembers[0];
+                    int min1 = c1.isEmpty() ? Integer.MAX_VALUE : memberIndexes[c1.memberStart];
+                    int min2 = c2.isEmpty() ? Integer.MAX_VALUE : memberIndexes[c2.memberStart];
 
                     return min1 < min2 ? -1 : min1 > min2 ? 1 : 0;
                 }
@@ -1041,10 +2073,10 @@ public class KMeansClusterer extends AbstractClusterer {
             for (int i = 0; i < sz; i++) {
                 int ndx = clusterIndexes[i];
                 ProtoCluster cluster = protoClusters[ndx];
-                int clusterSz = cluster.currentSize;
+                int clusterSz = cluster.memberCount;
                 sizes[i] = clusterSz;
                 if (clusterSz > 0) {
-                    System.arraycopy(cluster.currentMembers, 0, members, offset, clusterSz);
+                    System.arraycopy(memberIndexes, cluster.memberStart, members, offset, clusterSz);
                     offset += clusterSz;
                 }
             }
@@ -1090,6 +2122,127 @@ public class KMeansClusterer extends AbstractClusterer {
         }
     }
 
+    // Shared by the restarts of a multi-start clustering. The restarts estimate their distortion on 
+    // the same sample of the tuples, so the estimates are comparable, and compare them with the 
+    // lowest estimate from the final centers of the finished restarts.
+    private static class RestartMonitor {
+
+        private final TupleList sample;
+        private double bestFinishedCost = Double.POSITIVE_INFINITY;
+
+        RestartMonitor(TupleList sample) {
+            this.sample = sample;
+        }
+
+        double sampleCost(List<double[]> centers, DistanceMetric distanceMetric) {
+            final int sampleCount = sample.getTupleCount();
+            final int centerCount = centers.size();
+            double[] buffer = new double[sample.getTupleLength()];
+            double cost = 0.0;
+            for (int i = 0; i < sampleCount; i++) {
+                sample.getTuple(i, buffer);
+                double min = Double.MAX_VALUE;
+                for (int c = 0; c < centerCount; c++) {
+                    double d = distanceMetric.distance(buffer, centers.get(c));
+                    if (d < min) {
+                        min = d;
+                    }
+                }
+                cost += min * min;
+            }
+            return cost;
+        }
+
+        synchronized double getBestFinishedCost() {
+            return bestFinishedCost;
+        }
+
+        synchronized void finished(double cost) {
+            if (cost < bestFinishedCost) {
+                bestFinishedCost = cost;
+            }
+        }
+    }
+
+    // One restart of a multi-start clustering, which runs the clusterer performing it.
+    private static class RestartRun implements Callable<RestartRun> {
+
+        private final int index;
+        private final long seed;
+        private final KMeansClusterer clusterer;
+        private final RestartMonitor monitor;
+        // Used only by the thread running the clusterer.
+        private final DistanceMetric distanceMetric;
+
+        private int iterations;
+        private boolean abandoned;
+        private double lastSampleCost = Double.NaN;
+        // Set if the restart finishes without being abandoned.
+        private List<Cluster> clusters;
+        private double distortion = Double.NaN;
+
+        RestartRun(int index, long seed, KMeansClusterer clusterer, RestartMonitor monitor) {
+            this.index = index;
+            this.seed = seed;
+            this.clusterer = clusterer;
+            this.monitor = monitor;
+            this.distanceMetric = clusterer.params.getDistanceMetric().clone();
+        }
+
+        @Override
+        public RestartRun call() {
+            clusterer.run();
+            if (!abandoned && clusterer.getTaskOutcome() == TaskOutcome.SUCCESS) {
+                clusters = clusterer.getClusters();
+                List<double[]> centers = new ArrayList<>(clusters.size());
+                double[] buffer = new double[clusterer.tuples.getTupleLength()];
+                distortion = 0.0;
+                for (Cluster cluster : clusters) {
+                    double[] center = cluster.getCenter();
+                    centers.add(center);
+                    final int memberCount = cluster.getMemberCount();
+                    for (int i = 0; i < memberCount; i++) {
+                        double d = distanceMetric.distance(clusterer.tuples.getTuple(cluster.getMember(i), buffer), center);
+                        distortion += d * d;
+                    }
+                }
+                monitor.finished(monitor.sampleCost(centers, distanceMetric));
+            }
+            return this;
+        }
+
+        // Called by the clusterer after each iteration. The sample cost is only computed once a restart 
+        // has finished, so the first restarts to run pay nothing for the checks.
+        boolean isClearlyWorse(ProtoCluster[] protoClusters, int iteration) {
+            iterations = iteration;
+            if (iteration < RESTART_MIN_ITERATIONS) {
+                return false;
+            }
+            double bestCost = monitor.getBestFinishedCost();
+            if (bestCost == Double.POSITIVE_INFINITY) {
+                return false;
+            }
+            List<double[]> centers = new ArrayList<>(protoClusters.length);
+            for (ProtoCluster cluster : protoClusters) {
+                if (!cluster.isEmpty()) {
+                    centers.add(cluster.center);
+                }
+            }
+            double cost = monitor.sampleCost(centers, distanceMetric);
+            double previousCost = lastSampleCost;
+            lastSampleCost = cost;
+            // False until there is a previous cost, since comparisons with NaN are false.
+            abandoned = cost > bestCost * (1.0 + RESTART_ABANDON_MARGIN) 
+                    && previousCost - cost < RESTART_STALL_FRACTION * cost;
+            return abandoned;
+        }
+
+        KMeansRestart toStats(boolean best) {
+            return new KMeansRestart(index, seed, iterations, clusters != null ? clusters.size() : 0, 
+                    distortion, abandoned, best);
+        }
+    }
+
     // Class used in detecting oscillations near the end of clustering, say from a few
     // tuples hopping from one cluster to another then back again.  This is a very rare
     // occurence that I've only seen when using cosine distances.
@@ -0,0 +1,278 @@
+package org.battelle.clodhopper.kmeans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * KMeansKernel.java
+ *
+ *===================================================================*/
+/**
+ * <p>A lightweight, single-threaded k-means that clusters a subset of the tuples of a 
+ * <tt>TupleList</tt> given by an array of member indexes, starting from caller-supplied seeds.
+ * It is intended for the many small splits performed by the splitting clusterers and by
+ * the replacement of empty clusters, where running a full <tt>KMeansClusterer</tt> 
+ * costs more in task bookkeeping, thread management, and index translation than the 
+ * clustering itself.</p>
+ * <p>Each iteration reads the member tuples once, in blocks, assigning each to its nearest
+ * center while accumulating the sums for the new centers. A tuple only changes cluster
+ * when another center is strictly closer, so the iterations cannot cycle. Clustering stops
+ * when no tuples move or the iteration limit is reached. Working arrays are kept in a
+ * <tt>Workspace</tt> which may be reused across calls by the same thread.</p>
+ * <p>A workspace can also hold a contiguous copy of the member tuples, made with one gather 
+ * pass by <code>materialize</code>. Splitters over file-backed tuples use it so the 
+ * iterations of a split, and the tests that follow it, read memory instead of making 
+ * random reads in member order. Workspaces are shared among splitters through a 
+ * <tt>WorkspacePool</tt>.</p>
+ * 
+ * @since 2.0.1
+ */
+public final class KMeansKernel {
+
+    /**
+     * The iteration limit used by the splitters.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+    private KMeansKernel() {
+    }
+
+    /**
+     * Reusable working storage for <code>cluster</code>. A workspace grows as needed and
+     * must not be used by more than one thread at a time.
+     */
+    public static final class Workspace {
+
+        private int[] assignments = new int[0];
+        private int[] counts = new int[0];
+        private double[][] centers = new double[0][];
+        private double[][] sums = new double[0][];
+        private double[] block;
+        private double[] materialized;
+
+        private void ensureCapacity(final int memberCount, final int clusterCount, final int tupleLength) {
+            if (assignments.length < memberCount) {
+                assignments = new int[memberCount];
+            }
+            if (counts.length < clusterCount) {
+                counts = new int[clusterCount];
+            }
+            if (centers.length < clusterCount || (clusterCount > 0 && centers[0].length != tupleLength)) {
+                centers = new double[clusterCount][tupleLength];
+                sums = new double[clusterCount][tupleLength];
+            }
+            int blockLength = TupleMath.tuplesPerBlock(tupleLength) * tupleLength;
+            if (block == null || block.length < blockLength) {
+                block = new double[blockLength];
+            }
+        }
+
+        /**
+         * Copies tuples into contiguous storage owned by this workspace, in the order given.
+         * The storage is reused, so the returned list is only valid until the next call.
+         * 
+         * @param tuples the source tuples.
+         * @param members the indexes of the tuples to copy.
+         * 
+         * @return a list whose tuple i is the tuple members[i] of the source.
+         */
+        public TupleList materialize(final TupleList tuples, final int[] members) {
+            final int tupleLength = tuples.getTupleLength();
+            final int valueCount = members.length * tupleLength;
+            if (materialized == null || materialized.length < valueCount) {
+                materialized = new double[valueCount];
+            }
+            materialized = tuples.getTuples(members, 0, members.length, materialized);
+            return new ArrayTupleList(tupleLength, members.length, materialized);
+        }
+    }
+
+    /**
+     * A thread-safe pool of workspaces, so that splitters created for each cluster 
+     * reuse the storage of those that came before them.
+     */
+    public static final class WorkspacePool {
+
+        private final ConcurrentLinkedQueue<Workspace> idle = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Takes a workspace from the pool, creating one if none are idle.
+         * 
+         * @return the workspace, which should be returned with <code>release</code> when done.
+         */
+        public Workspace acquire() {
+            Workspace workspace = idle.poll();
+            return workspace != null ? workspace : new Workspace();
+        }
+
+        /**
+         * Returns a workspace to the pool.
+         * 
+         * @param workspace a workspace obtained from <code>acquire</code>.
+         */
+        public void release(final Workspace workspace) {
+            idle.offer(workspace);
+        }
+    }
+
+    /**
+     * Clusters a subset of tuples.
+     * 
+     * @param tuples the tuples.
+     * @param members the indexes of the tuples to cluster, or null to cluster all of them.
+     * @param seeds the initial cluster centers.
+     * @param distanceMetric the distance metric, which is cloned so the caller's instance 
+     *   may be shared.
+     * @param maxIterations the maximum number of iterations.
+     * @param workspace the working storage.
+     * 
+     * @return the nonempty clusters, with members that are indexes into tuples in the order 
+     *   in which they appear in members, and centers that are the means of their members.
+     *   
+     * @throws IllegalArgumentException if the seeds and tuples differ in length or 
+     *   maxIterations is less than 1.
+     */
+    public static List<Cluster> cluster(final TupleList tuples, final int[] members, final TupleList seeds,
+            final DistanceMetric distanceMetric, final int maxIterations, final Workspace workspace) {
+
+        final int tupleLength = tuples.getTupleLength();
+        final int memberCount = members != null ? members.length : tuples.getTupleCount();
+        final int clusterCount = seeds.getTupleCount();
+
+        if (seeds.getTupleLength() != tupleLength) {
+            throw new IllegalArgumentException(String.format("seed length %d != tuple length %d",
+                    seeds.getTupleLength(), tupleLength));
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("max iterations must be greater than 0");
+        }
+
+        workspace.ensureCapacity(memberCount, clusterCount, tupleLength);
+
+        final int[] assignments = workspace.assignments;
+        final int[] counts = workspace.counts;
+        final double[][] centers = workspace.centers;
+        final double[][] sums = workspace.sums;
+        final DistanceMetric metric = distanceMetric.clone();
+
+        Arrays.fill(assignments, 0, memberCount, -1);
+        for (int c = 0; c < clusterCount; c++) {
+            seeds.getTuple(c, centers[c]);
+        }
+
+        final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+        int iteration = 0;
+        int moves;
+
+        do {
+
+            Arrays.fill(counts, 0, clusterCount, 0);
+            for (int c = 0; c < clusterCount; c++) {
+                Arrays.fill(sums[c], 0.0);
+            }
+
+            moves = 0;
+
+            for (int start = 0; start < memberCount; start += blockTuples) {
+                final int count = Math.min(blockTuples, memberCount - start);
+                final double[] block = members != null ? tuples.getTuples(members, start, count, workspace.block)
+                        : tuples.getTuples(start, count, workspace.block);
+                for (int i = 0; i < count; i++) {
+                    final int offset = i * tupleLength;
+                    final int current = assignments[start + i];
+                    int nearest = current;
+                    double min = current >= 0 ? metric.distance(block, offset, centers[current]) : Double.MAX_VALUE;
+                    for (int c = 0; c < clusterCount; c++) {
+                        if (c != current) {
+                            double d = metric.distance(block, offset, centers[c]);
+                            if (d < min) {
+                                min = d;
+                                nearest = c;
+                            }
+                        }
+                    }
+                    if (nearest < 0) {
+                        // Only possible if every distance is NaN.
+                        nearest = 0;
+                    }
+                    if (nearest != current) {
+                        assignments[start + i] = nearest;
+                        moves++;
+                    }
+                    counts[nearest]++;
+                    final double[] sum = sums[nearest];
+                    for (int j = 0; j < tupleLength; j++) {
+                        sum[j] += block[offset + j];
+                    }
+                }
+            }
+
+            // Empty clusters keep their centers.
+            for (int c = 0; c < clusterCount; c++) {
+                final int n = counts[c];
+                if (n > 0) {
+                    final double[] center = centers[c];
+                    final double[] sum = sums[c];
+                    for (int j = 0; j < tupleLength; j++) {
+                        center[j] = sum[j] / n;
+                    }
+                }
+            }
+
+            iteration++;
+
+        } while (moves > 0 && iteration < maxIterations);
+
+        // Gather the members of each cluster, preserving their order.
+        final int[][] clusterMembers = new int[clusterCount][];
+        for (int c = 0; c < clusterCount; c++) {
+            clusterMembers[c] = new int[counts[c]];
+        }
+        Arrays.fill(counts, 0, clusterCount, 0);
+        for (int i = 0; i < memberCount; i++) {
+            final int c = assignments[i];
+            clusterMembers[c][counts[c]++] = members != null ? members[i] : i;
+        }
+
+        List<Cluster> clusters = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            if (counts[c] > 0) {
+                clusters.add(new Cluster(clusterMembers[c], centers[c].clone()));
+            }
+        }
+
+        return clusters;
+    }
+}
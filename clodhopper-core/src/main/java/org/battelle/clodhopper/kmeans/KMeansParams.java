@@ -1,9 +1,12 @@
 package org.battelle.clodhopper.kmeans;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
 import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 
 /*=====================================================================
  * 
@@ -36,13 +39,54 @@ import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
 
 public class KMeansParams {
 
+	/**
+	 * Strategies for making the cluster assignments in each iteration. All of them
+	 * produce the same assignments, except that when a tuple is equally distant from 
+	 * two or more centers, which of them it is assigned to may differ, and so may the
+	 * clusterings that follow from it. The bound-based strategies maintain bounds on the 
+	 * distances from each tuple to the cluster centers, so they can skip distance 
+	 * computations that cannot change an assignment. They are only applied when the 
+	 * distance metric satisfies the triangle inequality; otherwise STANDARD is used.
+	 */
+	public enum AssignmentStrategy {
+		
+		/**
+		 * Computes the distances from a tuple to its last cluster and to every 
+		 * cluster whose center moved in the previous iteration.
+		 */
+		STANDARD,
+		/**
+		 * Hamerly's algorithm, which keeps an upper bound on the distance from each tuple
+		 * to its own center and a single lower bound on the distance to every other center.
+		 * Needs little memory and does well when the tuple length is small to moderate.
+		 */
+		HAMERLY,
+		/**
+		 * Elkan's algorithm, which keeps an upper bound and one lower bound per center for 
+		 * each tuple, along with the distances between centers. It skips the most distance 
+		 * computations, but needs memory proportional to the tuple count times the cluster count.
+		 */
+		ELKAN,
+		/**
+		 * Yinyang k-means, which partitions the centers into groups of about ten and keeps an upper
+		 * bound and one lower bound per group for each tuple. Whole groups are skipped using 
+		 * their lower bounds and individual centers within the remaining groups using how far 
+		 * each has moved. Suited to very large cluster counts, since it needs neither per-center 
+		 * bounds nor the distances between all pairs of centers.
+		 */
+		YINYANG
+	}
+	
 	private int clusterCount;
 	private int maxIterations = Integer.MAX_VALUE;
 	private boolean replaceEmptyClusters = true;
 	private int movesGoal;
 	private int workerThreadCount;
+	private int restarts = 1;
+	private ExecutorService executor = SharedWorkerPool.get();
 	private DistanceMetric distanceMetric;
 	private ClusterSeeder seeder;
+	private AssignmentStrategy assignmentStrategy = AssignmentStrategy.STANDARD;
 	
 	public KMeansParams() {
 		workerThreadCount = Runtime.getRuntime().availableProcessors();
@@ -92,6 +136,45 @@ public class KMeansParams {
 		this.workerThreadCount = n;
 	}
 	
+	/**
+	 * Get the number of independent clusterings performed from different initial centers.
+	 * When greater than 1, the clustering with the lowest distortion is kept. Only a random
+	 * cluster seeder produces different initial centers, so other seeders are only run once.
+	 * <p>
+	 * The restarts run concurrently only if the executor is a <code>ForkJoinPool</code>, 
+	 * such as the default shared pool. With any other executor they run one after another,
+	 * each still running its subtasks on the executor, since a restart waiting for its 
+	 * subtasks holds a thread of the executor and concurrent restarts could hold them all.</p>
+	 * 
+	 * @return the number of restarts, 1 by default.
+	 */
+	public int getRestarts() {
+		return restarts;
+	}
+	
+	public void setRestarts(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("restarts must be greater than 0");
+		}
+		this.restarts = n;
+	}
+	
+	/**
+	 * Get the executor on which the subtasks, and concurrent restarts, are run.
+	 * 
+	 * @return the executor, <code>SharedWorkerPool.get()</code> by default.
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+	
+	public void setExecutor(ExecutorService executor) {
+		if (executor == null) {
+			throw new NullPointerException();
+		}
+		this.executor = executor;
+	}
+	
 	public boolean getReplaceEmptyClusters() {
 		return replaceEmptyClusters;
 	}
@@ -122,6 +205,17 @@ public class KMeansParams {
 		this.seeder = seeder;
 	}
 	
+	public AssignmentStrategy getAssignmentStrategy() {
+		return assignmentStrategy;
+	}
+	
+	public void setAssignmentStrategy(AssignmentStrategy assignmentStrategy) {
+		if (assignmentStrategy == null) {
+			throw new NullPointerException();
+		}
+		this.assignmentStrategy = assignmentStrategy;
+	}
+	
 	public static class Builder {
 		
 		private KMeansParams params;
@@ -150,6 +244,16 @@ public class KMeansParams {
 			return this;
 		}
 		
+		public Builder restarts(int n) {
+			params.setRestarts(n);
+			return this;
+		}
+		
+		public Builder executor(ExecutorService executor) {
+			params.setExecutor(executor);
+			return this;
+		}
+		
 		public Builder replaceEmptyClusters(boolean b) {
 			params.setReplaceEmptyClusters(b);
 			return this;
@@ -165,6 +269,11 @@ public class KMeansParams {
 			return this;
 		}
 		
+		public Builder assignmentStrategy(AssignmentStrategy assignmentStrategy) {
+			params.setAssignmentStrategy(assignmentStrategy);
+			return this;
+		}
+		
 		public KMeansParams build() {
 			return params;
 		}
@@ -0,0 +1,132 @@
+package org.battelle.clodhopper.kmeans;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * KMeansRestart.java
+ *
+ *===================================================================*/
+/**
+ * <p>Statistics describing one restart of a multi-start <tt>KMeansClusterer</tt>, 
+ * which performs <code>KMeansParams.getRestarts()</code> independent clusterings 
+ * from different seeds and keeps the one with the lowest distortion. Available 
+ * from <code>KMeansClusterer.getRestarts()</code> after clustering.</p>
+ * 
+ * @since 2.0.1
+ */
+public class KMeansRestart {
+
+    private final int index;
+    private final long randomGeneratorSeed;
+    private final int iterations;
+    private final int clusterCount;
+    private final double distortion;
+    private final boolean abandoned;
+    private final boolean best;
+
+    KMeansRestart(int index, long randomGeneratorSeed, int iterations, int clusterCount,
+            double distortion, boolean abandoned, boolean best) {
+        this.index = index;
+        this.randomGeneratorSeed = randomGeneratorSeed;
+        this.iterations = iterations;
+        this.clusterCount = clusterCount;
+        this.distortion = distortion;
+        this.abandoned = abandoned;
+        this.best = best;
+    }
+
+    /**
+     * Get the 0-based index of the restart, which is the order in which it was started.
+     * 
+     * @return the index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the seed given to the random cluster seeder to choose the initial centers 
+     * of this restart. The first restart uses the seeder's own seed, so it reproduces
+     * a single clustering with the same parameters. Always 0 if the seeder is not random.
+     * 
+     * @return the seed.
+     */
+    public long getRandomGeneratorSeed() {
+        return randomGeneratorSeed;
+    }
+
+    /**
+     * Get the number of iterations performed, including those before an abandoned restart was stopped.
+     * 
+     * @return the number of iterations.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Get the number of clusters produced, or 0 if the restart was abandoned.
+     * 
+     * @return the number of clusters.
+     */
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * Get the distortion of the clustering: the sum of the squared distances from the 
+     * tuples to the centers of their clusters.
+     * 
+     * @return the distortion, or <code>Double.NaN</code> if the restart was abandoned.
+     */
+    public double getDistortion() {
+        return distortion;
+    }
+
+    /**
+     * Was the restart stopped early because it was clearly worse than a finished restart?
+     * 
+     * @return true if abandoned.
+     */
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    /**
+     * Is this the restart whose clusters were returned?
+     * 
+     * @return true for the restart with the lowest distortion.
+     */
+    public boolean isBest() {
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("restart %d: %s after %d iterations", index, 
+                abandoned ? "abandoned" : String.format("%d clusters, distortion %f", clusterCount, distortion), 
+                iterations);
+    }
+}
@@ -7,7 +7,6 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.battelle.clodhopper.AbstractClusterer;
@@ -16,6 +15,7 @@ import org.battelle.clodhopper.ClusterSplitter;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
 import org.battelle.clodhopper.seeding.PreassignedSeeder;
 import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.task.TaskAdapter;
 import org.battelle.clodhopper.task.TaskEvent;
 import org.battelle.clodhopper.tuple.ArrayTupleList;
@@ -56,6 +56,8 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
 
 	protected TupleList tuples;
 	protected KMeansSplittingParams params;
+	// Working storage shared by the splitters, which are created anew for each cluster.
+	protected KMeansKernel.WorkspacePool workspacePool = new KMeansKernel.WorkspacePool();
 	
 	private TupleList initialClusterSeeds;
 	
@@ -116,8 +118,10 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
 
         try {
             
+            // Splits run concurrently only with more than one worker thread. The executor
+            // is shared, so it is left running when clustering ends.
             if (numWorkerThreads > 1) {
-                threadPool = Executors.newFixedThreadPool(numWorkerThreads);
+                threadPool = params.getExecutor();
             }
 
             int minClusters = Math.max(1, params.getMinClusters());
@@ -149,6 +153,7 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
                 	.maxIterations(Integer.MAX_VALUE)
                 	.movesGoal(0)
                 	.workerThreadCount(params.getWorkerThreadCount())
+                	.executor(params.getExecutor())
                 	.distanceMetric(params.getDistanceMetric())
                 	.clusterSeeder(seeder)
                 	.build();
@@ -163,7 +168,7 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
             } else { // mInitialClusterSeeds == null && minClusters == 1
                 
             	workingList = new ArrayList<Cluster> ();
-            	double[] center = TupleMath.average(tuples, new ArrayIntIterator(allIDs));           	
+            	double[] center = TupleMath.average(tuples, new ArrayIntIterator(allIDs), params.getExecutor());           	
             	workingList.add(new Cluster(allIDs, center));
             
             }
@@ -196,7 +201,7 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
 
                 if (splitterList.size() > 0) {
                     if (threadPool != null) {
-                        List<Future<List<Cluster>>> results = threadPool.invokeAll(splitterList);
+                        List<Future<List<Cluster>>> results = SharedWorkerPool.invokeAll(threadPool, splitterList);
                         for (Future<List<Cluster>> result: results) {
                             List<Cluster> clist = result.get();
                             addToCurrentClusters(clist);
@@ -260,6 +265,7 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
             	.maxIterations(Integer.MAX_VALUE)
             	.movesGoal(0)
             	.workerThreadCount(params.getWorkerThreadCount())
+            	.executor(params.getExecutor())
             	.distanceMetric(params.getDistanceMetric())
             	.clusterSeeder(new PreassignedSeeder(finalSeeds))
             	.build();
@@ -332,9 +338,7 @@ public abstract class KMeansSplittingClusterer extends AbstractClusterer {
             ph.postEnd();
 
         } finally {
-            if (threadPool != null) {
-                threadPool.shutdownNow();
-            }
+            localKMeans = null;
         }
 
         return clusters;
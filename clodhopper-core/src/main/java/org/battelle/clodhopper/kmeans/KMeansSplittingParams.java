@@ -1,9 +1,12 @@
 package org.battelle.clodhopper.kmeans;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.distance.DistanceMetric;
 import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
 import org.battelle.clodhopper.seeding.ClusterSeeder;
 import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 
 /*=====================================================================
  * 
@@ -35,12 +38,20 @@ import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
  *===================================================================*/
 public class KMeansSplittingParams {
 
+    /**
+     * The default for the maximum number of values copied into contiguous storage before 
+     * splitting a cluster: 4M, or 32 MB per concurrent split.
+     */
+    public static final int DEFAULT_MATERIALIZATION_LIMIT = 1 << 22;
+
     private int minClusters = 1;
     private int maxClusters = Integer.MAX_VALUE;
     private double minClusterToMeanThreshold = 0.05;
     private DistanceMetric distanceMetric = new EuclideanDistanceMetric();
     private ClusterSeeder clusterSeeder = new KMeansPlusPlusSeeder(new EuclideanDistanceMetric());
     private int workerThreadCount = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor = SharedWorkerPool.get();
+    private int materializationLimit = DEFAULT_MATERIALIZATION_LIMIT;
 
     public KMeansSplittingParams() {
     }
@@ -140,6 +151,73 @@ public class KMeansSplittingParams {
         this.workerThreadCount = n;
     }
 
+    /**
+     * Get the executor to which concurrent subtasks are submitted.
+     *
+     * @return the executor, which by default is the pool returned by
+     *   <code>SharedWorkerPool.get()</code>.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the executor to which concurrent subtasks are submitted. The executor is
+     * not shut down by the clusterer. If nested clusterings may run on the same executor,
+     * it should be a <code>ForkJoinPool</code> so that waiting subtasks cannot exhaust its
+     * workers.
+     *
+     * @param executor the executor to use.
+     */
+    public void setExecutor(final ExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Get the limit on the size of clusters whose member tuples are copied into 
+     * contiguous storage before being split.
+     * 
+     * @return the maximum number of values, the member count times the tuple length.
+     */
+    public int getMaterializationLimit() {
+        return materializationLimit;
+    }
+
+    /**
+     * Set the limit on the size of clusters whose member tuples are copied into 
+     * contiguous storage before being split. The copy is made in one pass, after 
+     * which the local k-means and the tests of the split read memory rather than 
+     * the tuples, which is much faster when the tuples are file-backed. The storage 
+     * is reused by later splits. Clusters over the limit are split reading the tuples.
+     * 
+     * @param limit the maximum number of values, the member count times the tuple length.
+     *   0 turns off the copying.
+     * 
+     * @throws IllegalArgumentException if limit is negative.
+     */
+    public void setMaterializationLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("materialization limit must not be negative");
+        }
+        this.materializationLimit = limit;
+    }
+
+    /**
+     * Returns whether the members of a cluster of the given size should be copied
+     * before splitting it.
+     * 
+     * @param memberCount the number of members in the cluster.
+     * @param tupleLength the tuple length.
+     * 
+     * @return true if the member values fit within the materialization limit.
+     */
+    public boolean shouldMaterialize(int memberCount, int tupleLength) {
+        return (long) memberCount * tupleLength <= materializationLimit;
+    }
+
     /**
      * Get the seeder used for seeding the initial clusters.
      * 
@@ -0,0 +1,429 @@
+package org.battelle.clodhopper.kmeans;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.battelle.clodhopper.AbstractClusterer;
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.random.XORShiftRandom;
+import org.battelle.clodhopper.task.ProgressHandler;
+import org.battelle.clodhopper.task.SharedWorkerPool;
+import org.battelle.clodhopper.tuple.FilteredTupleList;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * MiniBatchKMeansClusterer.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * Mini-batch k-means, as described in D. Sculley (2010): "Web-Scale K-Means Clustering",
+ * Proceedings of the 19th International Conference on World Wide Web. Each iteration 
+ * samples a small batch of tuples, assigns them to their nearest centers, and moves each 
+ * center toward its assigned tuples with a learning rate of one over the number of tuples 
+ * it has been assigned so far. Only the batches are read, so for very large tuple lists, 
+ * especially file-backed ones, clustering needs a small fraction of the I/O of 
+ * <code>KMeansClusterer</code>, at the cost of somewhat less compact clusters.</p>
+ * <p>
+ * The initial centers are chosen by the <code>ClusterSeeder</code> from a random sample of 
+ * three batches. Clustering stops after the maximum number of batches, or earlier when a 
+ * smoothed average of the batch distances stops improving. A final pass then assigns every 
+ * tuple to its nearest center, unless that pass is turned off in the parameters.</p>
+ *
+ * @since 2.0.1
+ */
+public class MiniBatchKMeansClusterer extends AbstractClusterer {
+
+    private TupleList tuples;
+    private MiniBatchKMeansParams params;
+
+    // Non-null only if the number of worker threads > 1
+    private ExecutorService threadPool;
+    // One clone of the distance metric for each worker.
+    private DistanceMetric[] distanceMetrics;
+
+    public MiniBatchKMeansClusterer(TupleList tuples, MiniBatchKMeansParams params) {
+        if (tuples == null || params == null) {
+            throw new NullPointerException();
+        }
+        this.tuples = tuples;
+        this.params = params;
+    }
+
+    @Override
+    public String taskName() {
+        return "mini-batch k-means";
+    }
+
+    @Override
+    public List<Cluster> doTask() throws Exception {
+
+        List<Cluster> clusters = null;
+
+        try {
+
+            final int tupleCount = tuples.getTupleCount();
+            final int tupleLength = tuples.getTupleLength();
+            final int requestedClusterCount = params.getClusterCount();
+
+            if (tupleCount == 0) {
+                finishWithError("zero tuples");
+            }
+            if (requestedClusterCount <= 0) {
+                finishWithError("requested cluster count must be greater than 0: " + requestedClusterCount);
+            }
+
+            final int maxIterations = params.getMaxIterations();
+            final int batchSize = params.getBatchSize();
+            final boolean finalAssignment = params.getFinalAssignment();
+
+            final ProgressHandler ph = new ProgressHandler(this, maxIterations + (finalAssignment ? 2 : 1));
+
+            ph.postBegin();
+
+            final int workerCount = Math.max(1, Math.min(params.getWorkerThreadCount(), batchSize));
+            distanceMetrics = new DistanceMetric[workerCount];
+            for (int w = 0; w < workerCount; w++) {
+                distanceMetrics[w] = params.getDistanceMetric().clone();
+            }
+            if (workerCount > 1) {
+                threadPool = params.getExecutor();
+            }
+
+            final Random random = new XORShiftRandom(params.getRandomSeed());
+
+            final double[][] centers = initializeCenters(random, ph);
+            final int clusterCount = centers.length;
+
+            ph.postMessage(String.format("%d initial cluster centers selected", clusterCount));
+            ph.postStep();
+
+            // The number of tuples that have been assigned to each center, which
+            // determines the per-center learning rates.
+            final long[] centerCounts = new long[clusterCount];
+
+            final int[] batch = new int[batchSize];
+            final int[] batchAssignments = new int[batchSize];
+            final double[] batchDistances = new double[batchSize];
+            double[] block = null;
+
+            // Weight of each batch in the exponentially weighted average of the mean batch distances,
+            // roughly such that the average spans two passes worth of tuples.
+            final double alpha = Math.min(1.0, 2.0 * batchSize / (tupleCount + 1.0));
+            final int maxNoImprovement = params.getMaxNoImprovement();
+
+            double smoothedDistance = Double.NaN;
+            double bestSmoothedDistance = Double.POSITIVE_INFINITY;
+            int noImprovement = 0;
+
+            for (int iteration = 1; iteration <= maxIterations; iteration++) {
+
+                checkForCancel();
+
+                // Sample with replacement. Sorting the indexes makes reads of 
+                // file-backed tuples more sequential.
+                for (int j = 0; j < batchSize; j++) {
+                    batch[j] = random.nextInt(tupleCount);
+                }
+                Arrays.sort(batch);
+
+                block = tuples.getTuples(batch, 0, batchSize, block);
+
+                assignBatch(block, batchSize, centers, batchAssignments, batchDistances);
+
+                // Move each center toward its tuples, one tuple at a time.
+                double distanceSum = 0.0;
+                for (int j = 0; j < batchSize; j++) {
+                    final int c = batchAssignments[j];
+                    final double[] center = centers[c];
+                    final double eta = 1.0 / ++centerCounts[c];
+                    final int offset = j * tupleLength;
+                    for (int k = 0; k < tupleLength; k++) {
+                        center[k] += eta * (block[offset + k] - center[k]);
+                    }
+                    distanceSum += batchDistances[j];
+                }
+
+                final double meanDistance = distanceSum / batchSize;
+                smoothedDistance = iteration == 1 ? meanDistance
+                        : (1.0 - alpha) * smoothedDistance + alpha * meanDistance;
+
+                ph.postMessage(String.format("batch %d: mean distance %f, smoothed %f", iteration, meanDistance,
+                        smoothedDistance));
+                ph.postStep();
+
+                if (smoothedDistance < bestSmoothedDistance) {
+                    bestSmoothedDistance = smoothedDistance;
+                    noImprovement = 0;
+                } else if (maxNoImprovement > 0 && ++noImprovement >= maxNoImprovement) {
+                    ph.postMessage(String.format("stopping after %d batches without improvement", noImprovement));
+                    break;
+                }
+            }
+
+            if (finalAssignment) {
+
+                clusters = assignAll(centers);
+
+                if (clusters.size() < clusterCount) {
+                    ph.postMessage(String.format(
+                            "number of clusters was reduced to %d, because %d centers were nearest to no tuples",
+                            clusters.size(), clusterCount - clusters.size()));
+                }
+
+            } else {
+
+                clusters = new ArrayList<>(clusterCount);
+                for (int c = 0; c < clusterCount; c++) {
+                    clusters.add(new Cluster(new int[0], centers[c]));
+                }
+            }
+
+            ph.postEnd();
+
+        } finally {
+
+            // The executor is shared, so it's not shut down.
+            threadPool = null;
+            distanceMetrics = null;
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Chooses the initial centers by applying the cluster seeder to a random sample of the tuples.
+     * There may be fewer centers than requested if the sample has too few unique tuples.
+     * 
+     * @param random
+     * @param ph
+     * @return the initial centers.
+     */
+    private double[][] initializeCenters(Random random, ProgressHandler ph) {
+
+        final int tupleCount = tuples.getTupleCount();
+        final int clusterCount = params.getClusterCount();
+        final int sampleSize = (int) Math.min(tupleCount,
+                Math.max(3L * params.getBatchSize(), (long) clusterCount));
+
+        TupleList sample = tuples;
+
+        if (sampleSize < tupleCount) {
+            // Floyd's algorithm for sampling without replacement.
+            TIntSet sampled = new TIntHashSet(2 * sampleSize);
+            for (int j = tupleCount - sampleSize; j < tupleCount; j++) {
+                int n = random.nextInt(j + 1);
+                if (!sampled.add(n)) {
+                    sampled.add(j);
+                }
+            }
+            int[] indexes = sampled.toArray();
+            Arrays.sort(indexes);
+            sample = new FilteredTupleList(indexes, tuples);
+        }
+
+        TupleList seeds = params.getClusterSeeder().generateSeeds(sample, clusterCount, params.getExecutor());
+
+        final int seedCount = seeds.getTupleCount();
+        if (seedCount < clusterCount) {
+            ph.postMessage(String.format("reducing requested number of clusters from %d to %d, "
+                    + "the number of seeds found", clusterCount, seedCount));
+        }
+
+        double[][] centers = new double[seedCount][];
+        for (int c = 0; c < seedCount; c++) {
+            centers[c] = seeds.getTuple(c, null);
+        }
+
+        return centers;
+    }
+
+    /**
+     * Assigns the tuples of a batch to their nearest centers, with the work divided among the workers.
+     */
+    private void assignBatch(final double[] block, final int count, final double[][] centers,
+            final int[] assignments, final double[] distances) throws Exception {
+
+        final int tupleLength = tuples.getTupleLength();
+        final int workerCount = distanceMetrics.length;
+
+        List<Callable<Void>> workers = new ArrayList<>(workerCount);
+
+        for (int w = 0; w < workerCount; w++) {
+            final int start = (int) ((long) count * w / workerCount);
+            final int end = (int) ((long) count * (w + 1) / workerCount);
+            final DistanceMetric distanceMetric = distanceMetrics[w];
+            workers.add(() -> {
+                double[] distance = new double[1];
+                for (int j = start; j < end; j++) {
+                    assignments[j] = nearestCenter(block, j * tupleLength, centers, distanceMetric, distance);
+                    distances[j] = distance[0];
+                }
+                return null;
+            });
+        }
+
+        invokeAll(workers);
+    }
+
+    /**
+     * Assigns every tuple to its nearest center, with each worker reading a range of the tuples
+     * block by block. The centers of the resulting clusters are the means of their members.
+     * 
+     * @param centers
+     * @return the non-empty clusters.
+     */
+    private List<Cluster> assignAll(final double[][] centers) throws Exception {
+
+        final int tupleCount = tuples.getTupleCount();
+        final int tupleLength = tuples.getTupleLength();
+        final int clusterCount = centers.length;
+        final int workerCount = Math.min(distanceMetrics.length, tupleCount);
+
+        final int[] assignments = new int[tupleCount];
+        final double[][] workerSums = new double[workerCount][clusterCount * tupleLength];
+        final int[][] workerCounts = new int[workerCount][clusterCount];
+
+        List<Callable<Void>> workers = new ArrayList<>(workerCount);
+
+        for (int w = 0; w < workerCount; w++) {
+            final int start = (int) ((long) tupleCount * w / workerCount);
+            final int end = (int) ((long) tupleCount * (w + 1) / workerCount);
+            final DistanceMetric distanceMetric = distanceMetrics[w];
+            final double[] sums = workerSums[w];
+            final int[] counts = workerCounts[w];
+            workers.add(() -> {
+                final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+                double[] block = null;
+                double[] distance = new double[1];
+                for (int blockStart = start; blockStart < end; blockStart += blockTuples) {
+                    checkForCancel();
+                    final int count = Math.min(blockTuples, end - blockStart);
+                    block = tuples.getTuples(blockStart, count, block);
+                    for (int j = 0; j < count; j++) {
+                        final int tupleOffset = j * tupleLength;
+                        int c = nearestCenter(block, tupleOffset, centers, distanceMetric, distance);
+                        assignments[blockStart + j] = c;
+                        counts[c]++;
+                        final int offset = c * tupleLength;
+                        for (int k = 0; k < tupleLength; k++) {
+                            sums[offset + k] += block[tupleOffset + k];
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        invokeAll(workers);
+
+        // Merge the workers' sums and counts.
+        final double[] sums = workerSums[0];
+        final int[] counts = workerCounts[0];
+        for (int w = 1; w < workerCount; w++) {
+            TupleMath.addTo(sums, workerSums[w]);
+            for (int c = 0; c < clusterCount; c++) {
+                counts[c] += workerCounts[w][c];
+            }
+        }
+
+        // Gather the members of each cluster with a counting sort on the assignments.
+        final int[][] members = new int[clusterCount][];
+        for (int c = 0; c < clusterCount; c++) {
+            members[c] = new int[counts[c]];
+        }
+        final int[] sizes = new int[clusterCount];
+        for (int i = 0; i < tupleCount; i++) {
+            final int c = assignments[i];
+            members[c][sizes[c]++] = i;
+        }
+
+        List<Cluster> clusters = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            if (counts[c] > 0) {
+                double[] center = Arrays.copyOfRange(sums, c * tupleLength, (c + 1) * tupleLength);
+                TupleMath.divideBy(center, counts[c]);
+                clusters.add(new Cluster(members[c], center));
+            }
+        }
+
+        return clusters;
+    }
+
+    // Returns the index of the center nearest to the tuple starting at values[offset], placing the 
+    // distance in distance[0].
+    private static int nearestCenter(double[] values, int offset, double[][] centers, DistanceMetric distanceMetric,
+            double[] distance) {
+        int nearest = 0;
+        double min = Double.MAX_VALUE;
+        final int clusterCount = centers.length;
+        for (int c = 0; c < clusterCount; c++) {
+            double d = distanceMetric.distance(values, offset, centers[c]);
+            if (d < min) {
+                min = d;
+                nearest = c;
+            }
+        }
+        distance[0] = min;
+        return nearest;
+    }
+
+    /**
+     * Runs the workers on the thread pool or, if there is none, directly. Exceptions 
+     * thrown by the workers, including cancellations, are rethrown.
+     */
+    private void invokeAll(List<Callable<Void>> workers) throws Exception {
+        if (threadPool == null || workers.size() == 1) {
+            for (Callable<Void> worker : workers) {
+                worker.call();
+            }
+            return;
+        }
+        for (Future<Void> future : SharedWorkerPool.invokeAll(threadPool, workers)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.battelle.clodhopper.kmeans;
+
+import java.util.concurrent.ExecutorService;
+
+import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.seeding.ClusterSeeder;
+import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.task.SharedWorkerPool;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * MiniBatchKMeansParams.java
+ *
+ *===================================================================*/
+/**
+ * Parameters for <code>MiniBatchKMeansClusterer</code>.
+ * 
+ * @since 2.0.1
+ */
+public class MiniBatchKMeansParams {
+
+	private int clusterCount;
+	private int batchSize = 1024;
+	private int maxIterations = 100;
+	private int maxNoImprovement = 10;
+	private boolean finalAssignment = true;
+	private long randomSeed;
+	private int workerThreadCount;
+	private ExecutorService executor = SharedWorkerPool.get();
+	private DistanceMetric distanceMetric;
+	private ClusterSeeder seeder;
+	
+	public MiniBatchKMeansParams() {
+		randomSeed = System.nanoTime();
+		workerThreadCount = Runtime.getRuntime().availableProcessors();
+		distanceMetric = new EuclideanDistanceMetric();
+		seeder = new KMeansPlusPlusSeeder(distanceMetric);
+	}
+	
+	public int getClusterCount() {
+		return clusterCount;
+	}
+	
+	public void setClusterCount(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("cluster count must be greater than 0");
+		}
+		this.clusterCount = n;
+	}
+	
+	/**
+	 * Returns the number of tuples sampled for each iteration. The default is 1024.
+	 * 
+	 * @return the batch size.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	public void setBatchSize(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("batch size must be greater than 0");
+		}
+		this.batchSize = n;
+	}
+	
+	/**
+	 * Returns the maximum number of batches. The default is 100.
+	 * 
+	 * @return the maximum number of iterations.
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+	
+	public void setMaxIterations(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("max iterations must be greater than 0");
+		}
+		this.maxIterations = n;
+	}
+	
+	/**
+	 * Returns the number of consecutive batches without improvement in the smoothed
+	 * mean distance from tuples to their centers after which clustering stops early.
+	 * The default is 10. Zero disables the early stop.
+	 * 
+	 * @return the number of batches.
+	 */
+	public int getMaxNoImprovement() {
+		return maxNoImprovement;
+	}
+	
+	public void setMaxNoImprovement(int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("max no improvement cannot be negative");
+		}
+		this.maxNoImprovement = n;
+	}
+	
+	/**
+	 * Returns whether every tuple is assigned to its nearest center after the
+	 * batches. If true, the default, the clusters have members and their centers are
+	 * the means of the members. If false, the clusters have no members and their 
+	 * centers are those learned from the batches, which avoids a full pass over the tuples.
+	 * 
+	 * @return true if the final assignment pass is made.
+	 */
+	public boolean getFinalAssignment() {
+		return finalAssignment;
+	}
+	
+	public void setFinalAssignment(boolean b) {
+		finalAssignment = b;
+	}
+	
+	/**
+	 * Returns the seed for the random generator used to sample the batches.
+	 * 
+	 * @return the seed.
+	 */
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+	
+	public void setRandomSeed(long seed) {
+		this.randomSeed = seed;
+	}
+	
+	public int getWorkerThreadCount() {
+		return workerThreadCount;
+	}
+	
+	public void setWorkerThreadCount(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("worker thread count must be greater than 0");
+		}
+		this.workerThreadCount = n;
+	}
+	
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+	
+	public void setExecutor(ExecutorService executor) {
+		if (executor == null) {
+			throw new NullPointerException();
+		}
+		this.executor = executor;
+	}
+	
+	public DistanceMetric getDistanceMetric() {
+		return distanceMetric;
+	}
+	
+	public void setDistanceMetric(DistanceMetric distanceMetric) {
+		if (distanceMetric == null) {
+			throw new NullPointerException();
+		}
+		this.distanceMetric = distanceMetric;
+	}
+	
+	public ClusterSeeder getClusterSeeder() {
+		return seeder;
+	}
+	
+	public void setClusterSeeder(ClusterSeeder seeder) {
+		if (seeder == null) {
+			throw new NullPointerException();
+		}
+		this.seeder = seeder;
+	}
+	
+	public static class Builder {
+		
+		private MiniBatchKMeansParams params;
+		
+		public Builder() {
+			params = new MiniBatchKMeansParams();
+		}
+		
+		public Builder clusterCount(int n) {
+			params.setClusterCount(n);
+			return this;
+		}
+		
+		public Builder batchSize(int n) {
+			params.setBatchSize(n);
+			return this;
+		}
+		
+		public Builder maxIterations(int n) {
+			params.setMaxIterations(n);
+			return this;
+		}
+		
+		public Builder maxNoImprovement(int n) {
+			params.setMaxNoImprovement(n);
+			return this;
+		}
+		
+		public Builder finalAssignment(boolean b) {
+			params.setFinalAssignment(b);
+			return this;
+		}
+		
+		public Builder randomSeed(long seed) {
+			params.setRandomSeed(seed);
+			return this;
+		}
+		
+		public Builder workerThreadCount(int n) {
+			params.setWorkerThreadCount(n);
+			return this;
+		}
+		
+		public Builder executor(ExecutorService executor) {
+			params.setExecutor(executor);
+			return this;
+		}
+		
+		public Builder distanceMetric(DistanceMetric distanceMetric) {
+			params.setDistanceMetric(distanceMetric);
+			return this;
+		}
+		
+		public Builder clusterSeeder(ClusterSeeder seeder) {
+			params.setClusterSeeder(seeder);
+			return this;
+		}
+		
+		public MiniBatchKMeansParams build() {
+			return params;
+		}
+	}
+	
+}
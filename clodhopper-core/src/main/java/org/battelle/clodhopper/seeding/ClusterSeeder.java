@@ -1,5 +1,7 @@
 package org.battelle.clodhopper.seeding;
 
+import java.util.concurrent.ExecutorService;
+
 import org.battelle.clodhopper.tuple.TupleList;
 
 /*=====================================================================
@@ -53,4 +55,21 @@ public interface ClusterSeeder {
 	 */
 	TupleList generateSeeds(TupleList tuples, int seedCount);
 
+	/**
+	 * Given a collection of tuple data, generate seeds, running any parallel work on the
+	 * specified executor. This default implementation ignores the executor and calls 
+	 * <code>generateSeeds(tuples, seedCount)</code>.
+	 * 
+	 * @param tuples contains the data to generate seeds for.
+	 * @param seedCount the requested number of seeds.
+	 * @param executor the executor on which to run parallel work.
+	 * 
+	 * @return the seeds, packaged as a <code>TupleList</code>
+	 * 
+	 * @since 2.0.1
+	 */
+	default TupleList generateSeeds(TupleList tuples, int seedCount, ExecutorService executor) {
+		return generateSeeds(tuples, seedCount);
+	}
+
 }
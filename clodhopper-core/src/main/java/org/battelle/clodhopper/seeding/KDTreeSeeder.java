@@ -9,6 +9,7 @@ import org.battelle.clodhopper.util.Sorting;
 import gnu.trove.list.array.TIntArrayList;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /*=====================================================================
  * 
@@ -52,14 +53,12 @@ public class KDTreeSeeder extends RandomSeeder {
 	}
 	
 	@Override
-	public TupleList generateSeeds(TupleList tuples, int seedCount) {
+	protected TupleList generateSeeds(TupleList tuples, int seedCount, Random random, ExecutorService executor) {
         
 		if (seedCount <= 0) {
             throw new IllegalArgumentException();
         }
 
-		random.setSeed(seed);
-		
         int coordCount = tuples.getTupleCount();
         int coordLen = tuples.getTupleLength();
 
@@ -0,0 +1,276 @@
+package org.battelle.clodhopper.seeding;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+
+import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.task.SharedWorkerPool;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
+import org.battelle.clodhopper.tuple.TupleList;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * KMeansParallelSeeder.java
+ *
+ *===================================================================*/
+/**
+ * <p>A <tt>ClusterSeeder</tt> implementing k-means||, the scalable variant of k-means++
+ * described by Bahmani et al. in "Scalable K-Means++". Instead of making one pass over the 
+ * tuples per seed, it makes a few oversampling rounds. In each round, every tuple is
+ * independently chosen as a candidate with probability 
+ * <code>l * d<sup>2</sup> / sum(d<sup>2</sup>)</code>, where <code>d</code> is its distance
+ * to the nearest candidate and <code>l</code> is the oversampling factor times the seed count.
+ * The candidates are then weighted by the number of tuples nearest to them and reduced to 
+ * the requested number of seeds with weighted k-means++.</p>
+ * <p>The sampling and distance passes over the tuples run in parallel. Results are 
+ * deterministic for a given random generator seed.</p>
+ *
+ * @since 2.0.1
+ */
+public class KMeansParallelSeeder extends KMeansPlusPlusSeeder {
+
+	/**
+	 * The default oversampling factor, which is multiplied by the seed count to get the
+	 * expected number of candidates per round.
+	 */
+	public static final double DEFAULT_OVERSAMPLING_FACTOR = 2.0;
+	
+	/**
+	 * The default number of oversampling rounds.
+	 */
+	public static final int DEFAULT_ROUNDS = 5;
+	
+	private double oversamplingFactor;
+	private int rounds;
+	
+	public KMeansParallelSeeder(long seed, Random random, DistanceMetric distMetric, 
+			double oversamplingFactor, int rounds) {
+		super(seed, random, distMetric);
+		if (!(oversamplingFactor > 0)) {
+			throw new IllegalArgumentException("oversampling factor must be > 0: " + oversamplingFactor);
+		}
+		if (rounds < 1) {
+			throw new IllegalArgumentException("rounds must be >= 1: " + rounds);
+		}
+		this.oversamplingFactor = oversamplingFactor;
+		this.rounds = rounds;
+	}
+	
+	public KMeansParallelSeeder(long seed, Random random, DistanceMetric distMetric) {
+		this(seed, random, distMetric, DEFAULT_OVERSAMPLING_FACTOR, DEFAULT_ROUNDS);
+	}
+	
+	public KMeansParallelSeeder(DistanceMetric distMetric) {
+		this(System.nanoTime(), new Random(), distMetric);
+	}
+	
+	public double getOversamplingFactor() {
+		return oversamplingFactor;
+	}
+	
+	public int getRounds() {
+		return rounds;
+	}
+	
+	@Override
+	protected TupleList generateSeeds(TupleList tuples, int seedCount, Random random, ExecutorService executor) {
+
+		if (seedCount <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		final int tupleCount = tuples.getTupleCount();
+		
+		if (tupleCount == 0 && seedCount > 0) {
+			throw new IllegalArgumentException("cannot generate seeds from an empty TupleList");
+		}
+		
+		if (seedCount > tupleCount) {
+			// Can't have more seeds that choices.
+			seedCount = tupleCount;
+		}
+		
+		final int tupleLength = tuples.getTupleLength();
+		
+		final int rangeCount = rangeCount(tupleCount);
+		
+		final double[] minSqDists = new double[tupleCount];
+		Arrays.fill(minSqDists, Double.POSITIVE_INFINITY);
+		// The index of the candidate nearest to each tuple, for weighting the candidates.
+		final int[] nearestCandidates = new int[tupleCount];
+		
+		TIntArrayList candidates = new TIntArrayList();
+		candidates.add(random.nextInt(tupleCount));
+		
+		double[] rangeSums = updateMinSqDists(tuples, new double[][] { tuples.getTuple(candidates.get(0), null) }, 
+				minSqDists, nearestCandidates, 0, rangeCount, executor);
+		
+		final double expectedPerRound = oversamplingFactor * seedCount;
+		
+		for (int round=0; round<rounds; round++) {
+			
+			double sqDistSum = 0;
+			for (int r=0; r<rangeCount; r++) {
+				sqDistSum += rangeSums[r];
+			}
+			if (!(sqDistSum > 0)) {
+				// Every tuple coincides with a candidate.
+				break;
+			}
+			
+			final double scale = expectedPerRound / sqDistSum;
+			// Each range gets its own generator derived from the round seed, so the 
+			// candidates do not depend on how the ranges are scheduled.
+			final long roundSeed = random.nextLong();
+			final int[][] rangeChoices = new int[rangeCount][];
+			final int groupCount = rangeGroupCount(rangeCount, executor);
+			
+			SharedWorkerPool.forEach(executor, groupCount, g -> {
+				for (int r = rangeStart(g, groupCount, rangeCount); r < rangeStart(g + 1, groupCount, rangeCount); r++) {
+					SplittableRandom rangeRandom = new SplittableRandom(roundSeed + r * 0x9E3779B97F4A7C15L);
+					TIntArrayList chosen = new TIntArrayList();
+					int end = rangeStart(r + 1, rangeCount, tupleCount);
+					for (int i=rangeStart(r, rangeCount, tupleCount); i<end; i++) {
+						double p = scale * minSqDists[i];
+						if (p > 0 && rangeRandom.nextDouble() < p) {
+							chosen.add(i);
+						}
+					}
+					rangeChoices[r] = chosen.toArray();
+				}
+			});
+			
+			TIntArrayList newCandidates = new TIntArrayList();
+			for (int r=0; r<rangeCount; r++) {
+				newCandidates.add(rangeChoices[r]);
+			}
+			
+			final int newCount = newCandidates.size();
+			if (newCount > 0) {
+				double[] values = tuples.getTuples(newCandidates.toArray(), 0, newCount, null);
+				double[][] newSeeds = new double[newCount][];
+				for (int i=0; i<newCount; i++) {
+					newSeeds[i] = Arrays.copyOfRange(values, i*tupleLength, (i+1)*tupleLength);
+				}
+				rangeSums = updateMinSqDists(tuples, newSeeds, minSqDists, nearestCandidates, 
+						candidates.size(), rangeCount, executor);
+				candidates.addAll(newCandidates);
+			}
+		}
+		
+		// Weight each candidate by the number of tuples nearest to it.
+		final int candidateCount = candidates.size();
+		double[] weights = new double[candidateCount];
+		for (int i=0; i<tupleCount; i++) {
+			weights[nearestCandidates[i]] += 1.0;
+		}
+		
+		int[] candidateIndexes = candidates.toArray();
+		double[] candidateValues = tuples.getTuples(candidateIndexes, 0, candidateCount, null);
+		
+		int[] chosen = weightedKMeansPlusPlus(candidateValues, tupleLength, weights, seedCount, random);
+		
+		int[] seedList = new int[chosen.length];
+		for (int i=0; i<chosen.length; i++) {
+			seedList[i] = candidateIndexes[chosen[i]];
+		}
+		Arrays.sort(seedList);
+		
+		return new ArrayTupleList(tupleLength, seedList.length, 
+				tuples.getTuples(seedList, 0, seedList.length, null));
+	}
+	
+	/**
+	 * Reduces the weighted candidates to seeds using k-means++, in which a candidate's
+	 * chance of being chosen is its weight times its squared distance to the nearest chosen candidate.
+	 * 
+	 * @param values the candidate coordinates packed end to end.
+	 * @param tupleLength the length of each candidate.
+	 * @param weights the candidate weights.
+	 * @param seedCount the maximum number of candidates to choose.
+	 * @param random the random generator.
+	 * 
+	 * @return the indexes of the chosen candidates, which may be fewer than seedCount
+	 *   if the candidates with nonzero weight have too few distinct coordinates.
+	 */
+	private int[] weightedKMeansPlusPlus(double[] values, int tupleLength, double[] weights, int seedCount, 
+			Random random) {
+		
+		final int candidateCount = weights.length;
+		final DistanceMetric distMetric = getDistanceMetric();
+		
+		// Before the first seed, choose in proportion to the weights alone.
+		double[] minSqDists = new double[candidateCount];
+		Arrays.fill(minSqDists, 1.0);
+		
+		int[] chosen = new int[Math.min(seedCount, candidateCount)];
+		int chosenCount = 0;
+		
+		double[] seed = new double[tupleLength];
+		
+		while (chosenCount < chosen.length) {
+			
+			double sum = 0;
+			for (int i=0; i<candidateCount; i++) {
+				sum += weights[i] * minSqDists[i];
+			}
+			if (!(sum > 0)) {
+				break;
+			}
+			
+			double threshold = random.nextDouble() * sum;
+			double probSum = 0;
+			int next = -1;
+			for (int i=0; i<candidateCount; i++) {
+				double p = weights[i] * minSqDists[i];
+				if (p > 0) {
+					next = i;
+					probSum += p;
+					if (probSum >= threshold) {
+						break;
+					}
+				}
+			}
+			
+			chosen[chosenCount++] = next;
+			
+			System.arraycopy(values, next*tupleLength, seed, 0, tupleLength);
+			for (int i=0; i<candidateCount; i++) {
+				double dist = distMetric.distance(values, i*tupleLength, seed);
+				double distSq = dist*dist;
+				if (chosenCount == 1 || distSq < minSqDists[i]) {
+					minSqDists[i] = distSq;
+				}
+			}
+		}
+		
+		return Arrays.copyOf(chosen, chosenCount);
+	}
+}
@@ -2,10 +2,13 @@ package org.battelle.clodhopper.seeding;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.tuple.ArrayTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
 
 /*=====================================================================
  * 
@@ -36,6 +39,18 @@ import org.battelle.clodhopper.tuple.TupleList;
  *
  *===================================================================*/
 
+/**
+ * <p>A <tt>ClusterSeeder</tt> implementing the k-means++ seeding of Arthur and Vassilvitskii.  
+ * The first seed is chosen uniformly at random, and each subsequent seed is chosen
+ * with probability proportional to the squared distance from a tuple to its nearest 
+ * seed.</p>
+ * <p>The tuples are divided into about sqrt(n) contiguous ranges. The pass updating the squared 
+ * distances after each new seed processes the ranges in parallel, reading the tuples in blocks, 
+ * and leaves behind the sum for each range. A seed is then sampled by locating its range 
+ * from the range sums and scanning only that range.</p>
+ *
+ * @author R. Scarberry
+ */
 public class KMeansPlusPlusSeeder extends RandomSeeder {
 	
 	private DistanceMetric distMetric;
@@ -52,8 +67,17 @@ public class KMeansPlusPlusSeeder extends RandomSeeder {
 		this(System.nanoTime(), new Random(), distMetric);
 	}
 	
+	/**
+	 * Get the distance metric used for computing distances between tuples and seeds.
+	 * 
+	 * @return the distance metric.
+	 */
+	public DistanceMetric getDistanceMetric() {
+		return distMetric;
+	}
+	
 	@Override
-	public TupleList generateSeeds(TupleList tuples, int seedCount) {
+	protected TupleList generateSeeds(TupleList tuples, int seedCount, Random random, ExecutorService executor) {
 
 		if (seedCount <= 0) {
 			throw new IllegalArgumentException();
@@ -70,120 +94,191 @@ public class KMeansPlusPlusSeeder extends RandomSeeder {
 			seedCount = tupleCount;
 		}
 		
-		final int tupleLength = tuples.getTupleLength();
-		
-		// Set the seed before doing anything using random number generation.
-		random.setSeed(seed);
-		
-		// Generate the potential seeds.  This is just the tuple indexes shuffled.
-		int[] potentialSeeds = getShuffledTupleIndexes(tupleCount, random);
+		final int rangeCount = rangeCount(tupleCount);
 		
 		double[] minSqDists = new double[tupleCount];
-		// Set to true to indicate when a potential seed is no longer available.
-		boolean[] unavailable = new boolean[tupleCount];
+		Arrays.fill(minSqDists, Double.POSITIVE_INFINITY);
 		
+		// For accumulating the indexes of the tuples used as seeds.
 		int[] seedList = new int[seedCount];
 		int seedsFound = 0;
 		
-		int firstSeed = random.nextInt(tupleCount);
-
-		// For accumulating the indexes of the tuples used as seeds.
-		seedList[seedsFound++] = potentialSeeds[firstSeed];
-		unavailable[firstSeed] = true;
-		
-		// Working buffers
-		double[] buffer1 = new double[tupleLength];
-		double[] buffer2 = new double[tupleLength];
-		
-		// Note that firstSeed is an index into potentialSeeds.  It's not
-		// a tuple index itself.
-		tuples.getTuple(potentialSeeds[firstSeed], buffer1);
-		
-		// Initialize minSqDists
-		for (int i=0; i<tupleCount; i++) {
-			if (i != firstSeed) {
-				tuples.getTuple(potentialSeeds[i], buffer2);
-				double dist = distMetric.distance(buffer1, buffer2);
-				minSqDists[i] = dist*dist;
-			}
-		}
+		int newSeed = random.nextInt(tupleCount);
 		
-		while(seedsFound < seedCount) {
-	
-			// Sum the elements of minSqDists for those potential seeds that remain available.
-			double sqDistSum = 0;
-			for (int i=0; i<tupleCount; i++) {
-				if (!unavailable[i]) {
-					sqDistSum += minSqDists[i];
-				}
-			}
+		while (true) {
 			
-			// Compute a threshold value.
-			double threshold = random.nextDouble() * sqDistSum;
+			seedList[seedsFound++] = newSeed;
+			if (seedsFound == seedCount) {
+				break;
+			}
 			
-			double probSum = 0;
-			int newSeedIndex = -1;
-			int lastAvailable = -1;
+			// The new seed's own squared distance becomes 0, so it cannot be chosen again.
+			double[] rangeSums = updateMinSqDists(tuples, new double[][] { tuples.getTuple(newSeed, null) },
+					minSqDists, null, 0, rangeCount, executor);
 			
-			for (int i=0; i<tupleCount; i++) {
-				if (!unavailable[i]) {
-					lastAvailable = i;
-					probSum += minSqDists[i];
-					if (probSum >= threshold) {
-						newSeedIndex = i;
-						break;
-					}
-				}
+			double sqDistSum = 0;
+			for (int r=0; r<rangeCount; r++) {
+				sqDistSum += rangeSums[r];
 			}
 			
-			if (newSeedIndex == -1) {
-				newSeedIndex = lastAvailable;
+			if (!(sqDistSum > 0)) {
+				// Every remaining tuple coincides with a seed, so no other seeds are available
+				// whether or not seedsFound == seedCount.
+				break;
 			}
 			
-			if (newSeedIndex >= 0) {
-				
-				seedList[seedsFound++] = newSeedIndex;
-				unavailable[newSeedIndex] = true;
-				
-				if (seedsFound < seedCount) {
-					
-					// Update minSqDists using distance between the new seed index and the available seeds.
-					//
-					tuples.getTuple(potentialSeeds[newSeedIndex], buffer1);
-					
-					for (int i=0; i<tupleCount; i++) {
-						if (!unavailable[i]) {
-							tuples.getTuple(potentialSeeds[i], buffer2);
-							double dist = distMetric.distance(buffer1, buffer2);
+			newSeed = sample(minSqDists, rangeSums, random.nextDouble() * sqDistSum);
+		}
+		
+		Arrays.sort(seedList, 0, seedsFound);
+		
+		return new ArrayTupleList(tuples.getTupleLength(), seedsFound, 
+				tuples.getTuples(seedList, 0, seedsFound, null));
+	}
+
+	/**
+	 * Returns the number of contiguous ranges into which a number of tuples are divided for
+	 * the parallel distance passes. Using about the square root of the tuple count balances 
+	 * the per-range bookkeeping against the length of the scan within a range when sampling.
+	 * 
+	 * @param tupleCount the number of tuples.
+	 * 
+	 * @return the number of ranges, always at least 1.
+	 */
+	protected static int rangeCount(int tupleCount) {
+		return Math.max(1, (int) Math.ceil(Math.sqrt(tupleCount)));
+	}
+	
+	/**
+	 * Returns the first tuple index of a range.
+	 * 
+	 * @param range the range, which may be equal to rangeCount to get the end of the last range.
+	 * @param rangeCount the number of ranges.
+	 * @param tupleCount the number of tuples.
+	 * 
+	 * @return the start of the range.
+	 */
+	protected static int rangeStart(int range, int rangeCount, int tupleCount) {
+		return (int) ((long) range * tupleCount / rangeCount);
+	}
+	
+	/**
+	 * Returns the number of groups of consecutive ranges processed as separate tasks, 
+	 * which is a few per thread of the executor. The ranges of group g start at 
+	 * <code>rangeStart(g, groupCount, rangeCount)</code>.
+	 * 
+	 * @param rangeCount the number of ranges.
+	 * @param executor the executor on which to process the groups.
+	 * 
+	 * @return the number of groups, always at least 1.
+	 */
+	protected static int rangeGroupCount(int rangeCount, ExecutorService executor) {
+		return Math.max(1, Math.min(rangeCount, 4 * SharedWorkerPool.parallelism(executor)));
+	}
+	
+	/**
+	 * Lowers the squared distances of the tuples to their nearest seeds to account for 
+	 * new seeds. The ranges are processed in parallel, in groups of consecutive ranges.
+	 * 
+	 * @param tuples the tuples.
+	 * @param newSeeds the coordinates of the new seeds.
+	 * @param minSqDists the squared distance of each tuple to its nearest seed, which are 
+	 *   updated in place. Entries are positive infinity before the first seed.
+	 * @param nearestSeeds if not null, the index of the nearest seed of each tuple, which are
+	 *   updated in place.
+	 * @param firstNewSeed the index of newSeeds[0] to store in nearestSeeds.
+	 * @param rangeCount the number of ranges.
+	 * @param executor the executor on which to process the ranges.
+	 * 
+	 * @return the sums of the squared distances for each range.
+	 */
+	protected double[] updateMinSqDists(final TupleList tuples, final double[][] newSeeds, 
+			final double[] minSqDists, final int[] nearestSeeds, final int firstNewSeed, final int rangeCount,
+			final ExecutorService executor) {
+		
+		final int tupleCount = tuples.getTupleCount();
+		final int tupleLength = tuples.getTupleLength();
+		final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+		final double[] rangeSums = new double[rangeCount];
+		final int groupCount = rangeGroupCount(rangeCount, executor);
+		
+		SharedWorkerPool.forEach(executor, groupCount, g -> {
+			// Distance metrics are not required to be thread safe.
+			final DistanceMetric metric = distMetric.clone();
+			double[] block = null;
+			for (int r = rangeStart(g, groupCount, rangeCount); r < rangeStart(g + 1, groupCount, rangeCount); r++) {
+				final int end = rangeStart(r + 1, rangeCount, tupleCount);
+				double sum = 0;
+				for (int start = rangeStart(r, rangeCount, tupleCount); start < end; start += blockTuples) {
+					final int count = Math.min(blockTuples, end - start);
+					block = tuples.getTuples(start, count, block);
+					for (int i=0; i<count; i++) {
+						final int offset = i*tupleLength;
+						final int t = start + i;
+						double minSqDist = minSqDists[t];
+						for (int s=0; s<newSeeds.length; s++) {
+							double dist = metric.distance(block, offset, newSeeds[s]);
 							double distSq = dist*dist;
 							// Only update if the distance is smaller.
-							if (distSq < minSqDists[i]) {
-								minSqDists[i] = distSq;
+							if (distSq < minSqDist) {
+								minSqDist = distSq;
+								if (nearestSeeds != null) {
+									nearestSeeds[t] = firstNewSeed + s;
+								}
 							}
 						}
+						minSqDists[t] = minSqDist;
+						sum += minSqDist;
 					}
 				}
-				
-			} else { // newSeedIndex == -1
-				
-				// Must break from while loop, since no other seeds are available whether
-				// or not seedsFound == seedCount.
-				break;
+				rangeSums[r] = sum;
 			}
-		}
+		});
 		
-		TupleList seeds = new ArrayTupleList(tupleLength, seedsFound);
+		return rangeSums;
+	}
+	
+	/**
+	 * Chooses a tuple with probability proportional to its squared distance.
+	 * 
+	 * @param minSqDists the squared distances of the tuples to their nearest seeds.
+	 * @param rangeSums the sums of the squared distances for each range.
+	 * @param threshold a value drawn uniformly from [0, sum of rangeSums).
+	 * 
+	 * @return the index of the chosen tuple.
+	 */
+	protected static int sample(double[] minSqDists, double[] rangeSums, double threshold) {
 		
-		Arrays.sort(seedList, 0, seedsFound);
+		final int tupleCount = minSqDists.length;
+		final int rangeCount = rangeSums.length;
 		
-		for (int i=0; i<seedsFound; i++) {
-			tuples.getTuple(seedList[i], buffer1);
-			seeds.setTuple(i, buffer1);
+		// Locate the range, skipping ranges with nothing to choose.
+		int range = -1;
+		double probSum = 0;
+		for (int r=0; r<rangeCount; r++) {
+			if (rangeSums[r] > 0) {
+				range = r;
+				if (probSum + rangeSums[r] >= threshold) {
+					break;
+				}
+				probSum += rangeSums[r];
+			}
 		}
 		
-		return seeds;
+		// Then scan within it.  Rounding may leave the threshold beyond the 
+		// recomputed sum of the range, in which case the last candidate is taken.
+		final int end = rangeStart(range + 1, rangeCount, tupleCount);
+		int lastAvailable = -1;
+		for (int i=rangeStart(range, rangeCount, tupleCount); i<end; i++) {
+			if (minSqDists[i] > 0) {
+				lastAvailable = i;
+				probSum += minSqDists[i];
+				if (probSum >= threshold) {
+					return i;
+				}
+			}
+		}
 		
+		return lastAvailable;
 	}
-
-
 }
@@ -1,5 +1,9 @@
 package org.battelle.clodhopper.seeding;
 
+import java.util.concurrent.ExecutorService;
+
+import org.battelle.clodhopper.tuple.TupleList;
+
 /*=====================================================================
  * 
  *                       CLODHOPPER CLUSTERING API
@@ -35,4 +39,36 @@ public interface RandomClusterSeeder extends ClusterSeeder {
 	
 	void setRandomGeneratorSeed(long seed);
 	
+	/**
+	 * Generates seeds as <code>generateSeeds(tuples, seedCount, executor)</code> does, but
+	 * using the specified random generator seed in place of 
+	 * <code>getRandomGeneratorSeed()</code>. This allows concurrent callers sharing a 
+	 * seeder, such as the restarts of k-means, to use different seeds.
+	 * <p>
+	 * Implementations should leave the state of the seeder untouched. This default 
+	 * implementation cannot, so it sets the seed and restores it afterwards while holding
+	 * the seeder's lock. It is therefore only safe if no other thread changes the seed 
+	 * without holding the lock.</p>
+	 * 
+	 * @param tuples contains the data to generate seeds for.
+	 * @param seedCount the requested number of seeds.
+	 * @param seed the random generator seed.
+	 * @param executor the executor on which to run parallel work.
+	 * 
+	 * @return the seeds, packaged as a <code>TupleList</code>
+	 * 
+	 * @since 2.0.1
+	 */
+	default TupleList generateSeeds(TupleList tuples, int seedCount, long seed, ExecutorService executor) {
+		synchronized (this) {
+			final long previousSeed = getRandomGeneratorSeed();
+			setRandomGeneratorSeed(seed);
+			try {
+				return generateSeeds(tuples, seedCount, executor);
+			} finally {
+				setRandomGeneratorSeed(previousSeed);
+			}
+		}
+	}
+	
 }
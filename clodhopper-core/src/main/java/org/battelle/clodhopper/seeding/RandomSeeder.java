@@ -3,7 +3,9 @@ package org.battelle.clodhopper.seeding;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.tuple.ArrayTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
 
@@ -64,6 +66,53 @@ public class RandomSeeder implements RandomClusterSeeder {
 	
 	@Override
 	public TupleList generateSeeds(TupleList tuples, int seedCount) {
+		return generateSeeds(tuples, seedCount, SharedWorkerPool.get());
+	}
+	
+	@Override
+	public TupleList generateSeeds(TupleList tuples, int seedCount, ExecutorService executor) {
+		random.setSeed(seed);
+		return generateSeeds(tuples, seedCount, random, executor);
+	}
+	
+	/**
+	 * Generates seeds from a new random generator created by <code>newRandom(seed)</code>,
+	 * so neither the seed nor the random generator of this seeder are used or changed.
+	 */
+	@Override
+	public TupleList generateSeeds(TupleList tuples, int seedCount, long seed, ExecutorService executor) {
+		return generateSeeds(tuples, seedCount, newRandom(seed), executor);
+	}
+	
+	/**
+	 * Creates the random generator used by <code>generateSeeds(tuples, seedCount, seed, executor)</code>.
+	 * Subclasses constructed with a subclass of <code>Random</code> may override this to 
+	 * return an instance of it.
+	 * 
+	 * @param seed the seed for the generator.
+	 * 
+	 * @return a <code>Random</code> with the specified seed.
+	 * 
+	 * @since 2.0.1
+	 */
+	protected Random newRandom(long seed) {
+		return new Random(seed);
+	}
+	
+	/**
+	 * Generates the seeds using a random generator which has already been seeded. 
+	 * Subclasses override this method to change how the seeds are chosen.
+	 * 
+	 * @param tuples contains the data to generate seeds for.
+	 * @param seedCount the requested number of seeds.
+	 * @param random the random generator from which to draw random numbers.
+	 * @param executor the executor on which to run parallel work.
+	 * 
+	 * @return the seeds, packaged as a <code>TupleList</code>
+	 * 
+	 * @since 2.0.1
+	 */
+	protected TupleList generateSeeds(TupleList tuples, int seedCount, Random random, ExecutorService executor) {
 
 		if (seedCount <= 0) {
 			throw new IllegalArgumentException();
@@ -77,8 +126,6 @@ public class RandomSeeder implements RandomClusterSeeder {
 		
 		int tupleLength = tuples.getTupleLength();
 		
-        random.setSeed(seed);
-
         int[] indices = getShuffledTupleIndexes(tupleCount, random);
 
         int centersFound = 0;
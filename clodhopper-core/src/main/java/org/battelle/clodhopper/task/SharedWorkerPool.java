@@ -0,0 +1,230 @@
+package org.battelle.clodhopper.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * SharedWorkerPool.java
+ *
+ *===================================================================*/
+/**
+ * <p>Holds the work-stealing pool that clusterers submit their subtasks to by default.
+ * The pool is created on first use with one worker per available processor. Its workers
+ * are daemon threads that are kept alive between runs, so concurrent and successive
+ * clustering jobs share a bounded, warmed-up set of threads instead of each creating 
+ * and tearing down a pool of its own.</p>
+ * <p>Clusterers never shut down the pool they are given. Because workers blocked joining 
+ * subtasks help execute other tasks in a <code>ForkJoinPool</code>, clusterers that run nested 
+ * clusterers on the same pool, such as the splitting clusterers, cannot starve themselves 
+ * of workers.</p>
+ * <p>The static helpers run work on any executor supplied in place of the pool. Unlike 
+ * <code>ExecutorService.invokeAll</code>, they interrupt the tasks still running if the 
+ * waiting thread is interrupted, as it is when a task is cancelled, whatever kind of 
+ * executor runs them.</p>
+ *
+ * @since 2.0.1
+ */
+public final class SharedWorkerPool {
+
+    private SharedWorkerPool() {
+    }
+
+    // Lazily initialized when first referenced.
+    private static class Holder {
+        static final ForkJoinPool POOL = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("clodhopper-worker-" + thread.getPoolIndex());
+                    return thread;
+                },
+                null, true);
+    }
+
+    /**
+     * Returns the shared pool.
+     * 
+     * @return the <code>ForkJoinPool</code>, which is never shut down.
+     */
+    public static ForkJoinPool get() {
+        return Holder.POOL;
+    }
+
+    /**
+     * Returns the number of tasks an executor is expected to run at once.
+     * 
+     * @param executor the executor.
+     * 
+     * @return the parallelism of a <code>ForkJoinPool</code>, otherwise the number of
+     *   available processors.
+     */
+    public static int parallelism(final ExecutorService executor) {
+        return executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs tasks on an executor and waits for all of them to finish. This is the same as
+     * <code>executor.invokeAll(tasks)</code>, except when the calling thread is interrupted
+     * while waiting. The tasks which have not started are then cancelled and those which are
+     * running are interrupted, even on a <code>ForkJoinPool</code>, whose own 
+     * <code>invokeAll</code> ignores interrupts. Waiting from a worker of a 
+     * <code>ForkJoinPool</code> helps run its tasks, as joining does.
+     * 
+     * @param <T> the type of the results.
+     * @param executor the executor on which to run the tasks.
+     * @param tasks the tasks.
+     * 
+     * @return the futures of the tasks, in the same order, all of which are done.
+     * 
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static <T> List<Future<T>> invokeAll(final ExecutorService executor,
+            final Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        final List<InterruptibleTask<T>> wrappers = new ArrayList<>(tasks.size());
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        boolean done = false;
+        try {
+            for (Callable<T> task : tasks) {
+                InterruptibleTask<T> wrapper = new InterruptibleTask<>(task);
+                wrappers.add(wrapper);
+                futures.add(executor.submit(wrapper));
+            }
+            for (Future<T> future : futures) {
+                try {
+                    future.get();
+                } catch (CancellationException | ExecutionException e) {
+                    // Left for the caller to find in the future.
+                }
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                for (int i = 0; i < futures.size(); i++) {
+                    futures.get(i).cancel(false);
+                    wrappers.get(i).interrupt();
+                }
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Calls an action for every index in [0, count) on an executor, each index as a 
+     * separate task, and waits for them all to finish. A single index is handled on the
+     * calling thread.
+     * 
+     * @param executor the executor on which to run the actions.
+     * @param count the number of indexes.
+     * @param action the action.
+     * 
+     * @throws CancellationException if interrupted while waiting. The interrupt status 
+     *   of the calling thread is then set again.
+     * @throws CompletionException wrapping a checked exception thrown by an action. 
+     *   Unchecked exceptions and errors are rethrown as they are.
+     */
+    public static void forEach(final ExecutorService executor, final int count, final IntConsumer action) {
+        if (count == 1) {
+            action.accept(0);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                action.accept(index);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : invokeAll(executor, tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    // Records the thread running a task, so the task can be interrupted on any executor.
+    private static final class InterruptibleTask<T> implements Callable<T> {
+
+        private final Callable<T> task;
+        private Thread runner;
+        private boolean interrupted;
+
+        private InterruptibleTask(final Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception {
+            synchronized (this) {
+                if (interrupted) {
+                    throw new CancellationException();
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                return task.call();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (interrupted) {
+                        // So the interrupt does not reach the next task run by the thread.
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        private synchronized void interrupt() {
+            interrupted = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.battelle.clodhopper.task;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * VirtualThreadExecutors.java
+ *
+ *===================================================================*/
+/**
+ * <p>Creates executors that run each subtask on its own virtual thread, for use as the
+ * executor of a clusterer's parameters when the tuples are file-backed and workers
+ * spend much of their time waiting on reads. Combined with a worker thread count
+ * from <code>workerCount</code>, the clusterer splits its passes into many fine-grained 
+ * chunks that are multiplexed over a carrier thread per processor, so more reads are
+ * in flight without more threads competing for the processors.</p>
+ * <p>Virtual threads require Java 21. This is the version used on earlier runtimes, on 
+ * which <code>isAvailable</code> returns false and <code>newExecutor</code> falls back to
+ * a work-stealing pool of platform threads. The jar is multi-release, and contains a 
+ * Java 21 version of this class that is used in its place when running on Java 21 or later.</p>
+ * <p>A virtual thread blocked in a page fault on a memory-mapped file holds its carrier 
+ * thread, so reads through <code>FileMappedTupleList</code> are overlapped only as far as 
+ * the number of carriers allows. Reads through blocking file I/O release or compensate 
+ * for their carriers.</p>
+ *
+ * @since 2.0.1
+ */
+public final class VirtualThreadExecutors {
+
+    /**
+     * The number of tuples in each chunk suggested by <code>workerCount</code>.
+     */
+    public static final int TUPLES_PER_CHUNK = 8192;
+
+    /**
+     * The maximum number of chunks suggested by <code>workerCount</code>.
+     */
+    public static final int MAX_CHUNKS = 1024;
+
+    private VirtualThreadExecutors() {
+    }
+
+    /**
+     * Returns whether virtual threads are supported by the runtime.
+     * 
+     * @return false, since this version of the class is used only before Java 21.
+     */
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each subtask. The 
+     * caller owns the executor and should shut it down when finished with it, since
+     * clusterers never shut down their executors.
+     * 
+     * <p>Since this version of the class is used only before Java 21, it instead returns
+     * a new <code>ForkJoinPool</code> with one worker per available processor, like the 
+     * <tt>SharedWorkerPool</tt>. The pool is not the shared one, so that shutting it 
+     * down leaves the shared pool running.</p>
+     * 
+     * @return the executor.
+     */
+    public static ExecutorService newExecutor() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a worker thread count that splits a number of tuples into chunks of 
+     * about <code>TUPLES_PER_CHUNK</code> tuples, with at most <code>MAX_CHUNKS</code> chunks.
+     * 
+     * @param tupleCount the number of tuples.
+     * 
+     * @return the worker thread count, always at least 1.
+     */
+    public static int workerCount(final int tupleCount) {
+        return Math.max(1, Math.min(MAX_CHUNKS, tupleCount / TUPLES_PER_CHUNK));
+    }
+}
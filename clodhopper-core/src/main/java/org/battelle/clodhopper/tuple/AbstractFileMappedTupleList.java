@@ -0,0 +1,346 @@
+package org.battelle.clodhopper.tuple;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * AbstractFileMappedTupleList.java
+ *
+ *===================================================================*/
+/**
+ * An abstract base class for a <code>TupleList</code> backed by a single binary 
+ * data file. The file starts with the tuple length and tuple count, followed by 
+ * the values, all of which have the same width in bytes. The data portion of the 
+ * file is memory-mapped. Since a single mapping cannot exceed 2 GB, the data is 
+ * mapped as a number of segments, each holding a whole number of tuples.
+ * <p>
+ * This class handles the file and the segments. Subclasses supply a typed view of
+ * each segment and read and write the values through it, using only absolute gets 
+ * and puts, so reads are lock-free.</p>
+ *
+ * @param <B> the type of buffer used to view each segment.
+ *
+ * @since 2.0.1
+ *
+ */
+public abstract class AbstractFileMappedTupleList<B extends Buffer> extends AbstractTupleList {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractFileMappedTupleList.class);
+
+    // Length of the header containing the tuple length and tuple count.
+    private static final long HEADER_LEN = 8L;
+
+    /**
+     * The maximum number of bytes mapped by a single segment.
+     */
+    public static final int DEFAULT_MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    private final File file;
+    private final int valueBytes;
+    private final int maxSegmentBytes;
+    private RandomAccessFile randomAccessFile;
+    // Views of the mapped segments. Volatile, so readers never have to lock to see
+    // whether the file is open.
+    private volatile B[] segments;
+    private MappedByteBuffer[] mappedBuffers;
+    private int tuplesPerSegment;
+
+    /**
+     * Constructor which creates a new file, replacing any existing file.
+     *
+     * @param file the file in which to store the tuples.
+     * @param valueBytes the number of bytes in each stored value.
+     * @param tupleLength the tuple length.
+     * @param tupleCount the tuple count.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     *
+     * @throws IOException if an IO error occurs.
+     */
+    protected AbstractFileMappedTupleList(final File file, final int valueBytes, final int tupleLength, 
+            final int tupleCount, final int maxSegmentBytes) throws IOException {
+        super(tupleLength, tupleCount);
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        checkMaxSegmentBytes(maxSegmentBytes, valueBytes);
+        this.file = file;
+        this.valueBytes = valueBytes;
+        this.maxSegmentBytes = maxSegmentBytes;
+        initEmptyFile();
+        open();
+    }
+
+    /**
+     * Constructor which opens an existing file.
+     *
+     * @param file the file containing the tuples.
+     * @param valueBytes the number of bytes in each stored value.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     * 
+     * @throws IOException if an IO error occurs.
+     */
+    protected AbstractFileMappedTupleList(final File file, final int valueBytes, final int maxSegmentBytes) 
+            throws IOException {
+        super(0, 0);
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        checkMaxSegmentBytes(maxSegmentBytes, valueBytes);
+        this.file = file;
+        this.valueBytes = valueBytes;
+        this.maxSegmentBytes = maxSegmentBytes;
+        open();
+    }
+
+    /**
+     * Get the file backing this instance.
+     *
+     * @return a file instance.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of segments into which the data is mapped.
+     * 
+     * @return the number of segments, or 0 if the file is not open.
+     */
+    public int getSegmentCount() {
+        B[] segs = segments;
+        return segs != null ? segs.length : 0;
+    }
+
+    /**
+     * Checks a file to see whether its length matches its header for values of
+     * the specified width.
+     *
+     * @param f the file to check.
+     * @param valueBytes the number of bytes in each stored value.
+     * @return true if the file validates, false otherwise.
+     * @throws IOException if an IO error occurs.
+     */
+    protected static boolean validateFile(final File f, final int valueBytes) throws IOException {
+        if (f.exists() && f.isFile()) {
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new FileInputStream(f));
+                int tupleLen = in.readInt();
+                int tupleCount = in.readInt();
+                long expectedFileLen = HEADER_LEN + ((long) valueBytes) * tupleLen * tupleCount;
+                return f.length() == expectedFileLen;
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void checkMaxSegmentBytes(final int maxSegmentBytes, final int valueBytes) {
+        if (maxSegmentBytes < valueBytes) {
+            throw new IllegalArgumentException("maxSegmentBytes must be >= " + valueBytes + ": " + maxSegmentBytes);
+        }
+    }
+
+    // Writes the header and sizes the file. Setting the length zero-fills the data portion
+    // without having to write every value.
+    private void initEmptyFile() throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(this.file, "rw");
+            raf.setLength(0L);
+            raf.writeInt(this.tupleLength);
+            raf.writeInt(this.tupleCount);
+            raf.setLength(HEADER_LEN + ((long) valueBytes) * this.tupleLength * this.tupleCount);
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    LOGGER.error("error closing output stream", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get whether or not the backing file is open.
+     *
+     * @return true if the file is open.
+     */
+    public synchronized boolean isOpen() {
+        return segments != null;
+    }
+
+    /**
+     * Opens the backing file and maps its data. If the file is already open, 
+     * this method does nothing.
+     *
+     * @throws IOException if an IO error occurs.
+     */
+    public synchronized void open() throws IOException {
+        if (!isOpen()) {
+            boolean ok = false;
+            try {
+                randomAccessFile = new RandomAccessFile(this.file, "rw");
+                int tlen = randomAccessFile.readInt();
+                int tcount = randomAccessFile.readInt();
+                if (tlen < 0 || tcount < 0) {
+                    throw new IOException(String.format("invalid tuple length or tuple count: %d, %d", tlen, tcount));
+                }
+                long tupleBytes = ((long) valueBytes) * tlen;
+                if (tupleBytes > maxSegmentBytes) {
+                    throw new IOException(String.format("tuple length too large to be mapped: %d", tlen));
+                }
+                int perSegment = tupleBytes > 0 ? (int) Math.min(Math.max(tcount, 1), maxSegmentBytes / tupleBytes) 
+                        : Math.max(tcount, 1);
+                int segmentCount = (int) ((tcount + (long) perSegment - 1) / perSegment);
+                FileChannel channel = randomAccessFile.getChannel();
+                MappedByteBuffer[] mapped = new MappedByteBuffer[segmentCount];
+                B[] segs = newSegmentArray(segmentCount);
+                for (int i = 0; i < segmentCount; i++) {
+                    long firstTuple = (long) i * perSegment;
+                    long tuplesThisSegment = Math.min(perSegment, tcount - firstTuple);
+                    mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, 
+                            HEADER_LEN + firstTuple * tupleBytes, tuplesThisSegment * tupleBytes);
+                    segs[i] = segmentView(mapped[i]);
+                }
+                this.tupleLength = tlen;
+                this.tupleCount = tcount;
+                this.tuplesPerSegment = perSegment;
+                this.mappedBuffers = mapped;
+                // Last, since a non-null value signals that the instance is open.
+                this.segments = segs;
+                ok = true;
+            } finally {
+                if (!ok) {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        LOGGER.error("error closing output stream", e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the backing file if it is open. Changes to the mapped data are
+     * flushed to the file before it is closed.
+     *
+     * @throws IOException if an IO error occurs.
+     */
+    public synchronized void close() throws IOException {
+        segments = null;
+        if (mappedBuffers != null) {
+            for (MappedByteBuffer mbb : mappedBuffers) {
+                mbb.force();
+            }
+            mappedBuffers = null;
+        }
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+            randomAccessFile = null;
+        }
+    }
+
+    /**
+     * Creates the typed view through which the values of a mapped segment are 
+     * read and written.
+     * 
+     * @param mapped the mapped segment.
+     * @return a view of the segment.
+     */
+    protected abstract B segmentView(MappedByteBuffer mapped);
+
+    /**
+     * Creates an array to hold the views of the segments.
+     * 
+     * @param length the number of segments.
+     * @return a new array.
+     */
+    protected abstract B[] newSegmentArray(int length);
+
+    /**
+     * Returns the view of the segment containing tuple n. Subclasses should only use
+     * absolute gets and puts on the view, which do not alter the state of the buffer, 
+     * so no locking is necessary.
+     * 
+     * @param n the index of a tuple.
+     * @return the view of the segment containing the tuple.
+     * @throws IllegalStateException if the file is not open.
+     */
+    protected final B segmentFor(final int n) {
+        final B[] segs = segments;
+        if (segs == null) {
+            throw new IllegalStateException("not open");
+        }
+        return segs[n / tuplesPerSegment];
+    }
+
+    /**
+     * Returns the offset of the first value of tuple n within its segment.
+     * 
+     * @param n the index of a tuple.
+     * @return the offset in values, not bytes.
+     */
+    protected final int segmentOffset(final int n) {
+        return (n % tuplesPerSegment) * tupleLength;
+    }
+
+    /**
+     * Returns the number of tuples from tuple n to the end of its segment, 
+     * including tuple n.
+     * 
+     * @param n the index of a tuple.
+     * @return the number of tuples.
+     */
+    protected final int tuplesLeftInSegment(final int n) {
+        return tuplesPerSegment - (n % tuplesPerSegment);
+    }
+
+    protected void finalize() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOGGER.error("error closing file", e);
+        }
+    }
+}
@@ -41,6 +41,9 @@ public abstract class AbstractTupleList implements TupleList {
     protected int tupleLength;
     protected int tupleCount;
 
+    // Set by TupleListProfile.attach() and cleared by tuplesModified().
+    private volatile TupleListProfile profile;
+
     /**
      * Constructor. Subclasses may call this constructor with 0 for both
      * arguments, but they should later set tupleLength and tupleCount to the
@@ -90,6 +93,26 @@ public abstract class AbstractTupleList implements TupleList {
         return result;
     }
 
+    /**
+     * Discards the <tt>TupleListProfile</tt> attached to this list, if any. 
+     * Subclasses that allow tuples to be set must call this whenever they are.
+     * 
+     * @since 2.0.1
+     */
+    protected final void tuplesModified() {
+        if (profile != null) {
+            profile = null;
+        }
+    }
+
+    TupleListProfile getProfile() {
+        return profile;
+    }
+
+    void setProfile(final TupleListProfile profile) {
+        this.profile = profile;
+    }
+
     /**
      * Checks the tuple index, throwing an IndexOutOfBoundsException if it is
      * out of range.
@@ -102,6 +125,34 @@ public abstract class AbstractTupleList implements TupleList {
         }
     }
 
+    /**
+     * Checks a range of tuple indexes, throwing an IndexOutOfBoundsException if
+     * any part of it is out of range.
+     *
+     * @param start the first index of the range.
+     * @param count the number of indexes in the range.
+     */
+    protected void checkTupleRange(final int start, final int count) {
+        if (start < 0 || count < 0 || start + count > tupleCount) {
+            throw new IndexOutOfBoundsException(String.format("tuple range not in [%d - %d]: [%d - %d]",
+                    0, tupleCount - 1, start, start + count - 1));
+        }
+    }
+
+    /**
+     * Returns the buffer if it is long enough to hold the values of the
+     * specified number of tuples, otherwise allocates a new one.
+     *
+     * @param count the number of tuples.
+     * @param reuseBuffer the buffer to reuse if possible, may be null.
+     *
+     * @return an array of at least count*getTupleLength() elements.
+     */
+    protected double[] blockBuffer(final int count, final double[] reuseBuffer) {
+        final int len = count * tupleLength;
+        return reuseBuffer != null && reuseBuffer.length >= len ? reuseBuffer : new double[len];
+    }
+
     /**
      * Checks the column index, throwing an IndexOutOfBoundsException if it is
      * invalid.
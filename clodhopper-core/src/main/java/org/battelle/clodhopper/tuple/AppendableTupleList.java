@@ -0,0 +1,561 @@
+package org.battelle.clodhopper.tuple;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * AppendableTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * An implementation of <tt>TupleList</tt> that starts out empty and grows as tuples
+ * are appended to it, so the number of tuples does not have to be known when it is
+ * created. Storage is added in chunks of a fixed number of tuples, either on the heap
+ * or mapped from a file created with <code>createNew</code>. Tuples already appended
+ * are never moved or copied when the list grows.</p>
+ * <p>
+ * The list is append-only: <code>setTuple</code> is not supported. One thread at a
+ * time may append, while any number of other threads read. A tuple becomes visible to
+ * readers, and is counted by <code>getTupleCount</code>, only once it has been completely
+ * written. Since the count of a list being appended to can change between calls, readers
+ * that need a stable view, such as clustering algorithms, should work with a
+ * <code>snapshot</code>, which is a fixed-size <tt>TupleList</tt> over the tuples
+ * appended so far.</p>
+ * <p>
+ * When a file-backed instance is closed, the file is trimmed to the tuples appended
+ * and has the same format as the files of <tt>FileMappedTupleList</tt>, through which
+ * it may then be reopened. Since trimming a file while parts of it are mapped can crash
+ * readers of those parts or fail outright, depending on the platform, the snapshots of 
+ * a file-backed list must be closed before the list is.</p>
+ *
+ * @since 2.0.1
+ */
+public class AppendableTupleList extends AbstractTupleList {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppendableTupleList.class);
+
+    /**
+     * The approximate number of values held by each chunk when the chunk size is
+     * not specified.
+     */
+    public static final int DEFAULT_CHUNK_VALUES = 1 << 20;
+
+    // Same header as the files of FileMappedTupleList: tuple length and tuple count.
+    private static final long HEADER_LEN = 8L;
+
+    private final int tuplesPerChunk;
+    private final File file;
+    private RandomAccessFile randomAccessFile;
+    // Only used by the appending thread, to flush file-backed chunks on close.
+    private MappedByteBuffer[] mappedChunks = new MappedByteBuffer[0];
+
+    // Both are replaced, never modified in place, once visible to readers. The chunks
+    // are published before the count that makes their tuples visible.
+    private volatile DoubleBuffer[] chunks = new DoubleBuffer[0];
+    private volatile int size;
+
+    // Guards openSnapshots and closed. Separate from the lock held by append(), so 
+    // taking a snapshot does not wait for the file to be extended.
+    private final Object snapshotLock = new Object();
+    private int openSnapshots;
+    private boolean closed;
+
+    /**
+     * Constructs a new, empty <tt>AppendableTupleList</tt> holding its values on the 
+     * heap in chunks of about <code>DEFAULT_CHUNK_VALUES</code> values.
+     *
+     * @param tupleLength the length of each tuple
+     */
+    public AppendableTupleList(final int tupleLength) {
+        this(tupleLength, defaultTuplesPerChunk(tupleLength));
+    }
+
+    /**
+     * Constructs a new, empty <tt>AppendableTupleList</tt> holding its values on the 
+     * heap.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tuplesPerChunk the number of tuples storage is added for each time
+     *   the list fills up.
+     */
+    public AppendableTupleList(final int tupleLength, final int tuplesPerChunk) {
+        this(tupleLength, tuplesPerChunk, null, null);
+    }
+
+    private AppendableTupleList(final int tupleLength, final int tuplesPerChunk, 
+            final File file, final RandomAccessFile randomAccessFile) {
+        super(tupleLength, 0);
+        if (tuplesPerChunk <= 0) {
+            throw new IllegalArgumentException("tuplesPerChunk must be > 0: " + tuplesPerChunk);
+        }
+        if (8L * tupleLength * tuplesPerChunk > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                    "chunks of %d tuples of length %d are too large", tuplesPerChunk, tupleLength));
+        }
+        this.tuplesPerChunk = tuplesPerChunk;
+        this.file = file;
+        this.randomAccessFile = randomAccessFile;
+    }
+
+    /**
+     * Creates a new, empty <tt>AppendableTupleList</tt> whose values are mapped from
+     * a file. The file is extended by a chunk each time the list fills up. Any existing
+     * content of the file is discarded.
+     *
+     * @param file the backing file.
+     * @param tupleLength the length of each tuple.
+     * @param tuplesPerChunk the number of tuples the file is extended by each time
+     *   the list fills up.
+     * 
+     * @return a new <tt>AppendableTupleList</tt>
+     * 
+     * @throws IOException if an IO error occurs.
+     */
+    public static AppendableTupleList createNew(final File file, final int tupleLength, 
+            final int tuplesPerChunk) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        boolean ok = false;
+        try {
+            raf.setLength(0L);
+            raf.writeInt(tupleLength);
+            raf.writeInt(0);
+            AppendableTupleList tuples = new AppendableTupleList(tupleLength, tuplesPerChunk, file, raf);
+            ok = true;
+            return tuples;
+        } finally {
+            if (!ok) {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Creates a new, empty <tt>AppendableTupleList</tt> whose values are mapped from
+     * a file, using chunks of about <code>DEFAULT_CHUNK_VALUES</code> values.
+     *
+     * @param file the backing file.
+     * @param tupleLength the length of each tuple.
+     * 
+     * @return a new <tt>AppendableTupleList</tt>
+     * 
+     * @throws IOException if an IO error occurs.
+     */
+    public static AppendableTupleList createNew(final File file, final int tupleLength) throws IOException {
+        return createNew(file, tupleLength, defaultTuplesPerChunk(tupleLength));
+    }
+
+    private static int defaultTuplesPerChunk(final int tupleLength) {
+        return Math.max(1, DEFAULT_CHUNK_VALUES / Math.max(1, tupleLength));
+    }
+
+    /**
+     * Get the backing file.
+     * 
+     * @return the file, or null if the values are held on the heap.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of tuples storage is added for each time the list fills up.
+     * 
+     * @return the number of tuples per chunk.
+     */
+    public int getTuplesPerChunk() {
+        return tuplesPerChunk;
+    }
+
+    /**
+     * Appends a tuple to the end of the list.
+     * 
+     * @param values the values of the tuple, which must have a length of at least
+     *   the tuple length.
+     * 
+     * @return the index of the new tuple.
+     * 
+     * @throws IOException if the list is file-backed and the file could not be extended.
+     * @throws IllegalStateException if the list is file-backed and has been closed.
+     */
+    public synchronized int append(final double[] values) throws IOException {
+        checkValuesLength(values);
+        final int n = size;
+        if (n == Integer.MAX_VALUE) {
+            throw new IllegalStateException("tuple list is full");
+        }
+        final int chunk = n / tuplesPerChunk;
+        DoubleBuffer[] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, chunk + 1);
+            current[chunk] = newChunk(chunk);
+            chunks = current;
+        }
+        final DoubleBuffer buffer = current[chunk];
+        final int base = (n - chunk * tuplesPerChunk) * tupleLength;
+        for (int j = 0; j < tupleLength; j++) {
+            buffer.put(base + j, values[j]);
+        }
+        // Publishes the values written above.
+        size = n + 1;
+        return n;
+    }
+
+    /**
+     * Appends all the tuples of another <tt>TupleList</tt> to the end of the list.
+     * 
+     * @param tuples the tuples to append, which must have the same tuple length.
+     * 
+     * @throws IOException if the list is file-backed and the file could not be extended.
+     */
+    public synchronized void append(final TupleList tuples) throws IOException {
+        if (tuples.getTupleLength() != tupleLength) {
+            throw new IllegalArgumentException(String.format(
+                    "tuple length %d != %d", tuples.getTupleLength(), tupleLength));
+        }
+        final int count = tuples.getTupleCount();
+        double[] buffer = new double[tupleLength];
+        for (int i = 0; i < count; i++) {
+            append(tuples.getTuple(i, buffer));
+        }
+    }
+
+    private DoubleBuffer newChunk(final int chunk) throws IOException {
+        final int chunkValues = tuplesPerChunk * tupleLength;
+        if (file == null) {
+            return DoubleBuffer.wrap(new double[chunkValues]);
+        }
+        if (randomAccessFile == null) {
+            throw new IllegalStateException("tuple list has been closed");
+        }
+        final long chunkBytes = 8L * chunkValues;
+        final long offset = HEADER_LEN + chunk * chunkBytes;
+        // Setting the length zero-fills the new chunk.
+        randomAccessFile.setLength(offset + chunkBytes);
+        MappedByteBuffer mapped = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, offset, chunkBytes);
+        mappedChunks = Arrays.copyOf(mappedChunks, chunk + 1);
+        mappedChunks[chunk] = mapped;
+        return mapped.asDoubleBuffer();
+    }
+
+    /**
+     * Returns a fixed-size <tt>TupleList</tt> of the tuples appended so far. The 
+     * snapshot shares storage with this list, so taking one does not copy any values,
+     * and it is not affected by later appends. A snapshot of a file-backed list must
+     * be closed when no longer needed, and before the list is closed.
+     * 
+     * @return a read-only <tt>TupleList</tt> of the first <code>getTupleCount()</code> tuples.
+     * 
+     * @throws IllegalStateException if the list is file-backed and has been closed.
+     */
+    public Snapshot snapshot() {
+        if (file == null) {
+            return newSnapshot(null);
+        }
+        synchronized (snapshotLock) {
+            if (closed) {
+                throw new IllegalStateException("tuple list has been closed");
+            }
+            openSnapshots++;
+            return newSnapshot(this);
+        }
+    }
+
+    private Snapshot newSnapshot(final AppendableTupleList owner) {
+        // The count must be read before the chunks.
+        final int count = size;
+        return new Snapshot(tupleLength, count, tuplesPerChunk, chunks, owner);
+    }
+
+    private void snapshotClosed() {
+        synchronized (snapshotLock) {
+            openSnapshots--;
+        }
+    }
+
+    /**
+     * Get whether the backing file is open. Always true for lists held on the heap.
+     * 
+     * @return true if the file is open.
+     */
+    public synchronized boolean isOpen() {
+        return file == null || randomAccessFile != null;
+    }
+
+    /**
+     * Closes the backing file of a file-backed list, after recording the tuple count
+     * in its header and trimming off unused chunk space. No further tuples may be 
+     * appended and no further snapshots taken. This method does nothing for lists 
+     * held on the heap.
+     * 
+     * @throws IOException if an IO error occurs.
+     * @throws IllegalStateException if snapshots of the list are still open, in which
+     *   case the list is left open.
+     */
+    public synchronized void close() throws IOException {
+        if (randomAccessFile != null) {
+            synchronized (snapshotLock) {
+                if (openSnapshots > 0) {
+                    throw new IllegalStateException(String.format(
+                            "cannot close with %d snapshots open", openSnapshots));
+                }
+                closed = true;
+            }
+            try {
+                for (MappedByteBuffer mapped : mappedChunks) {
+                    mapped.force();
+                }
+                randomAccessFile.seek(4L);
+                randomAccessFile.writeInt(size);
+                randomAccessFile.setLength(HEADER_LEN + 8L * tupleLength * size);
+            } finally {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e) {
+                    LOGGER.error("error closing file", e);
+                }
+                randomAccessFile = null;
+                mappedChunks = new MappedByteBuffer[0];
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTupleCount() {
+        return size;
+    }
+
+    /**
+     * Not supported, since the list is append-only.
+     * 
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        throw new UnsupportedOperationException("tuples may only be appended");
+    }
+
+    // The reads below take the count, then the chunks, once per call instead of
+    // allocating a snapshot, since they may be made for every tuple of a pass.
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        final int count = size;
+        final DoubleBuffer[] current = chunks;
+        checkIndex(n, count);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        readTuple(current, tuplesPerChunk, tupleLength, n, result, 0);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        final int tupleCount = size;
+        final DoubleBuffer[] current = chunks;
+        checkRange(start, count, tupleCount);
+        double[] result = blockBuffer(count, reuseBuffer);
+        readTuples(current, tuplesPerChunk, tupleLength, start, count, result);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int[] indexes, final int offset, final int count, final double[] reuseBuffer) {
+        final int tupleCount = size;
+        final DoubleBuffer[] current = chunks;
+        double[] result = blockBuffer(count, reuseBuffer);
+        for (int i = 0; i < count; i++) {
+            final int n = indexes[offset + i];
+            checkIndex(n, tupleCount);
+            readTuple(current, tuplesPerChunk, tupleLength, n, result, i * tupleLength);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        final int count = size;
+        final DoubleBuffer[] current = chunks;
+        checkIndex(n, count);
+        checkColumnIndex(col);
+        final int chunk = n / tuplesPerChunk;
+        return current[chunk].get((n - chunk * tuplesPerChunk) * tupleLength + col);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getColumn(final int col, final double[] columnBuffer) {
+        // Not tracked, since it is discarded before returning.
+        return newSnapshot(null).getColumn(col, columnBuffer);
+    }
+
+    // The inherited checks compare against the tuple count given to the constructor, 
+    // which is always 0 for this class.
+    private static void checkIndex(final int n, final int tupleCount) {
+        if (n < 0 || n >= tupleCount) {
+            throw new IndexOutOfBoundsException(String.format("tuple index not in [%d - %d]: %d", 0, tupleCount - 1, n));
+        }
+    }
+
+    private static void checkRange(final int start, final int count, final int tupleCount) {
+        if (start < 0 || count < 0 || start + count > tupleCount) {
+            throw new IndexOutOfBoundsException(String.format("tuple range not in [%d - %d]: [%d - %d]",
+                    0, tupleCount - 1, start, start + count - 1));
+        }
+    }
+
+    // Copies tuple n into dest at pos using absolute gets, so nothing is allocated.
+    private static void readTuple(final DoubleBuffer[] chunks, final int tuplesPerChunk, final int tupleLength,
+            final int n, final double[] dest, final int pos) {
+        final int chunk = n / tuplesPerChunk;
+        final DoubleBuffer buffer = chunks[chunk];
+        final int base = (n - chunk * tuplesPerChunk) * tupleLength;
+        for (int j = 0; j < tupleLength; j++) {
+            dest[pos + j] = buffer.get(base + j);
+        }
+    }
+
+    // Copies count tuples beginning with start into dest, a chunk at a time.
+    private static void readTuples(final DoubleBuffer[] chunks, final int tuplesPerChunk, final int tupleLength,
+            final int start, final int count, final double[] dest) {
+        int n = start;
+        int pos = 0;
+        final int end = start + count;
+        while (n < end) {
+            final int chunk = n / tuplesPerChunk;
+            final int first = n - chunk * tuplesPerChunk;
+            final int tuples = Math.min(end - n, tuplesPerChunk - first);
+            // Duplicated so concurrent readers do not share a position.
+            DoubleBuffer buffer = chunks[chunk].duplicate();
+            buffer.position(first * tupleLength);
+            buffer.get(dest, pos, tuples * tupleLength);
+            n += tuples;
+            pos += tuples * tupleLength;
+        }
+    }
+
+    /**
+     * A fixed-size view of the tuples of an <tt>AppendableTupleList</tt> at the time
+     * it was taken. Since tuples are never changed once appended, no synchronization 
+     * is needed to read them. A snapshot must not be read after it is closed.
+     */
+    public static final class Snapshot extends AbstractTupleList implements Closeable {
+
+        private final int tuplesPerChunk;
+        private DoubleBuffer[] chunks;
+        // The list whose open snapshots are counted, or null if this one is not counted.
+        private AppendableTupleList owner;
+
+        private Snapshot(final int tupleLength, final int tupleCount, final int tuplesPerChunk, 
+                final DoubleBuffer[] chunks, final AppendableTupleList owner) {
+            super(tupleLength, tupleCount);
+            this.tuplesPerChunk = tuplesPerChunk;
+            this.chunks = chunks;
+            this.owner = owner;
+        }
+
+        /**
+         * Releases the snapshot, allowing a file-backed list to be closed once all 
+         * its snapshots are. Calling this more than once has no further effect.
+         */
+        @Override
+        public synchronized void close() {
+            if (owner != null) {
+                owner.snapshotClosed();
+                owner = null;
+            }
+            // Later reads fail rather than touch storage that may have been unmapped.
+            chunks = null;
+        }
+
+        @Override
+        public void setTuple(final int n, final double[] values) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        @Override
+        public double[] getTuple(final int n, final double[] reuseBuffer) {
+            checkTupleIndex(n);
+            double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                    : new double[tupleLength];
+            readTuple(chunks, tuplesPerChunk, tupleLength, n, result, 0);
+            return result;
+        }
+
+        @Override
+        public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+            checkTupleRange(start, count);
+            double[] result = blockBuffer(count, reuseBuffer);
+            readTuples(chunks, tuplesPerChunk, tupleLength, start, count, result);
+            return result;
+        }
+
+        @Override
+        public double[] getTuples(final int[] indexes, final int offset, final int count, final double[] reuseBuffer) {
+            double[] result = blockBuffer(count, reuseBuffer);
+            for (int i = 0; i < count; i++) {
+                final int n = indexes[offset + i];
+                checkTupleIndex(n);
+                readTuple(chunks, tuplesPerChunk, tupleLength, n, result, i * tupleLength);
+            }
+            return result;
+        }
+
+        @Override
+        public double getTupleValue(final int n, final int col) {
+            checkTupleIndex(n);
+            checkColumnIndex(col);
+            final int chunk = n / tuplesPerChunk;
+            return chunks[chunk].get((n - chunk * tuplesPerChunk) * tupleLength + col);
+        }
+    }
+}
@@ -86,6 +86,7 @@ public class ArrayTupleList extends AbstractTupleList {
     public void setTuple(final int n, final double[] values) {
         checkTupleIndex(n);
         checkValuesLength(values);
+        tuplesModified();
         System.arraycopy(values, 0, this.values, n * tupleLength, tupleLength);
     }
 
@@ -101,6 +102,31 @@ public class ArrayTupleList extends AbstractTupleList {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        System.arraycopy(this.values, start * tupleLength, result, 0, count * tupleLength);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int[] indexes, final int offset, final int count, final double[] reuseBuffer) {
+        double[] result = blockBuffer(count, reuseBuffer);
+        for (int i = 0, pos = 0; i < count; i++, pos += tupleLength) {
+            final int n = indexes[offset + i];
+            checkTupleIndex(n);
+            System.arraycopy(this.values, n * tupleLength, result, pos, tupleLength);
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -44,6 +44,67 @@ public class ArrayTupleListFactory implements TupleListFactory {
 
 	private Map<String, TupleList> tupleListMap = new HashMap<String, TupleList> ();
 	
+	private final TuplePrecision precision;
+	private final boolean offHeap;
+	
+	/**
+	 * Constructor for a factory that creates double precision tuple lists.
+	 */
+	public ArrayTupleListFactory() {
+		this(TuplePrecision.DOUBLE);
+	}
+	
+	/**
+	 * Constructor for a factory that keeps tuple lists on the heap unless they 
+	 * are too large for a single array.
+	 * 
+	 * @param precision the precision in which created tuple lists store their values.
+	 * 
+	 * @since 2.0.1
+	 */
+	public ArrayTupleListFactory(TuplePrecision precision) {
+		this(precision, false);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param precision the precision in which created tuple lists store their values.
+	 * @param offHeap if true, all tuple lists are created as <code>OffHeapTupleList</code>s.
+	 *   If false, only tuple lists with too many values for an array are created off-heap.
+	 * 
+	 * @since 2.0.1
+	 */
+	public ArrayTupleListFactory(TuplePrecision precision, boolean offHeap) {
+		if (precision == null) {
+			throw new NullPointerException();
+		}
+		this.precision = precision;
+		this.offHeap = offHeap;
+	}
+	
+	/**
+	 * Get the precision in which created tuple lists store their values.
+	 * 
+	 * @return the precision.
+	 * 
+	 * @since 2.0.1
+	 */
+	public TuplePrecision getPrecision() {
+		return precision;
+	}
+	
+	/**
+	 * Get whether all created tuple lists are kept off the heap.
+	 * 
+	 * @return true if tuple lists are created off-heap.
+	 * 
+	 * @since 2.0.1
+	 */
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -59,7 +120,14 @@ public class ArrayTupleListFactory implements TupleListFactory {
             throw new TupleListFactoryException("tuples already exist for name " + name);
         }
         
-        TupleList tuples = new ArrayTupleList(tupleLength, tupleCount);
+        TupleList tuples = null;
+        if (offHeap || !OffHeapTupleList.fitsInArray(tupleLength, tupleCount)) {
+        	tuples = new OffHeapTupleList(tupleLength, tupleCount, precision);
+        } else if (precision == TuplePrecision.FLOAT) {
+        	tuples = new FloatArrayTupleList(tupleLength, tupleCount);
+        } else {
+        	tuples = new ArrayTupleList(tupleLength, tupleCount);
+        }
         tupleListMap.put(name, tuples);
         
         return tuples;
@@ -0,0 +1,192 @@
+package org.battelle.clodhopper.tuple;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * ColumnarTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * An implementation of <tt>TupleList</tt> which maintains the coordinate data
+ * in column-major order, one array per column. Column scans such as those
+ * performed for column statistics, bounding boxes, medians, and kd-tree 
+ * construction then run over contiguous memory. Per-tuple access through 
+ * <tt>getTuple</tt> gathers the values from the columns.</p>
+ * <p>
+ * Instances may be converted from row-major tuple lists using 
+ * <code>copyOf</code>.</p>
+ *
+ * @since 2.0.1
+ */
+public class ColumnarTupleList extends AbstractTupleList {
+
+    private final double[][] columns;
+
+    /**
+     * Constructs a new <tt>ColumnarTupleList</tt> with all values initialized to
+     * zero.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     */
+    public ColumnarTupleList(final int tupleLength, final int tupleCount) {
+        super(tupleLength, tupleCount);
+        this.columns = new double[tupleLength][tupleCount];
+    }
+
+    /**
+     * Constructs a new <tt>ColumnarTupleList</tt> using the provided column arrays.
+     * The arrays are not copied, so any changes made directly to them
+     * will change the data in this tuple list.
+     *
+     * @param columns the column arrays, which must all have the same length. 
+     *   The number of arrays is the tuple length and their length is the tuple count.
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths.
+     */
+    public ColumnarTupleList(final double[][] columns) {
+        super(columns.length, columns.length > 0 ? columns[0].length : 0);
+        for (int i = 1; i < columns.length; i++) {
+            if (columns[i].length != tupleCount) {
+                throw new IllegalArgumentException(String.format(
+                        "column %d has a different length: %d != %d", i, columns[i].length, tupleCount));
+            }
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a <tt>ColumnarTupleList</tt> containing a copy of the data from another
+     * <tt>TupleList</tt>. The source is read one tuple at a time, so row-major sources 
+     * are read sequentially.
+     * 
+     * @param tuples the source tuples.
+     * 
+     * @return a new <tt>ColumnarTupleList</tt>
+     */
+    public static ColumnarTupleList copyOf(final TupleList tuples) {
+        final int tupleLength = tuples.getTupleLength();
+        final int tupleCount = tuples.getTupleCount();
+        ColumnarTupleList result = new ColumnarTupleList(tupleLength, tupleCount);
+        if (tuples instanceof ColumnarTupleList) {
+            for (int j = 0; j < tupleLength; j++) {
+                tuples.getColumn(j, result.columns[j]);
+            }
+        } else {
+            double[] buffer = new double[tupleLength];
+            for (int i = 0; i < tupleCount; i++) {
+                tuples.getTuple(i, buffer);
+                for (int j = 0; j < tupleLength; j++) {
+                    result.columns[j][i] = buffer[j];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the array holding the values of a column. This is not a copy, so
+     * it should be treated as read-only unless the intent is to modify the 
+     * values of this tuple list.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the array of length getTupleCount() backing the column.
+     * 
+     * @throws IndexOutOfBoundsException if col is outside the range [0 -
+     * (getTupleLength() - 1)]
+     */
+    public double[] columnValues(final int col) {
+        checkColumnIndex(col);
+        return columns[col];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        checkTupleIndex(n);
+        checkValuesLength(values);
+        tuplesModified();
+        for (int j = 0; j < tupleLength; j++) {
+            columns[j][n] = values[j];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        for (int j = 0; j < tupleLength; j++) {
+            result[j] = columns[j][n];
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        // Walk each column sequentially, scattering into the row-major block.
+        for (int j = 0; j < tupleLength; j++) {
+            final double[] column = columns[j];
+            for (int i = 0, pos = j; i < count; i++, pos += tupleLength) {
+                result[pos] = column[start + i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        return columns[col][n];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getColumn(final int col, final double[] columnBuffer) {
+        checkColumnIndex(col);
+        int len = columnBuffer != null ? columnBuffer.length : 0;
+        double[] result = len >= tupleCount ? columnBuffer : new double[tupleCount];
+        System.arraycopy(columns[col], 0, result, 0, tupleCount);
+        return result;
+    }
+}
@@ -0,0 +1,613 @@
+package org.battelle.clodhopper.tuple;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * DatasetTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * A read-only <tt>TupleList</tt> over a file in the self-describing binary dataset 
+ * format written by <tt>TupleIO.saveDataset</tt>. Opening a dataset reads only its 
+ * header and metadata and memory maps the data, so it takes about the same time 
+ * regardless of the size of the data, and values are read directly from the 
+ * mapped file without being copied into the heap.</p>
+ * <p>
+ * The file holds, in little-endian byte order:</p>
+ * <ul>
+ * <li>a fixed 40 byte header: a magic number, the format version, the bytes per 
+ *     value (8 for doubles, 4 for floats), the tuple length, the tuple count, the 
+ *     number of tuples per chunk, the number of chunks, the length of the metadata,
+ *     and a CRC-32 of the header and metadata;
+ * <li>the metadata: the UTF-8 name of each column, the offset and CRC-32 of each 
+ *     chunk, and the minimum and maximum of each column in each chunk;
+ * <li>the chunks. Each chunk holds a contiguous range of tuples in column-major 
+ *     order, so that the values of a column within a chunk are contiguous.
+ * </ul>
+ * <p>
+ * The metadata checksum is checked when opening. The chunk checksums are only 
+ * checked by <tt>verifyChecksums</tt>, since that requires reading all the data.</p>
+ *
+ * @since 2.0.1
+ */
+public class DatasetTupleList extends AbstractTupleList {
+
+    /**
+     * The magic number at the start of every dataset file, "CLHPDSET" in ASCII.
+     */
+    public static final long MAGIC = 0x434C485044534554L;
+    
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+    
+    /**
+     * The default maximum number of bytes per chunk.
+     */
+    public static final int DEFAULT_CHUNK_BYTES = 64 * 1024 * 1024;
+    
+    private static final int HEADER_LEN = 40;
+    // Offset of the checksum in the header. The checksum covers the bytes before it
+    // and the metadata.
+    private static final int CHECKSUM_OFFSET = 36;
+    
+    private final File file;
+    private final TuplePrecision precision;
+    private final String[] columnNames;
+    private final int chunkTupleCount;
+    private final long[] chunkOffsets;
+    private final int[] chunkChecksums;
+    // Indexed by chunk*tupleLength + column.
+    private final double[] chunkMins;
+    private final double[] chunkMaxes;
+    private final boolean floats;
+    
+    private volatile ByteBuffer[] chunks;
+    
+    private DatasetTupleList(final File file, final TuplePrecision precision, final int tupleLength, 
+            final int tupleCount, final String[] columnNames, final int chunkTupleCount, 
+            final long[] chunkOffsets, final int[] chunkChecksums, final double[] chunkMins, 
+            final double[] chunkMaxes) {
+        super(tupleLength, tupleCount);
+        this.file = file;
+        this.precision = precision;
+        this.columnNames = columnNames;
+        this.chunkTupleCount = chunkTupleCount;
+        this.chunkOffsets = chunkOffsets;
+        this.chunkChecksums = chunkChecksums;
+        this.chunkMins = chunkMins;
+        this.chunkMaxes = chunkMaxes;
+        this.floats = precision == TuplePrecision.FLOAT;
+    }
+    
+    /**
+     * Opens a dataset file, reading its metadata and memory mapping its data.
+     * 
+     * @param file the dataset file.
+     * 
+     * @return a new <tt>DatasetTupleList</tt>
+     * 
+     * @throws IOException if the file cannot be read, is not a dataset file, or its
+     *   metadata fails its checksum.
+     */
+    public static DatasetTupleList open(final File file) throws IOException {
+        
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        
+        try {
+            
+            FileChannel channel = raf.getChannel();
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LEN).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0L);
+            header.flip();
+            
+            if (header.getLong() != MAGIC) {
+                throw new IOException("not a dataset file: " + file);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("unsupported dataset version %d: %s", version, file));
+            }
+            final int bytesPerValue = header.getInt();
+            final TuplePrecision precision = bytesPerValue == 8 ? TuplePrecision.DOUBLE
+                    : bytesPerValue == 4 ? TuplePrecision.FLOAT : null;
+            final int tupleLength = header.getInt();
+            final int tupleCount = header.getInt();
+            final int chunkTupleCount = header.getInt();
+            final int chunkCount = header.getInt();
+            final int metadataLength = header.getInt();
+            final int checksum = header.getInt();
+            
+            if (precision == null || tupleLength < 0 || tupleCount < 0 || chunkCount < 0 || metadataLength < 0
+                    || chunkCount != chunkCount(tupleCount, chunkTupleCount)) {
+                throw new IOException("corrupt dataset header: " + file);
+            }
+            
+            ByteBuffer metadata = ByteBuffer.allocate(metadataLength).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, metadata, HEADER_LEN);
+            metadata.flip();
+            
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), 0, CHECKSUM_OFFSET);
+            crc.update(metadata.array(), 0, metadataLength);
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("dataset metadata checksum mismatch: " + file);
+            }
+            
+            String[] columnNames = new String[tupleLength];
+            for (int j = 0; j < tupleLength; j++) {
+                byte[] name = new byte[metadata.getInt()];
+                metadata.get(name);
+                columnNames[j] = new String(name, StandardCharsets.UTF_8);
+            }
+            
+            long[] chunkOffsets = new long[chunkCount];
+            int[] chunkChecksums = new int[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                chunkOffsets[c] = metadata.getLong();
+                chunkChecksums[c] = metadata.getInt();
+            }
+            
+            double[] chunkMins = new double[chunkCount * tupleLength];
+            double[] chunkMaxes = new double[chunkMins.length];
+            for (int i = 0; i < chunkMins.length; i++) {
+                chunkMins[i] = metadata.getDouble();
+                chunkMaxes[i] = metadata.getDouble();
+            }
+            
+            DatasetTupleList tuples = new DatasetTupleList(file, precision, tupleLength, tupleCount, 
+                    columnNames, chunkTupleCount, chunkOffsets, chunkChecksums, chunkMins, chunkMaxes);
+            
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, chunkOffsets[c], 
+                        tuples.chunkBytes(c)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            tuples.chunks = chunks;
+            
+            return tuples;
+            
+        } finally {
+            // Mappings remain valid after the channel is closed.
+            raf.close();
+        }
+    }
+    
+    /**
+     * Writes tuples to a file in the dataset format.
+     * 
+     * @param file the file to write.
+     * @param tuples the tuples to write.
+     * @param precision the precision in which to store the values.
+     * @param columnNames the names of the columns. May be null, in which case 
+     *   the names are empty strings.
+     * @param chunkTupleCount the number of tuples per chunk. If not positive, the
+     *   number is chosen to keep chunks under <tt>DEFAULT_CHUNK_BYTES</tt>.
+     *   
+     * @throws IOException if an IO error occurs.
+     * @throws IllegalArgumentException if the chunks or the metadata describing them 
+     *   would be too large.
+     */
+    public static void write(final File file, final TupleList tuples, final TuplePrecision precision,
+            final String[] columnNames, int chunkTupleCount) throws IOException {
+        
+        final int tupleLength = tuples.getTupleLength();
+        final int tupleCount = tuples.getTupleCount();
+        final int bytesPerValue = precision.getBytesPerValue();
+        final long bytesPerTuple = Math.max(1L, (long) tupleLength * bytesPerValue);
+        
+        if (columnNames != null && columnNames.length != tupleLength) {
+            throw new IllegalArgumentException(String.format(
+                    "number of column names != tuple length: %d != %d", columnNames.length, tupleLength));
+        }
+        if (chunkTupleCount <= 0) {
+            chunkTupleCount = (int) Math.max(1L, DEFAULT_CHUNK_BYTES / bytesPerTuple);
+        }
+        if (chunkTupleCount * bytesPerTuple > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chunks too large to map: " + chunkTupleCount + " tuples");
+        }
+        final int chunkCount = chunkCount(tupleCount, chunkTupleCount);
+        
+        byte[][] names = new byte[tupleLength][];
+        long metadataBytes = 0L;
+        for (int j = 0; j < tupleLength; j++) {
+            names[j] = (columnNames != null && columnNames[j] != null ? columnNames[j] : "")
+                    .getBytes(StandardCharsets.UTF_8);
+            metadataBytes += 4 + names[j].length;
+        }
+        metadataBytes += chunkCount * (8L + 4L) + (long) chunkCount * tupleLength * 16L;
+        // Written as an int, and read into a single buffer along with the header.
+        if (HEADER_LEN + metadataBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                    "metadata too large: %d bytes for %d chunks of tuple length %d", 
+                    metadataBytes, chunkCount, tupleLength));
+        }
+        final int metadataLength = (int) metadataBytes;
+        // Start the data on an 8 byte boundary.
+        final long dataStart = (HEADER_LEN + metadataLength + 7L) & ~7L;
+        
+        long[] chunkOffsets = new long[chunkCount];
+        int[] chunkChecksums = new int[chunkCount];
+        double[] chunkMins = new double[chunkCount * tupleLength];
+        double[] chunkMaxes = new double[chunkMins.length];
+        
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        
+        try {
+            
+            raf.setLength(0L);
+            FileChannel channel = raf.getChannel();
+            
+            // Write the chunks, gathering their statistics and checksums.
+            long offset = dataStart;
+            ByteBuffer chunk = null;
+            double[] block = null;
+            CRC32 crc = new CRC32();
+            
+            for (int c = 0; c < chunkCount; c++) {
+                
+                final int start = c * chunkTupleCount;
+                final int count = Math.min(chunkTupleCount, tupleCount - start);
+                final int bytes = count * tupleLength * bytesPerValue;
+                if (chunk == null || chunk.capacity() < bytes) {
+                    chunk = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                chunk.clear();
+                block = tuples.getTuples(start, count, block);
+                
+                for (int j = 0; j < tupleLength; j++) {
+                    double min = Double.NaN, max = Double.NaN;
+                    for (int i = 0, pos = j; i < count; i++, pos += tupleLength) {
+                        double v = block[pos];
+                        if (precision == TuplePrecision.FLOAT) {
+                            float f = (float) v;
+                            chunk.putFloat(f);
+                            v = f;
+                        } else {
+                            chunk.putDouble(v);
+                        }
+                        if (v < min || Double.isNaN(min)) {
+                            min = v;
+                        }
+                        if (v > max || Double.isNaN(max)) {
+                            max = v;
+                        }
+                    }
+                    chunkMins[c * tupleLength + j] = min;
+                    chunkMaxes[c * tupleLength + j] = max;
+                }
+                
+                chunk.flip();
+                crc.reset();
+                crc.update(chunk.array(), 0, bytes);
+                chunkChecksums[c] = (int) crc.getValue();
+                chunkOffsets[c] = offset;
+                writeFully(channel, chunk, offset);
+                offset += bytes;
+            }
+            
+            // Then the header and metadata.
+            ByteBuffer meta = ByteBuffer.allocate(HEADER_LEN + metadataLength).order(ByteOrder.LITTLE_ENDIAN);
+            meta.putLong(MAGIC);
+            meta.putInt(VERSION);
+            meta.putInt(bytesPerValue);
+            meta.putInt(tupleLength);
+            meta.putInt(tupleCount);
+            meta.putInt(chunkTupleCount);
+            meta.putInt(chunkCount);
+            meta.putInt(metadataLength);
+            meta.putInt(0); // Checksum placeholder
+            for (int j = 0; j < tupleLength; j++) {
+                meta.putInt(names[j].length);
+                meta.put(names[j]);
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                meta.putLong(chunkOffsets[c]);
+                meta.putInt(chunkChecksums[c]);
+            }
+            for (int i = 0; i < chunkMins.length; i++) {
+                meta.putDouble(chunkMins[i]);
+                meta.putDouble(chunkMaxes[i]);
+            }
+            
+            crc.reset();
+            crc.update(meta.array(), 0, CHECKSUM_OFFSET);
+            crc.update(meta.array(), HEADER_LEN, metadataLength);
+            meta.putInt(CHECKSUM_OFFSET, (int) crc.getValue());
+            
+            meta.flip();
+            writeFully(channel, meta, 0L);
+            
+            // Ensure the file covers the padding, even if there are no chunks.
+            if (raf.length() < dataStart) {
+                raf.setLength(dataStart);
+            }
+            
+        } finally {
+            raf.close();
+        }
+    }
+    
+    /**
+     * Get the file containing the dataset.
+     * 
+     * @return the file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the precision in which the values are stored.
+     * 
+     * @return the precision.
+     */
+    public TuplePrecision getPrecision() {
+        return precision;
+    }
+    
+    /**
+     * Get the name of a column.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the name, which is empty if no name was given.
+     */
+    public String getColumnName(final int col) {
+        checkColumnIndex(col);
+        return columnNames[col];
+    }
+    
+    /**
+     * Get the number of chunks into which the tuples are divided.
+     * 
+     * @return the number of chunks.
+     */
+    public int getChunkCount() {
+        return chunkOffsets.length;
+    }
+    
+    /**
+     * Get the index of the first tuple in a chunk.
+     * 
+     * @param chunk the 0-indexed chunk number.
+     * 
+     * @return the tuple index.
+     */
+    public int getChunkStart(final int chunk) {
+        checkChunkIndex(chunk);
+        return chunk * chunkTupleCount;
+    }
+    
+    /**
+     * Get the number of tuples in a chunk.
+     * 
+     * @param chunk the 0-indexed chunk number.
+     * 
+     * @return the number of tuples.
+     */
+    public int getChunkTupleCount(final int chunk) {
+        checkChunkIndex(chunk);
+        return chunkTuples(chunk);
+    }
+    
+    /**
+     * Get the minimum value of a column within a chunk, as recorded when the 
+     * dataset was written.
+     * 
+     * @param chunk the 0-indexed chunk number.
+     * @param col 0-indexed column number.
+     * 
+     * @return the minimum, which is NaN if all values are NaN.
+     */
+    public double getChunkMin(final int chunk, final int col) {
+        checkChunkIndex(chunk);
+        checkColumnIndex(col);
+        return chunkMins[chunk * tupleLength + col];
+    }
+    
+    /**
+     * Get the maximum value of a column within a chunk, as recorded when the 
+     * dataset was written.
+     * 
+     * @param chunk the 0-indexed chunk number.
+     * @param col 0-indexed column number.
+     * 
+     * @return the maximum, which is NaN if all values are NaN.
+     */
+    public double getChunkMax(final int chunk, final int col) {
+        checkChunkIndex(chunk);
+        checkColumnIndex(col);
+        return chunkMaxes[chunk * tupleLength + col];
+    }
+    
+    /**
+     * Reads all the data, checking the checksum of each chunk.
+     * 
+     * @throws IOException if a checksum does not match.
+     */
+    public void verifyChecksums() throws IOException {
+        final ByteBuffer[] chs = openChunks();
+        CRC32 crc = new CRC32();
+        for (int c = 0; c < chs.length; c++) {
+            crc.reset();
+            crc.update(chs[c].duplicate());
+            if ((int) crc.getValue() != chunkChecksums[c]) {
+                throw new IOException(String.format("checksum mismatch in chunk %d of %s", c, file));
+            }
+        }
+    }
+
+    /**
+     * Releases the mapped data. Afterwards, accessing the values throws an
+     * <tt>IllegalStateException</tt>.
+     */
+    public void close() {
+        chunks = null;
+    }
+
+    /**
+     * Always throws an <tt>UnsupportedOperationException</tt>, since datasets are read-only.
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        throw new UnsupportedOperationException("datasets are read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        final int c = n / chunkTupleCount;
+        final ByteBuffer chunk = openChunks()[c];
+        final int count = chunkTuples(c);
+        final int bpv = floats ? 4 : 8;
+        for (int j = 0, offset = (n - c * chunkTupleCount) * bpv; j < tupleLength; j++, offset += count * bpv) {
+            result[j] = floats ? chunk.getFloat(offset) : chunk.getDouble(offset);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        final ByteBuffer[] chs = openChunks();
+        final int bpv = floats ? 4 : 8;
+        int n = start, row = 0;
+        while (row < count) {
+            final int c = n / chunkTupleCount;
+            final int first = n - c * chunkTupleCount;
+            final int chunkCount = chunkTuples(c);
+            final int rows = Math.min(count - row, chunkCount - first);
+            final ByteBuffer chunk = chs[c];
+            // Walk each column sequentially, scattering into the row-major block.
+            for (int j = 0; j < tupleLength; j++) {
+                int offset = (j * chunkCount + first) * bpv;
+                for (int i = 0, pos = row * tupleLength + j; i < rows; i++, pos += tupleLength, offset += bpv) {
+                    result[pos] = floats ? chunk.getFloat(offset) : chunk.getDouble(offset);
+                }
+            }
+            n += rows;
+            row += rows;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        final int c = n / chunkTupleCount;
+        final int offset = (col * chunkTuples(c) + n - c * chunkTupleCount) * (floats ? 4 : 8);
+        final ByteBuffer chunk = openChunks()[c];
+        return floats ? chunk.getFloat(offset) : chunk.getDouble(offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getColumn(final int col, final double[] columnBuffer) {
+        checkColumnIndex(col);
+        int len = columnBuffer != null ? columnBuffer.length : 0;
+        double[] result = len >= tupleCount ? columnBuffer : new double[tupleCount];
+        final ByteBuffer[] chs = openChunks();
+        final int bpv = floats ? 4 : 8;
+        for (int c = 0, n = 0; c < chs.length; c++) {
+            final int count = chunkTuples(c);
+            final ByteBuffer chunk = chs[c];
+            for (int i = 0, offset = col * count * bpv; i < count; i++, offset += bpv) {
+                result[n++] = floats ? chunk.getFloat(offset) : chunk.getDouble(offset);
+            }
+        }
+        return result;
+    }
+    
+    private ByteBuffer[] openChunks() {
+        final ByteBuffer[] chs = chunks;
+        if (chs == null) {
+            throw new IllegalStateException("not open");
+        }
+        return chs;
+    }
+    
+    private int chunkTuples(final int chunk) {
+        return Math.min(chunkTupleCount, tupleCount - chunk * chunkTupleCount);
+    }
+    
+    private long chunkBytes(final int chunk) {
+        return (long) chunkTuples(chunk) * tupleLength * precision.getBytesPerValue();
+    }
+    
+    private void checkChunkIndex(final int chunk) {
+        if (chunk < 0 || chunk >= chunkOffsets.length) {
+            throw new IndexOutOfBoundsException(String.format("chunk index not in [%d - %d]: %d", 
+                    0, chunkOffsets.length - 1, chunk));
+        }
+    }
+    
+    private static int chunkCount(final int tupleCount, final int chunkTupleCount) {
+        return chunkTupleCount > 0 ? (int) ((tupleCount + (long) chunkTupleCount - 1) / chunkTupleCount) : -1;
+    }
+    
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("unexpected end of file");
+            }
+            position += n;
+        }
+    }
+    
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -35,6 +35,22 @@ import java.util.Map.Entry;
 /**
  * An implementation of <code>TupleListFactory</code> that stores
  * <code>TupleList</code>s on the file system.
+ * <p>
+ * The factory may be configured to store values in float precision. In that
+ * case, the thresholds still apply to the number of bytes required, so twice as
+ * many tuples are kept in RAM. Float tuple lists too large for RAM are always
+ * stored in a single segmented, memory-mapped file.</p>
+ * <p>
+ * An optional off-heap tier can be enabled with <code>setOffHeapThreshold</code>. 
+ * Tuple lists too large for the RAM threshold, but within the off-heap threshold, 
+ * are kept in native memory by <code>OffHeapTupleList</code>. Tuple lists within the
+ * RAM threshold that have too many values for a single array are also kept off-heap.</p>
+ * <p>
+ * Existing tuple lists too large for the RAM threshold may instead be loaded into
+ * a <code>QuantizedTupleList</code> by calling <code>setQuantization</code>, if their 
+ * quantized values fit within the RAM threshold. Such lists trade precision for 
+ * memory. They are read-only, so the data on disk is never replaced by quantized 
+ * values.</p>
  *
  * @author R. Scarberry
  * @since 1.0
@@ -44,6 +60,7 @@ public class FSTupleListFactory implements TupleListFactory {
 
     private static final String SINGLE_FILE_PREFIX = "__tuples_s__";
     private static final String TUPLE_FILE_EXTENSION = ".tpl";
+    private static final String FLOAT_TUPLE_FILE_EXTENSION = ".tpf";
     private static final String MULTI_FILE_DIRECTORY = "multi";
 
     // Half a gig
@@ -56,6 +73,11 @@ public class FSTupleListFactory implements TupleListFactory {
     private final long ramThreshold;
     private final long singleFileThreshold;
     private final long singleFileSize;
+    private final TuplePrecision precision;
+    // The threshold for the off-heap tier. 0 disables it.
+    private long offHeapThreshold;
+    // Code size for quantizing existing tuple lists too large for RAM. null disables it.
+    private QuantizedTupleList.Quantization quantization;
 
     // Root directory of the factory.
     private final File directory;
@@ -63,6 +85,7 @@ public class FSTupleListFactory implements TupleListFactory {
     private final Map<String, Object> tupleListMap = new HashMap<String, Object>();
     private final Object singleFileSentinel = new Object();
     private final Object multiFileSentinel = new Object();
+    private final Object floatSingleFileSentinel = new Object();
 
     /**
      * Constructor. The default RAM and file thresholds are used.
@@ -76,6 +99,21 @@ public class FSTupleListFactory implements TupleListFactory {
         this(directory, DEFAULT_RAM_THRESHOLD, DEFAULT_SINGLE_FILE_THRESHOLD, DEFAULT_SINGLE_FILE_SIZE);
     }
 
+    /**
+     * Constructor. The default RAM and file thresholds are used.
+     *
+     * @param directory root directory for the factory. All tuple data for this
+     * factory exists under this directory.
+     * @param precision the precision in which new tuple lists store their values.
+     *
+     * @throws TupleListFactoryException if a problem occurs.
+     * 
+     * @since 2.0.1
+     */
+    public FSTupleListFactory(final File directory, final TuplePrecision precision) throws TupleListFactoryException {
+        this(directory, DEFAULT_RAM_THRESHOLD, DEFAULT_SINGLE_FILE_THRESHOLD, DEFAULT_SINGLE_FILE_SIZE, precision);
+    }
+
     /**
      * Constructor
      *
@@ -94,8 +132,33 @@ public class FSTupleListFactory implements TupleListFactory {
      */
     public FSTupleListFactory(final File directory, final long ramThreshold,
         final long singleFileThreshold, final long singleFileSize) throws TupleListFactoryException {
+        this(directory, ramThreshold, singleFileThreshold, singleFileSize, TuplePrecision.DOUBLE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param directory root directory for the factory. All tuple data for this
+     * factory exists under this directory.
+     * @param ramThreshold the threshold for storing tuple data in RAM. If the
+     * memory required by a tuple list is less than this threshold, the factory
+     * returns a memory resident tuple list class.
+     * @param singleFileThreshold the threshold for being able to store the data
+     * for a tuple list in a single file. If the space required for a tuple list
+     * exceeds this threshold, its data is spread over multiple files.
+     * @param singleFileSize the maximum file size for tuple lists that span
+     * multiple files.
+     * @param precision the precision in which new tuple lists store their values.
+     *
+     * @throws TupleListFactoryException if a problem occurs.
+     * 
+     * @since 2.0.1
+     */
+    public FSTupleListFactory(final File directory, final long ramThreshold,
+        final long singleFileThreshold, final long singleFileSize, 
+        final TuplePrecision precision) throws TupleListFactoryException {
 
-        if (directory == null) {
+        if (directory == null || precision == null) {
             throw new NullPointerException();
         }
         if (directory.exists() && !directory.isDirectory()) {
@@ -106,6 +169,7 @@ public class FSTupleListFactory implements TupleListFactory {
         this.ramThreshold = ramThreshold;
         this.singleFileThreshold = singleFileThreshold;
         this.singleFileSize = singleFileSize;
+        this.precision = precision;
 
         if (!this.directory.exists()) {
             if (!this.directory.mkdir()) {
@@ -137,6 +201,70 @@ public class FSTupleListFactory implements TupleListFactory {
         return directory;
     }
 
+    /**
+     * Get the precision in which new tuple lists store their values.
+     * 
+     * @return the precision.
+     * 
+     * @since 2.0.1
+     */
+    public TuplePrecision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Get the threshold for keeping tuple data off-heap in native memory.
+     * 
+     * @return the threshold in bytes, which is 0 if the off-heap tier is disabled.
+     * 
+     * @since 2.0.1
+     */
+    public synchronized long getOffHeapThreshold() {
+        return offHeapThreshold;
+    }
+
+    /**
+     * Set the threshold for keeping tuple data off-heap in native memory. If the memory
+     * required by a new tuple list exceeds the RAM threshold, but not this threshold, 
+     * the factory returns an <code>OffHeapTupleList</code>.
+     * 
+     * @param offHeapThreshold the threshold in bytes. Set to 0 to disable the off-heap tier.
+     * 
+     * @since 2.0.1
+     */
+    public synchronized void setOffHeapThreshold(final long offHeapThreshold) {
+        if (offHeapThreshold < 0) {
+            throw new IllegalArgumentException("offHeapThreshold must be >= 0: " + offHeapThreshold);
+        }
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    /**
+     * Get the code size used for quantizing existing tuple lists too large for RAM.
+     * 
+     * @return the quantization, or null if quantization is disabled.
+     * 
+     * @since 2.0.1
+     */
+    public synchronized QuantizedTupleList.Quantization getQuantization() {
+        return quantization;
+    }
+
+    /**
+     * Set the code size used for quantizing existing tuple lists. If the data for a tuple 
+     * list being opened exceeds the RAM threshold and is not kept off-heap, but would fit 
+     * within the RAM threshold when quantized, the factory returns a 
+     * read-only <code>QuantizedTupleList</code>. New tuple lists are never quantized, 
+     * since the column ranges are not known until the data has been set.
+     * 
+     * @param quantization the code size, or null to disable quantization.
+     * 
+     * @since 2.0.1
+     */
+    public synchronized void setQuantization(final QuantizedTupleList.Quantization quantization) {
+        this.quantization = quantization;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -180,6 +308,31 @@ public class FSTupleListFactory implements TupleListFactory {
             }
         }
 
+        File[] floatFiles = this.directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                if (f.isFile()) {
+                    String name = f.getName();
+                    return name.startsWith(SINGLE_FILE_PREFIX) && name.endsWith(FLOAT_TUPLE_FILE_EXTENSION);
+                }
+                return false;
+            }
+        });
+
+        for (int i = 0; i < floatFiles.length; i++) {
+            File f = floatFiles[i];
+            try {
+                if (FloatFileMappedTupleList.validateFile(f)) {
+                    String fname = f.getName();
+                    String tupleName = fname.substring(SINGLE_FILE_PREFIX.length(),
+                            fname.length() - FLOAT_TUPLE_FILE_EXTENSION.length());
+                    tupleListMap.put(tupleName, floatSingleFileSentinel);
+                }
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
+        }
+
         File[] multiDirs = this.multiDirectory().listFiles();
         for (int i = 0; i < multiDirs.length; i++) {
             File dir = multiDirs[i];
@@ -211,8 +364,22 @@ public class FSTupleListFactory implements TupleListFactory {
 
         TupleList tuples = null;
 
-        long dataLen = 8L * tupleLength * tupleCount;
-        if (dataLen <= this.ramThreshold) {
+        long dataLen = ((long) precision.getBytesPerValue()) * tupleLength * tupleCount;
+        boolean fitsInArray = OffHeapTupleList.fitsInArray(tupleLength, tupleCount);
+        if ((dataLen <= this.ramThreshold && !fitsInArray) 
+                || (dataLen > this.ramThreshold && dataLen <= this.offHeapThreshold)) {
+            tuples = new OffHeapTupleList(tupleLength, tupleCount, precision);
+        } else if (precision == TuplePrecision.FLOAT) {
+            if (dataLen <= this.ramThreshold) {
+                tuples = new FloatArrayTupleList(tupleLength, tupleCount);
+            } else {
+                try {
+                    tuples = FloatFileMappedTupleList.createNew(floatFileForTuples(name), tupleLength, tupleCount);
+                } catch (IOException ioe) {
+                    throw new TupleListFactoryException(ioe);
+                }
+            }
+        } else if (dataLen <= this.ramThreshold) {
             tuples = new ArrayTupleList(tupleLength, tupleCount);
         } else if (dataLen <= this.singleFileThreshold) {
             try {
@@ -234,6 +401,44 @@ public class FSTupleListFactory implements TupleListFactory {
         return tuples;
     }
 
+    /**
+     * Create a new, empty <code>AppendableTupleList</code> and associate it with a name.
+     * The tuples are mapped from a file that grows as tuples are appended, so the 
+     * number of tuples does not need to be known in advance. Values are always stored 
+     * in double precision. Once closed through this factory, the tuples are reopened
+     * like any other tuple list stored in a single file.
+     * 
+     * @param name the name to be associated with the tuple list.
+     * @param tupleLength the length of the tuples.
+     * @return an <code>AppendableTupleList</code>
+     * @throws TupleListFactoryException if another <code>TupleList</code> is already 
+     * associated with the name, or if an I/O error occurs.
+     * 
+     * @since 2.0.1
+     */
+    public synchronized AppendableTupleList createAppendableTupleList(final String name, 
+        final int tupleLength) throws TupleListFactoryException {
+
+        if (name == null) {
+            throw new NullPointerException();
+        }
+
+        if (tupleListMap.containsKey(name)) {
+            throw new TupleListFactoryException("tuples already exist for name " + name);
+        }
+
+        AppendableTupleList tuples = null;
+        try {
+            tuples = AppendableTupleList.createNew(singleFileForTuples(name), tupleLength);
+        } catch (IOException ioe) {
+            throw new TupleListFactoryException(ioe);
+        }
+
+        tupleListMap.put(name, tuples);
+
+        return tuples;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -247,19 +452,39 @@ public class FSTupleListFactory implements TupleListFactory {
         try {
             if (o == this.singleFileSentinel) {
                 File f = singleFileForTuples(name);
-                if (f.length() <= this.ramThreshold) {
+                if (f.length() <= this.ramThreshold && fitsInArray(f, TuplePrecision.DOUBLE)) {
                     tuples = ArrayTupleList.loadFromFile(f);
+                } else if (f.length() <= Math.max(this.ramThreshold, this.offHeapThreshold)) {
+                    tuples = OffHeapTupleList.loadFromFile(f, TuplePrecision.DOUBLE);
+                } else if (quantizes(f, TuplePrecision.DOUBLE)) {
+                    FileMappedTupleList mapped = FileMappedTupleList.openExisting(f);
+                    tuples = QuantizedTupleList.quantize(mapped, quantization);
+                    mapped.close();
                 } else {
                     tuples = FileMappedTupleList.openExisting(f);
                 }
                 tupleListMap.put(name, tuples);
+            } else if (o == this.floatSingleFileSentinel) {
+                File f = floatFileForTuples(name);
+                if (f.length() <= this.ramThreshold && fitsInArray(f, TuplePrecision.FLOAT)) {
+                    tuples = FloatArrayTupleList.loadFromFile(f);
+                } else if (f.length() <= Math.max(this.ramThreshold, this.offHeapThreshold)) {
+                    tuples = OffHeapTupleList.loadFromFile(f, TuplePrecision.FLOAT);
+                } else if (quantizes(f, TuplePrecision.FLOAT)) {
+                    FloatFileMappedTupleList mapped = FloatFileMappedTupleList.openExisting(f);
+                    tuples = QuantizedTupleList.quantize(mapped, quantization);
+                    mapped.close();
+                } else {
+                    tuples = FloatFileMappedTupleList.openExisting(f);
+                }
+                tupleListMap.put(name, tuples);
             } else if (o == this.multiFileSentinel) {
                 tuples = MultiFileMappedTupleList.openExisting(multiDirForTuples(name));
                 tupleListMap.put(name, tuples);
             } else if (o instanceof TupleList) {
                 tuples = (TupleList) o;
-                if (tuples instanceof FileMappedTupleList) {
-                    ((FileMappedTupleList) tuples).open();
+                if (tuples instanceof AbstractFileMappedTupleList) {
+                    ((AbstractFileMappedTupleList<?>) tuples).open();
                 } else if (tuples instanceof MultiFileMappedTupleList) {
                     ((MultiFileMappedTupleList) tuples).open();
                 }
@@ -302,13 +527,20 @@ public class FSTupleListFactory implements TupleListFactory {
         }
 
         try {
-            if (tuples instanceof FileMappedTupleList) {
-                FileMappedTupleList fmTupleList = (FileMappedTupleList) tuples;
+            if (tuples instanceof AbstractFileMappedTupleList) {
+                AbstractFileMappedTupleList<?> fmTupleList = (AbstractFileMappedTupleList<?>) tuples;
                 File f = fmTupleList.getFile();
                 fmTupleList.close();
                 if (!f.delete()) {
                     throw new TupleListFactoryException("could not delete file for tuples associated with name " + name);
                 }
+            } else if (tuples instanceof AppendableTupleList && ((AppendableTupleList) tuples).getFile() != null) {
+                AppendableTupleList appendable = (AppendableTupleList) tuples;
+                File f = appendable.getFile();
+                appendable.close();
+                if (!f.delete()) {
+                    throw new TupleListFactoryException("could not delete file for tuples associated with name " + name);
+                }
             } else if (tuples instanceof MultiFileMappedTupleList) {
                 MultiFileMappedTupleList mfmTupleList = (MultiFileMappedTupleList) tuples;
                 File dir = mfmTupleList.getDirectory();
@@ -342,9 +574,28 @@ public class FSTupleListFactory implements TupleListFactory {
             if (tuples instanceof FileMappedTupleList) {
                 ((FileMappedTupleList) tuples).close();
                 tupleListMap.put(name, singleFileSentinel);
+            } else if (tuples instanceof FloatFileMappedTupleList) {
+                ((FloatFileMappedTupleList) tuples).close();
+                tupleListMap.put(name, floatSingleFileSentinel);
+            } else if (tuples instanceof AppendableTupleList && ((AppendableTupleList) tuples).getFile() != null) {
+                // Closing leaves the file in the same format as a FileMappedTupleList.
+                ((AppendableTupleList) tuples).close();
+                tupleListMap.put(name, singleFileSentinel);
             } else if (tuples instanceof MultiFileMappedTupleList) {
                 ((MultiFileMappedTupleList) tuples).close();
                 tupleListMap.put(name, multiFileSentinel);
+            } else if (tuples instanceof QuantizedTupleList) {
+                // Read-only, so the file it was loaded from still holds the unquantized data.
+                if (floatFileForTuples(name).exists()) {
+                    tupleListMap.put(name, floatSingleFileSentinel);
+                } else {
+                    tupleListMap.put(name, singleFileSentinel);
+                }
+            } else if (tuples instanceof FloatArrayTupleList || (tuples instanceof OffHeapTupleList 
+                    && ((OffHeapTupleList) tuples).getPrecision() == TuplePrecision.FLOAT)) {
+                File f = floatFileForTuples(name);
+                FloatArrayTupleList.saveToFile(tuples, f);
+                tupleListMap.put(name, floatSingleFileSentinel);
             } else {
                 File f = singleFileForTuples(name);
                 ArrayTupleList.saveToFile(tuples, f);
@@ -395,6 +646,30 @@ public class FSTupleListFactory implements TupleListFactory {
         return new File(directory, SINGLE_FILE_PREFIX + name + TUPLE_FILE_EXTENSION);
     }
 
+    // Returns true if the values in a single tuple file of the specified precision could 
+    // be held in one array.
+    //
+    private static boolean fitsInArray(final File f, final TuplePrecision filePrecision) {
+        return (f.length() - 8L) / filePrecision.getBytesPerValue() <= Integer.MAX_VALUE - 8;
+    }
+
+    // Returns true if the single tuple file of the specified precision should be loaded
+    // into a QuantizedTupleList.
+    //
+    private boolean quantizes(final File f, final TuplePrecision filePrecision) {
+        if (quantization == null || !fitsInArray(f, filePrecision)) {
+            return false;
+        }
+        long valueCount = (f.length() - 8L) / filePrecision.getBytesPerValue();
+        return valueCount * quantization.getBytesPerValue() <= this.ramThreshold;
+    }
+
+    // Returns a file object for a tuple list to be stored in a single file of floats.
+    //
+    private File floatFileForTuples(final String name) {
+        return new File(directory, SINGLE_FILE_PREFIX + name + FLOAT_TUPLE_FILE_EXTENSION);
+    }
+
     // Returns the directory file to be used for tuples spanning multiple files.
     //
     private File multiDirForTuples(final String name) {
@@ -1,16 +1,9 @@
 package org.battelle.clodhopper.tuple;
 
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
 
 /*=====================================================================
  * 
@@ -42,19 +35,20 @@ import org.slf4j.LoggerFactory;
  *===================================================================*/
 /**
  * Implements a <code>TupleList</code> backed by a single binary data file.
- * Reads and writes of the data are accomplished via random access of the file.
+ * The data portion of the file is memory-mapped, so reads and writes of tuple
+ * values do not require any system calls. Since a single mapping cannot exceed
+ * 2 GB, the data is mapped as a number of segments, each holding a whole number
+ * of tuples.
+ * <p>
+ * Reads are lock-free, so any number of threads may call <code>getTuple</code>
+ * and <code>getTupleValue</code> concurrently. Concurrent calls to
+ * <code>setTuple</code> are also safe, provided they write to different tuples.</p>
  *
  * @author R. Scarberry
  * @since 1.0
  *
  */
-public class FileMappedTupleList extends AbstractTupleList {
-
-    private static final Logger LOGGER = LoggerFactory.getLogger(FileMappedTupleList.class);
-
-    private final File file;
-    private RandomAccessFile randomAccessFile;
-    private ByteBuffer ioBuffer;
+public class FileMappedTupleList extends AbstractFileMappedTupleList<DoubleBuffer> {
 
     /**
      * Constructor.
@@ -62,32 +56,25 @@ public class FileMappedTupleList extends AbstractTupleList {
      * @param file the file in which to store distances.
      * @param tupleLength the tuple length.
      * @param tupleCount the tuple count.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
      *
      * @throws IOException if an IO error occurs.
      */
-    protected FileMappedTupleList(final File file, final int tupleLength, final int tupleCount) throws IOException {
-        super(tupleLength, tupleCount);
-        if (file == null) {
-            throw new NullPointerException();
-        }
-        this.file = file;
-        initEmptyFile();
-        open();
+    protected FileMappedTupleList(final File file, final int tupleLength, final int tupleCount,
+        final int maxSegmentBytes) throws IOException {
+        super(file, 8, tupleLength, tupleCount, maxSegmentBytes);
     }
 
     /**
      * Constructor.
      *
      * @param file the file to use to store distances.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     * 
      * @throws IOException if an IO error occurs.
      */
-    protected FileMappedTupleList(final File file) throws IOException {
-        super(0, 0);
-        if (file == null) {
-            throw new NullPointerException();
-        }
-        this.file = file;
-        open();
+    protected FileMappedTupleList(final File file, final int maxSegmentBytes) throws IOException {
+        super(file, 8, maxSegmentBytes);
     }
 
     /**
@@ -102,7 +89,24 @@ public class FileMappedTupleList extends AbstractTupleList {
      */
     public static FileMappedTupleList createNew(final File file, final int tupleLength, final int tupleCount)
             throws IOException {
-        return new FileMappedTupleList(file, tupleLength, tupleCount);
+        return new FileMappedTupleList(file, tupleLength, tupleCount, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    /**
+     * Factory method that creates a new <code>TupleList</code> backed by the
+     * specified file, mapping no more than the specified number of bytes per segment.
+     *
+     * @param file the file for storing the data.
+     * @param tupleLength the tuple length.
+     * @param tupleCount the tuple count.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment. This must be
+     *   large enough to hold at least one tuple.
+     * @return an instance of <code>FileMappedTupleList</code>.
+     * @throws IOException if an IO problem occurs.
+     */
+    public static FileMappedTupleList createNew(final File file, final int tupleLength, final int tupleCount,
+            final int maxSegmentBytes) throws IOException {
+        return new FileMappedTupleList(file, tupleLength, tupleCount, maxSegmentBytes);
     }
 
     /**
@@ -114,16 +118,20 @@ public class FileMappedTupleList extends AbstractTupleList {
      * @throws IOException if an IO error occurs.
      */
     public static FileMappedTupleList openExisting(final File file) throws IOException {
-        return new FileMappedTupleList(file);
+        return new FileMappedTupleList(file, DEFAULT_MAX_SEGMENT_BYTES);
     }
 
     /**
-     * Get the file backing this instance.
+     * Factory method that opens a <code>TupleList</code> backed by an existing
+     * data file, mapping no more than the specified number of bytes per segment.
      *
-     * @return a file instance.
+     * @param file the file containing the tuples.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     * @return an instance of <code>FileMappedTupleList</code>.
+     * @throws IOException if an IO error occurs.
      */
-    public File getFile() {
-        return file;
+    public static FileMappedTupleList openExisting(final File file, final int maxSegmentBytes) throws IOException {
+        return new FileMappedTupleList(file, maxSegmentBytes);
     }
 
     /**
@@ -134,97 +142,7 @@ public class FileMappedTupleList extends AbstractTupleList {
      * @throws IOException if an IO error occurs.
      */
     public static boolean validateFile(final File f) throws IOException {
-        if (f.exists() && f.isFile()) {
-            DataInputStream in = null;
-            try {
-                in = new DataInputStream(new FileInputStream(f));
-                int tupleLen = in.readInt();
-                int tupleCount = in.readInt();
-                long expectedFileLen = 8L * ((long) tupleLen) * tupleCount;
-                return f.length() == expectedFileLen;
-            } finally {
-                if (in != null) {
-                    try {
-                        in.close();
-                    } catch (IOException e) {
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    private void initEmptyFile() throws IOException {
-        DataOutputStream out = null;
-        try {
-            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file)));
-            out.writeInt(this.tupleLength);
-            out.writeInt(this.tupleCount);
-            for (int i = 0; i < this.tupleCount; i++) {
-                for (int j = 0; j < this.tupleLength; j++) {
-                    out.writeDouble(0.0);
-                }
-            }
-        } finally {
-            if (out != null) {
-                try {
-                    out.close();
-                } catch (IOException e) {
-                    LOGGER.error("error closing output stream", e);
-                }
-            }
-        }
-    }
-
-    /**
-     * Get whether or not the backing file is open.
-     *
-     * @return true if the file is open.
-     */
-    public synchronized boolean isOpen() {
-        return randomAccessFile != null;
-    }
-
-    /**
-     * Opens the backing file. If the file is already open, this method does
-     * nothing.
-     *
-     * @throws IOException if an IO error occurs.
-     */
-    public synchronized void open() throws IOException {
-        if (!isOpen()) {
-            boolean ok = false;
-            try {
-                randomAccessFile = new RandomAccessFile(this.file, "rw");
-                int tlen = randomAccessFile.readInt();
-                int tcount = randomAccessFile.readInt();
-                ioBuffer = ByteBuffer.allocate(8 * tlen);
-                this.tupleLength = tlen;
-                this.tupleCount = tcount;
-                ok = true;
-            } finally {
-                if (!ok) {
-                    try {
-                        close();
-                    } catch (IOException e) {
-                        LOGGER.error("error closing output stream", e);
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Close the backing file if it is open.
-     *
-     * @throws IOException if an IO error occurs.
-     */
-    public synchronized void close() throws IOException {
-        if (isOpen()) {
-            randomAccessFile.close();
-            randomAccessFile = null;
-            ioBuffer = null;
-        }
+        return validateFile(f, 8);
     }
 
     /**
@@ -234,17 +152,11 @@ public class FileMappedTupleList extends AbstractTupleList {
     public void setTuple(final int n, final double[] values) {
         checkTupleIndex(n);
         checkValuesLength(values);
-        checkOpen();
-        try {
-            randomAccessFile.seek(filePos(n));
-            ioBuffer.clear();
-            for (int i = 0; i < this.tupleLength; i++) {
-                ioBuffer.putDouble(values[i]);
-            }
-            ioBuffer.flip();
-            randomAccessFile.getChannel().write(ioBuffer);
-        } catch (IOException e) {
-            LOGGER.error("error setting tuple values", e);
+        tuplesModified();
+        final DoubleBuffer segment = segmentFor(n);
+        final int offset = segmentOffset(n);
+        for (int i = 0; i < this.tupleLength; i++) {
+            segment.put(offset + i, values[i]);
         }
     }
 
@@ -254,19 +166,12 @@ public class FileMappedTupleList extends AbstractTupleList {
     @Override
     public double[] getTuple(final int n, final double[] reuseBuffer) {
         checkTupleIndex(n);
-        checkOpen();
+        final DoubleBuffer segment = segmentFor(n);
         double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
                 : new double[tupleLength];
-        try {
-            randomAccessFile.seek(filePos(n));
-            ioBuffer.clear();
-            randomAccessFile.getChannel().read(ioBuffer);
-            ioBuffer.flip();
-            for (int i = 0; i < this.tupleLength; i++) {
-                result[i] = ioBuffer.getDouble();
-            }
-        } catch (IOException e) {
-            LOGGER.error("error reading tuple values", e);
+        final int offset = segmentOffset(n);
+        for (int i = 0; i < this.tupleLength; i++) {
+            result[i] = segment.get(offset + i);
         }
         return result;
     }
@@ -275,35 +180,48 @@ public class FileMappedTupleList extends AbstractTupleList {
      * {@inheritDoc}
      */
     @Override
-    public double getTupleValue(final int n, final int col) {
-        checkTupleIndex(n);
-        checkColumnIndex(col);
-        checkOpen();
-        try {
-            randomAccessFile.seek(filePos(n) + 8L * col);
-            return randomAccessFile.readDouble();
-        } catch (IOException e) {
-            LOGGER.error("error reading tuple value", e);
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        // Copy the range one segment at a time, since it may straddle segments.
+        int n = start, pos = 0, remaining = count;
+        while (remaining > 0) {
+            final DoubleBuffer segment = segmentFor(n);
+            final int tuples = Math.min(remaining, tuplesLeftInSegment(n));
+            final int len = tuples * tupleLength;
+            final DoubleBuffer view = segment.duplicate();
+            view.position(segmentOffset(n));
+            view.get(result, pos, len);
+            n += tuples;
+            pos += len;
+            remaining -= tuples;
         }
-        return 0.0;
+        return result;
     }
 
-    // Ensures file is open.
-    private void checkOpen() {
-        if (!isOpen()) {
-            throw new IllegalStateException("not open");
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        return segmentFor(n).get(segmentOffset(n) + col);
     }
 
-    private long filePos(final int n) {
-        return 8L + n * ioBuffer.capacity();
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DoubleBuffer segmentView(final MappedByteBuffer mapped) {
+        return mapped.asDoubleBuffer();
     }
 
-    protected void finalize() {
-        try {
-            close();
-        } catch (IOException e) {
-            LOGGER.error("error closing file", e);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DoubleBuffer[] newSegmentArray(final int length) {
+        return new DoubleBuffer[length];
     }
 }
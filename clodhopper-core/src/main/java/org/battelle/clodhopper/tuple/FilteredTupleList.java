@@ -33,6 +33,9 @@ public class FilteredTupleList extends AbstractTupleList {
 
 	private int[] indexes;
 	private TupleList filteredTuples;
+	// Scratch space for translating indexes in getTuples(int[], ...). Per thread, since
+	// any number of threads may be reading.
+	private final ThreadLocal<int[]> translatedIndexes = new ThreadLocal<>();
 	
 	public FilteredTupleList(int[] indexes, TupleList tuples) {
 		super(tuples.getTupleLength(), indexes.length);
@@ -51,6 +54,7 @@ public class FilteredTupleList extends AbstractTupleList {
 	@Override
 	public void setTuple(int n, double[] values) {
 		filteredTuples.setTuple(indexes[n], values);
+		tuplesModified();
 	}
 
 	@Override
@@ -58,6 +62,25 @@ public class FilteredTupleList extends AbstractTupleList {
 		return filteredTuples.getTuple(indexes[n], reuseBuffer);
 	}
 
+	@Override
+	public double[] getTuples(int start, int count, double[] reuseBuffer) {
+		checkTupleRange(start, count);
+		return filteredTuples.getTuples(indexes, start, count, reuseBuffer);
+	}
+
+	@Override
+	public double[] getTuples(int[] indexes, int offset, int count, double[] reuseBuffer) {
+		int[] translated = translatedIndexes.get();
+		if (translated == null || translated.length < count) {
+			translated = new int[count];
+			translatedIndexes.set(translated);
+		}
+		for (int i=0; i<count; i++) {
+			translated[i] = this.indexes[indexes[offset + i]];
+		}
+		return filteredTuples.getTuples(translated, 0, count, reuseBuffer);
+	}
+
 	@Override
 	public double getTupleValue(int n, int col) {
 		return filteredTuples.getTupleValue(indexes[n], col);
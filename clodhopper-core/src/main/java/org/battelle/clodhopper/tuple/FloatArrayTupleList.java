@@ -0,0 +1,235 @@
+package org.battelle.clodhopper.tuple;
+
+import java.io.*;
+import java.io.IOException;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * FloatArrayTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * An implementation of <tt>TupleList</tt> which maintains the coordinate
+ * data in a one-dimensional array of floats. Values are narrowed to float
+ * precision when set, so this class uses half the memory of 
+ * <tt>ArrayTupleList</tt>.</p>
+ *
+ * @since 2.0.1
+ */
+public class FloatArrayTupleList extends AbstractTupleList {
+
+    private final float[] values;
+
+    /**
+     * Constructs a new <tt>FloatArrayTupleList</tt> with all values initialized to
+     * zero.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     */
+    public FloatArrayTupleList(final int tupleLength, final int tupleCount) {
+        super(tupleLength, tupleCount);
+        this.values = new float[tupleLength * tupleCount];
+    }
+
+    /**
+     * Constructs a new <tt>FloatArrayTupleList</tt> using the provided array of
+     * values. This array is not copied, so any changes made directly to this
+     * array will change the data in this tuple list.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     * @param values an array containing the tuple values, which should have a
+     * length at least tupleLength * tupleCount.
+     *
+     * @throws IllegalArgumentException if either tupleLength or tupleCount is
+     * negative or if values has insufficient length.
+     */
+    public FloatArrayTupleList(final int tupleLength, 
+        final int tupleCount,
+        final float[] values) {
+        
+        super(tupleLength, tupleCount);
+        if (values.length < tupleLength * tupleCount) {
+            throw new IllegalArgumentException(String.format("values.length < %d: %d", tupleLength * tupleCount, values.length));
+        }
+        this.values = values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        checkTupleIndex(n);
+        checkValuesLength(values);
+        tuplesModified();
+        final int offset = n * tupleLength;
+        for (int i = 0; i < tupleLength; i++) {
+            this.values[offset + i] = (float) values[i];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        final int offset = n * tupleLength;
+        for (int i = 0; i < tupleLength; i++) {
+            result[i] = this.values[offset + i];
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        final int offset = start * tupleLength;
+        final int len = count * tupleLength;
+        for (int i = 0; i < len; i++) {
+            result[i] = this.values[offset + i];
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int[] indexes, final int offset, final int count, final double[] reuseBuffer) {
+        double[] result = blockBuffer(count, reuseBuffer);
+        for (int i = 0, pos = 0; i < count; i++) {
+            final int n = indexes[offset + i];
+            checkTupleIndex(n);
+            final int src = n * tupleLength;
+            for (int j = 0; j < tupleLength; j++) {
+                result[pos++] = this.values[src + j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        return this.values[n * tupleLength + col];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getColumn(final int col, final double[] columnBuffer) {
+        checkColumnIndex(col);
+        int len = columnBuffer != null ? columnBuffer.length : 0;
+        double[] result = len >= tupleCount ? columnBuffer : new double[tupleCount];
+        for (int i = 0, currentNdx = col; i < tupleCount; i++, currentNdx += tupleLength) {
+            result[i] = this.values[currentNdx];
+        }
+        return result;
+    }
+
+    /**
+     * Loads an instance of of <code>FloatArrayTupleList</code> from a file
+     * containing binary float tuple data. The file format is two ints specifying 
+     * the tuple length and tuple count, then the tuple data as floats.
+     *
+     * @param f the file containing the data.
+     *
+     * @return a <code>FloatArrayTupleList</code> object
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public static FloatArrayTupleList loadFromFile(final File f) throws IOException {
+        FloatArrayTupleList tuples = null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            int tupleLength = in.readInt();
+            int tupleCount = in.readInt();
+            float[] values = new float[tupleLength * tupleCount];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readFloat();
+            }
+            tuples = new FloatArrayTupleList(tupleLength, tupleCount, values);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ioe) {
+                }
+            }
+        }
+        return tuples;
+    }
+
+    /**
+     * Saves the tuple data to a file in float precision in the format that can be 
+     * reloaded using the <code>loadFromFile</code> method.
+     *
+     * @param tuples the tuple list to save.
+     * @param f the file in which to save it.
+     *
+     * @throws IOException if an IO error occurs.
+     */
+    public static void saveToFile(final TupleList tuples, final File f) throws IOException {
+        final int tupleLength = tuples.getTupleLength();
+        final int tupleCount = tuples.getTupleCount();
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+            double[] buffer = new double[tupleLength];
+            out.writeInt(tupleLength);
+            out.writeInt(tupleCount);
+            for (int i = 0; i < tupleCount; i++) {
+                tuples.getTuple(i, buffer);
+                for (int j = 0; j < tupleLength; j++) {
+                    out.writeFloat((float) buffer[j]);
+                }
+            }
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ioe) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.battelle.clodhopper.tuple;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * FloatFileMappedTupleList.java
+ *
+ *===================================================================*/
+/**
+ * Implements a <code>TupleList</code> backed by a single binary data file in 
+ * which the values are stored as floats. Except for the precision of the stored
+ * values, this class is the same as <code>FileMappedTupleList</code>: the data 
+ * portion of the file is memory-mapped in segments, each holding a whole number
+ * of tuples.
+ * <p>
+ * Reads are lock-free, so any number of threads may call <code>getTuple</code>
+ * and <code>getTupleValue</code> concurrently. Concurrent calls to
+ * <code>setTuple</code> are also safe, provided they write to different tuples.</p>
+ *
+ * @since 2.0.1
+ *
+ */
+public class FloatFileMappedTupleList extends AbstractFileMappedTupleList<FloatBuffer> {
+
+    /**
+     * Constructor.
+     *
+     * @param file the file in which to store distances.
+     * @param tupleLength the tuple length.
+     * @param tupleCount the tuple count.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     *
+     * @throws IOException if an IO error occurs.
+     */
+    protected FloatFileMappedTupleList(final File file, final int tupleLength, final int tupleCount,
+        final int maxSegmentBytes) throws IOException {
+        super(file, 4, tupleLength, tupleCount, maxSegmentBytes);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param file the file to use to store distances.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     * 
+     * @throws IOException if an IO error occurs.
+     */
+    protected FloatFileMappedTupleList(final File file, final int maxSegmentBytes) throws IOException {
+        super(file, 4, maxSegmentBytes);
+    }
+
+    /**
+     * Factory method that creates a new <code>TupleList</code> backed by the
+     * specified file.
+     *
+     * @param file the file for storing the data.
+     * @param tupleLength the tuple length.
+     * @param tupleCount the tuple count.
+     * @return an instance of <code>FloatFileMappedTupleList</code>.
+     * @throws IOException if an IO problem occurs.
+     */
+    public static FloatFileMappedTupleList createNew(final File file, final int tupleLength, final int tupleCount)
+            throws IOException {
+        return new FloatFileMappedTupleList(file, tupleLength, tupleCount, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    /**
+     * Factory method that creates a new <code>TupleList</code> backed by the
+     * specified file, mapping no more than the specified number of bytes per segment.
+     *
+     * @param file the file for storing the data.
+     * @param tupleLength the tuple length.
+     * @param tupleCount the tuple count.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment. This must be
+     *   large enough to hold at least one tuple.
+     * @return an instance of <code>FloatFileMappedTupleList</code>.
+     * @throws IOException if an IO problem occurs.
+     */
+    public static FloatFileMappedTupleList createNew(final File file, final int tupleLength, final int tupleCount,
+            final int maxSegmentBytes) throws IOException {
+        return new FloatFileMappedTupleList(file, tupleLength, tupleCount, maxSegmentBytes);
+    }
+
+    /**
+     * Factory method that opens a <code>TupleList</code> backed by an existing
+     * data file.
+     *
+     * @param file the file containing the tuples.
+     * @return an instance of <code>FloatFileMappedTupleList</code>.
+     * @throws IOException if an IO error occurs.
+     */
+    public static FloatFileMappedTupleList openExisting(final File file) throws IOException {
+        return new FloatFileMappedTupleList(file, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    /**
+     * Factory method that opens a <code>TupleList</code> backed by an existing
+     * data file, mapping no more than the specified number of bytes per segment.
+     *
+     * @param file the file containing the tuples.
+     * @param maxSegmentBytes the maximum number of bytes to map per segment.
+     * @return an instance of <code>FloatFileMappedTupleList</code>.
+     * @throws IOException if an IO error occurs.
+     */
+    public static FloatFileMappedTupleList openExisting(final File file, final int maxSegmentBytes) throws IOException {
+        return new FloatFileMappedTupleList(file, maxSegmentBytes);
+    }
+
+    /**
+     * Checks a file to see whether it contains valid tuple data.
+     *
+     * @param f the file to check.
+     * @return true if the file validates, false otherwise.
+     * @throws IOException if an IO error occurs.
+     */
+    public static boolean validateFile(final File f) throws IOException {
+        return validateFile(f, 4);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        checkTupleIndex(n);
+        checkValuesLength(values);
+        tuplesModified();
+        final FloatBuffer segment = segmentFor(n);
+        final int offset = segmentOffset(n);
+        for (int i = 0; i < this.tupleLength; i++) {
+            segment.put(offset + i, (float) values[i]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        final FloatBuffer segment = segmentFor(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        final int offset = segmentOffset(n);
+        for (int i = 0; i < this.tupleLength; i++) {
+            result[i] = segment.get(offset + i);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        // Copy the range one segment at a time, since it may straddle segments.
+        int n = start, pos = 0, remaining = count;
+        while (remaining > 0) {
+            final FloatBuffer segment = segmentFor(n);
+            final int tuples = Math.min(remaining, tuplesLeftInSegment(n));
+            final int len = tuples * tupleLength;
+            final int offset = segmentOffset(n);
+            for (int i = 0; i < len; i++) {
+                result[pos + i] = segment.get(offset + i);
+            }
+            n += tuples;
+            pos += len;
+            remaining -= tuples;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        return segmentFor(n).get(segmentOffset(n) + col);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected FloatBuffer segmentView(final MappedByteBuffer mapped) {
+        return mapped.asFloatBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected FloatBuffer[] newSegmentArray(final int length) {
+        return new FloatBuffer[length];
+    }
+}
@@ -76,6 +76,7 @@ public class MultiFileMappedTupleList extends AbstractTupleList {
     @Override
     public void setTuple(int n, double[] values) {
         super.checkTupleIndex(n);
+        tuplesModified();
         tupleLists[n/tuplesPerDivision].setTuple(n%tuplesPerDivision, values);
     }
 
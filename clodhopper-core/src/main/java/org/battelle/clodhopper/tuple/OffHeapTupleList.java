@@ -0,0 +1,286 @@
+package org.battelle.clodhopper.tuple;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * OffHeapTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * An implementation of <tt>TupleList</tt> which keeps its values in native
+ * memory outside the garbage-collected heap. The values are held in a number of
+ * direct buffers, each containing a whole number of tuples, and are addressed with
+ * long offsets. Therefore, unlike <tt>ArrayTupleList</tt>, the total number of
+ * values is not limited to 2^31 and large data sets do not lengthen garbage 
+ * collection pauses.</p>
+ * <p>
+ * Values may be stored in either double or float precision. Concurrent reads are
+ * safe, as are concurrent writes to different tuples.</p>
+ *
+ * @since 2.0.1
+ */
+public class OffHeapTupleList extends AbstractTupleList {
+
+    /**
+     * The maximum number of bytes held by each direct buffer.
+     */
+    public static final int DEFAULT_MAX_SEGMENT_BYTES = 1 << 30;
+
+    // The largest number of values that can safely be held by a Java array.
+    private static final long MAX_ARRAY_VALUES = Integer.MAX_VALUE - 8;
+
+    private final TuplePrecision precision;
+    private final ByteBuffer[] segments;
+    private final int tuplesPerSegment;
+    // Number of bytes per tuple.
+    private final int tupleBytes;
+    // Cached, since checked on every access.
+    private final boolean floats;
+
+    /**
+     * Constructs a new <tt>OffHeapTupleList</tt> that stores doubles, with all 
+     * values initialized to zero.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     */
+    public OffHeapTupleList(final int tupleLength, final int tupleCount) {
+        this(tupleLength, tupleCount, TuplePrecision.DOUBLE);
+    }
+
+    /**
+     * Constructs a new <tt>OffHeapTupleList</tt> with all values initialized to
+     * zero.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     * @param precision the precision in which to store the values.
+     */
+    public OffHeapTupleList(final int tupleLength, final int tupleCount, final TuplePrecision precision) {
+        this(tupleLength, tupleCount, precision, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructs a new <tt>OffHeapTupleList</tt> with all values initialized to
+     * zero.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     * @param precision the precision in which to store the values.
+     * @param maxSegmentBytes the maximum number of bytes held by each direct buffer.
+     * This must be large enough to hold at least one tuple.
+     */
+    public OffHeapTupleList(final int tupleLength, final int tupleCount, final TuplePrecision precision,
+        final int maxSegmentBytes) {
+        super(tupleLength, tupleCount);
+        if (precision == null) {
+            throw new NullPointerException();
+        }
+        final long bytesPerTuple = ((long) precision.getBytesPerValue()) * tupleLength;
+        if (bytesPerTuple > maxSegmentBytes) {
+            throw new IllegalArgumentException(String.format(
+                    "maxSegmentBytes too small for tuples of length %d: %d", tupleLength, maxSegmentBytes));
+        }
+        this.precision = precision;
+        this.floats = precision == TuplePrecision.FLOAT;
+        this.tupleBytes = (int) bytesPerTuple;
+        this.tuplesPerSegment = tupleBytes > 0 ? Math.max(1, Math.min(tupleCount, maxSegmentBytes / tupleBytes))
+                : Math.max(1, tupleCount);
+        final int segmentCount = (int) ((tupleCount + (long) tuplesPerSegment - 1) / tuplesPerSegment);
+        this.segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long firstTuple = (long) i * tuplesPerSegment;
+            int tuplesThisSegment = (int) Math.min(tuplesPerSegment, tupleCount - firstTuple);
+            // Direct buffers are zero-filled on allocation. Native order avoids byte swapping.
+            segments[i] = ByteBuffer.allocateDirect(tuplesThisSegment * tupleBytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Get the precision in which values are stored.
+     * 
+     * @return the precision.
+     */
+    public TuplePrecision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Get the total number of bytes of native memory used for the values.
+     * 
+     * @return the number of bytes.
+     */
+    public long getByteCount() {
+        return ((long) tupleBytes) * tupleCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        checkTupleIndex(n);
+        checkValuesLength(values);
+        tuplesModified();
+        final ByteBuffer segment = segments[n / tuplesPerSegment];
+        int offset = (n % tuplesPerSegment) * tupleBytes;
+        if (floats) {
+            for (int i = 0; i < tupleLength; i++, offset += 4) {
+                segment.putFloat(offset, (float) values[i]);
+            }
+        } else {
+            for (int i = 0; i < tupleLength; i++, offset += 8) {
+                segment.putDouble(offset, values[i]);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        readTuple(n, result, 0);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        for (int i = 0, pos = 0; i < count; i++, pos += tupleLength) {
+            readTuple(start + i, result, pos);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int[] indexes, final int offset, final int count, final double[] reuseBuffer) {
+        double[] result = blockBuffer(count, reuseBuffer);
+        for (int i = 0, pos = 0; i < count; i++, pos += tupleLength) {
+            final int n = indexes[offset + i];
+            checkTupleIndex(n);
+            readTuple(n, result, pos);
+        }
+        return result;
+    }
+
+    // Copies the values of tuple n into dest starting at pos.
+    private void readTuple(final int n, final double[] dest, int pos) {
+        final ByteBuffer segment = segments[n / tuplesPerSegment];
+        int offset = (n % tuplesPerSegment) * tupleBytes;
+        if (floats) {
+            for (int i = 0; i < tupleLength; i++, offset += 4) {
+                dest[pos++] = segment.getFloat(offset);
+            }
+        } else {
+            for (int i = 0; i < tupleLength; i++, offset += 8) {
+                dest[pos++] = segment.getDouble(offset);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        final ByteBuffer segment = segments[n / tuplesPerSegment];
+        final int offset = (n % tuplesPerSegment) * tupleBytes;
+        return floats ? segment.getFloat(offset + 4 * col) : segment.getDouble(offset + 8 * col);
+    }
+
+    /**
+     * Returns true if the values for tuples of the specified dimensions can be held in a 
+     * single on-heap array, as done by <code>ArrayTupleList</code>.
+     * 
+     * @param tupleLength the tuple length.
+     * @param tupleCount the tuple count.
+     * 
+     * @return true if an array is large enough, false if an off-heap list must be used.
+     */
+    public static boolean fitsInArray(final int tupleLength, final int tupleCount) {
+        return ((long) tupleLength) * tupleCount <= MAX_ARRAY_VALUES;
+    }
+
+    /**
+     * Loads an instance of <code>OffHeapTupleList</code> from a file
+     * containing binary tuple data in the format written by 
+     * <code>ArrayTupleList.saveToFile</code> or <code>FloatArrayTupleList.saveToFile</code>.
+     *
+     * @param f the file containing the data.
+     * @param precision the precision of the values in the file, which is also the precision
+     *   used by the returned instance.
+     *
+     * @return an <code>OffHeapTupleList</code> object
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public static OffHeapTupleList loadFromFile(final File f, final TuplePrecision precision) throws IOException {
+        OffHeapTupleList tuples = null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            int tupleLength = in.readInt();
+            int tupleCount = in.readInt();
+            tuples = new OffHeapTupleList(tupleLength, tupleCount, precision);
+            double[] buffer = new double[tupleLength];
+            for (int i = 0; i < tupleCount; i++) {
+                for (int j = 0; j < tupleLength; j++) {
+                    buffer[j] = precision == TuplePrecision.FLOAT ? in.readFloat() : in.readDouble();
+                }
+                tuples.setTuple(i, buffer);
+            }
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ioe) {
+                }
+            }
+        }
+        return tuples;
+    }
+}
@@ -0,0 +1,276 @@
+package org.battelle.clodhopper.tuple;
+
+import java.util.Arrays;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * QuantizedTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * An implementation of <tt>TupleList</tt> which stores each value as an 8 or 16-bit
+ * code, using 1/8 or 1/4 of the memory of an <tt>ArrayTupleList</tt> at the cost 
+ * of quantization error. Each column has its own offset and scale, derived from 
+ * the column's minimum and maximum in one pass over the source data, so that the 
+ * codes span the column's range. Values are dequantized by <tt>getTuple</tt>, and 
+ * differ from the source values by at most half the column's scale. NaNs are not 
+ * representable and are stored as the column minimum.</p>
+ * <p>
+ * Instances are created by <tt>quantize</tt> and are read-only: <tt>setTuple</tt>
+ * throws an <tt>UnsupportedOperationException</tt>. Writing values back to the 
+ * source would replace them with their dequantized approximations, and every 
+ * round trip would lose more precision.</p>
+ *
+ * @since 2.0.1
+ */
+public class QuantizedTupleList extends AbstractTupleList {
+
+    /**
+     * The sizes of the codes in which values may be stored.
+     */
+    public enum Quantization {
+        
+        INT8(1),
+        INT16(2);
+        
+        private final int bytesPerValue;
+        
+        private Quantization(final int bytesPerValue) {
+            this.bytesPerValue = bytesPerValue;
+        }
+        
+        /**
+         * Get the number of bytes required to store a single tuple value.
+         * 
+         * @return the number of bytes per value.
+         */
+        public int getBytesPerValue() {
+            return bytesPerValue;
+        }
+        
+        /**
+         * Get the largest code. Codes run from 0 to this value.
+         * 
+         * @return the maximum code.
+         */
+        public int getMaxCode() {
+            return (1 << (8 * bytesPerValue)) - 1;
+        }
+    }
+    
+    private final Quantization quantization;
+    // Only one of these is non-null, depending on the quantization.
+    private final byte[] byteCodes;
+    private final short[] shortCodes;
+    // Per-column value for code 0, and value increment per code.
+    private final double[] offsets;
+    private final double[] scales;
+    private final int maxCode;
+
+    // Constructs an instance whose columns have the specified ranges, with all codes 0.
+    private QuantizedTupleList(final Quantization quantization, final double[] min, 
+            final double[] max, final int tupleCount) {
+        super(min.length, tupleCount);
+        if (max.length != tupleLength) {
+            throw new IllegalArgumentException(String.format(
+                    "min and max lengths differ: %d != %d", tupleLength, max.length));
+        }
+        if (!OffHeapTupleList.fitsInArray(tupleLength, tupleCount)) {
+            throw new IllegalArgumentException(String.format(
+                    "too many values for one array: %d x %d", tupleLength, tupleCount));
+        }
+        this.quantization = quantization;
+        this.maxCode = quantization.getMaxCode();
+        final int n = tupleLength * tupleCount;
+        if (quantization == Quantization.INT8) {
+            this.byteCodes = new byte[n];
+            this.shortCodes = null;
+        } else {
+            this.byteCodes = null;
+            this.shortCodes = new short[n];
+        }
+        this.offsets = new double[tupleLength];
+        this.scales = new double[tupleLength];
+        for (int j = 0; j < tupleLength; j++) {
+            double lo = min[j], hi = max[j];
+            if (Double.isNaN(lo) || Double.isNaN(hi)) {
+                lo = hi = 0.0;
+            }
+            offsets[j] = lo;
+            scales[j] = hi > lo ? (hi - lo) / maxCode : 0.0;
+        }
+    }
+
+    /**
+     * Creates a <tt>QuantizedTupleList</tt> holding a quantized copy of another 
+     * tuple list. One pass over the source finds the range of each column, and a
+     * second encodes the values.
+     * 
+     * @param tuples the source of the data.
+     * @param quantization the code size.
+     * 
+     * @return a new <tt>QuantizedTupleList</tt>
+     */
+    public static QuantizedTupleList quantize(final TupleList tuples, final Quantization quantization) {
+        final int tupleLength = tuples.getTupleLength();
+        final int tupleCount = tuples.getTupleCount();
+        final double[] min = new double[tupleLength];
+        final double[] max = new double[tupleLength];
+        Arrays.fill(min, Double.NaN);
+        Arrays.fill(max, Double.NaN);
+        final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+        double[] block = null;
+        for (int start = 0; start < tupleCount; start += blockTuples) {
+            final int count = Math.min(blockTuples, tupleCount - start);
+            block = tuples.getTuples(start, count, block);
+            for (int i = 0, pos = 0; i < count; i++) {
+                for (int j = 0; j < tupleLength; j++) {
+                    final double v = block[pos++];
+                    if (v < min[j] || Double.isNaN(min[j])) {
+                        min[j] = v;
+                    }
+                    if (v > max[j] || Double.isNaN(max[j])) {
+                        max[j] = v;
+                    }
+                }
+            }
+        }
+        QuantizedTupleList result = new QuantizedTupleList(quantization, min, max, tupleCount);
+        for (int start = 0; start < tupleCount; start += blockTuples) {
+            final int count = Math.min(blockTuples, tupleCount - start);
+            block = tuples.getTuples(start, count, block);
+            for (int i = 0, pos = 0, ndx = start * tupleLength; i < count; i++) {
+                for (int j = 0; j < tupleLength; j++) {
+                    result.setCode(ndx++, result.encode(j, block[pos++]));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the code size.
+     * 
+     * @return the quantization.
+     */
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    /**
+     * Get the value represented by code 0 in a column, which is the column minimum.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the offset.
+     */
+    public double getOffset(final int col) {
+        checkColumnIndex(col);
+        return offsets[col];
+    }
+
+    /**
+     * Get the difference between the values represented by successive codes in a 
+     * column. This is also the largest quantization error.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the scale, which is 0 for constant columns.
+     */
+    public double getScale(final int col) {
+        checkColumnIndex(col);
+        return scales[col];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        throw new UnsupportedOperationException("quantized tuple lists are read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        for (int j = 0, ndx = n * tupleLength; j < tupleLength; j++) {
+            result[j] = offsets[j] + scales[j] * code(ndx++);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        for (int i = 0, pos = 0, ndx = start * tupleLength; i < count; i++) {
+            for (int j = 0; j < tupleLength; j++) {
+                result[pos++] = offsets[j] + scales[j] * code(ndx++);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        return offsets[col] + scales[col] * code(n * tupleLength + col);
+    }
+
+    // Returns the code nearest the value in column col.
+    private int encode(final int col, final double value) {
+        if (scales[col] == 0.0 || !(value > offsets[col])) {
+            return 0;
+        }
+        final long c = Math.round((value - offsets[col]) / scales[col]);
+        return c < maxCode ? (int) c : maxCode;
+    }
+
+    private int code(final int ndx) {
+        return byteCodes != null ? byteCodes[ndx] & 0xff : shortCodes[ndx] & 0xffff;
+    }
+
+    private void setCode(final int ndx, final int code) {
+        if (byteCodes != null) {
+            byteCodes[ndx] = (byte) code;
+        } else {
+            shortCodes[ndx] = (short) code;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package org.battelle.clodhopper.tuple;
+
+import java.util.Arrays;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * SparseTupleList.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * An implementation of <tt>TupleList</tt> which stores only the non-zero values 
+ * of each tuple in compressed-sparse-row (CSR) form. The non-zero values of all
+ * tuples are held end to end in one array, with a parallel array of their column
+ * indexes. The non-zeros of tuple <code>n</code> occupy positions 
+ * <code>[getRowStart(n), getRowEnd(n))</code> of both arrays, with their column 
+ * indexes in ascending order.</p>
+ * <p>
+ * This is suited to high-dimensional data with few non-zeros per tuple, such 
+ * as term-frequency document vectors. The <tt>getTuple</tt> methods still 
+ * return dense arrays, but code that knows about this class, such as 
+ * implementations of <tt>SparseDistanceMetric</tt> and <tt>TupleMath.average</tt>,
+ * can work on the non-zeros directly.</p>
+ * <p>
+ * Instances are normally built a tuple at a time with a <tt>Builder</tt>. 
+ * <tt>setTuple</tt> is supported, but has to shift the values of all following
+ * tuples when the number of non-zeros changes.</p>
+ *
+ * @since 2.0.1
+ */
+public class SparseTupleList extends AbstractTupleList {
+
+    // rowOffsets[n] is the start of tuple n in columnIndexes and values. Has
+    // tupleCount + 1 elements, the last being the total number of non-zeros.
+    private final int[] rowOffsets;
+    private int[] columnIndexes;
+    private double[] values;
+
+    /**
+     * Constructs a new <tt>SparseTupleList</tt> with all values zero.
+     *
+     * @param tupleLength the length of each tuple
+     * @param tupleCount the number of tuples
+     */
+    public SparseTupleList(final int tupleLength, final int tupleCount) {
+        this(tupleLength, new int[tupleCount + 1], new int[0], new double[0]);
+    }
+
+    /**
+     * Constructs a new <tt>SparseTupleList</tt> which wraps arrays already in
+     * compressed-sparse-row form. The arrays are not copied.
+     *
+     * @param tupleLength the length of each tuple
+     * @param rowOffsets the start of each tuple's non-zeros, followed by the 
+     *   total number of non-zeros. Its length is one more than the tuple count.
+     * @param columnIndexes the column index of each non-zero, ascending within each tuple.
+     * @param values the non-zero values.
+     *   
+     * @throws IllegalArgumentException if the arrays are inconsistent.
+     */
+    public SparseTupleList(final int tupleLength, final int[] rowOffsets, 
+            final int[] columnIndexes, final double[] values) {
+        super(tupleLength, rowOffsets.length - 1);
+        final int nnz = rowOffsets[tupleCount];
+        if (rowOffsets[0] != 0 || columnIndexes.length < nnz || values.length < nnz) {
+            throw new IllegalArgumentException("inconsistent sparse arrays");
+        }
+        for (int n = 0; n < tupleCount; n++) {
+            final int start = rowOffsets[n], end = rowOffsets[n + 1];
+            if (end < start) {
+                throw new IllegalArgumentException("row offsets decrease at tuple " + n);
+            }
+            for (int k = start; k < end; k++) {
+                final int col = columnIndexes[k];
+                if (col < 0 || col >= tupleLength || (k > start && col <= columnIndexes[k - 1])) {
+                    throw new IllegalArgumentException(String.format(
+                            "column indexes of tuple %d not ascending in [0 - %d]", n, tupleLength - 1));
+                }
+            }
+        }
+        this.rowOffsets = rowOffsets;
+        this.columnIndexes = columnIndexes;
+        this.values = values;
+    }
+
+    /**
+     * Creates a <tt>SparseTupleList</tt> containing the non-zero values of another
+     * tuple list.
+     * 
+     * @param tuples the source of the data.
+     * 
+     * @return a new <tt>SparseTupleList</tt>
+     */
+    public static SparseTupleList copyOf(final TupleList tuples) {
+        final int tupleCount = tuples.getTupleCount();
+        Builder builder = new Builder(tuples.getTupleLength(), tupleCount);
+        double[] buffer = null;
+        for (int i = 0; i < tupleCount; i++) {
+            buffer = tuples.getTuple(i, buffer);
+            builder.addTuple(buffer);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the position of the first non-zero of a tuple in the arrays returned by
+     * <tt>getColumnIndexes</tt> and <tt>getNonZeroValues</tt>.
+     * 
+     * @param n the 0-indexed identifier of the tuple.
+     * 
+     * @return the start position.
+     */
+    public int getRowStart(final int n) {
+        checkTupleIndex(n);
+        return rowOffsets[n];
+    }
+
+    /**
+     * Get the position following the last non-zero of a tuple in the arrays 
+     * returned by <tt>getColumnIndexes</tt> and <tt>getNonZeroValues</tt>.
+     * 
+     * @param n the 0-indexed identifier of the tuple.
+     * 
+     * @return the end position (exclusive).
+     */
+    public int getRowEnd(final int n) {
+        checkTupleIndex(n);
+        return rowOffsets[n + 1];
+    }
+
+    /**
+     * Get the number of non-zero values in a tuple.
+     * 
+     * @param n the 0-indexed identifier of the tuple.
+     * 
+     * @return the number of non-zeros.
+     */
+    public int getNonZeroCount(final int n) {
+        checkTupleIndex(n);
+        return rowOffsets[n + 1] - rowOffsets[n];
+    }
+
+    /**
+     * Get the total number of non-zero values.
+     * 
+     * @return the number of non-zeros.
+     */
+    public int getNonZeroCount() {
+        return rowOffsets[tupleCount];
+    }
+
+    /**
+     * Returns the backing array of column indexes, which may be longer than 
+     * the number of non-zeros. Changing its elements will corrupt this tuple list.
+     * 
+     * @return the column indexes.
+     */
+    public int[] getColumnIndexes() {
+        return columnIndexes;
+    }
+
+    /**
+     * Returns the backing array of non-zero values, which may be longer than 
+     * the number of non-zeros. Changing its elements changes this tuple list.
+     * 
+     * @return the non-zero values.
+     */
+    public double[] getNonZeroValues() {
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTuple(final int n, final double[] values) {
+        checkTupleIndex(n);
+        checkValuesLength(values);
+        tuplesModified();
+        int newCount = 0;
+        for (int j = 0; j < tupleLength; j++) {
+            if (values[j] != 0.0) {
+                newCount++;
+            }
+        }
+        final int start = rowOffsets[n];
+        final int end = rowOffsets[n + 1];
+        final int delta = newCount - (end - start);
+        if (delta != 0) {
+            final int nnz = rowOffsets[tupleCount];
+            if (nnz + delta > this.values.length) {
+                final int capacity = Math.max(nnz + delta, this.values.length + (this.values.length >> 1));
+                this.columnIndexes = Arrays.copyOf(this.columnIndexes, capacity);
+                this.values = Arrays.copyOf(this.values, capacity);
+            }
+            System.arraycopy(this.columnIndexes, end, this.columnIndexes, end + delta, nnz - end);
+            System.arraycopy(this.values, end, this.values, end + delta, nnz - end);
+            for (int i = n + 1; i <= tupleCount; i++) {
+                rowOffsets[i] += delta;
+            }
+        }
+        for (int j = 0, k = start; j < tupleLength; j++) {
+            if (values[j] != 0.0) {
+                this.columnIndexes[k] = j;
+                this.values[k++] = values[j];
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuple(final int n, final double[] reuseBuffer) {
+        checkTupleIndex(n);
+        double[] result = reuseBuffer != null && reuseBuffer.length >= tupleLength ? reuseBuffer
+                : new double[tupleLength];
+        Arrays.fill(result, 0, tupleLength, 0.0);
+        final int end = rowOffsets[n + 1];
+        for (int k = rowOffsets[n]; k < end; k++) {
+            result[columnIndexes[k]] = values[k];
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getTuples(final int start, final int count, final double[] reuseBuffer) {
+        checkTupleRange(start, count);
+        double[] result = blockBuffer(count, reuseBuffer);
+        Arrays.fill(result, 0, count * tupleLength, 0.0);
+        for (int i = 0, pos = 0; i < count; i++, pos += tupleLength) {
+            final int end = rowOffsets[start + i + 1];
+            for (int k = rowOffsets[start + i]; k < end; k++) {
+                result[pos + columnIndexes[k]] = values[k];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getTupleValue(final int n, final int col) {
+        checkTupleIndex(n);
+        checkColumnIndex(col);
+        final int start = rowOffsets[n];
+        final int k = Arrays.binarySearch(columnIndexes, start, rowOffsets[n + 1], col);
+        return k >= 0 ? values[k] : 0.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getColumn(final int col, final double[] columnBuffer) {
+        checkColumnIndex(col);
+        int len = columnBuffer != null ? columnBuffer.length : 0;
+        double[] result = len >= tupleCount ? columnBuffer : new double[tupleCount];
+        for (int i = 0; i < tupleCount; i++) {
+            final int start = rowOffsets[i];
+            final int k = Arrays.binarySearch(columnIndexes, start, rowOffsets[i + 1], col);
+            result[i] = k >= 0 ? values[k] : 0.0;
+        }
+        return result;
+    }
+
+    /**
+     * Builds a <tt>SparseTupleList</tt> by appending tuples in order.
+     */
+    public static class Builder {
+
+        private final int tupleLength;
+        private final int tupleCount;
+        private final int[] rowOffsets;
+        private int[] columnIndexes;
+        private double[] values;
+        private int added;
+
+        /**
+         * Constructor
+         * 
+         * @param tupleLength the length of the tuples.
+         * @param tupleCount the number of tuples that will be added.
+         */
+        public Builder(final int tupleLength, final int tupleCount) {
+            if (tupleLength < 0 || tupleCount < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "invalid tuple length or count: %d, %d", tupleLength, tupleCount));
+            }
+            this.tupleLength = tupleLength;
+            this.tupleCount = tupleCount;
+            this.rowOffsets = new int[tupleCount + 1];
+            this.columnIndexes = new int[Math.max(16, tupleCount)];
+            this.values = new double[columnIndexes.length];
+        }
+
+        /**
+         * Append a tuple given as a dense array of values.
+         * 
+         * @param tuple the values, of at least the tuple length.
+         * 
+         * @return this builder.
+         */
+        public Builder addTuple(final double[] tuple) {
+            checkCanAdd();
+            int nnz = rowOffsets[added];
+            for (int j = 0; j < tupleLength; j++) {
+                if (tuple[j] != 0.0) {
+                    ensureCapacity(nnz + 1);
+                    columnIndexes[nnz] = j;
+                    values[nnz++] = tuple[j];
+                }
+            }
+            rowOffsets[++added] = nnz;
+            return this;
+        }
+
+        /**
+         * Append a tuple given as its non-zero entries.
+         * 
+         * @param indexes the column indexes of the non-zeros, in ascending order.
+         * @param tupleValues the non-zero values corresponding to the indexes.
+         * @param count the number of non-zeros to take from the arrays.
+         * 
+         * @return this builder.
+         */
+        public Builder addTuple(final int[] indexes, final double[] tupleValues, final int count) {
+            checkCanAdd();
+            int nnz = rowOffsets[added];
+            ensureCapacity(nnz + count);
+            int lastCol = -1;
+            for (int i = 0; i < count; i++) {
+                final int col = indexes[i];
+                if (col <= lastCol || col >= tupleLength) {
+                    throw new IllegalArgumentException(String.format(
+                            "column indexes not ascending in [0 - %d]", tupleLength - 1));
+                }
+                lastCol = col;
+                if (tupleValues[i] != 0.0) {
+                    columnIndexes[nnz] = col;
+                    values[nnz++] = tupleValues[i];
+                }
+            }
+            rowOffsets[++added] = nnz;
+            return this;
+        }
+
+        /**
+         * Build the tuple list. Tuples not added are all zero.
+         * 
+         * @return a new <tt>SparseTupleList</tt>
+         */
+        public SparseTupleList build() {
+            final int nnz = rowOffsets[added];
+            for (int i = added + 1; i <= tupleCount; i++) {
+                rowOffsets[i] = nnz;
+            }
+            return new SparseTupleList(tupleLength, rowOffsets,
+                    Arrays.copyOf(columnIndexes, nnz), Arrays.copyOf(values, nnz));
+        }
+
+        private void checkCanAdd() {
+            if (added == tupleCount) {
+                throw new IllegalStateException("all " + tupleCount + " tuples already added");
+            }
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity > values.length) {
+                final int newCapacity = Math.max(capacity, values.length + (values.length >> 1));
+                columnIndexes = Arrays.copyOf(columnIndexes, newCapacity);
+                values = Arrays.copyOf(values, newCapacity);
+            }
+        }
+    }
+}
@@ -2,9 +2,17 @@ package org.battelle.clodhopper.tuple;
 
 import org.battelle.clodhopper.task.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +56,20 @@ public class TupleIO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TupleIO.class);
 
+    // Files are not split into ranges smaller than this for parallel loading.
+    private static final long MIN_PARALLEL_RANGE_BYTES = 1L << 20;
+    // Size of the buffers for reading ranges.
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+    // Initial number of rows held for each range by the parallel loader.
+    private static final int PARSED_ROWS_INITIAL = 1024;
+    // Largest mantissa converted exactly to a double, 2^53.
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    // Powers of 10 that are exactly representable as doubles.
+    private static final double[] POWERS_OF_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     /**
      * Loads a <code>TupleList</code> from a csv file and adds it to a <code>TupleListFactory</code>
      * for management.
@@ -307,6 +329,238 @@ public class TupleIO {
         return tuples;
     }
 
+    /**
+     * Loads a <code>TupleList</code> from a csv file using multiple threads and adds it to a 
+     * <code>TupleListFactory</code> for management.
+     * 
+     * @param file the csv file.
+     * @param nameForTuples the name to associate with the <code>TupleList</code>.
+     * @param factory the factory to manage the instance.
+     * @param executor the executor on which to parse the file. If null, 
+     * <code>SharedWorkerPool.get()</code> is used.
+     * @param future if non-null, used to check for cancellation.
+     * @param ph a <code>ProgressHandler</code> for communicating progress information.
+     * @return a <code>TupleList</code> instance.
+     * @throws IOException if an IO error occurs.
+     * @throws CancellationException if the load is cancelled.
+     * 
+     * @since 2.0.1
+     */
+    public static TupleList loadCSVParallel(final File file, 
+        final String nameForTuples,
+        final TupleListFactory factory, 
+        final ExecutorService executor,
+        final Future<?> future, 
+        final ProgressHandler ph) throws IOException, CancellationException {
+        return loadCSVParallel(file, null, ",", 0, 0, nameForTuples, factory, executor, future, ph);
+    }
+
+    /**
+     * Loads numeric data contained in a csv file into a TupleList using multiple threads. 
+     * The result is the same as for the equivalent call to <code>loadCSV</code>, but the 
+     * file is split into byte ranges on line boundaries which are parsed in parallel, 
+     * directly from the bytes of the file and without allocating per-line or per-value 
+     * objects. The file is read only once: each range is parsed into a temporary array of
+     * values, since the factory must know the number of rows before creating the 
+     * <code>TupleList</code>, and the ranges are then copied into it in parallel. So the
+     * parsed values are briefly held in memory in addition to the <code>TupleList</code>.
+     * <p>
+     * Byte-level parsing requires a character set that encodes ASCII characters as 
+     * single bytes which never occur within other characters, such as UTF-8 or 
+     * ISO-8859-1, and ASCII delimiters. Otherwise, this method falls back to
+     * <code>loadCSV</code>.</p>
+     * <p>
+     * Progress is posted as the fraction of the bytes of the data which have been parsed
+     * and copied.</p>
+     *
+     * @param file the file containing the data.
+     * @param charSet the character set of the file. If null, the default
+     * character set is used.
+     * @param delimiter the delimiter characters.
+     * @param startColumn the starting column in case some columns at the
+     * beginning of each row should be ignored.
+     * @param columnCount the number of columns.
+     * @param nameForTuples the name to assign to the TupleList within its
+     * factory.
+     * @param factory the TupleListFactory, which will manage the TupleList.
+     * @param executor the executor on which to parse the file. If null, 
+     * <code>SharedWorkerPool.get()</code> is used.
+     * @param future if non-null, this will be checked periodically to see if
+     * loading the data should be cancelled. If null, it is ignored.
+     * @param ph a <code>ProgressHandler</code> instance which can be null. If
+     * non-null, progress indications are posted for the load.
+     *
+     * @return a TupleList containing the data.
+     *
+     * @throws IOException if some kind if IO error occurs.
+     *
+     * @throws CancellationException if loading is cancelled.
+     * 
+     * @since 2.0.1
+     */
+    public static TupleList loadCSVParallel(
+        final File file,
+        final String charSet,
+        final String delimiter,
+        final int startColumn,
+        final int columnCount,
+        final String nameForTuples,
+        final TupleListFactory factory,
+        final ExecutorService executor,
+        final Future<?> future,
+        final ProgressHandler ph) throws IOException, CancellationException {
+
+        final Charset cs = charSet != null ? Charset.forName(charSet) : Charset.defaultCharset();
+
+        if (!isByteParseable(cs, delimiter)) {
+            return loadCSV(file, charSet, delimiter, startColumn, columnCount, nameForTuples, factory, future, ph);
+        }
+
+        final boolean[] delimiters = new boolean[128];
+        for (int i = 0; i < delimiter.length(); i++) {
+            delimiters[delimiter.charAt(i)] = true;
+        }
+
+        final ExecutorService pool = executor != null ? executor : SharedWorkerPool.get();
+        final int threads = pool instanceof ForkJoinPool ? ((ForkJoinPool) pool).getParallelism() 
+            : Runtime.getRuntime().availableProcessors();
+
+        RandomAccessFile raf = null;
+        TupleList tuples = null;
+        boolean ok = false;
+
+        try {
+
+            raf = new RandomAccessFile(file, "r");
+            final FileChannel channel = raf.getChannel();
+            final long fileLength = channel.size();
+
+            // Find the first row of numeric data and the columns containing numeric data,
+            // in the same manner as parseCSVInfo, but stopping at the first data row.
+            final CSVInfo csvInfo = parseCSVHeader(channel, cs, startColumn, delimiter, future);
+            final BitSet colBits = csvInfo.getColumnBits();
+            final int cols = colBits.cardinality();
+            final int expectedTokenCount = csvInfo.getTokenCount();
+
+            final boolean[] useToken = new boolean[expectedTokenCount];
+            for (int i = colBits.nextSetBit(0); i >= 0; i = colBits.nextSetBit(i + 1)) {
+                useToken[i] = true;
+            }
+
+            // Split the data into byte ranges beginning on line boundaries. Use several per
+            // thread to even out the load.
+            final long dataStart = csvInfo.getDataStart();
+            final int rangeCount = (int) Math.max(1L, Math.min(4L * threads, 
+                (fileLength - dataStart) / MIN_PARALLEL_RANGE_BYTES));
+            final long[] rangeStarts = new long[rangeCount + 1];
+            rangeStarts[0] = dataStart;
+            rangeStarts[rangeCount] = fileLength;
+            for (int i = 1; i < rangeCount; i++) {
+                long pos = Math.max(rangeStarts[i - 1], dataStart + (fileLength - dataStart) * i / rangeCount);
+                rangeStarts[i] = nextLineStart(channel, pos, fileLength);
+            }
+
+            // Every byte of the data is counted twice, once when parsed and once when copied.
+            final long totalBytes = 2L * Math.max(1L, fileLength - dataStart);
+            final long[] bytesDone = new long[1];
+            final ByteCounter progress = ph == null ? null : bytes -> {
+                synchronized (ph) {
+                    bytesDone[0] += bytes;
+                    ph.postFraction((double) bytesDone[0] / totalBytes);
+                }
+            };
+
+            if (ph != null) {
+                ph.subsection(1.0);
+                ph.postBegin();
+            }
+
+            // Parse the ranges in parallel, each into its own array of values.
+            List<Callable<RangeValues>> parsers = new ArrayList<>(rangeCount);
+            for (int i = 0; i < rangeCount; i++) {
+                final long start = rangeStarts[i], end = rangeStarts[i + 1];
+                parsers.add(() -> {
+                    final RangeValues range = new RangeValues(cols);
+                    final double[] buffer = new double[cols];
+                    forEachLine(channel, start, end, future, (b, from, to) -> {
+                        parseRow(b, from, to, delimiters, useToken, buffer, range.rows);
+                        range.add(buffer);
+                    }, progress);
+                    return range;
+                });
+            }
+            final List<RangeValues> ranges = invokeAll(pool, parsers);
+
+            final int[] firstRows = new int[rangeCount + 1];
+            for (int i = 0; i < rangeCount; i++) {
+                long next = (long) firstRows[i] + ranges.get(i).rows;
+                if (next > Integer.MAX_VALUE) {
+                    throw new IOException("too many rows: " + next);
+                }
+                firstRows[i + 1] = (int) next;
+            }
+
+            tuples = factory.createNewTupleList(nameForTuples, cols, firstRows[rangeCount]);
+
+            // Copy the ranges into the TupleList in parallel, each writing its own rows.
+            final TupleList target = tuples;
+            List<Callable<Void>> copiers = new ArrayList<>(rangeCount);
+            for (int i = 0; i < rangeCount; i++) {
+                final int rangeNdx = i;
+                final long rangeBytes = rangeStarts[i + 1] - rangeStarts[i];
+                copiers.add(() -> {
+                    final RangeValues range = ranges.get(rangeNdx);
+                    final double[] buffer = new double[cols];
+                    for (int r = 0; r < range.rows; r++) {
+                        if (future != null && future.isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        System.arraycopy(range.values, r * cols, buffer, 0, cols);
+                        target.setTuple(firstRows[rangeNdx] + r, buffer);
+                    }
+                    // Let go of the values as soon as they have been copied.
+                    ranges.set(rangeNdx, null);
+                    if (progress != null) {
+                        progress.bytes(rangeBytes);
+                    }
+                    return null;
+                });
+            }
+            invokeAll(pool, copiers);
+
+            ok = true;
+
+        } finally {
+
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ioe) {
+                    LOGGER.error("error closing file: " + file, ioe);
+                }
+            }
+
+            // If it did not succeed, clean up the TupleList if it was
+            // created.
+            if (!ok) {
+                if (tuples != null) {
+                    try {
+                        factory.closeTupleList(tuples);
+                        factory.deleteTupleList(tuples);
+                    } catch (TupleListFactoryException tlfe) {
+                        LOGGER.error("error closing tuple list", tlfe);
+                    }
+                }
+            }
+
+            if (ph != null) {
+                ph.postEnd();
+            }
+        }
+
+        return tuples;
+    }
+
     /**
      * Parse a csv file to determine the number of rows and which columns
      * contain numeric data.
@@ -359,30 +613,11 @@ public class TupleIO {
 
                     if (startRow < 0) {
 
-                        if (tokenCount > startColumn) {
-
-                            BitSet bits = new BitSet(tokenCount);
-
-                            // Throw away everything before the startColumn
-                            for (int i = 0; i < startColumn; i++) {
-                                tokenizer.nextToken();
-                            }
-
-                            for (int i = startColumn; i < tokenCount; i++) {
-                                try {
-                                    Double.parseDouble(tokenizer.nextToken());
-                                    // Flag the column as containing a parseable double.
-                                    bits.set(i);
-                                } catch (NumberFormatException nfe) {
-                                    // Don't worry about it.  
-                                }
-                            }
-
-                            if (bits.cardinality() > 0) {
-                                startRow = lineNum;
-                                columnBits = bits;
-                                expectedTokenCount = tokenCount;
-                            }
+                        BitSet bits = numericColumns(line, startColumn, delimiter);
+                        if (bits != null) {
+                            startRow = lineNum;
+                            columnBits = bits;
+                            expectedTokenCount = tokenCount;
                         }
 
                     } else {
@@ -495,6 +730,518 @@ public class TupleIO {
 
     }
 
+    /**
+     * Saves tuples to a file in the self-describing binary dataset format, in 
+     * double precision with unnamed columns and the default chunk size. 
+     * See <code>DatasetTupleList</code> for a description of the format.
+     *
+     * @param file the file to which to save the data.
+     * @param tuples the tuple data to save.
+     * @throws IOException if an IO error occurs.
+     * 
+     * @since 2.0.1
+     */
+    public static void saveDataset(final File file, final TupleList tuples) throws IOException {
+        saveDataset(file, tuples, TuplePrecision.DOUBLE, null, 0);
+    }
+
+    /**
+     * Saves tuples to a file in the self-describing binary dataset format.
+     * The format records the precision, column names, chunk offsets, and the
+     * per-chunk minimum and maximum of each column, with checksums for the 
+     * metadata and each chunk. See <code>DatasetTupleList</code> for a 
+     * description of the format.
+     *
+     * @param file the file to which to save the data.
+     * @param tuples the tuple data to save.
+     * @param precision the precision in which to store the values.
+     * @param columnNames the names of the columns, which may be null. If 
+     * non-null this must be the same length as the tuples.
+     * @param chunkTupleCount the number of tuples per chunk. If not positive, 
+     * a default chosen from the tuple length is used.
+     * 
+     * @throws IOException if an IO error occurs.
+     * 
+     * @since 2.0.1
+     */
+    public static void saveDataset(
+        final File file, 
+        final TupleList tuples, 
+        final TuplePrecision precision,
+        final String[] columnNames, 
+        final int chunkTupleCount) throws IOException {
+        DatasetTupleList.write(file, tuples, precision, columnNames, chunkTupleCount);
+    }
+
+    /**
+     * Opens a file written by <code>saveDataset</code>. Only the header and
+     * metadata are read; the data is memory mapped and read in place.
+     *
+     * @param file the dataset file.
+     * @return a read-only <code>TupleList</code> over the data.
+     * @throws IOException if the file is not a valid dataset file.
+     * 
+     * @since 2.0.1
+     */
+    public static DatasetTupleList openDataset(final File file) throws IOException {
+        return openDataset(file, false);
+    }
+
+    /**
+     * Opens a file written by <code>saveDataset</code>, optionally reading all the 
+     * data to check the chunk checksums.
+     *
+     * @param file the dataset file.
+     * @param verifyChecksums if true, the checksums of all chunks are checked.
+     * @return a read-only <code>TupleList</code> over the data.
+     * @throws IOException if the file is not a valid dataset file, or a checksum does
+     * not match.
+     * 
+     * @since 2.0.1
+     */
+    public static DatasetTupleList openDataset(final File file, final boolean verifyChecksums) throws IOException {
+        DatasetTupleList tuples = DatasetTupleList.open(file);
+        if (verifyChecksums) {
+            tuples.verifyChecksums();
+        }
+        return tuples;
+    }
+
+    // Returns true if the character set and delimiters allow csv data to be 
+    // parsed directly from its bytes.
+    //
+    private static boolean isByteParseable(final Charset cs, final String delimiter) {
+        for (int i = 0; i < delimiter.length(); i++) {
+            if (delimiter.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        // Multibyte character sets other than UTF-8 may have ASCII values within 
+        // other characters.
+        if (!cs.equals(StandardCharsets.UTF_8) && cs.newEncoder().maxBytesPerChar() > 1.0f) {
+            return false;
+        }
+        final String ascii = "\t\n\r ,;|+-.0123456789eE";
+        return Arrays.equals(ascii.getBytes(cs), ascii.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Returns the bits for the columns of a trimmed, nonblank line which contain 
+    // numeric data, or null if there are none.
+    //
+    private static BitSet numericColumns(final String line, final int startColumn, final String delimiter) {
+
+        StringTokenizer tokenizer = new StringTokenizer(line, delimiter);
+        int tokenCount = tokenizer.countTokens();
+
+        if (tokenCount > startColumn) {
+
+            BitSet bits = new BitSet(tokenCount);
+
+            // Throw away everything before the startColumn
+            for (int i = 0; i < startColumn; i++) {
+                tokenizer.nextToken();
+            }
+
+            for (int i = startColumn; i < tokenCount; i++) {
+                try {
+                    Double.parseDouble(tokenizer.nextToken());
+                    // Flag the column as containing a parseable double.
+                    bits.set(i);
+                } catch (NumberFormatException nfe) {
+                    // Don't worry about it.  
+                }
+            }
+
+            if (bits.cardinality() > 0) {
+                return bits;
+            }
+        }
+
+        return null;
+    }
+
+    // Reads lines from the start of a file up to the first line containing numeric data. 
+    // The row count of the returned CSVInfo is unknown and set to -1.
+    //
+    private static CSVInfo parseCSVHeader(
+        final FileChannel channel,
+        final Charset cs,
+        final int startColumn,
+        final String delimiter,
+        final Future<?> future) throws IOException, CancellationException {
+
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0L)));
+        ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+        long offset = 0L, lineStart = 0L;
+        int lineNum = -1;
+        int b = 0;
+
+        while (b >= 0) {
+
+            b = in.read();
+
+            if (b >= 0 && b != '\n') {
+                lineBytes.write(b);
+                offset++;
+                continue;
+            }
+
+            if (future != null && future.isCancelled()) {
+                throw new CancellationException();
+            }
+
+            String line = new String(lineBytes.toByteArray(), cs).trim();
+
+            if (line.length() > 0) {
+                lineNum++;
+                BitSet bits = numericColumns(line, startColumn, delimiter);
+                if (bits != null) {
+                    int tokenCount = new StringTokenizer(line, delimiter).countTokens();
+                    return new CSVInfo(lineNum, -1, bits, lineStart, tokenCount);
+                }
+            }
+
+            lineBytes.reset();
+            offset++;
+            lineStart = offset;
+        }
+
+        throw new IOException("no numeric data found");
+    }
+
+    // Returns the position of the first line starting at or after pos.
+    //
+    private static long nextLineStart(final FileChannel channel, long pos, final long end) throws IOException {
+        if (pos == 0L) {
+            return pos;
+        }
+        // Back up one byte, so a line starting exactly at pos is found.
+        pos--;
+        ByteBuffer bb = ByteBuffer.allocate(4096);
+        while (pos < end) {
+            bb.clear();
+            int n = channel.read(bb, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (bb.get(i) == '\n') {
+                    return Math.min(pos + i + 1, end);
+                }
+            }
+            pos += n;
+        }
+        return end;
+    }
+
+    // Receives the trimmed, nonblank lines found by forEachLine.
+    //
+    private interface LineHandler {
+        void line(byte[] bytes, int from, int to) throws IOException;
+    }
+
+    // Receives the number of bytes consumed by forEachLine after each read.
+    //
+    private interface ByteCounter {
+        void bytes(long count);
+    }
+
+    // The values parsed from one byte range by loadCSVParallel, row by row.
+    //
+    private static final class RangeValues {
+
+        private final int cols;
+        private double[] values;
+        private int rows;
+
+        RangeValues(final int cols) {
+            this.cols = cols;
+            this.values = new double[Math.max(1, cols) * PARSED_ROWS_INITIAL];
+        }
+
+        void add(final double[] row) throws IOException {
+            final long needed = (long) (rows + 1) * cols;
+            if (needed > values.length) {
+                if (needed > Integer.MAX_VALUE - 8) {
+                    throw new IOException("too many values in range: " + needed);
+                }
+                values = Arrays.copyOf(values, (int) Math.min(Integer.MAX_VALUE - 8, 
+                    Math.max(needed, 2L * values.length)));
+            }
+            System.arraycopy(row, 0, values, rows * cols, cols);
+            rows++;
+        }
+    }
+
+    // Calls the handler for each nonblank line in the byte range [start, end) of a file, 
+    // passing the line with leading and trailing whitespace removed. The range must begin
+    // on a line boundary. Uses only positional reads, so may be called concurrently. If 
+    // the counter is non-null, it receives the number of bytes of each read.
+    //
+    private static void forEachLine(
+        final FileChannel channel, 
+        final long start, 
+        final long end,
+        final Future<?> future, 
+        final LineHandler handler,
+        final ByteCounter counter) throws IOException, CancellationException {
+
+        byte[] buf = new byte[READ_BUFFER_BYTES];
+        int fill = 0;
+        long pos = start;
+
+        while (true) {
+
+            if (future != null && future.isCancelled()) {
+                throw new CancellationException();
+            }
+
+            if (fill == buf.length) {
+                // A line longer than the buffer.
+                buf = Arrays.copyOf(buf, 2 * buf.length);
+            }
+
+            final int scanFrom = fill;
+            ByteBuffer bb = ByteBuffer.wrap(buf, fill, (int) Math.min(buf.length - fill, end - pos));
+            while (bb.hasRemaining()) {
+                if (channel.read(bb, pos + bb.position() - scanFrom) < 0) {
+                    break;
+                }
+            }
+            final int read = bb.position() - scanFrom;
+            pos += read;
+            fill = bb.position();
+            final boolean done = pos >= end || read == 0;
+
+            int lineStart = 0;
+            for (int i = scanFrom; i < fill; i++) {
+                if (buf[i] == '\n') {
+                    emitLine(buf, lineStart, i, handler);
+                    lineStart = i + 1;
+                }
+            }
+
+            if (done) {
+                emitLine(buf, lineStart, fill, handler);
+            }
+
+            if (counter != null) {
+                counter.bytes(read);
+            }
+
+            if (done) {
+                return;
+            }
+
+            // Move the partial last line to the front of the buffer.
+            fill -= lineStart;
+            System.arraycopy(buf, lineStart, buf, 0, fill);
+        }
+    }
+
+    private static void emitLine(final byte[] b, int from, int to, final LineHandler handler) throws IOException {
+        while (from < to && (b[from] & 0xff) <= ' ') {
+            from++;
+        }
+        while (to > from && (b[to - 1] & 0xff) <= ' ') {
+            to--;
+        }
+        if (from < to) {
+            handler.line(b, from, to);
+        }
+    }
+
+    // Parses the values for the used tokens of a trimmed line into the buffer. Tokens are
+    // separated by runs of delimiters, as with StringTokenizer.
+    //
+    private static void parseRow(
+        final byte[] b, 
+        final int from, 
+        final int to, 
+        final boolean[] delimiters,
+        final boolean[] useToken, 
+        final double[] buffer, 
+        final int row) throws IOException {
+
+        final int expectedTokenCount = useToken.length;
+        int tokenCount = 0, colIndex = 0;
+        int i = from;
+
+        while (i < to) {
+            // Skip delimiters.
+            while (i < to && isDelimiter(b[i], delimiters)) {
+                i++;
+            }
+            if (i == to) {
+                break;
+            }
+            final int tokenStart = i;
+            while (i < to && !isDelimiter(b[i], delimiters)) {
+                i++;
+            }
+            if (tokenCount < expectedTokenCount && useToken[tokenCount]) {
+                try {
+                    buffer[colIndex++] = parseDouble(b, tokenStart, i);
+                } catch (NumberFormatException nfe) {
+                    throw new IOException(String.format("unparseable element on row %d: %s",
+                            row, new String(b, from, to - from, StandardCharsets.ISO_8859_1)));
+                }
+            }
+            tokenCount++;
+        }
+
+        if (tokenCount != expectedTokenCount) {
+            throw new IOException(String.format(
+                    "incorrect number of entries on row %d: %d expected, found %d",
+                    row, expectedTokenCount, tokenCount));
+        }
+    }
+
+    private static boolean isDelimiter(final byte b, final boolean[] delimiters) {
+        return b >= 0 && delimiters[b];
+    }
+
+    /**
+     * Parses a double from the ASCII characters in a range of a byte array, without
+     * allocating. Decimal numbers with at most 18 significant digits whose values are 
+     * exact products or quotients of their digits and a power of 10 not exceeding 10^22
+     * are converted directly, which gives the correctly rounded result. Everything 
+     * else, such as numbers with more digits, NaN, and Infinity, is passed to 
+     * <code>Double.parseDouble</code>.
+     * 
+     * @param b the bytes.
+     * @param from the start of the number.
+     * @param to the end (exclusive) of the number.
+     * 
+     * @return the value.
+     * 
+     * @throws NumberFormatException if the bytes are not a number.
+     */
+    static double parseDouble(final byte[] b, int from, int to) {
+
+        while (from < to && (b[from] & 0xff) <= ' ') {
+            from++;
+        }
+        while (to > from && (b[to - 1] & 0xff) <= ' ') {
+            to--;
+        }
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i++] == '-';
+        }
+
+        long mantissa = 0L;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean exact = true;
+
+        while (i < to && b[i] >= '0' && b[i] <= '9') {
+            anyDigits = true;
+            if (significantDigits < 18) {
+                mantissa = 10L * mantissa + (b[i] - '0');
+                if (mantissa != 0L) {
+                    significantDigits++;
+                }
+            } else {
+                exact = false;
+            }
+            i++;
+        }
+
+        if (i < to && b[i] == '.') {
+            i++;
+            while (i < to && b[i] >= '0' && b[i] <= '9') {
+                anyDigits = true;
+                if (significantDigits < 18) {
+                    mantissa = 10L * mantissa + (b[i] - '0');
+                    if (mantissa != 0L) {
+                        significantDigits++;
+                    }
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+                i++;
+            }
+        }
+
+        if (anyDigits && i < to && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (b[i] == '-' || b[i] == '+')) {
+                negativeExponent = b[i++] == '-';
+            }
+            int e = 0;
+            boolean anyExponentDigits = false;
+            while (i < to && b[i] >= '0' && b[i] <= '9') {
+                anyExponentDigits = true;
+                if (e < 100000) {
+                    e = 10 * e + (b[i] - '0');
+                }
+                i++;
+            }
+            if (!anyExponentDigits) {
+                exact = false;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+
+        if (exact && anyDigits && i == to) {
+            if (mantissa == 0L) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+                double value = exponent >= 0 ? mantissa * POWERS_OF_10[exponent] 
+                    : mantissa / POWERS_OF_10[-exponent];
+                return negative ? -value : value;
+            }
+        }
+
+        return Double.parseDouble(new String(b, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    // Runs the tasks on the executor, returning their results in order. If one fails, 
+    // the others are cancelled, since the executor may be shared and cannot be shut down.
+    //
+    private static <T> List<T> invokeAll(
+        final ExecutorService executor, 
+        final List<Callable<T>> tasks) throws IOException, CancellationException {
+        List<T> results = new ArrayList<>(tasks.size());
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> f : futures) {
+                results.add(f.get());
+            }
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            // A ForkJoinPool wraps checked exceptions thrown by a Callable.
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                }
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException ie) {
+            throw new CancellationException();
+        } finally {
+            if (results.size() < tasks.size()) {
+                for (Future<T> f : futures) {
+                    f.cancel(true);
+                }
+            }
+        }
+        return results;
+    }
+
 	// Encapsulates information on the contents of a csv file
     //
     static class CSVInfo {
@@ -505,11 +1252,22 @@ public class TupleIO {
         private final int rowCount;
         // Set bits indicate the columns containing numeric data.
         private final BitSet columnBits;
+        // Byte offset of the starting row, or -1 if unknown.
+        private final long dataStart;
+        // The number of entries on each row, or -1 if unknown.
+        private final int tokenCount;
 
         CSVInfo(final int startRow, final int rowCount, final BitSet columnBits) {
+            this(startRow, rowCount, columnBits, -1L, -1);
+        }
+
+        CSVInfo(final int startRow, final int rowCount, final BitSet columnBits, 
+                final long dataStart, final int tokenCount) {
             this.startRow = startRow;
             this.rowCount = rowCount;
             this.columnBits = columnBits;
+            this.dataStart = dataStart;
+            this.tokenCount = tokenCount;
         }
 
         public int getStartRow() {
@@ -523,6 +1281,14 @@ public class TupleIO {
         public BitSet getColumnBits() {
             return columnBits;
         }
+
+        public long getDataStart() {
+            return dataStart;
+        }
+
+        public int getTokenCount() {
+            return tokenCount;
+        }
     }
 
 }
@@ -160,7 +160,17 @@ public class TupleKDTree {
         }
         final IntComparator[] comparators = new IntComparator[tupleLen];
         for (int dim = 0; dim < tupleLen; dim++) {
-            comparators[dim] = new TupleIndexComparator(tuples, dim);
+            if (tuples instanceof ColumnarTupleList) {
+                // Compare directly on the contiguous column values.
+                final double[] column = ((ColumnarTupleList) tuples).columnValues(dim);
+                comparators[dim] = (n1, n2) -> {
+                    double v1 = column[n1];
+                    double v2 = column[n2];
+                    return v1 < v2 ? -1 : v1 > v2 ? +1 : 0;
+                };
+            } else {
+                comparators[dim] = new TupleIndexComparator(tuples, dim);
+            }
         }
         generateBalanced(kd, tupleIndices, 0, tupleIndices.length - 1, 0, comparators);
         return kd;
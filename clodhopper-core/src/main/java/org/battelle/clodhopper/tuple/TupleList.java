@@ -103,4 +103,68 @@ public interface TupleList {
      */
     double getTupleValue(int n, int col);
 
+    /**
+     * Get the values for a contiguous range of tuples, packed end to end in
+     * a single array. The values of tuple <code>start + i</code> occupy
+     * positions <code>[i*getTupleLength(), (i+1)*getTupleLength())</code>
+     * of the returned array.
+     * <p>
+     * Implementations backed by contiguous storage override this to copy
+     * the whole range at once, so that scans over all tuples pay one call
+     * per block rather than one per tuple.
+     *
+     * @param start the 0-indexed identifier of the first tuple.
+     * @param count the number of tuples.
+     * @param reuseBuffer an array into which to copy the values. If null or
+     *   shorter than <code>count*getTupleLength()</code>, a new array is
+     *   allocated and returned.
+     *
+     * @return the array containing the values.
+     *
+     * @throws IndexOutOfBoundsException if the range extends outside
+     *   [0 - (getTupleCount() - 1)]
+     */
+    default double[] getTuples(int start, int count, double[] reuseBuffer) {
+        if (start < 0 || count < 0 || start + count > getTupleCount()) {
+            throw new IndexOutOfBoundsException(String.format(
+                "tuples [%d - %d) not in [0 - %d)", start, start + count, getTupleCount()));
+        }
+        final int len = getTupleLength();
+        double[] result = reuseBuffer != null && reuseBuffer.length >= count*len ?
+            reuseBuffer : new double[count*len];
+        double[] buf = new double[len];
+        for (int i=0; i<count; i++) {
+            getTuple(start + i, buf);
+            System.arraycopy(buf, 0, result, i*len, len);
+        }
+        return result;
+    }
+
+    /**
+     * Get the values for an arbitrary set of tuples, packed end to end in
+     * a single array in the order given by <code>indexes</code>.
+     *
+     * @param indexes array containing the 0-indexed tuple identifiers.
+     * @param offset the position in <code>indexes</code> of the first identifier.
+     * @param count the number of identifiers to use.
+     * @param reuseBuffer an array into which to copy the values. If null or
+     *   shorter than <code>count*getTupleLength()</code>, a new array is
+     *   allocated and returned.
+     *
+     * @return the array containing the values.
+     *
+     * @throws IndexOutOfBoundsException if any of the identifiers is out of range.
+     */
+    default double[] getTuples(int[] indexes, int offset, int count, double[] reuseBuffer) {
+        final int len = getTupleLength();
+        double[] result = reuseBuffer != null && reuseBuffer.length >= count*len ?
+            reuseBuffer : new double[count*len];
+        double[] buf = new double[len];
+        for (int i=0; i<count; i++) {
+            getTuple(indexes[offset + i], buf);
+            System.arraycopy(buf, 0, result, i*len, len);
+        }
+        return result;
+    }
+
 }
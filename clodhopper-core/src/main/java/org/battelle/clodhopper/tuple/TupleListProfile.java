@@ -0,0 +1,338 @@
+package org.battelle.clodhopper.tuple;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import org.battelle.clodhopper.task.SharedWorkerPool;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * TupleListProfile.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * A summary of the contents of a <tt>TupleList</tt>: the number of distinct tuples,
+ * the bounding box, and the mean and variance of every column. All are computed
+ * in a single parallel pass over the tuples, plus the hashing pass of 
+ * <tt>UniqueTuples</tt>.</p>
+ * <p>
+ * A profile may be attached to the <tt>AbstractTupleList</tt> it describes with 
+ * <code>attach</code>. Methods such as <code>TupleMath.uniqueTupleCount</code> then use 
+ * the attached profile instead of scanning the data, so repeated clusterings of the same 
+ * data skip that work. The profile is discarded when a tuple of the list is set, or when
+ * its tuple count or length changes. Changes made to the data by other means, such as 
+ * through the list underlying a <tt>FilteredTupleList</tt>, are not detected, so 
+ * <code>detach</code> must be called after them. Other implementations of 
+ * <tt>TupleList</tt> cannot report changes, so profiles are never attached to them.</p>
+ *
+ * @since 2.0.1
+ */
+public class TupleListProfile {
+
+    // Fewest tuples examined by each task.
+    private static final int STATS_TASK_TUPLES = 4096;
+
+    private final int tupleLength;
+    private final int tupleCount;
+    private final int uniqueTupleCount;
+    private final double[] min;
+    private final double[] max;
+    private final double[] mean;
+    private final double[] variance;
+
+    private TupleListProfile(final int tupleLength, final int tupleCount, final int uniqueTupleCount,
+            final ColumnStats stats) {
+        this.tupleLength = tupleLength;
+        this.tupleCount = tupleCount;
+        this.uniqueTupleCount = uniqueTupleCount;
+        this.min = stats.min;
+        this.max = stats.max;
+        this.mean = stats.mean;
+        this.variance = new double[tupleLength];
+        for (int j = 0; j < tupleLength; j++) {
+            variance[j] = stats.count[j] > 0 ? stats.m2[j] / stats.count[j] : Double.NaN;
+            if (stats.count[j] == 0) {
+                mean[j] = Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Computes the profile of a <tt>TupleList</tt> using the <tt>SharedWorkerPool</tt>.
+     * The profile is not attached to the tuples.
+     * 
+     * @param tuples the tuples to profile.
+     * 
+     * @return the profile.
+     */
+    public static TupleListProfile compute(final TupleList tuples) {
+        return compute(tuples, SharedWorkerPool.get());
+    }
+
+    /**
+     * Computes the profile of a <tt>TupleList</tt>. The profile is not attached to
+     * the tuples.
+     * 
+     * @param tuples the tuples to profile.
+     * @param executor the executor on which to run the subtasks.
+     * 
+     * @return the profile.
+     */
+    public static TupleListProfile compute(final TupleList tuples, final ExecutorService executor) {
+        final int tupleCount = tuples.getTupleCount();
+        final int tupleLength = tuples.getTupleLength();
+        final int uniqueTupleCount = UniqueTuples.count(tuples, executor);
+        final int taskCount = Math.max(1, Math.min(4 * SharedWorkerPool.parallelism(executor), 
+                tupleCount / STATS_TASK_TUPLES));
+        final ColumnStats[] partials = new ColumnStats[taskCount];
+        SharedWorkerPool.forEach(executor, taskCount, t -> partials[t] = columnStats(tuples, 
+                (int) ((long) tupleCount * t / taskCount), (int) ((long) tupleCount * (t + 1) / taskCount)));
+        final ColumnStats stats = partials[0];
+        for (int t = 1; t < taskCount; t++) {
+            stats.merge(partials[t]);
+        }
+        return new TupleListProfile(tupleLength, tupleCount, uniqueTupleCount, stats);
+    }
+
+    /**
+     * Returns the profile attached to a <tt>TupleList</tt>, computing and attaching
+     * one if necessary. A profile is only attached to an <tt>AbstractTupleList</tt>.
+     * 
+     * @param tuples the tuples to profile.
+     * 
+     * @return the attached profile, or a profile that is not attached if the tuples
+     *   are not an <tt>AbstractTupleList</tt>.
+     */
+    public static TupleListProfile attach(final TupleList tuples) {
+        TupleListProfile profile = attached(tuples);
+        if (profile == null) {
+            profile = compute(tuples);
+            if (tuples instanceof AbstractTupleList) {
+                ((AbstractTupleList) tuples).setProfile(profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the profile attached to a <tt>TupleList</tt>.
+     * 
+     * @param tuples the tuples.
+     * 
+     * @return the attached profile, or null if none is attached.
+     */
+    public static TupleListProfile attached(final TupleList tuples) {
+        if (!(tuples instanceof AbstractTupleList)) {
+            return null;
+        }
+        AbstractTupleList list = (AbstractTupleList) tuples;
+        TupleListProfile profile = list.getProfile();
+        if (profile != null && (profile.tupleCount != tuples.getTupleCount() 
+                || profile.tupleLength != tuples.getTupleLength())) {
+            // Stale, since the tuple list has grown or been reopened with different content.
+            list.setProfile(null);
+            profile = null;
+        }
+        return profile;
+    }
+
+    /**
+     * Detaches the profile, if any, from a <tt>TupleList</tt>. This must be called
+     * after changing the data of a list with an attached profile by any means other
+     * than setting its tuples.
+     * 
+     * @param tuples the tuples.
+     */
+    public static void detach(final TupleList tuples) {
+        if (tuples instanceof AbstractTupleList) {
+            ((AbstractTupleList) tuples).setProfile(null);
+        }
+    }
+
+    /**
+     * Get the tuple length of the profiled tuples.
+     * 
+     * @return the tuple length.
+     */
+    public int getTupleLength() {
+        return tupleLength;
+    }
+
+    /**
+     * Get the number of profiled tuples.
+     * 
+     * @return the tuple count.
+     */
+    public int getTupleCount() {
+        return tupleCount;
+    }
+
+    /**
+     * Get the number of distinct tuples.
+     * 
+     * @return the number of distinct tuples.
+     */
+    public int getUniqueTupleCount() {
+        return uniqueTupleCount;
+    }
+
+    /**
+     * Get the minimum-sized bounding box of the tuples. NaNs are ignored.
+     * 
+     * @return a new <code>HyperRect</code>.
+     */
+    public HyperRect getBoundingBox() {
+        return new HyperRect(min, max);
+    }
+
+    /**
+     * Get the minimum of a column, ignoring NaNs.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the minimum, or NaN if the column has no values other than NaN.
+     */
+    public double getMin(final int col) {
+        return min[col];
+    }
+
+    /**
+     * Get the maximum of a column, ignoring NaNs.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the maximum, or NaN if the column has no values other than NaN.
+     */
+    public double getMax(final int col) {
+        return max[col];
+    }
+
+    /**
+     * Get the mean of a column, ignoring NaNs.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the mean, or NaN if the column has no values other than NaN.
+     */
+    public double getMean(final int col) {
+        return mean[col];
+    }
+
+    /**
+     * Get the variance of a column, ignoring NaNs. As with 
+     * <code>TupleMath.meanAndVariance</code>, this is the population variance.
+     * 
+     * @param col 0-indexed column number.
+     * 
+     * @return the variance, or NaN if the column has no values other than NaN.
+     */
+    public double getVariance(final int col) {
+        return variance[col];
+    }
+
+    // Per-column extremes and moments of a range of tuples. Partial results are
+    // combined with Chan's parallel form of Welford's update.
+    private static final class ColumnStats {
+
+        private final long[] count;
+        private final double[] min;
+        private final double[] max;
+        private final double[] mean;
+        private final double[] m2;
+
+        private ColumnStats(final int tupleLength) {
+            count = new long[tupleLength];
+            min = new double[tupleLength];
+            max = new double[tupleLength];
+            mean = new double[tupleLength];
+            m2 = new double[tupleLength];
+            Arrays.fill(min, Double.NaN);
+            Arrays.fill(max, Double.NaN);
+        }
+
+        private void add(final double[] values, final int offset) {
+            for (int j = 0; j < count.length; j++) {
+                double v = values[offset + j];
+                if (!Double.isNaN(v)) {
+                    if (count[j] == 0) {
+                        min[j] = max[j] = v;
+                    } else if (v < min[j]) {
+                        min[j] = v;
+                    } else if (v > max[j]) {
+                        max[j] = v;
+                    }
+                    long n = ++count[j];
+                    double delta = v - mean[j];
+                    mean[j] += delta / n;
+                    m2[j] += delta * (v - mean[j]);
+                }
+            }
+        }
+
+        private ColumnStats merge(final ColumnStats other) {
+            for (int j = 0; j < count.length; j++) {
+                long n2 = other.count[j];
+                if (n2 == 0) {
+                    continue;
+                }
+                long n1 = count[j];
+                if (n1 == 0) {
+                    count[j] = n2;
+                    min[j] = other.min[j];
+                    max[j] = other.max[j];
+                    mean[j] = other.mean[j];
+                    m2[j] = other.m2[j];
+                    continue;
+                }
+                long n = n1 + n2;
+                double delta = other.mean[j] - mean[j];
+                mean[j] += delta * n2 / n;
+                m2[j] += other.m2[j] + delta * delta * ((double) n1 * n2 / n);
+                count[j] = n;
+                min[j] = Math.min(min[j], other.min[j]);
+                max[j] = Math.max(max[j], other.max[j]);
+            }
+            return this;
+        }
+    }
+
+    // Computes the stats of the tuples in [start, end), reading them in blocks.
+    private static ColumnStats columnStats(final TupleList tuples, final int start, final int end) {
+        final int tupleLength = tuples.getTupleLength();
+        final ColumnStats stats = new ColumnStats(tupleLength);
+        final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+        double[] block = null;
+        for (int first = start; first < end; first += blockTuples) {
+            int count = Math.min(blockTuples, end - first);
+            block = tuples.getTuples(first, count, block);
+            for (int i = 0; i < count; i++) {
+                stats.add(block, i * tupleLength);
+            }
+        }
+        return stats;
+    }
+}
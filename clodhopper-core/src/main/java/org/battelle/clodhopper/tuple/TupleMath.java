@@ -1,15 +1,19 @@
 package org.battelle.clodhopper.tuple;
 
-import gnu.trove.list.array.TDoubleArrayList;
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
+import org.battelle.clodhopper.task.SharedWorkerPool;
 import org.battelle.clodhopper.util.IntComparator;
 import org.battelle.clodhopper.util.IntIterator;
 import org.battelle.clodhopper.util.IntervalIntIterator;
-import org.battelle.clodhopper.util.Sorting;
 
 /*=====================================================================
  * 
@@ -46,12 +50,48 @@ public final class TupleMath {
      */
     static public final double SQRT2PI = Math.sqrt(2 * Math.PI);
 
+    /**
+     * Approximate number of values fetched per call by scans that read tuples in blocks
+     * using <code>TupleList.getTuples()</code>.
+     */
+    static public final int BLOCK_VALUES = 16384;
+
+    /**
+     * Maximum number of tuples fetched per call by block scans.
+     */
+    static public final int MAX_BLOCK_TUPLES = 256;
+
+    /**
+     * Minimum number of tuples for which reductions over an <code>IntIterator</code>, such
+     * as <code>average</code> and <code>boundingBox</code>, are split into subtasks run on an 
+     * executor. Smaller sets are processed sequentially, since splitting would cost more than
+     * it saves.
+     */
+    static public final int PARALLEL_THRESHOLD = 32768;
+
+    // Fewest tuples processed by each subtask of a parallel reduction.
+    private static final int REDUCTION_TASK_TUPLES = 8192;
+    // Ranges of no more than this many values are sorted rather than partitioned by select().
+    private static final int SELECT_SORT_VALUES = 16;
+
     /**
      * Private constructor to make uninstantiable.
      */
     private TupleMath() {
     }
 
+    /**
+     * Returns the number of tuples of the given length a scan should fetch per call
+     * to <code>TupleList.getTuples()</code>. Blocks are kept small enough to stay in cache.
+     * 
+     * @param tupleLength the length of the tuples.
+     * 
+     * @return the number of tuples per block, always at least 1.
+     */
+    public static int tuplesPerBlock(int tupleLength) {
+        return Math.max(1, Math.min(MAX_BLOCK_TUPLES, BLOCK_VALUES / Math.max(1, tupleLength)));
+    }
+
     /**
      * Returns an array of doubles, the same length as the tuples, with the minimum value in each dimension,
      * considering only the tuples included in the iterator.
@@ -69,6 +109,18 @@ public final class TupleMath {
         double[] result = new double[len];
         Arrays.fill(result, Double.NaN);
 
+        if (tuples instanceof ColumnarTupleList) {
+            ColumnarTupleList columnar = (ColumnarTupleList) tuples;
+            for (int i = 0; i < len; i++) {
+                result[i] = columnExtreme(columnar.columnValues(i), ids, true);
+            }
+            return result;
+        }
+
+        if (ids.getSize() >= PARALLEL_THRESHOLD) {
+            return reduce(tuples, ids, () -> new Extremes(len), SharedWorkerPool.get()).min;
+        }
+
         double[] buffer = new double[len];
 
         ids.gotoFirst();
@@ -107,8 +159,21 @@ public final class TupleMath {
         double[] result = new double[len];
         Arrays.fill(result, Double.NaN);
 
+        if (tuples instanceof ColumnarTupleList) {
+            ColumnarTupleList columnar = (ColumnarTupleList) tuples;
+            for (int i = 0; i < len; i++) {
+                result[i] = columnExtreme(columnar.columnValues(i), ids, false);
+            }
+            return result;
+        }
+
+        if (ids.getSize() >= PARALLEL_THRESHOLD) {
+            return reduce(tuples, ids, () -> new Extremes(len), SharedWorkerPool.get()).max;
+        }
+
         double[] buffer = new double[len];
 
+        ids.gotoFirst();
         while (ids.hasNext()) {
             int id = ids.getNext();
             tuples.getTuple(id, buffer);
@@ -128,14 +193,19 @@ public final class TupleMath {
     
     /**
      * Computes a <code>HyperRect</code> that forms the minimum-sized bounding box for
-     * the data in the supplied <code>TupleList</code>.
+     * the data in the supplied <code>TupleList</code>. If a <code>TupleListProfile</code>
+     * is attached to the tuples, its bounding box is returned.
      * 
      * @param tuples the <code>TupleList</code> containing the data.
      * 
      * @return an instance of <code>HyperRect</code>. 
      */
     public static HyperRect boundingBox(final TupleList tuples) {
-        return boundingBox(tuples, new IntervalIntIterator(0, tuples.getTupleCount()));
+        TupleListProfile profile = TupleListProfile.attached(tuples);
+        if (profile != null) {
+            return profile.getBoundingBox();
+        }
+        return boundingBox(tuples, IntervalIntIterator.range(0, tuples.getTupleCount()));
     }
     
     /**
@@ -149,6 +219,25 @@ public final class TupleMath {
      * @return an instance of <code>HyperRect</code>. 
      */
     public static HyperRect boundingBox(final TupleList tuples, final IntIterator ids) {
+        return boundingBox(tuples, ids, SharedWorkerPool.get());
+    }
+
+    /**
+     * Computes a <code>HyperRect</code> that forms the minimum-sized bounding box for
+     * the tuples with the ids in the specified iterator, splitting large sets among 
+     * subtasks run on an executor.
+     * 
+     * @param tuples an instance of <code>TupleList</code>
+     * @param ids contains the tuple ids of concern.
+     * @param executor the executor on which to run the subtasks, or null to process
+     *   all the tuples on the calling thread.
+     * 
+     * @return an instance of <code>HyperRect</code>. 
+     * 
+     * @since 2.0.1
+     */
+    public static HyperRect boundingBox(final TupleList tuples, final IntIterator ids, 
+            final ExecutorService executor) {
         
         Objects.requireNonNull(tuples);
         Objects.requireNonNull(ids);
@@ -161,6 +250,21 @@ public final class TupleMath {
         Arrays.fill(minCorner, Double.NaN);
         Arrays.fill(maxCorner, Double.NaN);
         
+        if (tuples instanceof ColumnarTupleList) {
+            ColumnarTupleList columnar = (ColumnarTupleList) tuples;
+            for (int i=0; i<tupleLen; i++) {
+                double[] column = columnar.columnValues(i);
+                minCorner[i] = columnExtreme(column, ids, true);
+                maxCorner[i] = columnExtreme(column, ids, false);
+            }
+            return new HyperRect(minCorner, maxCorner);
+        }
+        
+        if (executor != null && ids.getSize() >= PARALLEL_THRESHOLD) {
+            Extremes extremes = reduce(tuples, ids, () -> new Extremes(tupleLen), executor);
+            return new HyperRect(extremes.min, extremes.max);
+        }
+        
         ids.gotoFirst();
         while(ids.hasNext()) {
             int id = ids.getNext();
@@ -181,6 +285,20 @@ public final class TupleMath {
         return new HyperRect(minCorner, maxCorner);
     }
 
+    // Finds the minimum or maximum non-NaN value in a column for the specified ids.
+    // Returns NaN if no non-NaN values are found.
+    private static double columnExtreme(final double[] column, final IntIterator ids, final boolean min) {
+        double result = Double.NaN;
+        ids.gotoFirst();
+        while (ids.hasNext()) {
+            double d = column[ids.getNext()];
+            if (!Double.isNaN(d) && (Double.isNaN(result) || (min ? d < result : d > result))) {
+                result = d;
+            }
+        }
+        return result;
+    }
+
     /**
      * Computes the mean of a specified set of tuples.
      * 
@@ -190,15 +308,51 @@ public final class TupleMath {
      * @return an array, the same length as the tuples, containing the mean values. 
      */
     public static double[] average(TupleList tuples, IntIterator ids) {
+        return average(tuples, ids, SharedWorkerPool.get());
+    }
+
+    /**
+     * Computes the mean of a specified set of tuples, splitting large sets among
+     * subtasks run on an executor.
+     * 
+     * @param tuples contains the tuples to be averaged (must not be null)
+     * @param ids contains the indexes of the tuples to be averaged (must not be null)
+     * @param executor the executor on which to run the subtasks, or null to process
+     *   all the tuples on the calling thread.
+     * 
+     * @return an array, the same length as the tuples, containing the mean values. 
+     * 
+     * @since 2.0.1
+     */
+    public static double[] average(TupleList tuples, IntIterator ids, ExecutorService executor) {
         final int len = tuples.getTupleLength();
         double[] result = new double[len];
-        double[] buffer = new double[len];
         int count = 0;
         ids.gotoFirst();
-        while (ids.hasNext()) {
-            tuples.getTuple(ids.getNext(), buffer);
-            addTo(result, buffer);
-            count++;
+        if (tuples instanceof SparseTupleList) {
+            // Only the non-zeros contribute to the sums.
+            SparseTupleList sparse = (SparseTupleList) tuples;
+            final int[] columnIndexes = sparse.getColumnIndexes();
+            final double[] values = sparse.getNonZeroValues();
+            while (ids.hasNext()) {
+                final int n = ids.getNext();
+                final int end = sparse.getRowEnd(n);
+                for (int k = sparse.getRowStart(n); k < end; k++) {
+                    result[columnIndexes[k]] += values[k];
+                }
+                count++;
+            }
+        } else if (executor != null && ids.getSize() >= PARALLEL_THRESHOLD) {
+            Sums sums = reduce(tuples, ids, () -> new Sums(len), executor);
+            result = sums.sums;
+            count = sums.count;
+        } else {
+            double[] buffer = new double[len];
+            while (ids.hasNext()) {
+                tuples.getTuple(ids.getNext(), buffer);
+                addTo(result, buffer);
+                count++;
+            }
         }
         if (count > 0) {
             divideBy(result, count);
@@ -216,12 +370,39 @@ public final class TupleMath {
      * @return the median for the specified column. 
      */
     public static double median(TupleList tuples, int column, IntIterator ids) {
-        TDoubleArrayList values = new TDoubleArrayList();
+        return median(tuples, column, ids, SharedWorkerPool.get());
+    }
+
+    /**
+     * Computes the median of a specified set of tuples for a specified column. The 
+     * values of large sets are gathered by subtasks run on an executor.
+     * 
+     * @param tuples contains the tuples (must not be null)
+     * @param column the column for which the median is to be computed.
+     * @param ids contains the indexes of the tuples (must not be null)
+     * @param executor the executor on which to run the subtasks, or null to gather
+     *   all the values on the calling thread.
+     * 
+     * @return the median for the specified column. 
+     * 
+     * @since 2.0.1
+     */
+    public static double median(TupleList tuples, int column, IntIterator ids, ExecutorService executor) {
         ids.gotoFirst();
-        while(ids.hasNext()) {
-            values.add(tuples.getTupleValue(ids.getNext(), column));
-        }
-        return median(values.toArray(new double[values.size()]), true);
+        final int[] idArray = ids.toArray();
+        final int n = idArray.length;
+        final double[] values = new double[n];
+        final double[] columnValues = tuples instanceof ColumnarTupleList ? 
+                ((ColumnarTupleList) tuples).columnValues(column) : null;
+        final int taskCount = executor != null && n >= PARALLEL_THRESHOLD ? 
+                Math.min(4 * SharedWorkerPool.parallelism(executor), n / REDUCTION_TASK_TUPLES) : 1;
+        SharedWorkerPool.forEach(executor, taskCount, t -> {
+            final int end = (int) ((long) n * (t + 1) / taskCount);
+            for (int i = (int) ((long) n * t / taskCount); i < end; i++) {
+                values[i] = columnValues != null ? columnValues[idArray[i]] : tuples.getTupleValue(idArray[i], column);
+            }
+        });
+        return median(values, true);
     }
 
     /**
@@ -238,43 +419,96 @@ public final class TupleMath {
 
     /**
      * Compute the median from a number of values contained in an array. If NaNs
-     * are present in the array, they are not included in the calculation.
+     * are present in the array, they are not included in the calculation. The median
+     * is found by selection, in linear expected time, rather than by sorting.
      *
      * @param values - an array containing the values.
-     * @param canRearrangeValues - if true, the previous array is rearranged by
-     * sorting. If false, the array of values is not altered, but the method is
-     * slightly less efficient.
+     * @param canRearrangeValues - if true, the values in the array are rearranged. 
+     * If false, the array of values is not altered, but a copy of it is made.
      * @return - the median value, or NaN if the array is null, of length 0, or
      * contains no non-NaN elements.
      */
     public static double median(double[] values, boolean canRearrangeValues) {
         double median = Double.NaN;
         if (values != null) {
-            double[] copy = null;
-            if (canRearrangeValues) {
-                copy = values; // Don't really copy, since the values can be rearranged.
-            } else {
-                copy = new double[values.length];
-                System.arraycopy(values, 0, copy, 0, values.length);
-            }
-			// Sort the values.  If there are any NaNs, they'll end up
-            // at the end of the array.
-            java.util.Arrays.sort(copy);
-            int n = copy.length - 1;
-            while (n >= 0 && Double.isNaN(copy[n])) {
-                n--;
-            }
-			// Increment n once, and it becomes the number of
-            // non-NaN values.
-            n++;
+            double[] copy = canRearrangeValues ? values : values.clone();
+            // Move the NaNs to the end of the array, leaving n non-NaN values at the front.
+            int n = 0;
+            for (int i = 0; i < copy.length; i++) {
+                double v = copy[i];
+                if (!Double.isNaN(v)) {
+                    copy[i] = copy[n];
+                    copy[n++] = v;
+                }
+            }
             if (n > 0) {
                 int mid = n / 2;
-                median = (n % 2 == 0) ? (copy[mid - 1] + copy[mid]) / 2.0 : copy[mid];
+                select(copy, 0, n, mid);
+                median = copy[mid];
+                if (n % 2 == 0) {
+                    // The lower middle value is the largest of those before mid.
+                    double lower = copy[0];
+                    for (int i = 1; i < mid; i++) {
+                        lower = Math.max(lower, copy[i]);
+                    }
+                    median = (lower + median) / 2.0;
+                }
             }
         }
         return median;
     }
 
+    // Rearranges values[from, to), which must not contain NaNs, so that values[k] holds the
+    // value it would hold if the range were sorted, with no larger values before it and no 
+    // smaller values after it. Quickselect with median-of-three pivots, which sorts whatever 
+    // remains if partitioning makes too little progress, so the worst case is O(n log n).
+    private static void select(final double[] values, int from, int to, final int k) {
+        int partitionsLeft = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+        while (to - from > SELECT_SORT_VALUES) {
+            if (partitionsLeft-- == 0) {
+                break;
+            }
+            final int mid = (from + to) >>> 1;
+            // Order the first, middle, and last values, which also keeps the scans below
+            // within the range.
+            sortPair(values, from, mid);
+            sortPair(values, mid, to - 1);
+            sortPair(values, from, mid);
+            final double pivot = values[mid];
+            int i = from, j = to - 1;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final double tmp = values[i];
+                    values[i++] = values[j];
+                    values[j--] = tmp;
+                }
+            }
+            // Now values[from, j] <= pivot <= values[i, to), and any values between equal the pivot.
+            if (k <= j) {
+                to = j + 1;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+        Arrays.sort(values, from, to);
+    }
+
+    private static void sortPair(final double[] values, final int i, final int j) {
+        if (values[j] < values[i]) {
+            final double tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
     public static void addTo(double[] toWhat, double[] toAdd) {
         final int len = toAdd.length;
         for (int i = 0; i < len; i++) {
@@ -460,89 +694,54 @@ public final class TupleMath {
         return tuples;
     }
 
+    /**
+     * Counts the distinct tuples in a <code>TupleList</code>. If a 
+     * <code>TupleListProfile</code> is attached to the tuples, its count is returned.
+     * Otherwise the tuples are hashed in parallel by <code>UniqueTuples</code>.
+     * 
+     * @param tuples the tuples to examine.
+     * 
+     * @return the number of distinct tuples.
+     */
     public static int uniqueTupleCount(TupleList tuples) {
+        return uniqueTupleCount(tuples, SharedWorkerPool.get());
+    }
 
-        final int tupleCount = tuples.getTupleCount();
-
-        int[] indexes = new int[tupleCount];
-        for (int i = 0; i < tupleCount; i++) {
-            indexes[i] = i;
-        }
-
-        // Now sort the indexes based upon the values.
-        Sorting.quickSort(indexes, new TupleListValueComparator(tuples));
-
-        int uniqueTuples = tupleCount > 0 ? 1 : 0;
-
-        if (tupleCount > 0) {
-
-            final int tupleLength = tuples.getTupleLength();
-
-            double[] buffer1 = new double[tupleLength];
-            double[] buffer2 = new double[tupleLength];
-
-            tuples.getTuple(0, buffer1);
-
-            double[] lastBuf = buffer1;
-            double[] nextBuf = buffer2;
-
-            for (int i = 1; i < tupleCount; i++) {
-                tuples.getTuple(indexes[i], nextBuf);
-                if (compareValues(lastBuf, nextBuf) != 0) {
-                    uniqueTuples++;
-                    double[] tmp = lastBuf;
-                    lastBuf = nextBuf;
-                    nextBuf = tmp;
-                }
-            }
-
+    /**
+     * Counts the distinct tuples in a <code>TupleList</code>, hashing them on the 
+     * specified executor if no <code>TupleListProfile</code> is attached to them.
+     * 
+     * @param tuples the tuples to examine.
+     * @param executor the executor on which to hash the tuples.
+     * 
+     * @return the number of distinct tuples.
+     * 
+     * @since 2.0.1
+     */
+    public static int uniqueTupleCount(TupleList tuples, ExecutorService executor) {
+        TupleListProfile profile = TupleListProfile.attached(tuples);
+        if (profile != null) {
+            return profile.getUniqueTupleCount();
         }
-
-        return uniqueTuples;
+        return UniqueTuples.count(tuples, executor);
     }
 
+    /**
+     * Counts the distinct tuples in a <code>TupleList</code>, up to a limit. Unless a
+     * <code>TupleListProfile</code> is attached, the tuples are scanned only until
+     * minRequired distinct tuples have been found.
+     * 
+     * @param tuples the tuples to examine.
+     * @param minRequired the limit.
+     * 
+     * @return the number of distinct tuples or minRequired, whichever is smaller.
+     */
     public static int checkUniqueTupleCount(TupleList tuples, final int minRequired) {
-
-        final int tupleCount = tuples.getTupleCount();
-
-        int[] indexes = new int[tupleCount];
-        for (int i = 0; i < tupleCount; i++) {
-            indexes[i] = i;
-        }
-
-        // Now sort the indexes based upon the values.
-        Sorting.quickSort(indexes, new TupleListValueComparator(tuples));
-
-        int uniqueTuples = tupleCount > 0 ? 1 : 0;
-
-        if (tupleCount > 0) {
-
-            final int tupleLength = tuples.getTupleLength();
-
-            double[] buffer1 = new double[tupleLength];
-            double[] buffer2 = new double[tupleLength];
-
-            tuples.getTuple(0, buffer1);
-
-            double[] lastBuf = buffer1;
-            double[] nextBuf = buffer2;
-
-            for (int i = 1; i < tupleCount; i++) {
-                tuples.getTuple(indexes[i], nextBuf);
-                if (compareValues(lastBuf, nextBuf) != 0) {
-                    uniqueTuples++;
-                    if (uniqueTuples == minRequired) {
-                        return minRequired;
-                    }
-                    double[] tmp = lastBuf;
-                    lastBuf = nextBuf;
-                    nextBuf = tmp;
-                }
-            }
-
+        TupleListProfile profile = TupleListProfile.attached(tuples);
+        if (profile != null) {
+            return Math.min(profile.getUniqueTupleCount(), minRequired);
         }
-
-        return uniqueTuples;
+        return UniqueTuples.countUpTo(tuples, minRequired);
     }
 
     public static int compareValues(double[] values1, double[] values2) {
@@ -582,6 +781,54 @@ public final class TupleMath {
 
     }
 
+    /**
+     * Computes the mean and variance of each column over a specified set of tuples.
+     * Large sets are processed in parallel, with the partial results combined by 
+     * Welford's method. NaNs are not skipped, so a column containing a NaN has a NaN 
+     * mean and variance.
+     * 
+     * @param tuples contains the tuples (must not be null)
+     * @param ids contains the indexes of the tuples (must not be null)
+     * 
+     * @return a 2D array of dimensions [tupleLen][2], where tupleLen is the
+     * length of the tuples. For a given column, element 0 is the mean and element
+     * 1 is the population variance. Both are NaN if ids is empty.
+     */
+    public static double[][] meanAndVariance(final TupleList tuples, final IntIterator ids) {
+        return meanAndVariance(tuples, ids, SharedWorkerPool.get());
+    }
+
+    /**
+     * Computes the mean and variance of each column over a specified set of tuples, 
+     * as <code>meanAndVariance(tuples, ids)</code> does, but running the subtasks for
+     * large sets on the specified executor.
+     * 
+     * @param tuples contains the tuples (must not be null)
+     * @param ids contains the indexes of the tuples (must not be null)
+     * @param executor the executor on which to run the subtasks, or null to process
+     *   all the tuples on the calling thread.
+     * 
+     * @return a 2D array of dimensions [tupleLen][2], as for 
+     *   <code>meanAndVariance(tuples, ids)</code>.
+     * 
+     * @since 2.0.1
+     */
+    public static double[][] meanAndVariance(final TupleList tuples, final IntIterator ids, 
+            final ExecutorService executor) {
+        final int len = tuples.getTupleLength();
+        Moments moments = reduce(tuples, ids, () -> new Moments(len), executor);
+        double[][] result = new double[len][2];
+        for (int j = 0; j < len; j++) {
+            if (moments.count > 0) {
+                result[j][0] = moments.mean[j];
+                result[j][1] = moments.m2[j] / moments.count;
+            } else {
+                result[j][0] = result[j][1] = Double.NaN;
+            }
+        }
+        return result;
+    }
+
     /**
      * Computes the mean and sample variance of a distribution of values.
      *
@@ -754,6 +1001,160 @@ public final class TupleMath {
         return sum;
     }
 
+    // Reduces the tuples with the ids into an accumulator. Sets of at least PARALLEL_THRESHOLD
+    // ids are split into ranges reduced by subtasks on the executor, unless it is null, and
+    // the partial results are merged in order, so the result does not depend on scheduling.
+    private static <A extends Accumulator<A>> A reduce(final TupleList tuples, final IntIterator ids, 
+            final Supplier<A> supplier, final ExecutorService executor) {
+        ids.gotoFirst();
+        final int[] idArray = ids.toArray();
+        final int n = idArray.length;
+        final int taskCount = executor != null && n >= PARALLEL_THRESHOLD ? 
+                Math.min(4 * SharedWorkerPool.parallelism(executor), n / REDUCTION_TASK_TUPLES) : 1;
+        final List<A> partials = new ArrayList<>(Collections.<A>nCopies(taskCount, null));
+        SharedWorkerPool.forEach(executor, taskCount, t -> partials.set(t, accumulate(tuples, idArray, 
+                (int) ((long) n * t / taskCount), (int) ((long) n * (t + 1) / taskCount), supplier)));
+        A result = partials.get(0);
+        for (int t = 1; t < taskCount; t++) {
+            result = result.merge(partials.get(t));
+        }
+        return result;
+    }
+
+    // Sequentially accumulates the tuples with the ids in [from, to).
+    private static <A extends Accumulator<A>> A accumulate(final TupleList tuples, final int[] ids, 
+            final int from, final int to, final Supplier<A> supplier) {
+        final A acc = supplier.get();
+        final int tupleLength = tuples.getTupleLength();
+        final int blockTuples = tuplesPerBlock(tupleLength);
+        double[] block = null;
+        for (int k = from; k < to; k += blockTuples) {
+            final int count = Math.min(blockTuples, to - k);
+            block = tuples.getTuples(ids, k, count, block);
+            for (int i = 0; i < count; i++) {
+                acc.add(block, i * tupleLength);
+            }
+        }
+        return acc;
+    }
+
+    // Partial result of a reduction over tuples.
+    private interface Accumulator<A extends Accumulator<A>> {
+
+        // Adds the tuple starting at values[offset].
+        void add(double[] values, int offset);
+
+        // Combines the partial result of a disjoint set of tuples into this one.
+        A merge(A other);
+    }
+
+    private static final class Sums implements Accumulator<Sums> {
+
+        private final double[] sums;
+        private int count;
+
+        private Sums(final int len) {
+            sums = new double[len];
+        }
+
+        @Override
+        public void add(final double[] values, final int offset) {
+            for (int j = 0; j < sums.length; j++) {
+                sums[j] += values[offset + j];
+            }
+            count++;
+        }
+
+        @Override
+        public Sums merge(final Sums other) {
+            addTo(sums, other.sums);
+            count += other.count;
+            return this;
+        }
+    }
+
+    // Minimum and maximum of each column, ignoring NaNs.
+    private static final class Extremes implements Accumulator<Extremes> {
+
+        private final double[] min;
+        private final double[] max;
+
+        private Extremes(final int len) {
+            min = new double[len];
+            max = new double[len];
+            Arrays.fill(min, Double.NaN);
+            Arrays.fill(max, Double.NaN);
+        }
+
+        @Override
+        public void add(final double[] values, final int offset) {
+            for (int j = 0; j < min.length; j++) {
+                include(j, values[offset + j], values[offset + j]);
+            }
+        }
+
+        @Override
+        public Extremes merge(final Extremes other) {
+            for (int j = 0; j < min.length; j++) {
+                include(j, other.min[j], other.max[j]);
+            }
+            return this;
+        }
+
+        private void include(final int j, final double lo, final double hi) {
+            if (!Double.isNaN(lo) && (Double.isNaN(min[j]) || lo < min[j])) {
+                min[j] = lo;
+            }
+            if (!Double.isNaN(hi) && (Double.isNaN(max[j]) || hi > max[j])) {
+                max[j] = hi;
+            }
+        }
+    }
+
+    // Running means and sums of squared deviations, updated by Welford's method and 
+    // merged by Chan's pairwise formula.
+    private static final class Moments implements Accumulator<Moments> {
+
+        private final double[] mean;
+        private final double[] m2;
+        private long count;
+
+        private Moments(final int len) {
+            mean = new double[len];
+            m2 = new double[len];
+        }
+
+        @Override
+        public void add(final double[] values, final int offset) {
+            final long n = ++count;
+            for (int j = 0; j < mean.length; j++) {
+                final double v = values[offset + j];
+                final double delta = v - mean[j];
+                mean[j] += delta / n;
+                m2[j] += delta * (v - mean[j]);
+            }
+        }
+
+        @Override
+        public Moments merge(final Moments other) {
+            if (other.count == 0) {
+                return this;
+            }
+            if (count == 0) {
+                return other;
+            }
+            final long n = count + other.count;
+            final double weight = (double) count * other.count / n;
+            for (int j = 0; j < mean.length; j++) {
+                final double delta = other.mean[j] - mean[j];
+                mean[j] += delta * other.count / n;
+                m2[j] += other.m2[j] + delta * delta * weight;
+            }
+            count = n;
+            return this;
+        }
+    }
+
     public static void main(String[] args) {
 
         TupleList tuples = generateRandomGaussianTuples(10000, 100, 25, new Random(), 0.15, 10.0);
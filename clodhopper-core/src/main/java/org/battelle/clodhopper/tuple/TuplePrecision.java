@@ -0,0 +1,64 @@
+package org.battelle.clodhopper.tuple;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * TuplePrecision.java
+ *
+ *===================================================================*/
+/**
+ * Enumeration of the numeric precisions in which tuple data may be stored.
+ * Regardless of the storage precision, <code>TupleList</code> instances always
+ * present their values as doubles.
+ * 
+ * <ul>
+ * <li>DOUBLE - values are stored as 8-byte doubles.
+ * <li>FLOAT  - values are stored as 4-byte floats, halving memory and I/O at the 
+ *              cost of precision.
+ * </ul>
+ *
+ * @since 2.0.1
+ *
+ */
+public enum TuplePrecision {
+    
+    DOUBLE(8),
+    FLOAT(4);
+    
+    private final int bytesPerValue;
+    
+    private TuplePrecision(final int bytesPerValue) {
+        this.bytesPerValue = bytesPerValue;
+    }
+    
+    /**
+     * Get the number of bytes required to store a single tuple value.
+     * 
+     * @return the number of bytes per value.
+     */
+    public int getBytesPerValue() {
+        return bytesPerValue;
+    }
+}
@@ -0,0 +1,322 @@
+package org.battelle.clodhopper.tuple;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import org.battelle.clodhopper.task.SharedWorkerPool;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * UniqueTuples.java
+ *
+ *===================================================================*/
+/**
+ * <p>
+ * Finds duplicate tuples in a <tt>TupleList</tt> by hashing their values, which
+ * takes expected linear time rather than the O(n log n) time, and the repeated
+ * tuple reads, of sorting the tuple indexes by value.</p>
+ * <p>
+ * The tuples are hashed in parallel, then split by hash into partitions which are
+ * deduplicated in parallel, each with its own open-addressing table. Tuples with
+ * equal hashes are compared value by value, so the results are exact. Two values
+ * are considered equal if they are numerically equal, so 0.0 equals -0.0, or if 
+ * both are NaN.</p>
+ *
+ * @since 2.0.1
+ */
+public final class UniqueTuples {
+
+    // Fewest tuples hashed by each task.
+    private static final int HASH_TASK_TUPLES = 4096;
+    // Fewer tuples than this are deduplicated in a single partition.
+    private static final int MIN_PARTITION_TUPLES = 8192;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private UniqueTuples() {
+    }
+
+    /**
+     * Counts the distinct tuples in a <tt>TupleList</tt> using the 
+     * <tt>SharedWorkerPool</tt>.
+     * 
+     * @param tuples the tuples to examine.
+     * 
+     * @return the number of distinct tuples.
+     */
+    public static int count(final TupleList tuples) {
+        return count(tuples, SharedWorkerPool.get());
+    }
+
+    /**
+     * Counts the distinct tuples in a <tt>TupleList</tt>.
+     * 
+     * @param tuples the tuples to examine.
+     * @param executor the executor on which to run the subtasks.
+     * 
+     * @return the number of distinct tuples.
+     */
+    public static int count(final TupleList tuples, final ExecutorService executor) {
+        int[] representatives = representatives(tuples, executor);
+        int count = 0;
+        for (int i = 0; i < representatives.length; i++) {
+            if (representatives[i] == i) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the distinct tuples in a <tt>TupleList</tt> on the calling thread, 
+     * stopping as soon as a limit is reached. The table grows only with the number
+     * of distinct tuples found, so this is cheap when the limit is small.
+     * 
+     * @param tuples the tuples to examine.
+     * @param limit the count at which to stop.
+     * 
+     * @return the number of distinct tuples or limit, whichever is smaller.
+     */
+    public static int countUpTo(final TupleList tuples, final int limit) {
+
+        final int tupleCount = tuples.getTupleCount();
+        final int maxCount = Math.min(tupleCount, limit);
+        if (maxCount <= 1) {
+            return Math.max(maxCount, 0);
+        }
+
+        final int capacity = Integer.highestOneBit(maxCount - 1) << 2;
+        final int mask = capacity - 1;
+        // Each slot holds the index of a representative, or -1.
+        final int[] slots = new int[capacity];
+        final long[] slotHashes = new long[capacity];
+        Arrays.fill(slots, -1);
+
+        final int tupleLength = tuples.getTupleLength();
+        final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+        final double[] candidate = new double[tupleLength];
+        double[] block = null;
+        int count = 0;
+
+        for (int first = 0; first < tupleCount; first += blockTuples) {
+            int blockCount = Math.min(blockTuples, tupleCount - first);
+            block = tuples.getTuples(first, blockCount, block);
+            for (int i = 0; i < blockCount; i++) {
+                final int offset = i * tupleLength;
+                final long h = hash(block, offset, tupleLength);
+                int slot = (int) h & mask;
+                int rep;
+                while ((rep = slots[slot]) >= 0) {
+                    if (slotHashes[slot] == h && valuesEqual(block, offset, 
+                            tuples.getTuple(rep, candidate), tupleLength)) {
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                if (rep < 0) {
+                    if (++count == maxCount) {
+                        return count;
+                    }
+                    slots[slot] = first + i;
+                    slotHashes[slot] = h;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds the duplicates in a <tt>TupleList</tt> using the <tt>SharedWorkerPool</tt>.
+     * 
+     * @param tuples the tuples to examine.
+     * 
+     * @return an array of length <code>tuples.getTupleCount()</code> holding, for 
+     *   each tuple, the lowest index of a tuple with the same values. Element i is
+     *   therefore i for the first occurrence of each distinct tuple.
+     */
+    public static int[] representatives(final TupleList tuples) {
+        return representatives(tuples, SharedWorkerPool.get());
+    }
+
+    /**
+     * Finds the duplicates in a <tt>TupleList</tt>.
+     * 
+     * @param tuples the tuples to examine.
+     * @param executor the executor on which to run the subtasks.
+     * 
+     * @return an array of length <code>tuples.getTupleCount()</code> holding, for 
+     *   each tuple, the lowest index of a tuple with the same values. Element i is
+     *   therefore i for the first occurrence of each distinct tuple.
+     */
+    public static int[] representatives(final TupleList tuples, final ExecutorService executor) {
+
+        final int tupleCount = tuples.getTupleCount();
+        final long[] hashes = new long[tupleCount];
+        final int[] representatives = new int[tupleCount];
+
+        if (tupleCount == 0) {
+            return representatives;
+        }
+
+        final int parallelism = SharedWorkerPool.parallelism(executor);
+        final int hashTasks = Math.max(1, Math.min(4 * parallelism, tupleCount / HASH_TASK_TUPLES));
+        SharedWorkerPool.forEach(executor, hashTasks, t -> hashTuples(tuples, hashes, 
+                (int) ((long) tupleCount * t / hashTasks), (int) ((long) tupleCount * (t + 1) / hashTasks)));
+
+        // Partitioned on the high bits of the hashes, leaving the low bits for the
+        // table slots.
+        int partitionBits = 0;
+        final int maxPartitions = Math.min(4 * parallelism, tupleCount / MIN_PARTITION_TUPLES);
+        while ((2 << partitionBits) <= maxPartitions) {
+            partitionBits++;
+        }
+        final int partitionCount = 1 << partitionBits;
+
+        // Counting sort of the indexes by partition, which keeps them in ascending
+        // order within each partition.
+        final int[] partitionStarts = new int[partitionCount + 1];
+        for (int i = 0; i < tupleCount; i++) {
+            partitionStarts[partition(hashes[i], partitionBits) + 1]++;
+        }
+        for (int p = 0; p < partitionCount; p++) {
+            partitionStarts[p + 1] += partitionStarts[p];
+        }
+        final int[] order = new int[tupleCount];
+        final int[] next = Arrays.copyOf(partitionStarts, partitionCount);
+        for (int i = 0; i < tupleCount; i++) {
+            order[next[partition(hashes[i], partitionBits)]++] = i;
+        }
+
+        SharedWorkerPool.forEach(executor, partitionCount, p -> dedup(tuples, hashes, order, 
+                partitionStarts[p], partitionStarts[p + 1], representatives));
+
+        return representatives;
+    }
+
+    /**
+     * Computes a 64-bit hash of a tuple's values, consistent with the equality used
+     * by this class.
+     * 
+     * @param values the array holding the values.
+     * @param offset the offset of the first value.
+     * @param length the number of values.
+     * 
+     * @return the hash.
+     */
+    static long hash(final double[] values, final int offset, final int length) {
+        long h = length;
+        for (int j = offset, end = offset + length; j < end; j++) {
+            double v = values[j];
+            // Folds -0.0 into 0.0. doubleToLongBits() already collapses the NaNs.
+            long bits = v == 0.0 ? 0L : Double.doubleToLongBits(v);
+            h = (h ^ bits) * GOLDEN_GAMMA;
+            h ^= h >>> 32;
+        }
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static boolean valuesEqual(final double[] values1, final double[] values2, final int length) {
+        return valuesEqual(values1, 0, values2, length);
+    }
+
+    private static boolean valuesEqual(final double[] values1, final int offset1, final double[] values2, 
+            final int length) {
+        for (int j = 0; j < length; j++) {
+            double v1 = values1[offset1 + j];
+            double v2 = values2[j];
+            if (v1 != v2 && !(Double.isNaN(v1) && Double.isNaN(v2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int partition(final long hash, final int partitionBits) {
+        return partitionBits == 0 ? 0 : (int) (hash >>> (64 - partitionBits));
+    }
+
+    // Hashes the tuples in [start, end), reading them in blocks.
+    private static void hashTuples(final TupleList tuples, final long[] hashes, final int start, final int end) {
+        final int tupleLength = tuples.getTupleLength();
+        final int blockTuples = TupleMath.tuplesPerBlock(tupleLength);
+        double[] block = null;
+        for (int first = start; first < end; first += blockTuples) {
+            int count = Math.min(blockTuples, end - first);
+            block = tuples.getTuples(first, count, block);
+            for (int i = 0; i < count; i++) {
+                hashes[first + i] = hash(block, i * tupleLength, tupleLength);
+            }
+        }
+    }
+
+    // Finds the representatives of the tuples listed in order[from, to), all of which
+    // fall in the same partition.
+    private static void dedup(final TupleList tuples, final long[] hashes, final int[] order, 
+            final int from, final int to, final int[] representatives) {
+        final int members = to - from;
+        if (members == 0) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(members, 2) - 1) << 2;
+        final int mask = capacity - 1;
+        // Each slot holds the index of a representative, or -1.
+        final int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+
+        final int tupleLength = tuples.getTupleLength();
+        final double[] buffer = new double[tupleLength];
+        final double[] candidate = new double[tupleLength];
+
+        for (int k = from; k < to; k++) {
+            final int i = order[k];
+            final long h = hashes[i];
+            boolean loaded = false;
+            int slot = (int) h & mask;
+            int rep;
+            while ((rep = slots[slot]) >= 0) {
+                if (hashes[rep] == h) {
+                    if (!loaded) {
+                        tuples.getTuple(i, buffer);
+                        loaded = true;
+                    }
+                    if (valuesEqual(buffer, tuples.getTuple(rep, candidate), tupleLength)) {
+                        break;
+                    }
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (rep < 0) {
+                slots[slot] = i;
+                rep = i;
+            }
+            representatives[i] = rep;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.battelle.clodhopper.util;
 
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 /*=====================================================================
@@ -34,6 +35,8 @@ import java.util.NoSuchElementException;
 public class ArrayIntIterator implements IntIterator {
 
 	private int[] values;
+	// The range of values iterated over is [from - to).
+	private int from, to;
 	private int cursor;
 	
 	public ArrayIntIterator(int[] values) {
@@ -41,15 +44,40 @@ public class ArrayIntIterator implements IntIterator {
 			throw new NullPointerException();
 		}
 		this.values = values;
+		this.to = values.length;
 	}
 	
+	/**
+	 * Constructs an iterator over a range of an array, which is not copied.
+	 * 
+	 * @param values the array of values.
+	 * @param from the index of the first value.
+	 * @param to the index (exclusive) after the last value.
+	 * 
+	 * @throws IndexOutOfBoundsException if the range is not within the array.
+	 * 
+	 * @since 2.0.1
+	 */
+	public ArrayIntIterator(int[] values, int from, int to) {
+		if (values == null) {
+			throw new NullPointerException();
+		}
+		if (from < 0 || to > values.length || from > to) {
+			throw new IndexOutOfBoundsException(String.format("invalid range [%d - %d) for length %d", 
+					from, to, values.length));
+		}
+		this.values = values;
+		this.from = from;
+		this.to = to;
+		this.cursor = from;
+	}
 	
 	public void gotoFirst() {
-		cursor = 0;
+		cursor = from;
 	}
 	
 	public void gotoLast() {
-		cursor = values.length;
+		cursor = to;
 	}
 	
 	public int getFirst() {
@@ -63,11 +91,11 @@ public class ArrayIntIterator implements IntIterator {
 	}
 	
 	public boolean hasNext() {
-		return cursor < values.length;
+		return cursor < to;
 	}
 	
 	public boolean hasPrev() {
-		return cursor > 0;
+		return cursor > from;
 	}
 
 	public int getNext() {
@@ -85,17 +113,20 @@ public class ArrayIntIterator implements IntIterator {
 	}
 
 	public int getSize() {
-		return values.length;
+		return to - from;
 	}
 	
 	public int[] toArray() {
-		return (int[]) values.clone();
+		return Arrays.copyOfRange(values, from, to);
 	}
 	
 	public IntIterator clone() {
 		try {
 			ArrayIntIterator clone = (ArrayIntIterator) super.clone();
 			clone.values = this.toArray();
+			clone.cursor -= from;
+			clone.from = 0;
+			clone.to = clone.values.length;
 			return clone;
 		} catch (CloneNotSupportedException e) {
 			throw new InternalError();
@@ -44,15 +44,35 @@ public class IntervalIntIterator implements IntIterator {
     
     /**
      * Constructor which takes the upper and lower bounds,
-     * inclusive of the lower bound, exclusive of the upper.
+     * both inclusive.
      * 
      * @param lower - the first element of the iteration.
-     * @param upper - the last element of the iteration plus 1.
+     * @param upper - the last element of the iteration.
      */
     public IntervalIntIterator (int lower, int upper) {
-        this.lower = Math.min(lower, upper);
-        this.upper = Math.max(lower, upper) + 1;
-        this.cursor = this.lower;
+        this(Math.min(lower, upper), Math.max(lower, upper) + 1, true);
+    }
+
+    // Takes the exclusive end. The flag only sets it apart from the public constructor.
+    private IntervalIntIterator (int lower, int end, boolean exclusive) {
+        this.lower = lower;
+        this.upper = end;
+        this.cursor = lower;
+    }
+
+    /**
+     * Returns an iterator over the elements from start, inclusive, to 
+     * end, exclusive, which is empty if end is not greater than start.
+     * 
+     * @param start - the first element of the iteration.
+     * @param end - the last element of the iteration plus 1.
+     * 
+     * @return the iterator.
+     * 
+     * @since 2.0.1
+     */
+    public static IntervalIntIterator range (int start, int end) {
+        return new IntervalIntIterator(start, Math.max(start, end), true);
     }
 
     @Override
@@ -2,14 +2,16 @@ package org.battelle.clodhopper.xmeans;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.battelle.clodhopper.AbstractClusterSplitter;
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.ClusterStats;
-import org.battelle.clodhopper.kmeans.KMeansClusterer;
-import org.battelle.clodhopper.kmeans.KMeansParams;
-import org.battelle.clodhopper.task.TaskOutcome;
+import org.battelle.clodhopper.ClusterSummary;
+import org.battelle.clodhopper.kmeans.KMeansKernel;
 import org.battelle.clodhopper.tuple.FilteredTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.slf4j.Logger;
@@ -56,16 +58,65 @@ public class XMeansClusterSplitter extends AbstractClusterSplitter {
 	private List<Cluster> clusters;
 	private XMeansParams params;
 	private double overallBIC;
+	// Summaries of the clusters, so their BICs can be recomputed without reading tuples.
+	// The first is only read, since it may be shared with other splitters.
+	private Map<Cluster, ClusterSummary> sharedSummaries;
+	private Map<Cluster, ClusterSummary> summaries = new IdentityHashMap<Cluster, ClusterSummary>();
+	// Supplies the working storage for the trial splits.
+	private KMeansKernel.WorkspacePool workspacePool;
 	
 	public XMeansClusterSplitter(TupleList tuples, 
 			List<Cluster> clusters, double overallBIC, XMeansParams params) {
-		if (tuples == null || clusters == null || params == null) {
+		this(tuples, clusters, overallBIC, params, Collections.<Cluster, ClusterSummary>emptyMap());
+	}
+	
+	/**
+	 * Constructor which takes the summaries of the clusters, which are used in 
+	 * computing BICs instead of reading the member tuples. The map is not modified, so
+	 * it may be shared by splitters running concurrently. Summaries of clusters not
+	 * in the map are computed as needed.
+	 * 
+	 * @param tuples the tuples that were clustered.
+	 * @param clusters the current clusters.
+	 * @param overallBIC the BIC of the current clusters.
+	 * @param params the x-means parameters.
+	 * @param summaries maps clusters to their summaries.
+	 * 
+	 * @since 2.0.1
+	 */
+	public XMeansClusterSplitter(TupleList tuples, 
+			List<Cluster> clusters, double overallBIC, XMeansParams params, 
+			Map<Cluster, ClusterSummary> summaries) {
+		this(tuples, clusters, overallBIC, params, summaries, new KMeansKernel.WorkspacePool());
+	}
+	
+	/**
+	 * Constructor which also takes the pool of workspaces used for the trial splits, 
+	 * so splitters may share working storage, including the contiguous copies of the 
+	 * clusters being split.
+	 * 
+	 * @param tuples the tuples that were clustered.
+	 * @param clusters the current clusters.
+	 * @param overallBIC the BIC of the current clusters.
+	 * @param params the x-means parameters.
+	 * @param summaries maps clusters to their summaries.
+	 * @param workspacePool the pool of workspaces.
+	 * 
+	 * @since 2.0.1
+	 */
+	public XMeansClusterSplitter(TupleList tuples, 
+			List<Cluster> clusters, double overallBIC, XMeansParams params, 
+			Map<Cluster, ClusterSummary> summaries, KMeansKernel.WorkspacePool workspacePool) {
+		if (tuples == null || clusters == null || params == null || summaries == null 
+				|| workspacePool == null) {
 			throw new NullPointerException();
 		}
 		this.tuples = tuples;
 		this.clusters = clusters;
 		this.params = params;
 		this.overallBIC = overallBIC;
+		this.sharedSummaries = summaries;
+		this.workspacePool = workspacePool;
 	}
 	
 	@Override
@@ -82,7 +133,7 @@ public class XMeansClusterSplitter extends AbstractClusterSplitter {
         
         double bicThreshold = overallBIC;
         if (!useOverallBIC) {
-            bicThreshold = ClusterStats.computeBIC(tuples, cluster);
+            bicThreshold = ClusterStats.computeBIC(summaryOf(cluster));
         }
         
         List<Cluster> result = null;
@@ -95,48 +146,66 @@ public class XMeansClusterSplitter extends AbstractClusterSplitter {
         	lim = Math.min(2, lim);
         }
         
-        for (int i=0; i<lim; i++) {
-        	
-            int splitDiv = SPLITS_TO_TRY[i];
-            
-            if (sz >= splitDiv) {
+        int[] members = cluster.getMembers().toArray();
+        KMeansKernel.Workspace workspace = workspacePool.acquire();
+        
+        try {
             
-            	try {
-				
-					List<Cluster> children = split(cluster, splitDiv);
-				
-	                int numChildren = children != null ? children.size() : 0;
-	                
-	                if (numChildren > 1) {
-	                    
-	                    double bic = 0;
-	                    
-	                    if (useOverallBIC) {
-	                        bic = ClusterStats.computeBIC(tuples, 
-	                                prepareClusterList(clusters, children, cluster));
-	                    } else {
-	                        bic = ClusterStats.computeBIC(tuples, children);
-	                    }
-	                
-	                    if (!Double.isNaN(bic) && bic > bicThreshold) {
-	                        result = children;
-	                        break;
-	                    }
-	                }
-	                
-	                if (numChildren < splitDiv) {
-	                    break;
-	                }
-
-            	} catch (Exception e) {
-
-            		LOGGER.error("problem splitting cluster", e);
-            		
-            	}
-            	
+            // Small enough clusters are copied once, and the trials read the copy. The 
+            // indexes of its tuples are positions in members.
+            TupleList source = tuples;
+            int[] sourceMembers = members;
+            if (params.shouldMaterialize(members.length, tuples.getTupleLength())) {
+            	source = workspace.materialize(tuples, members);
+            	sourceMembers = null;
             }
-            
-        } // for
+
+            for (int i=0; i<lim; i++) {
+
+                int splitDiv = SPLITS_TO_TRY[i];
+
+                if (sz >= splitDiv) {
+
+                	try {
+
+    					List<Cluster> children = split(source, sourceMembers, members, splitDiv, workspace);
+
+    	                int numChildren = children != null ? children.size() : 0;
+
+    	                if (numChildren > 1) {
+
+    	                    double bic = 0;
+
+    	                    if (useOverallBIC) {
+    	                        bic = ClusterStats.computeBIC(
+    	                                summarize(prepareClusterList(clusters, children, cluster)));
+    	                    } else {
+    	                        bic = ClusterStats.computeBIC(summarize(children));
+    	                    }
+
+    	                    if (!Double.isNaN(bic) && bic > bicThreshold) {
+    	                        result = children;
+    	                        break;
+    	                    }
+    	                }
+
+    	                if (numChildren < splitDiv) {
+    	                    break;
+    	                }
+
+                	} catch (Exception e) {
+
+                		LOGGER.error("problem splitting cluster", e);
+
+                	}
+
+                }
+
+            } // for
+        
+        } finally {
+        	workspacePool.release(workspace);
+        }
         
         if (result == null) {
             result = Arrays.asList(cluster);
@@ -145,56 +214,57 @@ public class XMeansClusterSplitter extends AbstractClusterSplitter {
         return result;
 	}
 
-    private List<Cluster> split(Cluster cluster, int howMany) throws Exception {
-        
-        int[] memberIndices = cluster.getMembers().toArray();
+    // Splits the cluster with the given members. If sourceMembers is null, source is a copy 
+    // of the members, and the children are summarized from it before their members are 
+    // translated back to indexes of tuples.
+    private List<Cluster> split(TupleList source, int[] sourceMembers, int[] members, int howMany, 
+    		KMeansKernel.Workspace workspace) {
         
-        FilteredTupleList fcs = new FilteredTupleList(memberIndices, tuples);
+        TupleList seeds = params.getClusterSeeder().generateSeeds(
+        		sourceMembers != null ? new FilteredTupleList(sourceMembers, source) : source, howMany,
+        		params.getExecutor());
         
-        KMeansParams kparams = new KMeansParams.Builder()
-        		.clusterCount(howMany)
-        		.movesGoal(0)
-        		.workerThreadCount(1) // Perform the split themselves in parallel, but use single-threaded kmeans on each split.
-        		.clusterSeeder(params.getClusterSeeder())
-        		.build();
+        List<Cluster> children = KMeansKernel.cluster(source, sourceMembers, seeds, params.getDistanceMetric(), 
+        		KMeansKernel.DEFAULT_MAX_ITERATIONS, workspace);
         
-        KMeansClusterer kmeans = new KMeansClusterer(fcs, kparams);
-        
-        // Call directly in this case.
-        kmeans.run();
+        if (sourceMembers != null) {
+        	return children;
+        }
         
-        if (kmeans.getTaskOutcome() == TaskOutcome.SUCCESS) {
-        	
-        	List<Cluster> kmeansClusters = kmeans.get();
-        	final int sz = kmeansClusters.size();
-        	
-        	// The member indexes need to be mapped back to indexes in tuples.
-        	//
-        	List<Cluster> splitClusters = new ArrayList<Cluster> (sz);
-        	for (int i=0; i<sz; i++) {
-        		Cluster c = kmeansClusters.get(i);
-        		int mc = c.getMemberCount();
-        		int[] translatedMembers = new int[mc];
-        		for (int j=0; j<mc; j++) {
-        			translatedMembers[j] = fcs.getFilteredIndex(c.getMember(j));
-        		}
-        		splitClusters.add(new Cluster(translatedMembers, c.getCenter()));
+        List<Cluster> splitClusters = new ArrayList<Cluster> (children.size());
+        for (Cluster local : children) {
+        	int mc = local.getMemberCount();
+        	int[] translatedMembers = new int[mc];
+        	for (int j=0; j<mc; j++) {
+        		translatedMembers[j] = members[local.getMember(j)];
         	}
-        	
-        	return splitClusters;
-        	
-        } else {
-        	
-        	LOGGER.error(String.format("kmeans outcome = %s\n", kmeans.getTaskOutcome()));
-        	
-        	if (kmeans.getTaskOutcome() == TaskOutcome.ERROR) {
-        		Throwable t = kmeans.getError(); 
-        		LOGGER.error("kmeans error", t);
-        	}
-        	
+        	Cluster child = new Cluster(translatedMembers, local.getCenter());
+        	summaries.put(child, ClusterSummary.of(source, local));
+        	splitClusters.add(child);
         }
         
-        return null;
+        return splitClusters;
+    }
+
+    // Returns the summary of a cluster, computing it if it's not in either map.
+    private ClusterSummary summaryOf(Cluster cluster) {
+        ClusterSummary summary = sharedSummaries.get(cluster);
+        if (summary == null) {
+            summary = summaries.get(cluster);
+        }
+        if (summary == null) {
+            summary = ClusterSummary.of(tuples, cluster);
+            summaries.put(cluster, summary);
+        }
+        return summary;
+    }
+
+    private List<ClusterSummary> summarize(List<Cluster> clusterList) {
+        List<ClusterSummary> result = new ArrayList<ClusterSummary>(clusterList.size());
+        for (Cluster c : clusterList) {
+            result.add(summaryOf(c));
+        }
+        return result;
     }
 
     private static List<Cluster> prepareClusterList(List<Cluster> clusterList,
@@ -1,10 +1,15 @@
 package org.battelle.clodhopper.xmeans;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.ClusterSplitter;
 import org.battelle.clodhopper.ClusterStats;
+import org.battelle.clodhopper.ClusterSummary;
 import org.battelle.clodhopper.Clusterer;
 import org.battelle.clodhopper.kmeans.KMeansSplittingClusterer;
 import org.battelle.clodhopper.tuple.TupleList;
@@ -42,6 +47,8 @@ public class XMeansClusterer extends KMeansSplittingClusterer
 	implements Clusterer {
 
 	private double overallBIC;
+	// Summaries of the clusters at the start of each iteration, shared by its splitters.
+	private Map<Cluster, ClusterSummary> summaries;
 	
 	public XMeansClusterer(TupleList tuples, XMeansParams params) {
 		super(tuples, params);
@@ -53,11 +60,20 @@ public class XMeansClusterer extends KMeansSplittingClusterer
 	}
 
 	protected void initializeIteration(List<Cluster> clusters) {
-		overallBIC = ClusterStats.computeBIC(tuples, clusters);
+		Map<Cluster, ClusterSummary> map = new IdentityHashMap<Cluster, ClusterSummary>();
+		List<ClusterSummary> summaryList = new ArrayList<ClusterSummary>(clusters.size());
+		for (Cluster c : clusters) {
+			ClusterSummary summary = ClusterSummary.of(tuples, c);
+			map.put(c, summary);
+			summaryList.add(summary);
+		}
+		overallBIC = ClusterStats.computeBIC(summaryList);
+		summaries = Collections.unmodifiableMap(map);
 	}
 	
 	protected ClusterSplitter createSplitter(List<Cluster> clusters, Cluster cluster) {
-		return new XMeansClusterSplitter(tuples, clusters, overallBIC, (XMeansParams) params);
+		return new XMeansClusterSplitter(tuples, clusters, overallBIC, (XMeansParams) params, summaries, 
+				workspacePool);
 	}
 
 }
@@ -0,0 +1,188 @@
+package org.battelle.clodhopper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.battelle.clodhopper.hierarchical.Dendrogram;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.battelle.clodhopper.util.ArrayIntIterator;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * ClusterSummaryTest.java
+ *
+ *===================================================================*/
+
+public class ClusterSummaryTest {
+
+	@Test
+	public void testSummaryStatistics() {
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(4, 500, 3, new Random(13L), 0.3, 0.3);
+		int[] first = new int[200];
+		int[] rest = new int[300];
+		for (int i=0; i<500; i++) {
+			if (i < 200) {
+				first[i] = i;
+			} else {
+				rest[i - 200] = i;
+			}
+		}
+		int[] all = new int[500];
+		for (int i=0; i<500; i++) {
+			all[i] = i;
+		}
+		
+		ClusterSummary whole = ClusterSummary.of(tuples, new ArrayIntIterator(all));
+		ClusterSummary part1 = ClusterSummary.of(tuples, new ArrayIntIterator(first));
+		ClusterSummary part2 = ClusterSummary.of(tuples, new ArrayIntIterator(rest));
+		
+		double[][] mv = ClusterStats.computeMeanAndVariance(tuples, new Cluster(all, whole.getMean()));
+		double[] mean = whole.getMean();
+		double[] variance = whole.getVariance();
+		double distortion = 0.0;
+		for (int j=0; j<4; j++) {
+			assertEquals(mv[j][0], mean[j], 1.0e-9);
+			assertEquals(mv[j][1], variance[j], 1.0e-9);
+			distortion += 500 * mv[j][1];
+		}
+		assertEquals(distortion, whole.getDistortion(), 1.0e-6);
+		
+		// Merging the parts gives the whole, and subtracting a part from the whole gives the other.
+		ClusterSummary merged = part1.copy().merge(part2);
+		ClusterSummary difference = whole.copy().subtract(part1);
+		assertEquals(500, merged.getCount());
+		assertEquals(300, difference.getCount());
+		assertArrayEquals(whole.getVariance(), merged.getVariance(), 1.0e-9);
+		assertArrayEquals(part2.getMean(), difference.getMean(), 1.0e-9);
+		assertArrayEquals(part2.getVariance(), difference.getVariance(), 1.0e-9);
+		
+		// Summaries built from assignments match those built from members.
+		int[] assignments = new int[500];
+		for (int i=200; i<500; i++) {
+			assignments[i] = 1;
+		}
+		ClusterSummary[] byAssignment = ClusterSummary.of(tuples, assignments, 2);
+		assertArrayEquals(part1.getVariance(), byAssignment[0].getVariance(), 0.0);
+		assertArrayEquals(part2.getVariance(), byAssignment[1].getVariance(), 0.0);
+		
+		List<Cluster> clusters = new ArrayList<Cluster>();
+		clusters.add(new Cluster(first, part1.getMean()));
+		clusters.add(new Cluster(rest, part2.getMean()));
+		List<ClusterSummary> summaries = new ArrayList<ClusterSummary>();
+		summaries.add(part1);
+		summaries.add(part2);
+		assertEquals(ClusterStats.computeBIC(tuples, clusters), ClusterStats.computeBIC(summaries), 0.0);
+	}
+
+	@Test
+	public void testLargeOffset() {
+		// Values of about 1e9 with unit spread, whose sums of squares cancel catastrophically.
+		Random random = new Random(23L);
+		int[] all = new int[1000];
+		int[] first = new int[400];
+		TupleList tuples = new ArrayTupleList(2, 1000);
+		for (int i=0; i<1000; i++) {
+			tuples.setTuple(i, new double[] { 1.0e9 + random.nextGaussian(), -3.0e9 + 2.0 * random.nextGaussian() });
+			all[i] = i;
+			if (i < 400) {
+				first[i] = i;
+			}
+		}
+		int[] rest = Arrays.copyOfRange(all, 400, 1000);
+		
+		ClusterSummary whole = ClusterSummary.of(tuples, new ArrayIntIterator(all));
+		ClusterSummary part1 = ClusterSummary.of(tuples, new ArrayIntIterator(first));
+		ClusterSummary part2 = ClusterSummary.of(tuples, new ArrayIntIterator(rest));
+		ClusterSummary difference = whole.copy().subtract(part1);
+		ClusterSummary merged = part1.copy().merge(part2);
+		ClusterSummary removed = whole.copy();
+		for (int i : first) {
+			removed.remove(tuples.getTuple(i, null));
+		}
+		
+		for (int j=0; j<2; j++) {
+			// Two passes, the first for the mean.
+			double mean = 0.0;
+			for (int i : rest) {
+				mean += tuples.getTupleValue(i, j);
+			}
+			mean /= rest.length;
+			double var = 0.0;
+			for (int i : rest) {
+				double d = tuples.getTupleValue(i, j) - mean;
+				var += d * d;
+			}
+			var /= rest.length;
+			assertEquals(var, part2.getVariance()[j], 1.0e-6 * var);
+			assertEquals(var, difference.getVariance()[j], 1.0e-4 * var);
+			assertEquals(var, removed.getVariance()[j], 1.0e-4 * var);
+			assertEquals(whole.getVariance()[j], merged.getVariance()[j], 1.0e-6 * var);
+		}
+	}
+
+	@Test
+	public void testDendrogramOptimalClusters() {
+		final int tupleCount = 120;
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(3, tupleCount, 4, new Random(17L), 0.2, 0.2);
+		
+		// Merge random pairs of nodes.
+		Random random = new Random(19L);
+		Dendrogram dendrogram = new Dendrogram(tupleCount);
+		List<Integer> active = new ArrayList<Integer>();
+		for (int i=0; i<tupleCount; i++) {
+			active.add(i);
+		}
+		double distance = 0.0;
+		while (active.size() > 1) {
+			int id1 = active.remove(random.nextInt(active.size()));
+			int id2 = active.remove(random.nextInt(active.size()));
+			distance += random.nextDouble();
+			active.add(dendrogram.mergeNodes(id1, id2, distance));
+		}
+		
+		// The clusters chosen from summaries are those a full BIC computation at each level chooses.
+		double maxBIC = -Double.MAX_VALUE;
+		List<Cluster> expected = null;
+		for (int numClusters = 1; numClusters <= tupleCount; numClusters++) {
+			List<Cluster> clusters = dendrogram.generateClusters(numClusters, tuples);
+			double bic = ClusterStats.computeBIC(tuples, clusters);
+			if (bic > maxBIC) {
+				maxBIC = bic;
+				expected = clusters;
+			} else if (bic < 0.0 || maxBIC / bic >= 2.0) {
+				break;
+			}
+		}
+		assertEquals(expected, dendrogram.generateOptimalClusters(tuples));
+	}
+}
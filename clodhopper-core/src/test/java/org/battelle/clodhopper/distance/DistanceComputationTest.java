@@ -142,6 +142,39 @@ public class DistanceComputationTest {
         }
     }
     
+    @Test
+    public void testBlockDistancesMatchArrayDistances() {
+        final int tupleLen = tuples[0].length;
+        // Pack the tuples into one block, as returned by TupleList.getTuples().
+        double[] block = new double[tuples.length * tupleLen];
+        for (int i = 0; i < tuples.length; i++) {
+            System.arraycopy(tuples[i], 0, block, i * tupleLen, tupleLen);
+        }
+        // Only implements distance(double[], double[]), so the default for blocks is used.
+        DistanceMetric arraysOnly = new DistanceMetric() {
+            @Override
+            public double distance(double[] tuple1, double[] tuple2) {
+                return metrics.get(0).distance(tuple1, tuple2);
+            }
+            @Override
+            public DistanceMetric clone() {
+                return this;
+            }
+        };
+        for (int i = 0; i < tuples.length; i++) {
+            for (int j = 0; j < tuples.length; j++) {
+                for (DistanceMetric dm : metrics) {
+                    if (dm.getClass() == CosineDistanceMetric.class && (isZeroTuple(tuples[i]) != isZeroTuple(tuples[j]))) {
+                        continue;
+                    }
+                    assertTrue("failed for metric: " + dm.getClass().getSimpleName(),
+                            dm.distance(block, i * tupleLen, tuples[j]) == dm.distance(tuples[i], tuples[j]));
+                }
+                assertTrue(arraysOnly.distance(block, i * tupleLen, tuples[j]) == arraysOnly.distance(tuples[i], tuples[j]));
+            }
+        }
+    }
+
     public static boolean isZeroTuple(double[] tuple) {
         for (int i = 0; i < tuple.length; i++) {
             if (Math.abs(tuple[i]) >= EPSILON) {
@@ -0,0 +1,69 @@
+package org.battelle.clodhopper.gmeans;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.task.TaskOutcome;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * GMeansTest.java
+ *
+ *===================================================================*/
+public class GMeansTest {
+
+	@Test
+	public void testMaterializedSplits() throws Exception {
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(4, 8000, 12, 
+				new Random(3579L), 0.05, 0.1);
+		
+		// Splitting copies of the clusters must give the same result as splitting in place.
+		List<Cluster> expected = null;
+		for (int limit : new int[] { 0, GMeansParams.DEFAULT_MATERIALIZATION_LIMIT }) {
+			GMeansParams params = new GMeansParams.Builder()
+					.minClusters(1)
+					.maxClusters(50)
+					.materializationLimit(limit)
+					.build();
+			GMeansClusterer gmeans = new GMeansClusterer(tuples, params);
+			gmeans.run();
+			assertTrue(gmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+			if (expected == null) {
+				expected = gmeans.get();
+				assertTrue(expected.size() > 1);
+			} else {
+				assertEquals(expected, gmeans.get());
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package org.battelle.clodhopper.kmeans;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * KMeansKernelTest.java
+ *
+ *===================================================================*/
+public class KMeansKernelTest {
+
+	@Test
+	public void testClusterSubset() {
+		
+		int tupleLength = 3;
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(tupleLength, 6000, 6, 
+				new Random(1111L), 0.1, 0.15);
+		EuclideanDistanceMetric metric = new EuclideanDistanceMetric();
+		KMeansKernel.Workspace workspace = new KMeansKernel.Workspace();
+		
+		// The workspace is reused for subsets and cluster counts of different sizes.
+		for (int k : new int[] { 4, 2, 7 }) {
+			
+			// Every third tuple.
+			int[] members = new int[tuples.getTupleCount() / 3];
+			for (int i=0; i<members.length; i++) {
+				members[i] = 3*i + 1;
+			}
+			
+			TupleList seeds = new ArrayTupleList(tupleLength, k);
+			for (int c=0; c<k; c++) {
+				seeds.setTuple(c, tuples.getTuple(members[c * 97], null));
+			}
+			
+			List<Cluster> clusters = KMeansKernel.cluster(tuples, members, seeds, metric, 
+					KMeansKernel.DEFAULT_MAX_ITERATIONS, workspace);
+			
+			assertEquals(k, clusters.size());
+			
+			int[] allMembers = new int[members.length];
+			int count = 0;
+			for (Cluster c : clusters) {
+				assertArrayEquals(TupleMath.average(tuples, c.getMembers()), c.getCenter(), 1e-9);
+				// Converged, so every member is nearest to its own center.
+				for (int i=0; i<c.getMemberCount(); i++) {
+					double[] tuple = tuples.getTuple(c.getMember(i), null);
+					double d = metric.distance(tuple, c.getCenter());
+					for (Cluster other : clusters) {
+						assertTrue(d <= metric.distance(tuple, other.getCenter()));
+					}
+					allMembers[count++] = c.getMember(i);
+				}
+			}
+			
+			Arrays.sort(allMembers);
+			assertArrayEquals(members, allMembers);
+		}
+	}
+}
@@ -4,14 +4,23 @@ import static org.junit.Assert.*;
 
 import org.battelle.clodhopper.Cluster;
 import org.battelle.clodhopper.Clusterer;
+import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
 import org.battelle.clodhopper.kmeans.KMeansClusterer;
 import org.battelle.clodhopper.kmeans.KMeansParams;
+import org.battelle.clodhopper.seeding.ClusterSeeder;
+import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.seeding.PreassignedSeeder;
 import org.battelle.clodhopper.task.*;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
 import org.battelle.clodhopper.tuple.TupleList;
 import org.battelle.clodhopper.tuple.TupleMath;
 import org.junit.Test;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*=====================================================================
  * 
@@ -107,4 +116,407 @@ public class KMeansTest {
 		}
 	}
 
+	@Test
+	public void testAssignmentStrategies() throws Exception {
+		
+		int tupleLength = 8;
+		int tupleCount = 4000;
+		int clusterCount = 50;
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(tupleLength, tupleCount, clusterCount, 
+				new Random(1234L), 0.1, 0.15);
+		
+		// STANDARD is first.
+		KMeansParams.AssignmentStrategy[] strategies = KMeansParams.AssignmentStrategy.values();
+		
+		long[] distanceCounts = new long[strategies.length];
+		int[][] assignments = new int[strategies.length][];
+		
+		for (int s = 0; s < strategies.length; s++) {
+			
+			CountingDistanceMetric distanceMetric = new CountingDistanceMetric();
+			
+			KMeansParams params = new KMeansParams.Builder()
+					.clusterCount(clusterCount)
+					.workerThreadCount(2)
+					.distanceMetric(distanceMetric)
+					.clusterSeeder(new KMeansPlusPlusSeeder(5678L, new Random(), new EuclideanDistanceMetric()))
+					.assignmentStrategy(strategies[s])
+					.build();
+			
+			KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+			kmeans.run();
+			
+			assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+			
+			List<Cluster> clusters = kmeans.get();
+			assignments[s] = new int[tupleCount];
+			for (int c = 0; c < clusters.size(); c++) {
+				Cluster cluster = clusters.get(c);
+				for (int m = 0; m < cluster.getMemberCount(); m++) {
+					assignments[s][cluster.getMember(m)] = c;
+				}
+			}
+			
+			distanceCounts[s] = distanceMetric.count.get();
+		}
+		
+		for (int s = 1; s < strategies.length; s++) {
+			assertArrayEquals(strategies[s].toString(), assignments[0], assignments[s]);
+			assertTrue(strategies[s].toString(), distanceCounts[s] < distanceCounts[0]);
+		}
+	}
+	
+	@Test
+	public void testCentersAreMemberMeans() throws Exception {
+		
+		int tupleLength = 4;
+		int tupleCount = 5000;
+		int clusterCount = 40;
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(tupleLength, tupleCount, clusterCount, 
+				new Random(2468L), 0.1, 0.15);
+		
+		// Late iterations have few moves, so most center updates are incremental.
+		KMeansParams params = new KMeansParams.Builder()
+				.clusterCount(clusterCount)
+				.clusterSeeder(new KMeansPlusPlusSeeder(1357L, new Random(), new EuclideanDistanceMetric()))
+				.build();
+		
+		KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+		kmeans.run();
+		
+		assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+		
+		for (Cluster c : kmeans.get()) {
+			double[] mean = TupleMath.average(tuples, c.getMembers());
+			assertArrayEquals(mean, c.getCenter(), 1e-9);
+		}
+	}
+	
+	@Test
+	public void testCentersIndependentOfWorkerCount() throws Exception {
+		
+		// A prime tuple count, so the tuple ranges summed by the workers have unequal lengths.
+		int tupleCount = 10007;
+		int clusterCount = 12;
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(5, tupleCount, clusterCount, 
+				new Random(7788L), 0.1, 0.15);
+		
+		List<Cluster> expected = null;
+		for (int workerCount : new int[] { 1, 3, 8 }) {
+			KMeansParams params = new KMeansParams.Builder()
+					.clusterCount(clusterCount)
+					.workerThreadCount(workerCount)
+					.clusterSeeder(new KMeansPlusPlusSeeder(9900L, new Random(), new EuclideanDistanceMetric()))
+					.build();
+			KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+			kmeans.run();
+			assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+			
+			List<Cluster> clusters = kmeans.get();
+			if (expected == null) {
+				expected = clusters;
+			} else {
+				// Partial sums are added in a different order, so centers may differ in the last bits.
+				assertEquals(expected.size(), clusters.size());
+				for (int c = 0; c < clusters.size(); c++) {
+					Cluster cluster = clusters.get(c);
+					assertEquals(expected.get(c).getMemberCount(), cluster.getMemberCount());
+					for (int m = 0; m < cluster.getMemberCount(); m++) {
+						assertEquals(expected.get(c).getMember(m), cluster.getMember(m));
+					}
+					assertArrayEquals(expected.get(c).getCenter(), cluster.getCenter(), 1e-12);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testSkewedClusterSizes() throws Exception {
+		
+		int[] blobSizes = { 20000, 3, 5, 8, 13 };
+		TupleList tuples = skewedBlobs(blobSizes, new Random(1122L));
+		
+		KMeansParams params = new KMeansParams.Builder()
+				.clusterCount(blobSizes.length)
+				.workerThreadCount(4)
+				.clusterSeeder(new PreassignedSeeder(blobCenters(blobSizes.length)))
+				.build();
+		
+		KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+		kmeans.run();
+		assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+		
+		List<Cluster> clusters = kmeans.get();
+		assertEquals(blobSizes.length, clusters.size());
+		for (int c = 0; c < blobSizes.length; c++) {
+			assertEquals(blobSizes[c], clusters.get(c).getMemberCount());
+		}
+		assertNearestCenterMemberships(tuples, clusters);
+	}
+	
+	@Test
+	public void testEmptyClusterReplacement() throws Exception {
+		
+		int[] blobSizes = { 20000, 3, 5, 8, 13 };
+		TupleList tuples = skewedBlobs(blobSizes, new Random(3344L));
+		
+		// The last seed is far from every tuple, so its cluster is empty after the first assignments.
+		// Since the first blob has two lobes, splitting it gives a lasting replacement.
+		TupleList blobCenters = blobCenters(blobSizes.length);
+		TupleList seeds = new ArrayTupleList(2, blobSizes.length + 1);
+		for (int c = 0; c < blobSizes.length; c++) {
+			seeds.setTuple(c, blobCenters.getTuple(c, null));
+		}
+		seeds.setTuple(blobSizes.length, new double[] { 1000.0, 1000.0 });
+		
+		for (boolean replace : new boolean[] { false, true }) {
+			
+			KMeansParams params = new KMeansParams.Builder()
+					.clusterCount(seeds.getTupleCount())
+					.workerThreadCount(4)
+					.replaceEmptyClusters(replace)
+					.clusterSeeder(new FixedInitialSeeder(seeds))
+					.build();
+			
+			KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+			kmeans.run();
+			assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+			
+			List<Cluster> clusters = kmeans.get();
+			if (replace) {
+				// The empty cluster took one lobe of the first blob.
+				assertEquals(seeds.getTupleCount(), clusters.size());
+				assertEquals(blobSizes[0] / 2, clusters.get(0).getMemberCount());
+				assertEquals(blobSizes[0] / 2, clusters.get(blobSizes.length).getMemberCount());
+				for (int c = 1; c < blobSizes.length; c++) {
+					assertEquals(blobSizes[c], clusters.get(c).getMemberCount());
+				}
+			} else {
+				// The empty cluster is dropped and the others are unaffected.
+				assertEquals(blobSizes.length, clusters.size());
+				for (int c = 0; c < blobSizes.length; c++) {
+					assertEquals(blobSizes[c], clusters.get(c).getMemberCount());
+				}
+			}
+			for (Cluster c : clusters) {
+				assertTrue(c.getMemberCount() > 0);
+				assertArrayEquals(TupleMath.average(tuples, c.getMembers()), c.getCenter(), 1e-9);
+			}
+			assertNearestCenterMemberships(tuples, clusters);
+		}
+	}
+	
+	// Supplies fixed initial centers, but k-means++ seeds for the splits made to replace empty clusters.
+	private static class FixedInitialSeeder implements ClusterSeeder {
+		
+		private final TupleList seeds;
+		private final ClusterSeeder splitSeeder = new KMeansPlusPlusSeeder(5566L, new Random(), new EuclideanDistanceMetric());
+		
+		FixedInitialSeeder(TupleList seeds) {
+			this.seeds = seeds;
+		}
+		
+		@Override
+		public TupleList generateSeeds(TupleList tuples, int seedCount) {
+			return seedCount == seeds.getTupleCount() ? seeds : splitSeeder.generateSeeds(tuples, seedCount);
+		}
+	}
+	
+	// Gaussian blobs with the given numbers of tuples, centered as given by blobCenters. The
+	// tuples of the first blob alternate between lobes 5 to either side of its center.
+	private static TupleList skewedBlobs(int[] blobSizes, Random random) {
+		int tupleCount = 0;
+		for (int size : blobSizes) {
+			tupleCount += size;
+		}
+		TupleList centers = blobCenters(blobSizes.length);
+		TupleList tuples = new ArrayTupleList(2, tupleCount);
+		double[] center = new double[2];
+		int n = 0;
+		for (int b = 0; b < blobSizes.length; b++) {
+			centers.getTuple(b, center);
+			for (int i = 0; i < blobSizes[b]; i++) {
+				double lobe = b == 0 ? (i % 2 == 0 ? 5.0 : -5.0) : 0.0;
+				tuples.setTuple(n++, new double[] { center[0] + lobe + random.nextGaussian(), center[1] + random.nextGaussian() });
+			}
+		}
+		return tuples;
+	}
+	
+	// The first blob is at the origin and the others are spaced around a circle of radius 100.
+	private static TupleList blobCenters(int blobCount) {
+		TupleList centers = new ArrayTupleList(2, blobCount);
+		for (int b = 1; b < blobCount; b++) {
+			double angle = 2.0 * Math.PI * b / (blobCount - 1);
+			centers.setTuple(b, new double[] { 100.0 * Math.cos(angle), 100.0 * Math.sin(angle) });
+		}
+		return centers;
+	}
+	
+	// Checks the memberships against those built the simple way: every tuple, in index order, 
+	// added to the cluster with the nearest center. At convergence, they must be the same.
+	private static void assertNearestCenterMemberships(TupleList tuples, List<Cluster> clusters) {
+		
+		DistanceMetric distanceMetric = new EuclideanDistanceMetric();
+		final int clusterCount = clusters.size();
+		
+		List<List<Integer>> expected = new ArrayList<>(clusterCount);
+		for (int c = 0; c < clusterCount; c++) {
+			expected.add(new ArrayList<Integer>());
+		}
+		
+		double[] buffer = new double[tuples.getTupleLength()];
+		for (int i = 0; i < tuples.getTupleCount(); i++) {
+			tuples.getTuple(i, buffer);
+			int nearest = 0;
+			double min = Double.MAX_VALUE;
+			for (int c = 0; c < clusterCount; c++) {
+				double d = distanceMetric.distance(buffer, clusters.get(c).getCenter());
+				if (d < min) {
+					min = d;
+					nearest = c;
+				}
+			}
+			expected.get(nearest).add(i);
+		}
+		
+		for (int c = 0; c < clusterCount; c++) {
+			Cluster cluster = clusters.get(c);
+			List<Integer> members = new ArrayList<>(cluster.getMemberCount());
+			for (int m = 0; m < cluster.getMemberCount(); m++) {
+				members.add(cluster.getMember(m));
+			}
+			assertEquals(expected.get(c), members);
+		}
+	}
+	
+	@Test
+	public void testInjectedExecutor() throws Exception {
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(3, 3000, 12, 
+				new Random(97531L), 0.1, 0.15);
+		
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			List<Cluster> expected = null;
+			// The second run reuses the pool left behind by the first.
+			for (ExecutorService executor : new ExecutorService[] { SharedWorkerPool.get(), pool, pool }) {
+				KMeansParams params = new KMeansParams.Builder()
+						.clusterCount(12)
+						.workerThreadCount(4)
+						.executor(executor)
+						.clusterSeeder(new KMeansPlusPlusSeeder(8642L, new Random(), new EuclideanDistanceMetric()))
+						.build();
+				KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+				kmeans.run();
+				assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+				assertFalse(executor.isShutdown());
+				if (expected == null) {
+					expected = kmeans.get();
+				} else {
+					assertEquals(expected, kmeans.get());
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testRestarts() throws Exception {
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(4, 6000, 15, 
+				new Random(24680L), 0.1, 0.15);
+		
+		KMeansParams single = new KMeansParams.Builder()
+				.clusterCount(15)
+				.clusterSeeder(new KMeansPlusPlusSeeder(1357L, new Random(), new EuclideanDistanceMetric()))
+				.build();
+		KMeansClusterer kmeans = new KMeansClusterer(tuples, single);
+		kmeans.run();
+		assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+		assertTrue(kmeans.getRestarts().isEmpty());
+		double singleDistortion = distortion(tuples, kmeans.get());
+		
+		KMeansParams params = new KMeansParams.Builder()
+				.clusterCount(15)
+				.restarts(8)
+				.workerThreadCount(4)
+				.clusterSeeder(new KMeansPlusPlusSeeder(1357L, new Random(), new EuclideanDistanceMetric()))
+				.build();
+		kmeans = new KMeansClusterer(tuples, params);
+		kmeans.run();
+		assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+		// The seeder's own seed is restored.
+		assertEquals(1357L, ((KMeansPlusPlusSeeder) params.getClusterSeeder()).getRandomGeneratorSeed());
+		
+		List<KMeansRestart> restarts = kmeans.getRestarts();
+		assertEquals(8, restarts.size());
+		
+		KMeansRestart best = null;
+		Set<Long> seeds = new HashSet<>();
+		for (KMeansRestart restart : restarts) {
+			seeds.add(restart.getRandomGeneratorSeed());
+			if (restart.isAbandoned()) {
+				assertTrue(Double.isNaN(restart.getDistortion()));
+			} else if (best == null || restart.getDistortion() < best.getDistortion()) {
+				best = restart;
+			}
+		}
+		assertEquals(8, seeds.size());
+		assertEquals(1357L, restarts.get(0).getRandomGeneratorSeed());
+		assertNotNull(best);
+		assertTrue(best.isBest());
+		
+		List<Cluster> clusters = kmeans.get();
+		assertEquals(best.getClusterCount(), clusters.size());
+		assertEquals(best.getDistortion(), distortion(tuples, clusters), 1e-9 * best.getDistortion());
+		assertTrue(best.getDistortion() <= singleDistortion * (1.0 + 1e-9));
+		
+		// The first restart reproduces the single clustering with the same seed.
+		if (!restarts.get(0).isAbandoned()) {
+			assertEquals(singleDistortion, restarts.get(0).getDistortion(), 1e-9 * singleDistortion);
+		}
+	}
+	
+	private static double distortion(TupleList tuples, List<Cluster> clusters) {
+		DistanceMetric distanceMetric = new EuclideanDistanceMetric();
+		double[] buffer = new double[tuples.getTupleLength()];
+		double distortion = 0.0;
+		for (Cluster cluster : clusters) {
+			double[] center = cluster.getCenter();
+			for (int i = 0; i < cluster.getMemberCount(); i++) {
+				double d = distanceMetric.distance(tuples.getTuple(cluster.getMember(i), buffer), center);
+				distortion += d * d;
+			}
+		}
+		return distortion;
+	}
+	
+	// Counts the distance computations. Clones share the count.
+	private static class CountingDistanceMetric extends EuclideanDistanceMetric {
+		
+		private AtomicLong count = new AtomicLong();
+		
+		@Override
+		public double distance(double[] tuple1, double[] tuple2) {
+			count.incrementAndGet();
+			return super.distance(tuple1, tuple2);
+		}
+		
+		@Override
+		public double distance(double[] block, int offset, double[] tuple2) {
+			count.incrementAndGet();
+			return super.distance(block, offset, tuple2);
+		}
+		
+		@Override
+		public DistanceMetric clone() {
+			return super.clone();
+		}
+	}
+
 }
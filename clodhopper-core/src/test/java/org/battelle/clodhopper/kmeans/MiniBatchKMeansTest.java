@@ -0,0 +1,98 @@
+package org.battelle.clodhopper.kmeans;
+
+import static org.junit.Assert.*;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.seeding.RandomSeeder;
+import org.battelle.clodhopper.task.TaskOutcome;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.junit.Test;
+import java.util.*;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * MiniBatchKMeansTest.java
+ *
+ *===================================================================*/
+
+public class MiniBatchKMeansTest {
+
+	@Test
+	public void testMiniBatchKMeans() throws Exception {
+		
+		int tupleLength = 5;
+		int tupleCount = 20000;
+		int clusterCount = 10;
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(tupleLength, tupleCount, clusterCount, 
+				new Random(4321L), 0.1, 0.15);
+		
+		MiniBatchKMeansParams params = new MiniBatchKMeansParams.Builder()
+				.clusterCount(clusterCount)
+				.batchSize(200)
+				.maxIterations(50)
+				.randomSeed(99L)
+				.clusterSeeder(new RandomSeeder(11L, new Random()))
+				.build();
+		
+		List<Cluster> clusters = run(tuples, params);
+		
+		assertTrue(clusters.size() > 0 && clusters.size() <= clusterCount);
+		
+		// Every tuple is a member of exactly one cluster.
+		boolean[] seen = new boolean[tupleCount];
+		for (Cluster c : clusters) {
+			for (int m = 0; m < c.getMemberCount(); m++) {
+				int member = c.getMember(m);
+				assertFalse(seen[member]);
+				seen[member] = true;
+			}
+		}
+		for (int i = 0; i < tupleCount; i++) {
+			assertTrue(seen[i]);
+		}
+		
+		// The same random seed gives the same clusters.
+		assertEquals(clusters, run(tuples, params));
+		
+		// Without the final pass, only the learned centers are returned.
+		params.setFinalAssignment(false);
+		List<Cluster> centersOnly = run(tuples, params);
+		assertEquals(clusterCount, centersOnly.size());
+		for (Cluster c : centersOnly) {
+			assertEquals(0, c.getMemberCount());
+			assertEquals(tupleLength, c.getCenterLength());
+		}
+	}
+	
+	private static List<Cluster> run(TupleList tuples, MiniBatchKMeansParams params) throws Exception {
+		MiniBatchKMeansClusterer clusterer = new MiniBatchKMeansClusterer(tuples, params);
+		clusterer.run();
+		assertTrue(clusterer.getTaskOutcome() == TaskOutcome.SUCCESS);
+		return clusterer.get();
+	}
+}
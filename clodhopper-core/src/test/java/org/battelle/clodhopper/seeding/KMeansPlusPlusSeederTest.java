@@ -0,0 +1,133 @@
+package org.battelle.clodhopper.seeding;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.task.SharedWorkerPool;
+import org.battelle.clodhopper.tuple.ArrayTupleList;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * KMeansPlusPlusSeederTest.java
+ *
+ *===================================================================*/
+public class KMeansPlusPlusSeederTest {
+
+	private static final int GROUPS = 10;
+	
+	// Tight groups of tuples centered at (10*g, 0, 0).
+	private static TupleList groupedTuples(int tupleCount, long randomSeed) {
+		Random random = new Random(randomSeed);
+		TupleList tuples = new ArrayTupleList(3, tupleCount);
+		double[] buffer = new double[3];
+		for (int i=0; i<tupleCount; i++) {
+			buffer[0] = 10.0 * (i % GROUPS) + random.nextGaussian() * 0.1;
+			buffer[1] = random.nextGaussian() * 0.1;
+			buffer[2] = random.nextGaussian() * 0.1;
+			tuples.setTuple(i, buffer);
+		}
+		return tuples;
+	}
+	
+	private static void checkSeeds(ClusterSeeder seeder, TupleList tuples) {
+		
+		TupleList seeds = seeder.generateSeeds(tuples, GROUPS);
+		assertEquals(GROUPS, seeds.getTupleCount());
+		
+		// Each group should contribute exactly one seed.
+		Set<Long> groups = new HashSet<>();
+		for (int i=0; i<GROUPS; i++) {
+			groups.add(Math.round(seeds.getTupleValue(i, 0) / 10.0));
+		}
+		assertEquals(GROUPS, groups.size());
+		
+		// The same generator seed must give the same seeds.
+		TupleList again = seeder.generateSeeds(tuples, GROUPS);
+		for (int i=0; i<GROUPS; i++) {
+			assertArrayEquals(seeds.getTuple(i, null), again.getTuple(i, null), 0.0);
+		}
+	}
+	
+	@Test
+	public void testKMeansPlusPlus() {
+		checkSeeds(new KMeansPlusPlusSeeder(1234L, new Random(), new EuclideanDistanceMetric()), 
+				groupedTuples(20000, 42L));
+	}
+	
+	@Test
+	public void testKMeansParallel() {
+		checkSeeds(new KMeansParallelSeeder(1234L, new Random(), new EuclideanDistanceMetric()), 
+				groupedTuples(20000, 42L));
+	}
+	
+	@Test
+	public void testTooFewDistinctTuples() {
+		TupleList tuples = new ArrayTupleList(2, 300);
+		for (int i=0; i<300; i++) {
+			tuples.setTuple(i, new double[] { i % 3, 0 });
+		}
+		ClusterSeeder[] seeders = { 
+				new KMeansPlusPlusSeeder(5L, new Random(), new EuclideanDistanceMetric()),
+				new KMeansParallelSeeder(5L, new Random(), new EuclideanDistanceMetric())
+		};
+		for (ClusterSeeder seeder : seeders) {
+			TupleList seeds = seeder.generateSeeds(tuples, 5);
+			assertEquals(3, seeds.getTupleCount());
+			Set<Double> distinct = new HashSet<>();
+			for (int i=0; i<seeds.getTupleCount(); i++) {
+				distinct.add(seeds.getTupleValue(i, 0));
+			}
+			assertEquals(3, distinct.size());
+		}
+	}
+	
+	@Test
+	public void testSeedArgument() {
+		TupleList tuples = groupedTuples(5000, 7L);
+		RandomSeeder[] seeders = {
+				new KMeansPlusPlusSeeder(11L, new Random(), new EuclideanDistanceMetric()),
+				new KMeansParallelSeeder(11L, new Random(), new EuclideanDistanceMetric()),
+				new KDTreeSeeder(11L, new Random())
+		};
+		for (RandomSeeder seeder : seeders) {
+			TupleList seeds = seeder.generateSeeds(tuples, GROUPS, 99L, SharedWorkerPool.get());
+			// The seed argument does not replace the seeder's own seed.
+			assertEquals(11L, seeder.getRandomGeneratorSeed());
+			seeder.setRandomGeneratorSeed(99L);
+			TupleList expected = seeder.generateSeeds(tuples, GROUPS);
+			assertEquals(expected.getTupleCount(), seeds.getTupleCount());
+			for (int i=0; i<seeds.getTupleCount(); i++) {
+				assertArrayEquals(expected.getTuple(i, null), seeds.getTuple(i, null), 0.0);
+			}
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package org.battelle.clodhopper.task;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.battelle.clodhopper.tuple.UniqueTuples;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * SharedWorkerPoolTest.java
+ *
+ *===================================================================*/
+public class SharedWorkerPoolTest {
+
+	@Test
+	public void testInvokeAllInterruptsTasks() throws Exception {
+
+		// ForkJoinPool.invokeAll neither responds to interrupts nor interrupts its tasks.
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			final CountDownLatch started = new CountDownLatch(2);
+			final CountDownLatch interrupted = new CountDownLatch(2);
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int i=0; i<2; i++) {
+				tasks.add(() -> {
+					started.countDown();
+					try {
+						Thread.sleep(60000L);
+					} catch (InterruptedException e) {
+						interrupted.countDown();
+					}
+					return null;
+				});
+			}
+
+			final AtomicBoolean waiterInterrupted = new AtomicBoolean();
+			Thread waiter = new Thread(() -> {
+				try {
+					SharedWorkerPool.invokeAll(pool, tasks);
+				} catch (InterruptedException e) {
+					waiterInterrupted.set(true);
+				}
+			});
+			waiter.start();
+
+			assertTrue(started.await(10L, TimeUnit.SECONDS));
+			waiter.interrupt();
+			waiter.join(10000L);
+
+			assertFalse(waiter.isAlive());
+			assertTrue(waiterInterrupted.get());
+			assertTrue(interrupted.await(10L, TimeUnit.SECONDS));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testForEach() throws Exception {
+
+		final AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
+			threads.incrementAndGet();
+			return new Thread(r, "custom-worker");
+		});
+
+		try {
+			final String[] names = new String[8];
+			SharedWorkerPool.forEach(executor, names.length, i -> names[i] = Thread.currentThread().getName());
+			for (String name : names) {
+				assertEquals("custom-worker", name);
+			}
+
+			try {
+				SharedWorkerPool.forEach(executor, 4, i -> {
+					if (i == 2) {
+						throw new IllegalStateException("task " + i);
+					}
+				});
+				fail("expected an IllegalStateException");
+			} catch (IllegalStateException e) {
+				assertEquals("task 2", e.getMessage());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertTrue(threads.get() > 0);
+	}
+
+	@Test
+	public void testHelpersUseExecutor() throws Exception {
+
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(4, 50000, 5, new Random(7L), 0.2, 1.0);
+
+		// Counts the tasks, so nothing is left to the common pool.
+		final AtomicInteger tasks = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		ExecutorService counting = new java.util.concurrent.AbstractExecutorService() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.incrementAndGet();
+				executor.execute(command);
+			}
+			@Override
+			public void shutdown() {
+				executor.shutdown();
+			}
+			@Override
+			public List<Runnable> shutdownNow() {
+				return executor.shutdownNow();
+			}
+			@Override
+			public boolean isShutdown() {
+				return executor.isShutdown();
+			}
+			@Override
+			public boolean isTerminated() {
+				return executor.isTerminated();
+			}
+			@Override
+			public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+				return executor.awaitTermination(timeout, unit);
+			}
+		};
+
+		try {
+			assertEquals(UniqueTuples.count(tuples), UniqueTuples.count(tuples, counting));
+			assertTrue(tasks.get() > 1);
+
+			tasks.set(0);
+			KMeansPlusPlusSeeder seeder = new KMeansPlusPlusSeeder(11L, new Random(), new EuclideanDistanceMetric());
+			TupleList seeds = seeder.generateSeeds(tuples, 5, counting);
+			assertEquals(5, seeds.getTupleCount());
+			assertTrue(tasks.get() > 1);
+		} finally {
+			counting.shutdown();
+		}
+	}
+}
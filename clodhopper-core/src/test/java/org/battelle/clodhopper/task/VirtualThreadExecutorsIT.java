@@ -0,0 +1,115 @@
+package org.battelle.clodhopper.task;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.kmeans.KMeansClusterer;
+import org.battelle.clodhopper.kmeans.KMeansParams;
+import org.battelle.clodhopper.seeding.KMeansPlusPlusSeeder;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * VirtualThreadExecutorsIT.java
+ *
+ *===================================================================*/
+/**
+ * Integration test for the Java 21 version of <tt>VirtualThreadExecutors</tt>. It is run
+ * by the failsafe plugin of the java21 profile against the packaged multi-release jar,
+ * since the class in <code>META-INF/versions/21</code> is only loaded from a jar.
+ */
+public class VirtualThreadExecutorsIT {
+
+	@Test
+	public void testJava21VersionIsLoaded() {
+		assertTrue(VirtualThreadExecutors.isAvailable());
+	}
+	
+	@Test
+	public void testSubtasksRunOnVirtualThreads() throws Exception {
+		
+		ExecutorService executor = VirtualThreadExecutors.newExecutor();
+		try {
+			List<Future<Thread>> futures = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(executor.submit(new Callable<Thread>() {
+					@Override
+					public Thread call() {
+						return Thread.currentThread();
+					}
+				}));
+			}
+			for (Future<Thread> future : futures) {
+				Thread thread = future.get();
+				// Thread.isVirtual() is not in the Java 8 API the tests are compiled against.
+				assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+				assertTrue(thread.getName().startsWith("clodhopper-virtual-"));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testKMeansMatchesSharedPool() throws Exception {
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(3, 40000, 8, new Random(1L), 0.1, 0.15);
+		final int workerCount = VirtualThreadExecutors.workerCount(tuples.getTupleCount());
+		
+		ExecutorService executor = VirtualThreadExecutors.newExecutor();
+		try {
+			List<Cluster> expected = null;
+			for (ExecutorService ex : new ExecutorService[] { SharedWorkerPool.get(), executor }) {
+				KMeansParams params = new KMeansParams.Builder()
+						.clusterCount(8)
+						.workerThreadCount(workerCount)
+						.executor(ex)
+						.clusterSeeder(new KMeansPlusPlusSeeder(1234L, new Random(), new EuclideanDistanceMetric()))
+						.build();
+				KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+				kmeans.run();
+				assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+				if (expected == null) {
+					expected = kmeans.get();
+				} else {
+					assertEquals(expected, kmeans.get());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package org.battelle.clodhopper.task;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import org.battelle.clodhopper.kmeans.KMeansClusterer;
+import org.battelle.clodhopper.kmeans.KMeansParams;
+import org.battelle.clodhopper.tuple.TupleList;
+import org.battelle.clodhopper.tuple.TupleMath;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * VirtualThreadExecutorsTest.java
+ *
+ *===================================================================*/
+public class VirtualThreadExecutorsTest {
+
+	@Test
+	public void testWorkerCount() {
+		assertEquals(1, VirtualThreadExecutors.workerCount(0));
+		assertEquals(1, VirtualThreadExecutors.workerCount(VirtualThreadExecutors.TUPLES_PER_CHUNK - 1));
+		assertEquals(3, VirtualThreadExecutors.workerCount(3 * VirtualThreadExecutors.TUPLES_PER_CHUNK + 5));
+		assertEquals(VirtualThreadExecutors.MAX_CHUNKS, VirtualThreadExecutors.workerCount(Integer.MAX_VALUE));
+	}
+	
+	@Test
+	public void testExecutor() throws Exception {
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(3, 40000, 8, new Random(1L), 0.1, 0.15);
+		
+		ExecutorService executor = VirtualThreadExecutors.newExecutor();
+		try {
+			if (!VirtualThreadExecutors.isAvailable()) {
+				// Before Java 21, a pool of platform threads of its own.
+				assertTrue(executor instanceof ForkJoinPool);
+				assertNotSame(SharedWorkerPool.get(), executor);
+			}
+			KMeansParams params = new KMeansParams.Builder()
+					.clusterCount(8)
+					.workerThreadCount(VirtualThreadExecutors.workerCount(tuples.getTupleCount()))
+					.executor(executor)
+					.build();
+			KMeansClusterer kmeans = new KMeansClusterer(tuples, params);
+			kmeans.run();
+			assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+			assertEquals(8, kmeans.get().size());
+		} finally {
+			executor.shutdown();
+		}
+		assertFalse(SharedWorkerPool.get().isShutdown());
+	}
+}
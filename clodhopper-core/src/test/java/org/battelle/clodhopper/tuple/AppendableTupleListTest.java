@@ -0,0 +1,82 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * AppendableTupleListTest.java
+ *
+ *===================================================================*/
+
+public class AppendableTupleListTest {
+
+	@Test
+	public void testReads() throws Exception {
+		
+		Random random = new Random(314L);
+		int tlen = 5;
+		int tcount = 103;
+		
+		TupleList arrayTuples = new ArrayTupleList(tlen, tcount);
+		// Forces 7 tuples per chunk, so reads cross chunk boundaries.
+		AppendableTupleList appendable = new AppendableTupleList(tlen, 7);
+		
+		double[] buffer = new double[tlen];
+		for (int i=0; i<tcount; i++) {
+			for (int j=0; j<tlen; j++) {
+				buffer[j] = random.nextDouble();
+			}
+			arrayTuples.setTuple(i, buffer);
+			assertEquals(i, appendable.append(buffer));
+		}
+		
+		for (TupleList tuples : new TupleList[] { appendable, appendable.snapshot() }) {
+			
+			assertTrue(FSTupleListFactoryTest.tupleListsEqual(arrayTuples, tuples));
+			assertArrayEquals(arrayTuples.getTuples(5, 20, null), tuples.getTuples(5, 20, null), 0.0);
+			
+			int[] indexes = { 102, 0, 6, 7, 55, 6 };
+			assertArrayEquals(arrayTuples.getTuples(indexes, 1, 5, null), tuples.getTuples(indexes, 1, 5, null), 0.0);
+			
+			try {
+				tuples.getTuples(new int[] { 3, tcount }, 0, 2, null);
+				fail("expected IndexOutOfBoundsException");
+			} catch (IndexOutOfBoundsException e) {
+				// Expected.
+			}
+			try {
+				tuples.getTuples(tcount - 3, 4, null);
+				fail("expected IndexOutOfBoundsException");
+			} catch (IndexOutOfBoundsException e) {
+				// Expected.
+			}
+		}
+	}
+}
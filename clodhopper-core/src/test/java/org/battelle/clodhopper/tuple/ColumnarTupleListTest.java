@@ -0,0 +1,97 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.ClusterStats;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.util.ArrayIntIterator;
+import org.battelle.clodhopper.util.IntIterator;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * ColumnarTupleListTest.java
+ *
+ *===================================================================*/
+
+public class ColumnarTupleListTest {
+
+	@Test
+	public void testColumnScansMatchRowMajor() {
+		
+		Random random = new Random();
+		TupleList rowTuples = TupleMath.generateRandomGaussianTuples(12, 500, 5, random, 0.2, 0.2);
+		ColumnarTupleList colTuples = ColumnarTupleList.copyOf(rowTuples);
+		
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(rowTuples, colTuples));
+		
+		// A subset of the tuples.
+		int[] ids = new int[200];
+		for (int i=0; i<ids.length; i++) {
+			ids[i] = random.nextInt(rowTuples.getTupleCount());
+		}
+		IntIterator it = new ArrayIntIterator(ids);
+		
+		assertArrayEquals(TupleMath.minCorner(rowTuples, it), TupleMath.minCorner(colTuples, it), 0.0);
+		it.gotoFirst();
+		assertArrayEquals(TupleMath.maxCorner(rowTuples, it), TupleMath.maxCorner(colTuples, it), 0.0);
+		
+		HyperRect rowBox = TupleMath.boundingBox(rowTuples, it);
+		HyperRect colBox = TupleMath.boundingBox(colTuples, it);
+		
+		for (int j=0; j<rowTuples.getTupleLength(); j++) {
+			assertEquals(rowBox.getMinCornerCoord(j), colBox.getMinCornerCoord(j), 0.0);
+			assertEquals(rowBox.getMaxCornerCoord(j), colBox.getMaxCornerCoord(j), 0.0);
+			assertEquals(TupleMath.median(rowTuples, j, it), TupleMath.median(colTuples, j, it), 0.0);
+			assertArrayEquals(rowTuples.getColumn(j, null), colTuples.getColumn(j, null), 0.0);
+		}
+		
+		Cluster cluster = new Cluster(ids, TupleMath.average(rowTuples, it));
+		double[][] rowStats = ClusterStats.computeMeanAndVariance(rowTuples, cluster);
+		double[][] colStats = ClusterStats.computeMeanAndVariance(colTuples, cluster);
+		for (int j=0; j<rowStats.length; j++) {
+			assertArrayEquals(rowStats[j], colStats[j], 1.0e-12);
+		}
+	}
+	
+	@Test
+	public void testBalancedKDTree() {
+		
+		Random random = new Random();
+		TupleList rowTuples = TupleMath.generateRandomGaussianTuples(5, 300, 4, random, 0.2, 0.2);
+		ColumnarTupleList colTuples = ColumnarTupleList.copyOf(rowTuples);
+		
+		TupleKDTree rowTree = TupleKDTree.forTupleListBalanced(rowTuples, new EuclideanDistanceMetric());
+		TupleKDTree colTree = TupleKDTree.forTupleListBalanced(colTuples, new EuclideanDistanceMetric());
+		
+		for (int i=0; i<rowTuples.getTupleCount(); i += 7) {
+			assertArrayEquals(rowTree.nearest(i, 5), colTree.nearest(i, 5));
+		}
+	}
+}
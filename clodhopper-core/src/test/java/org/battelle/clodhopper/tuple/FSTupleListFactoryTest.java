@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 import org.junit.*;
 import java.io.*;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /*=====================================================================
  * 
@@ -132,6 +133,193 @@ public class FSTupleListFactoryTest {
         
     }
 
+    @Test
+    public void testFloatPrecision() throws Exception {
+        
+        FSTupleListFactory factory = new FSTupleListFactory(dir, 24L*1024L, 48L*1024L, 24L*1024L, TuplePrecision.FLOAT);
+        
+        // 10 x 400 floats fits under the RAM threshold, whereas doubles would not.
+        TupleList tupleList1 = factory.createNewTupleList("one", 10, 400);
+        assertTrue(tupleList1 instanceof FloatArrayTupleList);
+        
+        TupleList tupleList2 = factory.createNewTupleList("two", 10, 1000);
+        assertTrue(tupleList2 instanceof FloatFileMappedTupleList);
+        
+        // Expected values, held separately since the file-backed tuples are closed below.
+        TupleList expected2 = new ArrayTupleList(10, 1000);
+        
+        Random random = new Random();
+        double[] buffer = new double[10];
+        for (int i=0; i<tupleList2.getTupleCount(); i++) {
+            for (int j=0; j<buffer.length; j++) {
+                buffer[j] = random.nextDouble();
+            }
+            if (i < tupleList1.getTupleCount()) {
+                tupleList1.setTuple(i, buffer);
+            }
+            tupleList2.setTuple(i, buffer);
+            tupleList2.getTuple(i, buffer);
+            for (int j=0; j<buffer.length; j++) {
+                assertTrue(buffer[j] == (float) buffer[j]);
+            }
+            expected2.setTuple(i, buffer);
+        }
+        
+        factory.closeAll();
+        
+        // A new factory should find both persisted tuple lists.
+        factory = new FSTupleListFactory(dir, 24L*1024L, 48L*1024L, 24L*1024L, TuplePrecision.FLOAT);
+        assertTrue(factory.hasTuplesFor("one"));
+        assertTrue(factory.hasTuplesFor("two"));
+        
+        TupleList tupleList1Copy = factory.openExistingTupleList("one");
+        assertTrue(tupleList1Copy instanceof FloatArrayTupleList);
+        assertTrue(tupleListsEqual(tupleList1, tupleList1Copy));
+        
+        TupleList tupleList2Copy = factory.openExistingTupleList("two");
+        assertTrue(tupleList2Copy instanceof FloatFileMappedTupleList);
+        assertTrue(tupleListsEqual(expected2, tupleList2Copy));
+        
+        factory.deleteTupleList(tupleList2Copy);
+        assertFalse(factory.hasTuplesFor("two"));
+        
+        factory.closeAll();
+    }
+
+    @Test
+    public void testQuantization() throws Exception {
+        
+        FSTupleListFactory factory = new FSTupleListFactory(dir, 24L*1024L, 48L*1024L, 24L*1024L);
+        
+        // 10 x 500 doubles needs a file, but fits under the RAM threshold as 16-bit codes.
+        TupleList tuples = factory.createNewTupleList("q", 10, 500);
+        assertTrue(tuples instanceof FileMappedTupleList);
+        
+        TupleList expected = TupleMath.generateRandomGaussianTuples(10, 500, 4, new Random(), 0.2, 0.2);
+        double[] buffer = new double[10];
+        for (int i=0; i<expected.getTupleCount(); i++) {
+            tuples.setTuple(i, expected.getTuple(i, buffer));
+        }
+        factory.closeTupleList(tuples);
+        
+        factory.setQuantization(QuantizedTupleList.Quantization.INT16);
+        TupleList quantized = factory.openExistingTupleList("q");
+        assertTrue(quantized instanceof QuantizedTupleList);
+        QuantizedTupleList q = (QuantizedTupleList) quantized;
+        
+        double[] buffer2 = new double[10];
+        for (int i=0; i<expected.getTupleCount(); i++) {
+            expected.getTuple(i, buffer);
+            quantized.getTuple(i, buffer2);
+            for (int j=0; j<buffer.length; j++) {
+                assertEquals(buffer[j], buffer2[j], q.getScale(j)/2 + 1.0e-12);
+            }
+        }
+        
+        try {
+            quantized.setTuple(0, buffer);
+            fail("quantized tuples should be read-only");
+        } catch (UnsupportedOperationException e) {
+        }
+        
+        // Closing leaves the unquantized data intact.
+        factory.closeTupleList(quantized);
+        factory.setQuantization(null);
+        TupleList reopened = factory.openExistingTupleList("q");
+        assertTrue(reopened instanceof FileMappedTupleList);
+        assertTrue(tupleListsEqual(expected, reopened));
+        
+        factory.closeAll();
+    }
+
+    @Test
+    public void testAppendable() throws Exception {
+        
+        FSTupleListFactory factory = new FSTupleListFactory(dir, 24L*1024L, 48L*1024L, 24L*1024L);
+        
+        TupleList expected = TupleMath.generateRandomGaussianTuples(10, 1000, 4, new Random(), 0.2, 0.2);
+        final AppendableTupleList tuples = factory.createAppendableTupleList("a", 10);
+        
+        // Snapshots taken while a producer appends must only hold complete tuples.
+        final TupleList source = expected;
+        Thread producer = new Thread() {
+            public void run() {
+                try {
+                    tuples.append(source);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        producer.start();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        int lastCount = 0;
+        while (lastCount < expected.getTupleCount()) {
+            assertTrue("timed out waiting for the producer", System.nanoTime() < deadline);
+            try (AppendableTupleList.Snapshot snapshot = tuples.snapshot()) {
+                int count = snapshot.getTupleCount();
+                assertTrue(count >= lastCount);
+                if (count > 0) {
+                    assertArrayEquals(expected.getTuple(count - 1, null), snapshot.getTuple(count - 1, null), 0.0);
+                }
+                lastCount = count;
+            }
+        }
+        producer.join(TimeUnit.SECONDS.toMillis(30));
+        assertFalse(producer.isAlive());
+        
+        assertTrue(tupleListsEqual(expected, tuples));
+        AppendableTupleList.Snapshot snapshot = tuples.snapshot();
+        FileMappedTupleListTest.assertBulkReadsMatch(expected, snapshot, new Random());
+        
+        // The file cannot be trimmed while a snapshot maps it.
+        try {
+            tuples.close();
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertTrue(tuples.isOpen());
+        snapshot.close();
+        
+        // Once closed, the file reopens as an ordinary tuple list.
+        factory.closeTupleList(tuples);
+        try {
+            tuples.snapshot();
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        TupleList reopened = factory.openExistingTupleList("a");
+        assertTrue(reopened instanceof FileMappedTupleList);
+        assertTrue(tupleListsEqual(expected, reopened));
+        
+        factory.closeAll();
+    }
+
+    @Test
+    public void testAppendableChunks() throws Exception {
+        AppendableTupleList tuples = new AppendableTupleList(3, 4);
+        ArrayTupleList expected = new ArrayTupleList(3, 10);
+        for (int i=0; i<10; i++) {
+            double[] t = new double[] { i, -i, i * 0.5 };
+            expected.setTuple(i, t);
+            assertEquals(i, tuples.append(t));
+        }
+        TupleList snapshot = tuples.snapshot();
+        tuples.append(new double[3]);
+        assertEquals(10, snapshot.getTupleCount());
+        assertEquals(11, tuples.getTupleCount());
+        // Block reads span chunk boundaries.
+        assertArrayEquals(expected.getTuples(2, 7, null), snapshot.getTuples(2, 7, null), 0.0);
+        assertArrayEquals(expected.getColumn(2, null), snapshot.getColumn(2, null), 0.0);
+        try {
+            tuples.setTuple(0, new double[3]);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
     public static boolean tupleListsEqual(TupleList tuples1, TupleList tuples2) {
         final int tupleLength = tuples1.getTupleLength();
         final int tupleCount = tuples1.getTupleCount();
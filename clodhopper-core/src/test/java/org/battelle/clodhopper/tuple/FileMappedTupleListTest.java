@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.battelle.clodhopper.tuple.ArrayTupleList;
 import org.battelle.clodhopper.tuple.FileMappedTupleList;
@@ -87,4 +88,192 @@ public class FileMappedTupleListTest {
 		fmTuples.close();
 	}
 
+
+	@Test
+	public void testMultipleSegments() throws Exception {
+
+		Random random = new Random();
+		int tlen = 3 + random.nextInt(10);
+		int tcount = 200 + random.nextInt(100);
+		// Small enough to force 7 tuples per segment.
+		int maxSegmentBytes = 8 * tlen * 7 + 3;
+
+		TupleList arrayTuples = new ArrayTupleList(tlen, tcount);
+		FileMappedTupleList fmTuples = FileMappedTupleList.createNew(tempFile, tlen, tcount, maxSegmentBytes);
+
+		assertEquals((tcount + 6)/7, fmTuples.getSegmentCount());
+
+		double[] buffer = new double[tlen];
+		for (int i=0; i<tcount; i++) {
+			for (int j=0; j<tlen; j++) {
+				buffer[j] = random.nextDouble();
+			}
+			arrayTuples.setTuple(i, buffer);
+			fmTuples.setTuple(i, buffer);
+		}
+
+		fmTuples.close();
+
+		// Reopen with the default segment size, so everything is in one segment.
+		fmTuples = FileMappedTupleList.openExisting(tempFile);
+		assertEquals(1, fmTuples.getSegmentCount());
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(arrayTuples, fmTuples));
+
+		for (int i=0; i<tcount; i++) {
+			for (int j=0; j<tlen; j++) {
+				assertTrue(arrayTuples.getTupleValue(i, j) == fmTuples.getTupleValue(i, j));
+			}
+		}
+
+		fmTuples.close();
+	}
+
+	@Test
+	public void testFloatMultipleSegments() throws Exception {
+
+		Random random = new Random();
+		int tlen = 3 + random.nextInt(10);
+		int tcount = 200 + random.nextInt(100);
+		// Small enough to force 7 tuples per segment.
+		int maxSegmentBytes = 4 * tlen * 7 + 3;
+
+		TupleList floatTuples = new FloatArrayTupleList(tlen, tcount);
+		FloatFileMappedTupleList fmTuples = FloatFileMappedTupleList.createNew(tempFile, tlen, tcount, maxSegmentBytes);
+
+		assertEquals((tcount + 6)/7, fmTuples.getSegmentCount());
+		assertEquals(8L + 4L * tlen * tcount, tempFile.length());
+
+		double[] buffer = new double[tlen];
+		for (int i=0; i<tcount; i++) {
+			for (int j=0; j<tlen; j++) {
+				buffer[j] = random.nextDouble();
+			}
+			floatTuples.setTuple(i, buffer);
+			fmTuples.setTuple(i, buffer);
+		}
+
+		assertBulkReadsMatch(floatTuples, fmTuples, random);
+		fmTuples.close();
+
+		assertTrue(FloatFileMappedTupleList.validateFile(tempFile));
+		assertFalse(FileMappedTupleList.validateFile(tempFile));
+
+		fmTuples = FloatFileMappedTupleList.openExisting(tempFile);
+		assertEquals(1, fmTuples.getSegmentCount());
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(floatTuples, fmTuples));
+		fmTuples.close();
+	}
+
+	@Test
+	public void testBulkReads() throws Exception {
+
+		Random random = new Random();
+		int tlen = 2 + random.nextInt(6);
+		int tcount = 100 + random.nextInt(100);
+		// Small enough to force 5 tuples per segment, so ranges straddle segments.
+		int maxSegmentBytes = 8 * tlen * 5;
+
+		TupleList arrayTuples = TupleMath.generateRandomGaussianTuples(tlen, tcount, 3, random, 0.2, 0.2);
+		FileMappedTupleList fmTuples = FileMappedTupleList.createNew(tempFile, tlen, tcount, maxSegmentBytes);
+		OffHeapTupleList offHeapTuples = new OffHeapTupleList(tlen, tcount);
+		double[] buffer = new double[tlen];
+		for (int i=0; i<tcount; i++) {
+			arrayTuples.getTuple(i, buffer);
+			fmTuples.setTuple(i, buffer);
+			offHeapTuples.setTuple(i, buffer);
+		}
+
+		assertBulkReadsMatch(arrayTuples, fmTuples, random);
+		assertBulkReadsMatch(arrayTuples, offHeapTuples, random);
+		assertBulkReadsMatch(arrayTuples, ColumnarTupleList.copyOf(arrayTuples), random);
+
+		int[] ids = new int[tcount/2];
+		for (int i=0; i<ids.length; i++) {
+			ids[i] = random.nextInt(tcount);
+		}
+		assertBulkReadsMatch(new FilteredTupleList(ids, arrayTuples), new FilteredTupleList(ids, fmTuples), random);
+
+		fmTuples.close();
+	}
+
+	// Compares getTuples() on actual with per-tuple reads from expected.
+	static void assertBulkReadsMatch(TupleList expected, TupleList actual, Random random) {
+		final int tlen = expected.getTupleLength();
+		final int tcount = expected.getTupleCount();
+		double[] block = null;
+		double[] buffer = new double[tlen];
+		for (int trial=0; trial<20; trial++) {
+			int start = random.nextInt(tcount);
+			int count = random.nextInt(tcount - start + 1);
+			block = actual.getTuples(start, count, block);
+			for (int i=0; i<count; i++) {
+				expected.getTuple(start + i, buffer);
+				for (int j=0; j<tlen; j++) {
+					assertTrue(buffer[j] == block[i*tlen + j]);
+				}
+			}
+			int[] indexes = new int[count];
+			for (int i=0; i<count; i++) {
+				indexes[i] = random.nextInt(tcount);
+			}
+			block = actual.getTuples(indexes, 0, count, block);
+			for (int i=0; i<count; i++) {
+				expected.getTuple(indexes[i], buffer);
+				for (int j=0; j<tlen; j++) {
+					assertTrue(buffer[j] == block[i*tlen + j]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+
+		final Random random = new Random();
+		final int tlen = 8;
+		final int tcount = 5000;
+
+		final TupleList arrayTuples = new ArrayTupleList(tlen, tcount);
+		final FileMappedTupleList fmTuples = FileMappedTupleList.createNew(tempFile, tlen, tcount, 8 * tlen * 100);
+
+		double[] buffer = new double[tlen];
+		for (int i=0; i<tcount; i++) {
+			for (int j=0; j<tlen; j++) {
+				buffer[j] = random.nextDouble();
+			}
+			arrayTuples.setTuple(i, buffer);
+			fmTuples.setTuple(i, buffer);
+		}
+
+		final int threadCount = 8;
+		ExecutorService threadPool = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Callable<Boolean>> readers = new ArrayList<>();
+			for (int t=0; t<threadCount; t++) {
+				final long seed = random.nextLong();
+				readers.add(() -> {
+					Random r = new Random(seed);
+					double[] expected = new double[tlen];
+					double[] actual = new double[tlen];
+					for (int k=0; k<20000; k++) {
+						int n = r.nextInt(tcount);
+						arrayTuples.getTuple(n, expected);
+						fmTuples.getTuple(n, actual);
+						if (!Arrays.equals(expected, actual)) {
+							return Boolean.FALSE;
+						}
+					}
+					return Boolean.TRUE;
+				});
+			}
+			for (Future<Boolean> f : threadPool.invokeAll(readers)) {
+				assertTrue(f.get());
+			}
+		} finally {
+			threadPool.shutdown();
+		}
+
+		fmTuples.close();
+	}
+
 }
@@ -0,0 +1,91 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * OffHeapTupleListTest.java
+ *
+ *===================================================================*/
+
+public class OffHeapTupleListTest {
+
+	@Test
+	public void testMultipleSegments() {
+		
+		Random random = new Random();
+		int tlen = 4 + random.nextInt(10);
+		int tcount = 500 + random.nextInt(500);
+		
+		for (TuplePrecision precision : TuplePrecision.values()) {
+			
+			// Forces 13 tuples per segment.
+			int maxSegmentBytes = precision.getBytesPerValue() * tlen * 13 + 1;
+			
+			TupleList arrayTuples = new ArrayTupleList(tlen, tcount);
+			OffHeapTupleList offHeapTuples = new OffHeapTupleList(tlen, tcount, precision, maxSegmentBytes);
+			
+			assertEquals(((long) precision.getBytesPerValue()) * tlen * tcount, offHeapTuples.getByteCount());
+			
+			double[] buffer = new double[tlen];
+			for (int i=0; i<tcount; i++) {
+				for (int j=0; j<tlen; j++) {
+					double d = random.nextDouble();
+					buffer[j] = precision == TuplePrecision.FLOAT ? (float) d : d;
+				}
+				arrayTuples.setTuple(i, buffer);
+				offHeapTuples.setTuple(i, buffer);
+			}
+			
+			assertTrue(FSTupleListFactoryTest.tupleListsEqual(arrayTuples, offHeapTuples));
+			
+			double[] column = offHeapTuples.getColumn(tlen - 1, null);
+			for (int i=0; i<tcount; i++) {
+				assertTrue(column[i] == arrayTuples.getTupleValue(i, tlen - 1));
+			}
+		}
+	}
+	
+	@Test
+	public void testFactories() {
+
+		assertTrue(OffHeapTupleList.fitsInArray(1000, 1000));
+		assertFalse(OffHeapTupleList.fitsInArray(64, 100000000));
+		
+		ArrayTupleListFactory factory = new ArrayTupleListFactory(TuplePrecision.FLOAT, true);
+		try {
+			TupleList tuples = factory.createNewTupleList("one", 10, 100);
+			assertTrue(tuples instanceof OffHeapTupleList);
+			assertEquals(TuplePrecision.FLOAT, ((OffHeapTupleList) tuples).getPrecision());
+		} catch (TupleListFactoryException e) {
+			fail(e.getMessage());
+		}
+	}
+}
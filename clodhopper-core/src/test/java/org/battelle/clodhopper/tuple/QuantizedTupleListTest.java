@@ -0,0 +1,98 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.battelle.clodhopper.distance.DistanceMetric;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * QuantizedTupleListTest.java
+ *
+ *===================================================================*/
+
+public class QuantizedTupleListTest {
+
+	@Test
+	public void testErrorBounds() {
+		
+		Random random = new Random();
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(6, 400, 5, random, 0.2, 0.2);
+		
+		for (QuantizedTupleList.Quantization quantization : QuantizedTupleList.Quantization.values()) {
+			
+			QuantizedTupleList quantized = QuantizedTupleList.quantize(tuples, quantization);
+			
+			// Each dequantized value is within half a scale step of the original, so a tuple
+			// is within this distance of its dequantized copy.
+			double maxError = 0;
+			for (int j=0; j<tuples.getTupleLength(); j++) {
+				double e = quantized.getScale(j)/2;
+				maxError += e*e;
+			}
+			maxError = Math.sqrt(maxError) + 1.0e-12;
+			
+			DistanceMetric metric = new EuclideanDistanceMetric();
+			double[] original = new double[tuples.getTupleLength()];
+			double[] dequantized = new double[tuples.getTupleLength()];
+			double[] other = new double[tuples.getTupleLength()];
+			double[] otherDequantized = new double[tuples.getTupleLength()];
+			
+			for (int i=0; i<tuples.getTupleCount(); i++) {
+				tuples.getTuple(i, original);
+				quantized.getTuple(i, dequantized);
+				assertTrue(metric.distance(original, dequantized) <= maxError);
+				
+				// By the triangle inequality, distances between dequantized tuples differ 
+				// from the original distances by at most twice that.
+				int k = random.nextInt(tuples.getTupleCount());
+				tuples.getTuple(k, other);
+				quantized.getTuple(k, otherDequantized);
+				assertEquals(metric.distance(original, other), metric.distance(dequantized, otherDequantized), 2*maxError);
+			}
+		}
+	}
+	
+	@Test
+	public void testReadOnly() {
+		
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(3, 50, 2, new Random(), 0.2, 0.2);
+		QuantizedTupleList quantized = QuantizedTupleList.quantize(tuples, QuantizedTupleList.Quantization.INT8);
+		double[] before = quantized.getTuple(0, null);
+		
+		try {
+			quantized.setTuple(0, new double[] { 0.5, 0.5, 0.5 });
+			fail("quantized tuples should be read-only");
+		} catch (UnsupportedOperationException e) {
+		}
+		
+		assertArrayEquals(before, quantized.getTuple(0, null), 0.0);
+	}
+}
@@ -0,0 +1,157 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.distance.CosineDistanceMetric;
+import org.battelle.clodhopper.distance.EuclideanDistanceMetric;
+import org.battelle.clodhopper.distance.SparseDistanceMetric;
+import org.battelle.clodhopper.distance.TanimotoDistanceMetric;
+import org.battelle.clodhopper.kmeans.KMeansClusterer;
+import org.battelle.clodhopper.kmeans.KMeansParams;
+import org.battelle.clodhopper.task.TaskOutcome;
+import org.battelle.clodhopper.util.ArrayIntIterator;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * SparseTupleListTest.java
+ *
+ *===================================================================*/
+
+public class SparseTupleListTest {
+
+	// Dense tuples with about 2% non-zeros and at least one non-zero each.
+	private static TupleList randomSparseTuples(int tupleLength, int tupleCount, Random random) {
+		TupleList tuples = new ArrayTupleList(tupleLength, tupleCount);
+		double[] buffer = new double[tupleLength];
+		for (int i=0; i<tupleCount; i++) {
+			Arrays.fill(buffer, 0.0);
+			buffer[random.nextInt(tupleLength)] = 1.0 + random.nextDouble();
+			for (int j=0; j<tupleLength; j++) {
+				if (random.nextDouble() < 0.02) {
+					buffer[j] = random.nextDouble();
+				}
+			}
+			tuples.setTuple(i, buffer);
+		}
+		return tuples;
+	}
+
+	@Test
+	public void testMatchesDense() {
+
+		Random random = new Random();
+		TupleList dense = randomSparseTuples(400, 250, random);
+		SparseTupleList sparse = SparseTupleList.copyOf(dense);
+
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(dense, sparse));
+		assertTrue(sparse.getNonZeroCount() < dense.getTupleCount() * dense.getTupleLength() / 10);
+		FileMappedTupleListTest.assertBulkReadsMatch(dense, sparse, random);
+
+		for (int j=0; j<dense.getTupleLength(); j += 13) {
+			assertArrayEquals(dense.getColumn(j, null), sparse.getColumn(j, null), 0.0);
+		}
+
+		int[] ids = new int[50];
+		for (int i=0; i<ids.length; i++) {
+			ids[i] = random.nextInt(dense.getTupleCount());
+		}
+		assertArrayEquals(TupleMath.average(dense, new ArrayIntIterator(ids)),
+				TupleMath.average(sparse, new ArrayIntIterator(ids)), 1.0e-12);
+
+		// Replacing tuples changes their non-zero counts and shifts the tuples following them.
+		double[] buffer = new double[dense.getTupleLength()];
+		for (int trial=0; trial<20; trial++) {
+			int n = random.nextInt(dense.getTupleCount());
+			Arrays.fill(buffer, 0.0);
+			int nnz = random.nextInt(30);
+			for (int k=0; k<nnz; k++) {
+				buffer[random.nextInt(buffer.length)] = random.nextDouble();
+			}
+			dense.setTuple(n, buffer);
+			sparse.setTuple(n, buffer);
+		}
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(dense, sparse));
+	}
+
+	@Test
+	public void testSparseMetricsMatchDense() {
+
+		Random random = new Random();
+		TupleList dense = randomSparseTuples(300, 40, random);
+		SparseTupleList sparse = SparseTupleList.copyOf(dense);
+		int[] indexes = sparse.getColumnIndexes();
+		double[] values = sparse.getNonZeroValues();
+
+		SparseDistanceMetric[] metrics = new SparseDistanceMetric[] {
+			new CosineDistanceMetric(), new EuclideanDistanceMetric(), new TanimotoDistanceMetric()
+		};
+
+		double[] t1 = new double[dense.getTupleLength()];
+		double[] t2 = new double[dense.getTupleLength()];
+		for (int i=0; i<dense.getTupleCount(); i++) {
+			dense.getTuple(i, t1);
+			for (int j=0; j<dense.getTupleCount(); j++) {
+				dense.getTuple(j, t2);
+				double t2Norm = TupleMath.dotProduct(t2, t2);
+				for (SparseDistanceMetric dm : metrics) {
+					double expected = dm.distance(t1, t2);
+					assertEquals(expected, dm.distance(indexes, values, sparse.getRowStart(i), sparse.getRowEnd(i),
+							indexes, values, sparse.getRowStart(j), sparse.getRowEnd(j)), 1.0e-9);
+					assertEquals(expected, dm.distance(indexes, values, sparse.getRowStart(i), sparse.getRowEnd(i),
+							t2, t2Norm), 1.0e-6);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testKMeansOnSparseTuples() throws Exception {
+
+		SparseTupleList sparse = SparseTupleList.copyOf(randomSparseTuples(500, 300, new Random()));
+
+		KMeansParams params = new KMeansParams.Builder()
+			.clusterCount(8)
+			.distanceMetric(new CosineDistanceMetric())
+			.build();
+		KMeansClusterer kmeans = new KMeansClusterer(sparse, params);
+		kmeans.run();
+
+		assertTrue(kmeans.getTaskOutcome() == TaskOutcome.SUCCESS);
+
+		List<Cluster> clusters = kmeans.get();
+		int memberCount = 0;
+		for (Cluster c : clusters) {
+			memberCount += c.getMemberCount();
+		}
+		assertEquals(sparse.getTupleCount(), memberCount);
+	}
+}
@@ -0,0 +1,271 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import org.battelle.clodhopper.task.ProgressHandler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * TupleIOTest.java
+ *
+ *===================================================================*/
+
+public class TupleIOTest {
+
+	private File csvFile;
+
+	@Before
+	public void setUp() throws Exception {
+		csvFile = File.createTempFile("tupleIO", ".csv");
+	}
+
+	@After
+	public void tearDown() {
+		if (csvFile != null) {
+			csvFile.delete();
+		}
+	}
+
+	@Test
+	public void testParallelLoadMatchesSequential() throws Exception {
+
+		Random random = new Random();
+		int rows = 40000;
+
+		// Large enough to be split into several ranges, with a header, an id column, 
+		// blank lines, and a mix of short and long numbers.
+		PrintWriter pw = new PrintWriter(csvFile, "UTF-8");
+		pw.println("id, x, y, z, w");
+		pw.println();
+		for (int i=0; i<rows; i++) {
+			pw.printf("row%d, %s, %.3f,%d,  %s\r\n", i, random.nextDouble(), 
+					1000.0 * random.nextGaussian(), random.nextInt(100) - 50, 
+					random.nextInt(10) == 0 ? "-1.5e-7" : Double.toString(random.nextGaussian() * 1.0e12));
+			if (i % 5000 == 0) {
+				pw.println("   ");
+			}
+		}
+		pw.close();
+
+		TupleListFactory factory = new ArrayTupleListFactory();
+		TupleList expected = TupleIO.loadCSV(csvFile, "sequential", factory);
+
+		// Records the largest fraction posted before the end.
+		final double[] maxFraction = new double[1];
+		ProgressHandler ph = new ProgressHandler(null, 0.0, 1.0) {
+			@Override
+			public void postFraction(double fraction) {
+				maxFraction[0] = Math.max(maxFraction[0], fraction);
+				super.postFraction(fraction);
+			}
+		};
+
+		TupleList actual = TupleIO.loadCSVParallel(csvFile, "parallel", factory, null, null, ph);
+
+		assertEquals(rows, actual.getTupleCount());
+		assertEquals(4, actual.getTupleLength());
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(expected, actual));
+		assertEquals(1.0, maxFraction[0], 1.0e-12);
+
+		// The same on a caller's executor.
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			actual = TupleIO.loadCSVParallel(csvFile, "parallel2", factory, executor, null, null);
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(expected, actual));
+	}
+
+	@Test
+	public void testParallelLoadErrors() throws Exception {
+
+		PrintWriter pw = new PrintWriter(csvFile, "UTF-8");
+		pw.println("1.0,2.0,3.0");
+		pw.println("4.0,oops,6.0");
+		pw.close();
+
+		TupleListFactory factory = new ArrayTupleListFactory();
+		try {
+			TupleIO.loadCSVParallel(csvFile, "bad", factory, null, null, null);
+			fail("expected an IOException");
+		} catch (java.io.IOException e) {
+			// Expected. The partially loaded tuples are deleted.
+			assertFalse(factory.hasTuplesFor("bad"));
+		}
+
+		FutureTask<Void> cancelled = new FutureTask<>(() -> null);
+		cancelled.cancel(false);
+		try {
+			TupleIO.loadCSVParallel(csvFile, "cancelled", factory, null, cancelled, null);
+			fail("expected a CancellationException");
+		} catch (CancellationException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testDatasetRoundTrip() throws Exception {
+
+		Random random = new Random();
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(7, 1000, 5, random, 0.2, 0.2);
+		String[] names = { "a", "b", "c", "d", "e", "f", "\u00e9t\u00e9" };
+
+		// 1000 tuples in chunks of 64, so the last chunk is short.
+		File doubleFile = File.createTempFile("dataset", ".dat");
+		doubleFile.deleteOnExit();
+		TupleIO.saveDataset(doubleFile, tuples, TuplePrecision.DOUBLE, names, 64);
+		DatasetTupleList dataset = TupleIO.openDataset(doubleFile, true);
+
+		assertEquals(TuplePrecision.DOUBLE, dataset.getPrecision());
+		assertEquals(16, dataset.getChunkCount());
+		assertEquals(1000 - 15*64, dataset.getChunkTupleCount(15));
+		assertEquals(names[6], dataset.getColumnName(6));
+		assertTrue(FSTupleListFactoryTest.tupleListsEqual(tuples, dataset));
+		FileMappedTupleListTest.assertBulkReadsMatch(tuples, dataset, random);
+		for (int j=0; j<tuples.getTupleLength(); j++) {
+			assertArrayEquals(tuples.getColumn(j, null), dataset.getColumn(j, null), 0.0);
+		}
+
+		for (int c=0; c<dataset.getChunkCount(); c++) {
+			int start = dataset.getChunkStart(c);
+			for (int j=0; j<tuples.getTupleLength(); j++) {
+				double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+				for (int i=start; i<start + dataset.getChunkTupleCount(c); i++) {
+					min = Math.min(min, tuples.getTupleValue(i, j));
+					max = Math.max(max, tuples.getTupleValue(i, j));
+				}
+				assertEquals(min, dataset.getChunkMin(c, j), 0.0);
+				assertEquals(max, dataset.getChunkMax(c, j), 0.0);
+			}
+		}
+		dataset.close();
+
+		// Float precision, default chunking. Uses a different file, since the first
+		// may still be mapped.
+		TupleIO.saveDataset(csvFile, tuples, TuplePrecision.FLOAT, null, 0);
+		dataset = TupleIO.openDataset(csvFile);
+		assertEquals(TuplePrecision.FLOAT, dataset.getPrecision());
+		assertEquals(1, dataset.getChunkCount());
+		assertEquals("", dataset.getColumnName(0));
+		for (int i=0; i<tuples.getTupleCount(); i++) {
+			for (int j=0; j<tuples.getTupleLength(); j++) {
+				assertTrue((float) tuples.getTupleValue(i, j) == dataset.getTupleValue(i, j));
+			}
+		}
+		dataset.close();
+
+		// Corrupting a data byte is detected by the chunk checksums.
+		java.io.RandomAccessFile raf = new java.io.RandomAccessFile(csvFile, "rw");
+		raf.seek(raf.length() - 3);
+		int b = raf.read();
+		raf.seek(raf.length() - 3);
+		raf.write(b ^ 0xff);
+		raf.close();
+		TupleIO.openDataset(csvFile).close();
+		try {
+			TupleIO.openDataset(csvFile, true);
+			fail("corruption not detected");
+		} catch (java.io.IOException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testDatasetMetadataTooLarge() throws Exception {
+		// One tuple per chunk with 2^16 columns needs 2^32 bytes of chunk extremes. The
+		// values are never read, since the size is checked first.
+		TupleList wide = new AbstractTupleList(1 << 16, 1 << 12) {
+			@Override
+			public void setTuple(int n, double[] values) {
+				throw new UnsupportedOperationException();
+			}
+			@Override
+			public double[] getTuple(int n, double[] reuseBuffer) {
+				throw new AssertionError("tuples should not be read");
+			}
+			@Override
+			public double getTupleValue(int n, int col) {
+				throw new AssertionError("tuples should not be read");
+			}
+		};
+		try {
+			TupleIO.saveDataset(csvFile, wide, TuplePrecision.DOUBLE, null, 1);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testParseDouble() {
+
+		String[] values = {
+			"0", "-0", "+1", "1.", ".5", "-.5", "123456789012345678", "1234567890123456789", 
+			"0.1", "0.30000000000000004", "1e22", "1e23", "1.5E-300", "4.9e-324", "-2.5e+10", 
+			"   7.25 ", "NaN", "-Infinity", "0.000000000000000000000000001", "9007199254740993",
+			"3.141592653589793", "1e-22", "100e-24"
+		};
+
+		for (String value : values) {
+			byte[] b = value.getBytes(StandardCharsets.US_ASCII);
+			assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+					Double.doubleToLongBits(TupleIO.parseDouble(b, 0, b.length)));
+		}
+
+		Random random = new Random();
+		for (int i=0; i<10000; i++) {
+			String value = random.nextBoolean() ? Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20))
+					: String.format("%.4f", random.nextDouble() * 1000);
+			byte[] b = value.getBytes(StandardCharsets.US_ASCII);
+			assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+					Double.doubleToLongBits(TupleIO.parseDouble(b, 0, b.length)));
+		}
+
+		for (String bad : new String[] { "", "-", "1e", "1.2.3", "abc", "1,5" }) {
+			byte[] b = bad.getBytes(StandardCharsets.US_ASCII);
+			try {
+				TupleIO.parseDouble(b, 0, b.length);
+				fail("parsed " + bad);
+			} catch (NumberFormatException e) {
+				// Expected.
+			}
+		}
+	}
+}
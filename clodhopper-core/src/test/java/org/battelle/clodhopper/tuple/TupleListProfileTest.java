@@ -0,0 +1,125 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * TupleListProfileTest.java
+ *
+ *===================================================================*/
+
+public class TupleListProfileTest {
+
+	// Draws each tuple from a smaller set of distinct rows.
+	private static TupleList tuplesWithDuplicates(int tupleLength, int tupleCount, int distinct, Random random) {
+		TupleList rows = TupleMath.generateRandomGaussianTuples(tupleLength, distinct, 5, random, 0.3, 0.3);
+		TupleList tuples = new ArrayTupleList(tupleLength, tupleCount);
+		double[] buffer = new double[tupleLength];
+		for (int i=0; i<tupleCount; i++) {
+			int row = i < distinct ? i : random.nextInt(distinct);
+			tuples.setTuple(i, rows.getTuple(row, buffer));
+		}
+		return tuples;
+	}
+
+	@Test
+	public void testUniqueTuples() {
+		Random random = new Random(1234L);
+		TupleList tuples = tuplesWithDuplicates(6, 40000, 777, random);
+		assertEquals(777, UniqueTuples.count(tuples));
+		
+		int[] reps = UniqueTuples.representatives(tuples);
+		double[] buffer1 = new double[6];
+		double[] buffer2 = new double[6];
+		for (int i=0; i<reps.length; i++) {
+			assertTrue(reps[i] <= i);
+			assertArrayEquals(tuples.getTuple(i, buffer1), tuples.getTuple(reps[i], buffer2), 0.0);
+		}
+		// The first occurrences are the first 777 tuples.
+		for (int i=0; i<777; i++) {
+			assertEquals(i, reps[i]);
+		}
+		
+		// 0.0 equals -0.0 and NaN equals NaN.
+		TupleList special = new ArrayTupleList(2, 4, new double[] {
+			0.0, Double.NaN, -0.0, Double.NaN, 0.0, 1.0, Double.NaN, 1.0
+		});
+		assertArrayEquals(new int[] { 0, 0, 2, 3 }, UniqueTuples.representatives(special));
+		assertEquals(0, UniqueTuples.count(new ArrayTupleList(3, 0)));
+	}
+
+	@Test
+	public void testCheckUniqueTupleCount() {
+		TupleList tuples = tuplesWithDuplicates(3, 10000, 50, new Random(2468L));
+		assertEquals(50, TupleMath.checkUniqueTupleCount(tuples, 1000));
+		assertEquals(50, TupleMath.checkUniqueTupleCount(tuples, 50));
+		assertEquals(20, TupleMath.checkUniqueTupleCount(tuples, 20));
+		assertEquals(1, TupleMath.checkUniqueTupleCount(tuples, 1));
+		assertEquals(0, TupleMath.checkUniqueTupleCount(new ArrayTupleList(3, 0), 5));
+		TupleListProfile.attach(tuples);
+		assertEquals(20, TupleMath.checkUniqueTupleCount(tuples, 20));
+	}
+
+	@Test
+	public void testProfile() throws Exception {
+		Random random = new Random(5678L);
+		TupleList tuples = tuplesWithDuplicates(4, 20000, 300, random);
+		
+		TupleListProfile profile = TupleListProfile.compute(tuples);
+		assertEquals(300, profile.getUniqueTupleCount());
+		assertEquals(20000, profile.getTupleCount());
+		
+		HyperRect expectedBox = TupleMath.boundingBox(tuples);
+		HyperRect box = profile.getBoundingBox();
+		for (int j=0; j<4; j++) {
+			assertEquals(expectedBox.getMinCornerCoord(j), box.getMinCornerCoord(j), 0.0);
+			assertEquals(expectedBox.getMaxCornerCoord(j), box.getMaxCornerCoord(j), 0.0);
+			double[] mv = TupleMath.meanAndVariance(tuples.getColumn(j, null));
+			assertEquals(mv[0], profile.getMean(j), 1.0e-9);
+			assertEquals(mv[1], profile.getVariance(j), 1.0e-9);
+		}
+		
+		// Once attached, the profile answers for the tuples until one is set.
+		assertNull(TupleListProfile.attached(tuples));
+		assertSame(TupleListProfile.attach(tuples), TupleListProfile.attached(tuples));
+		tuples.setTuple(0, new double[] { 1.0e6, 0, 0, 0 });
+		assertNull(TupleListProfile.attached(tuples));
+		assertEquals(301, TupleMath.uniqueTupleCount(tuples));
+		TupleListProfile.attach(tuples);
+		TupleListProfile.detach(tuples);
+		assertNull(TupleListProfile.attached(tuples));
+		
+		AppendableTupleList appendable = new AppendableTupleList(2);
+		appendable.append(new double[] { 1, 2 });
+		TupleListProfile.attach(appendable);
+		appendable.append(new double[] { 3, 4 });
+		assertNull(TupleListProfile.attached(appendable));
+	}
+}
@@ -0,0 +1,163 @@
+package org.battelle.clodhopper.tuple;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.battelle.clodhopper.Cluster;
+import org.battelle.clodhopper.ClusterStats;
+import org.battelle.clodhopper.util.ArrayIntIterator;
+import org.battelle.clodhopper.util.IntIterator;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * TupleMathTest.java
+ *
+ *===================================================================*/
+
+public class TupleMathTest {
+
+	@Test
+	public void testParallelReductions() {
+		Random random = new Random(2468L);
+		final int tupleLength = 5;
+		TupleList tuples = TupleMath.generateRandomGaussianTuples(tupleLength, 3 * TupleMath.PARALLEL_THRESHOLD, 6, random, 0.4, 0.4);
+		
+		// Every other tuple, so the parallel paths read through an index array.
+		int[] ids = new int[tuples.getTupleCount() / 2];
+		for (int i=0; i<ids.length; i++) {
+			ids[i] = 2*i + 1;
+		}
+		assertTrue(ids.length >= TupleMath.PARALLEL_THRESHOLD);
+		
+		// Sequential reference values.
+		double[] min = new double[tupleLength];
+		double[] max = new double[tupleLength];
+		double[] sum = new double[tupleLength];
+		double[] sumSq = new double[tupleLength];
+		Arrays.fill(min, Double.POSITIVE_INFINITY);
+		Arrays.fill(max, Double.NEGATIVE_INFINITY);
+		double[] column0 = new double[ids.length];
+		double[] buffer = new double[tupleLength];
+		for (int i=0; i<ids.length; i++) {
+			tuples.getTuple(ids[i], buffer);
+			for (int j=0; j<tupleLength; j++) {
+				min[j] = Math.min(min[j], buffer[j]);
+				max[j] = Math.max(max[j], buffer[j]);
+				sum[j] += buffer[j];
+				sumSq[j] += buffer[j] * buffer[j];
+			}
+			column0[i] = buffer[0];
+		}
+		
+		IntIterator it = new ArrayIntIterator(ids);
+		assertArrayEquals(min, TupleMath.minCorner(tuples, it), 0.0);
+		assertArrayEquals(max, TupleMath.maxCorner(tuples, it), 0.0);
+		HyperRect box = TupleMath.boundingBox(tuples, it);
+		double[] average = TupleMath.average(tuples, it);
+		double[][] mv = ClusterStats.computeMeanAndVariance(tuples, new Cluster(ids, average));
+		for (int j=0; j<tupleLength; j++) {
+			assertEquals(min[j], box.getMinCornerCoord(j), 0.0);
+			assertEquals(max[j], box.getMaxCornerCoord(j), 0.0);
+			double mean = sum[j] / ids.length;
+			assertEquals(mean, average[j], 1.0e-9);
+			assertEquals(mean, mv[j][0], 1.0e-9);
+			assertEquals((sumSq[j] - mean * sum[j]) / ids.length, mv[j][1], 1.0e-9);
+		}
+		
+		assertEquals(TupleMath.median(column0), TupleMath.median(tuples, 0, it), 0.0);
+		assertEquals(TupleMath.median(column0), TupleMath.median(ColumnarTupleList.copyOf(tuples), 0, it), 0.0);
+		
+		// The same on a caller's executor, and on the calling thread.
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (ExecutorService e : new ExecutorService[] { executor, null }) {
+				assertArrayEquals(average, TupleMath.average(tuples, it, e), 1.0e-9);
+				HyperRect b = TupleMath.boundingBox(tuples, it, e);
+				double[][] moments = TupleMath.meanAndVariance(tuples, it, e);
+				for (int j=0; j<tupleLength; j++) {
+					assertEquals(min[j], b.getMinCornerCoord(j), 0.0);
+					assertEquals(max[j], b.getMaxCornerCoord(j), 0.0);
+					assertEquals(mv[j][0], moments[j][0], 1.0e-9);
+					assertEquals(mv[j][1], moments[j][1], 1.0e-9);
+				}
+				assertEquals(TupleMath.median(column0), TupleMath.median(tuples, 0, it, e), 0.0);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testMedian() {
+		
+		Random random = new Random(1357L);
+		
+		assertTrue(Double.isNaN(TupleMath.median(new double[0])));
+		assertTrue(Double.isNaN(TupleMath.median(new double[] { Double.NaN, Double.NaN })));
+		assertEquals(2.0, TupleMath.median(new double[] { 3.0, Double.NaN, 1.0, 2.0 }), 0.0);
+		assertEquals(2.5, TupleMath.median(new double[] { 4.0, 1.0, Double.NaN, 3.0, 2.0 }), 0.0);
+		
+		for (int trial=0; trial<200; trial++) {
+			int n = trial < 100 ? trial + 1 : 1 + random.nextInt(100000);
+			double[] values = new double[n];
+			// Random, few distinct, ascending, and descending values, with some NaNs.
+			int kind = trial % 4;
+			for (int i=0; i<n; i++) {
+				switch (kind) {
+				case 0: values[i] = random.nextGaussian(); break;
+				case 1: values[i] = random.nextInt(3); break;
+				case 2: values[i] = i; break;
+				default: values[i] = n - i; break;
+				}
+				if (random.nextInt(20) == 0) {
+					values[i] = Double.NaN;
+				}
+			}
+			
+			double[] sorted = values.clone();
+			Arrays.sort(sorted);
+			int count = 0;
+			while (count < n && !Double.isNaN(sorted[count])) {
+				count++;
+			}
+			double expected = count == 0 ? Double.NaN : count % 2 == 1 ? sorted[count/2] 
+					: (sorted[count/2 - 1] + sorted[count/2]) / 2.0;
+			
+			double[] copy = values.clone();
+			assertEquals(expected, TupleMath.median(copy), 0.0);
+			// Not rearranged unless allowed.
+			for (int i=0; i<n; i++) {
+				assertEquals(Double.doubleToLongBits(values[i]), Double.doubleToLongBits(copy[i]));
+			}
+			assertEquals(expected, TupleMath.median(copy, true), 0.0);
+		}
+	}
+}
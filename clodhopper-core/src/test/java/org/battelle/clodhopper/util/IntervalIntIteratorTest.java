@@ -0,0 +1,59 @@
+package org.battelle.clodhopper.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * IntervalIntIteratorTest.java
+ *
+ *===================================================================*/
+public class IntervalIntIteratorTest {
+
+    @Test
+    public void testInclusiveBounds() {
+        IntervalIntIterator it = new IntervalIntIterator(2, 5);
+        assertEquals(4, it.getSize());
+        assertArrayEquals(new int[] { 2, 3, 4, 5 }, it.toArray());
+        assertEquals(2, it.getFirst());
+        assertEquals(5, it.getLast());
+        assertArrayEquals(new int[] { 3 }, new IntervalIntIterator(3, 3).toArray());
+    }
+
+    @Test
+    public void testRange() {
+        IntervalIntIterator it = IntervalIntIterator.range(2, 5);
+        assertArrayEquals(new int[] { 2, 3, 4 }, it.toArray());
+        int count = 0;
+        while (it.hasNext()) {
+            assertEquals(2 + count++, it.getNext());
+        }
+        assertEquals(3, count);
+        assertEquals(0, IntervalIntIterator.range(0, 0).getSize());
+        assertFalse(IntervalIntIterator.range(4, 4).hasNext());
+    }
+}
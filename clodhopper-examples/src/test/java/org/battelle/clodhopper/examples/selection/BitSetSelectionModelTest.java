@@ -0,0 +1,70 @@
+package org.battelle.clodhopper.examples.selection;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.battelle.clodhopper.util.IntIterator;
+import org.junit.Test;
+
+/*=====================================================================
+ * 
+ *                       CLODHOPPER CLUSTERING API
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Copyright (C) 2013 Battelle Memorial Institute 
+ * http://www.battelle.org
+ * 
+ * -------------------------------------------------------------------- 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ * -------------------------------------------------------------------- 
+ * *
+ * BitSetSelectionModelTest.java
+ *
+ *===================================================================*/
+public class BitSetSelectionModelTest {
+
+	@Test
+	public void testSelectAllReportsEveryIndex() {
+		
+		BitSetSelectionModel model = new BitSetSelectionModel(this, 100);
+		
+		final List<SelectionEvent> events = new ArrayList<>();
+		model.addSelectionListener(new SelectionListener() {
+			@Override
+			public void selectionChanged(SelectionEvent e) {
+				events.add(e);
+			}
+		});
+		
+		model.selectAll(this);
+		
+		assertEquals(1, events.size());
+		assertEquals(SelectionType.SELECT, events.get(0).getSelectType());
+		
+		final int indexCount = model.getIndexCount();
+		assertEquals(indexCount, model.getSelectedCount());
+		
+		IntIterator it = events.get(0).getIntIterator();
+		it.gotoFirst();
+		int expected = 0;
+		while (it.hasNext()) {
+			assertEquals(expected++, it.getNext());
+		}
+		assertEquals(indexCount, expected);
+	}
+}